@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Inputs shared by the benchmarks. Everything is generated from a fixed seed so that runs are comparable.
+ */
+public final class BenchmarkData {
+
+	public static final String LocalRack = "localRack";
+
+	private static final long Seed = 0x5DEECE66DL;
+	private static final char[] KeyChars = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789:_".toCharArray();
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * @param numHosts
+	 * @return one token per host, evenly spaced over the 32 bit token range like a Dynomite rack
+	 */
+	public static List<HostToken> hostTokens(int numHosts) {
+
+		List<HostToken> tokens = new ArrayList<HostToken>(numHosts);
+		long step = 0xFFFFFFFFL / numHosts;
+
+		for (int i = 0; i < numHosts; i++) {
+			Host host = new Host("host" + i, "127.0.0." + (i + 1), 8102, Status.Up).setRack(LocalRack);
+			tokens.add(new HostToken(step * i + step / 2, host));
+		}
+		return tokens;
+	}
+
+	/**
+	 * @param count
+	 * @param length
+	 * @return random keys of the given length
+	 */
+	public static String[] keys(int count, int length) {
+
+		Random random = new Random(Seed);
+		String[] keys = new String[count];
+
+		for (int i = 0; i < count; i++) {
+			char[] chars = new char[length];
+			for (int j = 0; j < length; j++) {
+				chars[j] = KeyChars[random.nextInt(KeyChars.length)];
+			}
+			keys[i] = new String(chars);
+		}
+		return keys;
+	}
+
+	/**
+	 * @param length
+	 * @return text that compresses about as well as typical JSON values do
+	 */
+	public static String text(int length) {
+
+		Random random = new Random(Seed);
+		String[] words = { "{\"id\":", "\"name\":", "\"value\":", "\"timestamp\":", "true", "false", "null", "},", "[", "]" };
+		StringBuilder sb = new StringBuilder(length + 16);
+
+		while (sb.length() < length) {
+			sb.append(words[random.nextInt(words.length)]);
+			sb.append(random.nextInt(100000));
+		}
+		sb.setLength(length);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.benchmarks.InMemoryConnectionFactory.InMemoryClient;
+import com.netflix.dyno.benchmarks.RoutingBenchmark.KeyOperation;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.ConnectionBorrowStrategy;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.LoadBalancingStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostSupplier;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Benchmarks {@link ConnectionPoolImpl#executeWithFailover} end to end against in memory connections.
+ *
+ * Run with <code>-prof gc</code> to see the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectionPoolBenchmark {
+
+	private static final int NumKeys = 1024;
+
+	@Param({ "12" })
+	public int numHosts;
+
+	@Param({ "TokenAware", "RoundRobin", "LeastOutstanding" })
+	public String loadBalancing;
+
+	@Param({ "Queue", "Striped" })
+	public String borrowStrategy;
+
+	private ConnectionPoolImpl<InMemoryClient> pool;
+	private KeyOperation[] ops;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next = 0;
+
+		int next() {
+			return next++ & (NumKeys - 1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		final List<HostToken> hostTokens = BenchmarkData.hostTokens(numHosts);
+		final List<Host> hosts = new ArrayList<Host>();
+		for (HostToken hostToken : hostTokens) {
+			hosts.add(hostToken.getHost());
+		}
+
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("ConnectionPoolBenchmark")
+				.setLoadBalancingStrategy(LoadBalancingStrategy.valueOf(loadBalancing))
+				.setConnectionBorrowStrategy(ConnectionBorrowStrategy.valueOf(borrowStrategy))
+				.setLocalRack(BenchmarkData.LocalRack)
+				.withHostSupplier(new HostSupplier() {
+					@Override
+					public Collection<Host> getHosts() {
+						return hosts;
+					}
+				})
+				.withTokenSupplier(new TokenMapSupplier() {
+					@Override
+					public List<HostToken> getTokens(Set<Host> activeHosts) {
+						return hostTokens;
+					}
+
+					@Override
+					public HostToken getTokenForHost(Host host, Set<Host> activeHosts) {
+						for (HostToken hostToken : hostTokens) {
+							if (hostToken.getHost().equals(host)) {
+								return hostToken;
+							}
+						}
+						return null;
+					}
+				});
+
+		pool = new ConnectionPoolImpl<InMemoryClient>(new InMemoryConnectionFactory(), config, new CountingConnectionPoolMonitor());
+		pool.start();
+
+		String[] keys = BenchmarkData.keys(NumKeys, 16);
+		ops = new KeyOperation[NumKeys];
+		for (int i = 0; i < NumKeys; i++) {
+			ops[i] = new KeyOperation(keys[i]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public OperationResult<String> executeWithFailover(Cursor cursor) {
+		return pool.executeWithFailover(ops[cursor.next()]);
+	}
+}
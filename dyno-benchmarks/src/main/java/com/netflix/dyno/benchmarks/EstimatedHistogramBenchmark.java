@@ -0,0 +1,74 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.impl.utils.EstimatedHistogram;
+
+/**
+ * Benchmarks recording latencies in an {@link EstimatedHistogram}. Run with several threads
+ * (<code>-t 4</code>) to include contention on the shared buckets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EstimatedHistogramBenchmark {
+
+	private static final int NumLatencies = 1024;
+
+	private final EstimatedHistogram histogram = new EstimatedHistogram();
+	private final long[] latencies = new long[NumLatencies];
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next = 0;
+
+		int next() {
+			return next++ & (NumLatencies - 1);
+		}
+	}
+
+	@Setup
+	public void setup() {
+		// latencies in micros, mostly around a millisecond with a long tail
+		Random random = new Random(NumLatencies);
+		for (int i = 0; i < NumLatencies; i++) {
+			latencies[i] = (long) Math.abs(1000 + random.nextGaussian() * 300) + (random.nextInt(100) == 0 ? 50000 : 0);
+		}
+	}
+
+	@Benchmark
+	public void add(Cursor cursor) {
+		histogram.add(latencies[cursor.next()]);
+	}
+}
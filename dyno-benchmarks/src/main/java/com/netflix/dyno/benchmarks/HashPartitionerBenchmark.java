@@ -0,0 +1,103 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.PrimitiveHashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur1HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur2HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur3HashPartitioner;
+
+/**
+ * Benchmarks hashing keys with the Murmur1, Murmur2 and Murmur3 partitioners, both boxed and to a primitive long
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashPartitionerBenchmark {
+
+	private static final int NumKeys = 1024;
+
+	@Param({ "Murmur1", "Murmur2", "Murmur3" })
+	public String partitioner;
+
+	@Param({ "8", "32", "128" })
+	public int keyLength;
+
+	private PrimitiveHashPartitioner hashPartitioner;
+	private String[] keys;
+	private byte[][] keyBytes;
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		if ("Murmur1".equals(partitioner)) {
+			hashPartitioner = new Murmur1HashPartitioner();
+		} else if ("Murmur2".equals(partitioner)) {
+			hashPartitioner = new Murmur2HashPartitioner();
+		} else {
+			hashPartitioner = new Murmur3HashPartitioner();
+		}
+		keys = BenchmarkData.keys(NumKeys, keyLength);
+		keyBytes = new byte[NumKeys][];
+		for (int i = 0; i < NumKeys; i++) {
+			keyBytes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	@Benchmark
+	public Long hashString() {
+		return hashPartitioner.hash(keys[next++ & (NumKeys - 1)]);
+	}
+
+	@Benchmark
+	public Long hashLong() {
+		return hashPartitioner.hash((long) next++);
+	}
+
+	@Benchmark
+	public long hashStringToLong() {
+		return hashPartitioner.hashToLong(keys[next++ & (NumKeys - 1)]);
+	}
+
+	@Benchmark
+	public long hashBytesToLong() {
+		byte[] key = keyBytes[next++ & (NumKeys - 1)];
+		return hashPartitioner.hashToLong(key, 0, key.length);
+	}
+
+	@Benchmark
+	public long hashLongToLong() {
+		return hashPartitioner.hashToLong((long) next++);
+	}
+}
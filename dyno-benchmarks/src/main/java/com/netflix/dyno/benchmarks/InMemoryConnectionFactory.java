@@ -0,0 +1,105 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+
+/**
+ * {@link ConnectionFactory} whose connections run operations directly against an {@link InMemoryClient}, so
+ * that the benchmarks only measure the client side of the connection pool and need no server.
+ */
+public class InMemoryConnectionFactory implements ConnectionFactory<InMemoryConnectionFactory.InMemoryClient> {
+
+	/**
+	 * The client handed to operations. It does nothing, operations decide what to return.
+	 */
+	public static class InMemoryClient {
+	}
+
+	@Override
+	public Connection<InMemoryClient> createConnection(HostConnectionPool<InMemoryClient> pool, ConnectionObservor observor)
+			throws DynoConnectException, ThrottledException {
+		return new InMemoryConnection(pool);
+	}
+
+	public static class InMemoryConnection implements Connection<InMemoryClient> {
+
+		private final HostConnectionPool<InMemoryClient> hostPool;
+		private final InMemoryClient client = new InMemoryClient();
+		private final ConnectionContextImpl context = new ConnectionContextImpl();
+
+		public InMemoryConnection(HostConnectionPool<InMemoryClient> hostPool) {
+			this.hostPool = hostPool;
+		}
+
+		@Override
+		public <R> OperationResult<R> execute(Operation<InMemoryClient, R> op) throws DynoException {
+			R result = op.execute(client, context);
+			return new OperationResultImpl<R>(op.getName(), result, null);
+		}
+
+		@Override
+		public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<InMemoryClient, R> op) throws DynoException {
+			throw new UnsupportedOperationException("Not Implemented");
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Host getHost() {
+			return hostPool.getHost();
+		}
+
+		@Override
+		public void open() throws DynoException {
+		}
+
+		@Override
+		public DynoConnectException getLastException() {
+			return null;
+		}
+
+		@Override
+		public HostConnectionPool<InMemoryClient> getParentConnectionPool() {
+			return hostPool;
+		}
+
+		@Override
+		public void execPing() {
+		}
+
+		@Override
+		public ConnectionContext getContext() {
+			return context;
+		}
+	}
+}
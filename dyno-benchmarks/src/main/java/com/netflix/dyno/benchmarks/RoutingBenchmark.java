@@ -0,0 +1,230 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.benchmarks.InMemoryConnectionFactory.InMemoryClient;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.ConnectionBorrowStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.HostConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.StripedHostConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.hash.BinarySearchTokenMapper;
+import com.netflix.dyno.connectionpool.impl.hash.DynoBinarySearch;
+import com.netflix.dyno.connectionpool.impl.hash.Murmur1HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.TokenRing;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+import com.netflix.dyno.connectionpool.impl.lb.TokenAwareSelection;
+
+/**
+ * Benchmarks the steps of routing an operation to a connection with token aware load balancing
+ *
+ * <pre>
+ * TokenAwareSelection.getPoolForOperation
+ *   -> BinarySearchTokenMapper.getToken
+ *     -> TokenRing.getTokenOwner
+ * HostConnectionPoolImpl.borrowConnection
+ * </pre>
+ *
+ * DynoBinarySearch.getTokenOwner, which the TokenRing replaced, is kept for comparison.
+ *
+ * The host pools use {@link InMemoryConnectionFactory}, no server is needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+
+	private static final int NumKeys = 1024;
+
+	@Param({ "3", "12", "48" })
+	public int numHosts;
+
+	@Param({ "Queue", "Striped" })
+	public String borrowStrategy;
+
+	private TokenAwareSelection<InMemoryClient> selection;
+	private BinarySearchTokenMapper tokenMapper;
+	private DynoBinarySearch<Long> binarySearch;
+	private TokenRing<HostToken> tokenRing;
+	private HostConnectionPool<InMemoryClient> firstPool;
+	private final List<HostConnectionPool<InMemoryClient>> pools = new ArrayList<HostConnectionPool<InMemoryClient>>();
+
+	private KeyOperation[] ops;
+	private Long[] keyHashes;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next = 0;
+
+		int next() {
+			return next++ & (NumKeys - 1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("RoutingBenchmark")
+				.setConnectionBorrowStrategy(ConnectionBorrowStrategy.valueOf(borrowStrategy));
+		CountingConnectionPoolMonitor monitor = new CountingConnectionPoolMonitor();
+		InMemoryConnectionFactory connFactory = new InMemoryConnectionFactory();
+
+		List<HostToken> hostTokens = BenchmarkData.hostTokens(numHosts);
+		Map<HostToken, HostConnectionPool<InMemoryClient>> hostPools = new HashMap<HostToken, HostConnectionPool<InMemoryClient>>();
+		Map<Long, HostToken> tokenOwners = new HashMap<Long, HostToken>();
+		List<Long> tokens = new ArrayList<Long>();
+
+		for (HostToken hostToken : hostTokens) {
+			HostConnectionPool<InMemoryClient> pool = newHostPool(hostToken.getHost(), connFactory, config, monitor);
+			pool.primeConnections();
+			pools.add(pool);
+			hostPools.put(hostToken, pool);
+			tokens.add(hostToken.getToken());
+			tokenOwners.put(hostToken.getToken(), hostToken);
+		}
+		firstPool = pools.get(0);
+
+		selection = new TokenAwareSelection<InMemoryClient>();
+		selection.initWithHosts(hostPools);
+
+		tokenMapper = new BinarySearchTokenMapper(new Murmur1HashPartitioner());
+		tokenMapper.initSearchMecahnism(hostTokens);
+
+		Collections.sort(tokens);
+		binarySearch = new DynoBinarySearch<Long>(tokens);
+		tokenRing = TokenRing.create(tokenOwners);
+
+		String[] keys = BenchmarkData.keys(NumKeys, 16);
+		ops = new KeyOperation[NumKeys];
+		keyHashes = new Long[NumKeys];
+		for (int i = 0; i < NumKeys; i++) {
+			ops[i] = new KeyOperation(keys[i]);
+			keyHashes[i] = tokenMapper.hash(keys[i]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for (HostConnectionPool<InMemoryClient> pool : pools) {
+			pool.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Long getTokenOwner(Cursor cursor) {
+		return binarySearch.getTokenOwner(keyHashes[cursor.next()]);
+	}
+
+	@Benchmark
+	public HostToken getTokenRingOwner(Cursor cursor) {
+		return tokenRing.getTokenOwner(keyHashes[cursor.next()]);
+	}
+
+	@Benchmark
+	public HostToken getToken(Cursor cursor) {
+		return tokenMapper.getToken(keyHashes[cursor.next()]);
+	}
+
+	@Benchmark
+	public HostConnectionPool<InMemoryClient> getPoolForOperation(Cursor cursor) {
+		return selection.getPoolForOperation(ops[cursor.next()]);
+	}
+
+	@Benchmark
+	public Connection<InMemoryClient> borrowAndReturnConnection() {
+		Connection<InMemoryClient> connection = firstPool.borrowConnection(100, TimeUnit.MILLISECONDS);
+		firstPool.returnConnection(connection);
+		return connection;
+	}
+
+	@Benchmark
+	public Connection<InMemoryClient> routeAndBorrowConnection(Cursor cursor) {
+		HostConnectionPool<InMemoryClient> pool = selection.getPoolForOperation(ops[cursor.next()]);
+		Connection<InMemoryClient> connection = pool.borrowConnection(100, TimeUnit.MILLISECONDS);
+		pool.returnConnection(connection);
+		return connection;
+	}
+
+	private static HostConnectionPool<InMemoryClient> newHostPool(Host host, InMemoryConnectionFactory connFactory,
+																  ConnectionPoolConfigurationImpl config,
+																  CountingConnectionPoolMonitor monitor) {
+		if (config.getConnectionBorrowStrategy() == ConnectionBorrowStrategy.Striped) {
+			return new StripedHostConnectionPoolImpl<InMemoryClient>(host, connFactory, config, monitor);
+		} else {
+			return new HostConnectionPoolImpl<InMemoryClient>(host, connFactory, config, monitor);
+		}
+	}
+
+	static class KeyOperation implements Operation<InMemoryClient, String> {
+
+		private final String key;
+
+		KeyOperation(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public String execute(InMemoryClient client, ConnectionContext state) throws DynoException {
+			return key;
+		}
+
+		@Override
+		public String getName() {
+			return "GET";
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
+	}
+}
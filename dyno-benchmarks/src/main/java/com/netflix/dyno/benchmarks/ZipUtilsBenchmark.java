@@ -0,0 +1,158 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.netflix.dyno.connectionpool.impl.compression.CompressionDictionary;
+import com.netflix.dyno.connectionpool.impl.compression.DeflateCodec;
+import com.netflix.dyno.connectionpool.impl.compression.DictionaryCodec;
+import com.netflix.dyno.connectionpool.impl.compression.DictionaryTrainer;
+import com.netflix.dyno.connectionpool.impl.compression.Lz4Codec;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodecs;
+import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
+
+/**
+ * Benchmarks the GZIP compression used for values above the compression threshold, and the codecs of the other
+ * compression strategies
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ZipUtilsBenchmark {
+
+	@Param({ "256", "4096", "65536" })
+	public int valueSize;
+
+	private String value;
+	private byte[] valueBytes;
+	private String compressedBase64;
+	private byte[] compressedBytes;
+
+	private final DeflateCodec deflate = new DeflateCodec();
+	private final Lz4Codec lz4 = new Lz4Codec();
+	private String deflatedBase64;
+	private byte[] deflatedBytes;
+	private byte[] lz4Bytes;
+	private DictionaryCodec dictionary;
+	private byte[] dictionaryBytes;
+
+	@Setup
+	public void setup() throws IOException {
+		value = BenchmarkData.text(valueSize);
+		valueBytes = value.getBytes(StandardCharsets.UTF_8);
+		compressedBase64 = ZipUtils.compressStringToBase64String(value);
+		compressedBytes = ZipUtils.compressBytesNonBase64(valueBytes);
+		deflatedBase64 = ValueCodecs.compressToBase64String(deflate, value);
+		deflatedBytes = ValueCodecs.compress(deflate, valueBytes);
+		lz4Bytes = ValueCodecs.compress(lz4, valueBytes);
+
+		// a 4KB dictionary trained on other pieces of the same kind of text
+		byte[] text = BenchmarkData.text(1 << 20).getBytes(StandardCharsets.UTF_8);
+		List<byte[]> samples = new ArrayList<byte[]>();
+		for (int i = 0; i < text.length; i += 512) {
+			samples.add(Arrays.copyOfRange(text, i, i + 512));
+		}
+		DictionaryCodec.load(new CompressionDictionary(1, DictionaryTrainer.train(samples, 4096)));
+		dictionary = DictionaryCodec.forDictionary(1);
+		dictionaryBytes = ValueCodecs.compress(dictionary, valueBytes);
+	}
+
+	@Benchmark
+	public String compressStringToBase64String() throws IOException {
+		return ZipUtils.compressStringToBase64String(value);
+	}
+
+	@Benchmark
+	public String decompressFromBase64String() throws IOException {
+		return ZipUtils.decompressFromBase64String(compressedBase64);
+	}
+
+	@Benchmark
+	public byte[] compressBytes() throws IOException {
+		return ZipUtils.compressBytesNonBase64(valueBytes);
+	}
+
+	@Benchmark
+	public byte[] decompressBytes() throws IOException {
+		return ZipUtils.decompressBytesNonBase64(compressedBytes);
+	}
+
+	@Benchmark
+	public boolean isCompressed() throws IOException {
+		return ZipUtils.isCompressed(compressedBase64);
+	}
+
+	@Benchmark
+	public String deflateToBase64String() throws IOException {
+		return ValueCodecs.compressToBase64String(deflate, value);
+	}
+
+	@Benchmark
+	public String inflateFromBase64String() throws IOException {
+		return ValueCodecs.decompressFromBase64String(deflatedBase64);
+	}
+
+	@Benchmark
+	public byte[] deflateBytes() throws IOException {
+		return ValueCodecs.compress(deflate, valueBytes);
+	}
+
+	@Benchmark
+	public byte[] inflateBytes() throws IOException {
+		return ValueCodecs.decompress(deflatedBytes);
+	}
+
+	@Benchmark
+	public byte[] lz4CompressBytes() throws IOException {
+		return ValueCodecs.compress(lz4, valueBytes);
+	}
+
+	@Benchmark
+	public byte[] lz4DecompressBytes() throws IOException {
+		return ValueCodecs.decompress(lz4Bytes);
+	}
+
+	@Benchmark
+	public byte[] dictionaryCompressBytes() throws IOException {
+		return ValueCodecs.compress(dictionary, valueBytes);
+	}
+
+	@Benchmark
+	public byte[] dictionaryDecompressBytes() throws IOException {
+		return ValueCodecs.decompress(dictionaryBytes);
+	}
+}
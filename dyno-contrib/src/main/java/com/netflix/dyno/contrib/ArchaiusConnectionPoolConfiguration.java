@@ -38,6 +38,11 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 	
 	private final DynamicIntProperty port;
 	private final DynamicIntProperty maxConnsPerHost;
+	private final DynamicIntProperty minConnsPerHost;
+	private final DynamicIntProperty poolGrowBorrowLatencyMicros;
+	private final DynamicIntProperty poolSizingIntervalSeconds;
+	private final DynamicIntProperty primeConnectionsParallelism;
+	private final DynamicIntProperty minPrimedConnsPerHost;
 	private final DynamicIntProperty maxTimeoutWhenExhausted;
 	private final DynamicIntProperty maxFailoverCount;
 	private final DynamicIntProperty connectTimeout;
@@ -49,11 +54,40 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
     private final DynamicIntProperty compressionThreshold;
 	
 	private final LoadBalancingStrategy loadBalanceStrategy;
+	private final ConnectionBorrowStrategy borrowStrategy;
+	private final PoolSizingStrategy poolSizingStrategy;
 	private final CompressionStrategy compressionStrategy;
 	private final ErrorRateMonitorConfig errorRateConfig;
 	private final RetryPolicyFactory retryPolicyFactory;
     private final DynamicBooleanProperty failOnStartupIfNoHosts;
 
+	private final DynamicBooleanProperty nearCacheEnabled;
+	private final DynamicIntProperty nearCacheMaxEntries;
+	private final DynamicIntProperty nearCacheMaxWeightBytes;
+	private final DynamicIntProperty nearCacheTtlMillis;
+
+	private final DynamicIntProperty maxAsyncInFlightPerHost;
+	private final DynamicIntProperty asyncOperationTimeout;
+
+	private final DynamicBooleanProperty requestCoalescingEnabled;
+	private final DynamicIntProperty requestCoalescingWindowMicros;
+	private final DynamicIntProperty requestCoalescingMaxBatchSize;
+	private final DynamicStringProperty requestCoalescingExcludedOps;
+
+	private final DynamicBooleanProperty hedgedReadsEnabled;
+	private final DynamicStringProperty hedgedReadOps;
+	private final DynamicIntProperty hedgedReadDelayMillis;
+	private final DynamicIntProperty hedgedReadDelayPercentile;
+	private final DynamicIntProperty hedgedReadBudgetPercent;
+	private final DynamicIntProperty hedgedReadMaxThreads;
+	private final DynamicBooleanProperty latencyAwareSelectionEnabled;
+	private final DynamicStringProperty latencyAwareOps;
+	private final DynamicIntProperty latencyAwareLocalRackBiasPercent;
+	private final DynamicIntProperty adaptiveCompressionMinSavingsPercent;
+	private final DynamicStringProperty adaptiveCompressionKeyPrefixDelimiter;
+	private final DynamicIntProperty compressionDictionaryId;
+	private final DynamicBooleanProperty legacyBinaryValueDecompressionEnabled;
+
 	private final DynamicBooleanProperty isDualWriteEnabled;
     private final DynamicStringProperty dualWriteClusterName;
     private final DynamicIntProperty dualWritePercentage;
@@ -65,6 +99,11 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 		
 		port = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.port", super.getPort());
 		maxConnsPerHost = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.maxConnsPerHost", super.getMaxConnsPerHost());
+		minConnsPerHost = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.minConnsPerHost", super.getMinConnsPerHost());
+		poolGrowBorrowLatencyMicros = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.poolGrowBorrowLatencyMicros", super.getPoolGrowBorrowLatencyMicros());
+		poolSizingIntervalSeconds = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.poolSizingIntervalSeconds", super.getPoolSizingIntervalSeconds());
+		primeConnectionsParallelism = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.primeConnectionsParallelism", super.getPrimeConnectionsParallelism());
+		minPrimedConnsPerHost = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.minPrimedConnsPerHost", super.getMinPrimedConnsPerHost());
 		maxTimeoutWhenExhausted = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.maxTimeoutWhenExhausted", super.getMaxTimeoutWhenExhausted());
 		maxFailoverCount = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.maxFailoverCount", super.getMaxFailoverCount());
 		connectTimeout = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".connection.connectTimeout", super.getConnectTimeout());
@@ -77,10 +116,39 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
         compressionThreshold = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".config.compressionThreshold", super.getValueCompressionThreshold());
 
 		loadBalanceStrategy = parseLBStrategy(propertyPrefix);
+		borrowStrategy = parseBorrowStrategy(propertyPrefix);
+		poolSizingStrategy = parsePoolSizingStrategy(propertyPrefix);
 		errorRateConfig = parseErrorRateMonitorConfig(propertyPrefix);
 		retryPolicyFactory = parseRetryPolicyFactory(propertyPrefix);
 		compressionStrategy = parseCompressionStrategy(propertyPrefix);
 
+        nearCacheEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".nearcache.enabled", super.isNearCacheEnabled());
+        nearCacheMaxEntries = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".nearcache.maxEntries", super.getNearCacheMaxEntries());
+        nearCacheMaxWeightBytes = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".nearcache.maxWeightBytes", super.getNearCacheMaxWeightBytes());
+        nearCacheTtlMillis = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".nearcache.ttlMillis", super.getNearCacheTtlMillis());
+
+        maxAsyncInFlightPerHost = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".async.maxInFlightPerHost", super.getMaxAsyncInFlightPerHost());
+        asyncOperationTimeout = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".async.timeoutMillis", super.getAsyncOperationTimeout());
+
+        requestCoalescingEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".coalescing.enabled", super.isRequestCoalescingEnabled());
+        requestCoalescingWindowMicros = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".coalescing.windowMicros", super.getRequestCoalescingWindowMicros());
+        requestCoalescingMaxBatchSize = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".coalescing.maxBatchSize", super.getRequestCoalescingMaxBatchSize());
+        requestCoalescingExcludedOps = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".coalescing.excludedOps", super.getRequestCoalescingExcludedOps());
+
+        hedgedReadsEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".hedgedReads.enabled", super.isHedgedReadsEnabled());
+        hedgedReadOps = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".hedgedReads.ops", super.getHedgedReadOps());
+        hedgedReadDelayMillis = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".hedgedReads.delayMillis", super.getHedgedReadDelayMillis());
+        hedgedReadDelayPercentile = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".hedgedReads.delayPercentile", super.getHedgedReadDelayPercentile());
+        hedgedReadBudgetPercent = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".hedgedReads.budgetPercent", super.getHedgedReadBudgetPercent());
+        hedgedReadMaxThreads = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".hedgedReads.maxThreads", super.getHedgedReadMaxThreads());
+        latencyAwareSelectionEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".latencyAware.enabled", super.isLatencyAwareSelectionEnabled());
+        latencyAwareOps = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".latencyAware.ops", super.getLatencyAwareOps());
+        latencyAwareLocalRackBiasPercent = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".latencyAware.localRackBiasPercent", super.getLatencyAwareLocalRackBiasPercent());
+        adaptiveCompressionMinSavingsPercent = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".compression.adaptive.minSavingsPercent", super.getAdaptiveCompressionMinSavingsPercent());
+        adaptiveCompressionKeyPrefixDelimiter = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".compression.adaptive.keyPrefixDelimiter", super.getAdaptiveCompressionKeyPrefixDelimiter());
+        compressionDictionaryId = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".compression.dictionaryId", super.getCompressionDictionaryId());
+        legacyBinaryValueDecompressionEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".compression.legacyBinaryValues", super.isLegacyBinaryValueDecompressionEnabled());
+
         isDualWriteEnabled = DynamicPropertyFactory.getInstance().getBooleanProperty(propertyPrefix + ".dualwrite.enabled", super.isDualWriteEnabled());
         dualWriteClusterName = DynamicPropertyFactory.getInstance().getStringProperty(propertyPrefix + ".dualwrite.cluster", super.getDualWriteClusterName());
         dualWritePercentage = DynamicPropertyFactory.getInstance().getIntProperty(propertyPrefix + ".dualwrite.percentage", super.getDualWritePercentage());
@@ -102,6 +170,36 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 		return maxConnsPerHost.get();
 	}
 
+	@Override
+	public PoolSizingStrategy getPoolSizingStrategy() {
+		return poolSizingStrategy;
+	}
+
+	@Override
+	public int getMinConnsPerHost() {
+		return minConnsPerHost.get();
+	}
+
+	@Override
+	public int getPoolGrowBorrowLatencyMicros() {
+		return poolGrowBorrowLatencyMicros.get();
+	}
+
+	@Override
+	public int getPoolSizingIntervalSeconds() {
+		return poolSizingIntervalSeconds.get();
+	}
+
+	@Override
+	public int getPrimeConnectionsParallelism() {
+		return primeConnectionsParallelism.get();
+	}
+
+	@Override
+	public int getMinPrimedConnsPerHost() {
+		return minPrimedConnsPerHost.get();
+	}
+
 	@Override
 	public int getMaxTimeoutWhenExhausted() {
 		return maxTimeoutWhenExhausted.get();
@@ -143,6 +241,11 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 		return loadBalanceStrategy;
 	}
 
+	@Override
+	public ConnectionBorrowStrategy getConnectionBorrowStrategy() {
+		return borrowStrategy;
+	}
+
     @Override
     public CompressionStrategy getCompressionStrategy() {
         return compressionStrategy;
@@ -168,6 +271,121 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
         return failOnStartupIfNoHosts.get();
     }
 
+    @Override
+    public boolean isNearCacheEnabled() {
+        return nearCacheEnabled.get();
+    }
+
+    @Override
+    public int getNearCacheMaxEntries() {
+        return nearCacheMaxEntries.get();
+    }
+
+    @Override
+    public int getNearCacheMaxWeightBytes() {
+        return nearCacheMaxWeightBytes.get();
+    }
+
+    @Override
+    public int getNearCacheTtlMillis() {
+        return nearCacheTtlMillis.get();
+    }
+
+    @Override
+    public int getMaxAsyncInFlightPerHost() {
+        return maxAsyncInFlightPerHost.get();
+    }
+
+    @Override
+    public int getAsyncOperationTimeout() {
+        return asyncOperationTimeout.get();
+    }
+
+    @Override
+    public boolean isRequestCoalescingEnabled() {
+        return requestCoalescingEnabled.get();
+    }
+
+    @Override
+    public int getRequestCoalescingWindowMicros() {
+        return requestCoalescingWindowMicros.get();
+    }
+
+    @Override
+    public int getRequestCoalescingMaxBatchSize() {
+        return requestCoalescingMaxBatchSize.get();
+    }
+
+    @Override
+    public String getRequestCoalescingExcludedOps() {
+        return requestCoalescingExcludedOps.get();
+    }
+
+    @Override
+    public boolean isHedgedReadsEnabled() {
+        return hedgedReadsEnabled.get();
+    }
+
+    @Override
+    public String getHedgedReadOps() {
+        return hedgedReadOps.get();
+    }
+
+    @Override
+    public int getHedgedReadDelayMillis() {
+        return hedgedReadDelayMillis.get();
+    }
+
+    @Override
+    public int getHedgedReadDelayPercentile() {
+        return hedgedReadDelayPercentile.get();
+    }
+
+    @Override
+    public int getHedgedReadBudgetPercent() {
+        return hedgedReadBudgetPercent.get();
+    }
+
+    @Override
+    public int getHedgedReadMaxThreads() {
+        return hedgedReadMaxThreads.get();
+    }
+
+    @Override
+    public boolean isLatencyAwareSelectionEnabled() {
+        return latencyAwareSelectionEnabled.get();
+    }
+
+    @Override
+    public String getLatencyAwareOps() {
+        return latencyAwareOps.get();
+    }
+
+    @Override
+    public int getLatencyAwareLocalRackBiasPercent() {
+        return latencyAwareLocalRackBiasPercent.get();
+    }
+
+    @Override
+    public int getAdaptiveCompressionMinSavingsPercent() {
+        return adaptiveCompressionMinSavingsPercent.get();
+    }
+
+    @Override
+    public String getAdaptiveCompressionKeyPrefixDelimiter() {
+        return adaptiveCompressionKeyPrefixDelimiter.get();
+    }
+
+    @Override
+    public int getCompressionDictionaryId() {
+        return compressionDictionaryId.get();
+    }
+
+    @Override
+    public boolean isLegacyBinaryValueDecompressionEnabled() {
+        return legacyBinaryValueDecompressionEnabled.get();
+    }
+
     @Override
     public boolean isDualWriteEnabled() {
         return isDualWriteEnabled.get();
@@ -189,6 +407,12 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
                 "name=" + getName() +
                 ", port=" + port +
                 ", maxConnsPerHost=" + maxConnsPerHost +
+                ", poolSizingStrategy=" + poolSizingStrategy +
+                ", minConnsPerHost=" + minConnsPerHost +
+                ", poolGrowBorrowLatencyMicros=" + poolGrowBorrowLatencyMicros +
+                ", poolSizingIntervalSeconds=" + poolSizingIntervalSeconds +
+                ", primeConnectionsParallelism=" + primeConnectionsParallelism +
+                ", minPrimedConnsPerHost=" + minPrimedConnsPerHost +
                 ", maxTimeoutWhenExhausted=" + maxTimeoutWhenExhausted +
                 ", maxFailoverCount=" + maxFailoverCount +
                 ", connectTimeout=" + connectTimeout +
@@ -199,10 +423,34 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
                 ", configPublisherConfig=" + configPublisherConfig +
                 ", compressionThreshold=" + compressionThreshold +
                 ", loadBalanceStrategy=" + loadBalanceStrategy +
+                ", borrowStrategy=" + borrowStrategy +
                 ", compressionStrategy=" + compressionStrategy +
                 ", errorRateConfig=" + errorRateConfig +
                 ", retryPolicyFactory=" + retryPolicyFactory +
                 ", failOnStartupIfNoHosts=" + failOnStartupIfNoHosts +
+                ", nearCacheEnabled=" + nearCacheEnabled +
+                ", nearCacheMaxEntries=" + nearCacheMaxEntries +
+                ", nearCacheMaxWeightBytes=" + nearCacheMaxWeightBytes +
+                ", nearCacheTtlMillis=" + nearCacheTtlMillis +
+                ", maxAsyncInFlightPerHost=" + maxAsyncInFlightPerHost +
+                ", asyncOperationTimeout=" + asyncOperationTimeout +
+                ", requestCoalescingEnabled=" + requestCoalescingEnabled +
+                ", requestCoalescingWindowMicros=" + requestCoalescingWindowMicros +
+                ", requestCoalescingMaxBatchSize=" + requestCoalescingMaxBatchSize +
+                ", requestCoalescingExcludedOps=" + requestCoalescingExcludedOps +
+                ", hedgedReadsEnabled=" + hedgedReadsEnabled +
+                ", hedgedReadOps=" + hedgedReadOps +
+                ", hedgedReadDelayMillis=" + hedgedReadDelayMillis +
+                ", hedgedReadDelayPercentile=" + hedgedReadDelayPercentile +
+                ", hedgedReadBudgetPercent=" + hedgedReadBudgetPercent +
+                ", hedgedReadMaxThreads=" + hedgedReadMaxThreads +
+                ", latencyAwareSelectionEnabled=" + latencyAwareSelectionEnabled +
+                ", latencyAwareOps=" + latencyAwareOps +
+                ", latencyAwareLocalRackBiasPercent=" + latencyAwareLocalRackBiasPercent +
+                ", adaptiveCompressionMinSavingsPercent=" + adaptiveCompressionMinSavingsPercent +
+                ", adaptiveCompressionKeyPrefixDelimiter=" + adaptiveCompressionKeyPrefixDelimiter +
+                ", compressionDictionaryId=" + compressionDictionaryId +
+                ", legacyBinaryValueDecompressionEnabled=" + legacyBinaryValueDecompressionEnabled +
                 ", isDualWriteEnabled=" + isDualWriteEnabled +
                 ", dualWriteClusterName=" + dualWriteClusterName +
                 ", dualWritePercentage=" + dualWritePercentage +
@@ -227,6 +475,44 @@ public class ArchaiusConnectionPoolConfiguration extends ConnectionPoolConfigura
 		return lb;
 	}
 
+    private ConnectionBorrowStrategy parseBorrowStrategy(String propertyPrefix) {
+
+        ConnectionBorrowStrategy defaultConfig = super.getConnectionBorrowStrategy();
+
+        String cfg = DynamicPropertyFactory
+                .getInstance()
+                .getStringProperty(propertyPrefix + ".connection.borrowStrategy", defaultConfig.name()).get();
+
+        ConnectionBorrowStrategy bs = null;
+        try {
+            bs = ConnectionBorrowStrategy.valueOf(cfg);
+        } catch (IllegalArgumentException ex) {
+            Logger.warn("Unable to parse ConnectionBorrowStrategy: " + cfg + ", switching to default: " + defaultConfig.name());
+            bs = defaultConfig;
+        }
+
+        return bs;
+    }
+
+    private PoolSizingStrategy parsePoolSizingStrategy(String propertyPrefix) {
+
+        PoolSizingStrategy defaultConfig = super.getPoolSizingStrategy();
+
+        String cfg = DynamicPropertyFactory
+                .getInstance()
+                .getStringProperty(propertyPrefix + ".connection.poolSizingStrategy", defaultConfig.name()).get();
+
+        PoolSizingStrategy ps = null;
+        try {
+            ps = PoolSizingStrategy.valueOf(cfg);
+        } catch (IllegalArgumentException ex) {
+            Logger.warn("Unable to parse PoolSizingStrategy: " + cfg + ", switching to default: " + defaultConfig.name());
+            ps = defaultConfig;
+        }
+
+        return ps;
+    }
+
     private CompressionStrategy parseCompressionStrategy(String propertyPrefix) {
 
         CompressionStrategy defaultCompStrategy = super.getCompressionStrategy();
@@ -67,6 +67,24 @@ public class DynoCPMonitor extends CountingConnectionPoolMonitor {
 		return super.getConnectionCreateFailedCount();
 	}
 
+	@Monitor(name = "ConnectionReplenishBacklog", type = DataSourceType.GAUGE)
+	@Override
+	public long getConnectionReplenishBacklog() {
+		return super.getConnectionReplenishBacklog();
+	}
+
+	@Monitor(name = "PoolGrown", type = DataSourceType.COUNTER)
+	@Override
+	public long getPoolGrownCount() {
+		return super.getPoolGrownCount();
+	}
+
+	@Monitor(name = "PoolShrunk", type = DataSourceType.COUNTER)
+	@Override
+	public long getPoolShrunkCount() {
+		return super.getPoolShrunkCount();
+	}
+
 	@Monitor(name = "ConnectionBorrowed", type = DataSourceType.COUNTER)
 	@Override
 	public long getConnectionBorrowedCount() {
@@ -121,6 +139,18 @@ public class DynoCPMonitor extends CountingConnectionPoolMonitor {
 		return super.getFailoverCount();
 	}
 
+	@Monitor(name = "NumHedgedRead", type = DataSourceType.COUNTER)
+	@Override
+	public long getHedgedReadCount() {
+		return super.getHedgedReadCount();
+	}
+
+	@Monitor(name = "NumHedgedReadWon", type = DataSourceType.COUNTER)
+	@Override
+	public long getHedgedReadWonCount() {
+		return super.getHedgedReadWonCount();
+	}
+
 
 	@Monitor(name = "ConnectionBusy", type = DataSourceType.COUNTER)
 	@Override
@@ -33,6 +33,9 @@ public class DynoOPMonitor implements OperationMonitor {
 
 	private final ConcurrentHashMap<String, DynoOpCounter> counterMap = new ConcurrentHashMap<String, DynoOpCounter>();
 	private final ConcurrentHashMap<String, DynoTimingCounters> timerMap = new ConcurrentHashMap<String, DynoTimingCounters>();
+	private final ConcurrentHashMap<String, Counter> nearCacheCounterMap = new ConcurrentHashMap<String, Counter>();
+	private final ConcurrentHashMap<String, DynoCoalescingHistograms> coalescingMap = new ConcurrentHashMap<String, DynoCoalescingHistograms>();
+	private final ConcurrentHashMap<String, Counter> compressionCounterMap = new ConcurrentHashMap<String, Counter>();
 
 	private final String appName;
 
@@ -65,6 +68,102 @@ public class DynoOPMonitor implements OperationMonitor {
         getOrCreateCounter(opName, true).incrementFailure();
     }
 
+    @Override
+    public void recordNearCacheHit(String opName) {
+        getOrCreateNearCacheCounter("Dyno__" + appName + "__" + opName + "__NEARCACHE_HIT", "dyno_op", opName).increment();
+    }
+
+    @Override
+    public void recordNearCacheMiss(String opName) {
+        getOrCreateNearCacheCounter("Dyno__" + appName + "__" + opName + "__NEARCACHE_MISS", "dyno_op", opName).increment();
+    }
+
+    @Override
+    public void recordNearCacheEviction(String reason) {
+        getOrCreateNearCacheCounter("Dyno__" + appName + "__NEARCACHE_EVICTION__" + reason, "reason", reason).increment();
+    }
+
+    private Counter getOrCreateNearCacheCounter(String metricName, String tagKey, String tagValue) {
+        return getOrCreateTaggedCounter(nearCacheCounterMap, metricName, tagKey, tagValue);
+    }
+
+    private Counter getOrCreateTaggedCounter(ConcurrentHashMap<String, Counter> counterMap, String metricName,
+                                             String tagKey, String tagValue) {
+
+        Counter counter = counterMap.get(metricName);
+        if (counter != null) {
+            return counter;
+        }
+
+        counter = new BasicCounter(MonitorConfig.builder(metricName).withTag(new BasicTag(tagKey, tagValue)).build());
+
+        Counter prevCounter = counterMap.putIfAbsent(metricName, counter);
+        if (prevCounter != null) {
+            return prevCounter;
+        }
+
+        DefaultMonitorRegistry.getInstance().register(counter);
+        return counter;
+    }
+
+    @Override
+    public void recordCompression(String opName, boolean compressed, int originalBytes, int sentBytes) {
+        String prefix = "Dyno__" + appName + "__" + opName;
+        getOrCreateTaggedCounter(compressionCounterMap, prefix + (compressed ? "__COMPRESSED" : "__COMPRESSION_SKIPPED"),
+                "dyno_op", opName).increment();
+        getOrCreateTaggedCounter(compressionCounterMap, prefix + "__COMPRESSION_BYTES_SAVED", "dyno_op", opName)
+                .increment(originalBytes - sentBytes);
+    }
+
+    @Override
+    public void recordCoalescedBatch(String opName, int batchSize, long delay, TimeUnit unit) {
+        getOrCreateCoalescingHistograms(opName).record(batchSize, TimeUnit.MICROSECONDS.convert(delay, unit));
+    }
+
+    /**
+     * The sizes of the batches of coalesced commands, and the latency the coalescing added to them in microseconds
+     */
+    private class DynoCoalescingHistograms {
+
+        private final EstimatedHistogram batchSizes = new EstimatedHistogram();
+        private final EstimatedHistogram delays = new EstimatedHistogram();
+
+        private final EstimatedHistogramMean batchSizeMean;
+        private final EstimatedHistogramPercentile batchSize99;
+        private final EstimatedHistogramMean delayMean;
+        private final EstimatedHistogramPercentile delay99;
+
+        private DynoCoalescingHistograms(String appName, String opName) {
+            batchSizeMean = new EstimatedHistogramMean("Dyno__" + appName + "__" + opName + "__COALESCED_BATCH_SIZE__mean", opName, batchSizes);
+            batchSize99 = new EstimatedHistogramPercentile("Dyno__" + appName + "__" + opName + "__COALESCED_BATCH_SIZE__990", opName, batchSizes, 0.99);
+            delayMean = new EstimatedHistogramMean("Dyno__" + appName + "__" + opName + "__COALESCED_DELAY__latMean", opName, delays);
+            delay99 = new EstimatedHistogramPercentile("Dyno__" + appName + "__" + opName + "__COALESCED_DELAY__lat990", opName, delays, 0.99);
+        }
+
+        private void record(int batchSize, long delayMicros) {
+            batchSizes.add(batchSize);
+            delays.add(delayMicros);
+        }
+    }
+
+    private DynoCoalescingHistograms getOrCreateCoalescingHistograms(String opName) {
+
+        DynoCoalescingHistograms histograms = coalescingMap.get(opName);
+        if (histograms != null) {
+            return histograms;
+        }
+        histograms = new DynoCoalescingHistograms(appName, opName);
+        DynoCoalescingHistograms prevHistograms = coalescingMap.putIfAbsent(opName, histograms);
+        if (prevHistograms != null) {
+            return prevHistograms;
+        }
+        DefaultMonitorRegistry.getInstance().register(histograms.batchSizeMean);
+        DefaultMonitorRegistry.getInstance().register(histograms.batchSize99);
+        DefaultMonitorRegistry.getInstance().register(histograms.delayMean);
+        DefaultMonitorRegistry.getInstance().register(histograms.delay99);
+        return histograms;
+    }
+
     private class DynoOpCounter {
 		
 		private final Counter success;
@@ -36,4 +36,11 @@ public interface BaseOperation<CL, R> {
 	 */
 	public String getKey();
 
+	/**
+	 * The key for the operation when it is binary. Binary keys are routed by their bytes, so that they do not have to
+	 * be converted to a String first. A binary key hashes the same as its String form when the bytes are UTF-8.
+	 * @return byte[] or null if the operation has a String key or no key
+	 */
+	public byte[] getBinaryKey();
+
 }
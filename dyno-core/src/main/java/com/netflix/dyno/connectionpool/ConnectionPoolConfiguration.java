@@ -16,21 +16,65 @@
 package com.netflix.dyno.connectionpool;
 
 import com.netflix.dyno.connectionpool.RetryPolicy.RetryPolicyFactory;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodec;
 import com.netflix.dyno.connectionpool.impl.health.ErrorMonitor.ErrorMonitorFactory;
 
 
 public interface ConnectionPoolConfiguration {
 	
 	enum LoadBalancingStrategy {
-		RoundRobin, TokenAware;
+		RoundRobin, TokenAware,
+
+		/** Picks the less loaded of two random hosts, by operations in flight and then by recent borrow wait */
+		LeastOutstanding;
 	}
 
     enum CompressionStrategy {
         /** Disables compression */
         NONE,
 
-        /** Compresses values that exceed {@link #getValueCompressionThreshold()} */
-        THRESHOLD
+        /**
+         * Compresses values that exceed {@link #getValueCompressionThreshold()} with GZIP, String values in the
+         * original format and binary values behind a header, see {@link #isLegacyBinaryValueDecompressionEnabled()}
+         */
+        THRESHOLD,
+
+        /** Compresses values that exceed {@link #getValueCompressionThreshold()} with raw deflate */
+        DEFLATE,
+
+        /** Compresses values that exceed {@link #getValueCompressionThreshold()} with LZ4, faster but larger than DEFLATE */
+        LZ4,
+
+        /** Compresses values that exceed {@link #getValueCompressionThreshold()} with {@link #getValueCodec()} */
+        CODEC,
+
+        /**
+         * Compresses values that exceed {@link #getValueCompressionThreshold()} with deflate where it pays, learning
+         * for every operation and key prefix how well values compress and at which level
+         */
+        ADAPTIVE,
+
+        /**
+         * Compresses values that exceed {@link #getValueCompressionThreshold()} with deflate and a preset dictionary
+         * trained on similar values, see {@link #getCompressionDictionaryId()}
+         */
+        DICTIONARY
+    }
+
+    enum PoolSizingStrategy {
+        /** Every host's pool keeps {@link #getMaxConnsPerHost()} connections open */
+        Fixed,
+
+        /** Each host's pool grows and shrinks between {@link #getMinConnsPerHost()} and {@link #getMaxConnsPerHost()} */
+        Elastic
+    }
+
+    enum ConnectionBorrowStrategy {
+        /** Idle connections are kept in a blocking queue shared by all threads */
+        Queue,
+
+        /** Idle connections are kept in lock free per thread slots with a shared fallback stack */
+        Striped
     }
 
     /**
@@ -49,6 +93,47 @@ public interface ConnectionPoolConfiguration {
      */
     int getMaxConnsPerHost();
 
+    /**
+     * @return PoolSizingStrategy, {@link PoolSizingStrategy#Fixed} by default
+     */
+    PoolSizingStrategy getPoolSizingStrategy();
+
+    /**
+     * @return Minimum number of connections to keep open for a single host's pool when the pool size
+     * is {@link PoolSizingStrategy#Elastic}
+     */
+    int getMinConnsPerHost();
+
+    /**
+     * When the pool size is {@link PoolSizingStrategy#Elastic}, a host's pool is grown when all of its connections
+     * are in use and borrowing a connection takes longer than this.
+     *
+     * @return the borrow latency in microseconds
+     */
+    int getPoolGrowBorrowLatencyMicros();
+
+    /**
+     * When the pool size is {@link PoolSizingStrategy#Elastic}, this is how often a host's pool size is
+     * re-evaluated. Connections that were not needed during an entire interval are released.
+     *
+     * @return the interval in seconds
+     */
+    int getPoolSizingIntervalSeconds();
+
+    /**
+     * @return Number of connections to open concurrently when priming a host's pool. Connections are opened one
+     * after another by the calling thread when this is 1, which is the default.
+     */
+    int getPrimeConnectionsParallelism();
+
+    /**
+     * Minimum number of connections that must be opened when priming a host's pool for the pool to be marked
+     * active. The remaining connections up to {@link #getMaxConnsPerHost()} are created in the background.
+     *
+     * @return the minimum number of connections, or 0 (the default) to require all of {@link #getMaxConnsPerHost()}
+     */
+    int getMinPrimedConnsPerHost();
+
     /**
      * @return Maximum amount of time to wait for a connection to free up when a
      * connection pool is exhausted.
@@ -71,6 +156,15 @@ public interface ConnectionPoolConfiguration {
      * @return LoadBalancingStrategy
      */
     LoadBalancingStrategy getLoadBalancingStrategy();
+
+    /**
+     * Determines how a synchronous {@link HostConnectionPool} holds its idle connections. The default
+     * is {@link ConnectionBorrowStrategy#Queue}; {@link ConnectionBorrowStrategy#Striped} avoids lock contention
+     * when a large number of threads borrow connections to the same host.
+     *
+     * @return ConnectionBorrowStrategy
+     */
+    ConnectionBorrowStrategy getConnectionBorrowStrategy();
     
     /**
      * @return Socket connect timeout
@@ -166,7 +260,7 @@ public interface ConnectionPoolConfiguration {
 
     /**
      * This works in conjunction with {@link #getCompressionStrategy()}. The compression strategy must be set to
-     * {@link CompressionStrategy#THRESHOLD} for this to have any effect.
+     * anything but {@link CompressionStrategy#NONE} for this to have any effect.
      * <p>
      * The value for this configuration setting is specified in <strong>bytes</strong>
      *
@@ -182,11 +276,191 @@ public interface ConnectionPoolConfiguration {
      * has been enabled and needs to be disabled, rather than disabling compression it is recommended to set the
      * threshold to a large number so that effectively nothing will be compressed however data retrieved will still
      * be decompressed.
+     * <p>
+     * Whatever the strategy, values written with any of the other strategies are still decompressed, so it can be
+     * changed on a live cluster.
      *
      * @return the configured compression strategy value
      */
     CompressionStrategy getCompressionStrategy();
 
+    /**
+     * @return the codec that compresses values when the compression strategy is {@link CompressionStrategy#CODEC}
+     */
+    ValueCodec getValueCodec();
+
+    /**
+     * Determines if DynoJedisClient keeps the results of GET, HGET and HGETALL in an in-process near cache.
+     * Entries are invalidated when the same client writes to or deletes their key, but writes made by other clients
+     * are only seen once an entry expires after {@link #getNearCacheTtlMillis()}. Disabled by default.
+     *
+     * @return true if reads should be served from the near cache
+     */
+    boolean isNearCacheEnabled();
+
+    /**
+     * @return Maximum number of keys held in the near cache
+     */
+    int getNearCacheMaxEntries();
+
+    /**
+     * The weight of a near cache entry is the approximate size of its key and value in bytes.
+     *
+     * @return Maximum total weight of the entries held in the near cache, in bytes
+     */
+    int getNearCacheMaxWeightBytes();
+
+    /**
+     * @return Time after which a near cache entry expires, in milliseconds
+     */
+    int getNearCacheTtlMillis();
+
+    /**
+     * Bounds the number of operations started by {@link ConnectionPool#executeAsync} that are in flight to a host at
+     * the same time. An operation that would go over the bound fails over to another host instead of waiting.
+     *
+     * @return Maximum number of async operations in flight per host
+     */
+    int getMaxAsyncInFlightPerHost();
+
+    /**
+     * @return Time after which an async operation attempt fails with a timeout and may be retried on another host,
+     * in milliseconds
+     */
+    int getAsyncOperationTimeout();
+
+    /**
+     * Determines if DynoJedisClient coalesces concurrent single key commands, such as GET and SET, that go to the same
+     * host into one pipelined round trip. Disabled by default.
+     *
+     * @return true if single key commands should be coalesced
+     */
+    boolean isRequestCoalescingEnabled();
+
+    /**
+     * A command only waits for others to join it while another batch to the same host is in flight, so a client
+     * that is not busy adds no latency.
+     *
+     * @return Maximum time a batch of coalesced commands waits for more commands before it is sent, in microseconds
+     */
+    int getRequestCoalescingWindowMicros();
+
+    /**
+     * @return Maximum number of commands in a batch of coalesced commands. A full batch is sent right away.
+     */
+    int getRequestCoalescingMaxBatchSize();
+
+    /**
+     * @return Comma separated names of the operations that are never coalesced, e.g. "SET,DEL"
+     */
+    String getRequestCoalescingExcludedOps();
+
+    /**
+     * Determines if reads that have not been answered by the local rack within {@link #getHedgedReadDelayMillis()}
+     * are also sent to the owner of the same token in a remote rack, and answered by whichever replies first.
+     * Only the operations in {@link #getHedgedReadOps()} are hedged. Disabled by default.
+     *
+     * @return true if reads should be hedged
+     */
+    boolean isHedgedReadsEnabled();
+
+    /**
+     * The operations named here must be idempotent reads, as they may run on two hosts.
+     *
+     * @return Comma separated names of the operations that are hedged, e.g. "GET,HGET"
+     */
+    String getHedgedReadOps();
+
+    /**
+     * @return Time a read waits for the local rack before it is hedged, in milliseconds
+     */
+    int getHedgedReadDelayMillis();
+
+    /**
+     * When set, the delay before a read is hedged is this percentile of the recent latency of the hedged operations
+     * instead of {@link #getHedgedReadDelayMillis()}, which is still used until enough reads have been seen.
+     *
+     * @return Percentile of the recent latency to hedge reads after, e.g. 95, or 0 to always use the fixed delay
+     */
+    int getHedgedReadDelayPercentile();
+
+    /**
+     * Caps the extra load hedging puts on the cluster. When a slow rack makes every read late, no more than this
+     * share of the reads is hedged.
+     *
+     * @return Maximum number of hedged reads, as a percentage of the reads that may be hedged
+     */
+    int getHedgedReadBudgetPercent();
+
+    /**
+     * Hedged reads and the attempts they hedge run on their own threads. A read that finds all of them busy runs on
+     * the calling thread and is not hedged.
+     *
+     * @return Maximum number of threads running hedged reads
+     */
+    int getHedgedReadMaxThreads();
+
+    /**
+     * Determines if an operation may be sent to the owner of its token in a remote rack instead of the local one,
+     * when the remote replica has been answering faster and has fewer operations in flight. Each operation compares
+     * the local replica with the one of a random remote rack. Only the operations in {@link #getLatencyAwareOps()} are
+     * sent elsewhere. Disabled by default.
+     *
+     * @return true if operations should go to the least loaded replica
+     */
+    boolean isLatencyAwareSelectionEnabled();
+
+    /**
+     * Only single key reads should be named here: a write goes to the local replica like any other, and a remote
+     * replica is not scored for batches and pipelines.
+     *
+     * @return Comma separated names of the operations that may go to the least loaded replica, e.g. "GET,HGET"
+     */
+    String getLatencyAwareOps();
+
+    /**
+     * A remote replica is only chosen when its score is better than the local one by more than this percentage, e.g.
+     * with 100 it has to be twice as good. This keeps traffic in the local rack unless the local replica is degraded.
+     *
+     * @return Bias towards the local rack, in percent
+     */
+    int getLatencyAwareLocalRackBiasPercent();
+
+    /**
+     * With {@link CompressionStrategy#ADAPTIVE}, values of an operation and key prefix are sent uncompressed once
+     * compressing them has saved less than this percentage of their size on average. Defaults to 20.
+     *
+     * @return the smallest average savings, in percent, for which values are compressed
+     */
+    int getAdaptiveCompressionMinSavingsPercent();
+
+    /**
+     * With {@link CompressionStrategy#ADAPTIVE}, the part of a key before the first occurrence of this delimiter is
+     * its prefix, and what compression achieves is learned separately for every operation and key prefix. Keys
+     * without the delimiter are grouped by operation only. Defaults to ":".
+     *
+     * @return the delimiter that ends the prefix of a key
+     */
+    String getAdaptiveCompressionKeyPrefixDelimiter();
+
+    /**
+     * With {@link CompressionStrategy#DICTIONARY}, the id of the dictionary values are compressed with. Values
+     * compressed with any loaded dictionary can be read, so moving to a new dictionary takes loading it on every
+     * client first and then changing this id. Defaults to 0, the dictionary that was loaded last.
+     *
+     * @return the id of the dictionary to compress with, or 0 for the one that was loaded last
+     */
+    int getCompressionDictionaryId();
+
+    /**
+     * Binary values used to be compressed with GZIP and no header, and can only be told apart from values that were
+     * stored as is by looking like GZIP. Turn this on while the cluster still holds such values, at the risk of
+     * decompressing binary values that merely start with the GZIP magic. Disabled by default.
+     *
+     * @return true if binary values without a header that look like GZIP are decompressed
+     */
+    boolean isLegacyBinaryValueDecompressionEnabled();
+
     boolean isDualWriteEnabled();
 
     String getDualWriteClusterName();
@@ -55,6 +55,24 @@ public interface ConnectionPoolMonitor {
 
     public long getFailoverCount();
 
+    /**
+     * A read that the local rack had not answered in time was also sent to a remote rack
+     *
+     * @param host the host in the remote rack
+     */
+    public void incHedgedRead(Host host);
+
+    public long getHedgedReadCount();
+
+    /**
+     * The remote rack answered a hedged read first
+     *
+     * @param host the host in the remote rack
+     */
+    public void incHedgedReadWon(Host host);
+
+    public long getHedgedReadWonCount();
+
    
     /**
      * Created a connection successfully
@@ -83,6 +101,40 @@ public interface ConnectionPoolMonitor {
 
     public long getConnectionCreateFailedCount();
 
+    /**
+     * Records the number of connections that a host's pool is missing and that are waiting to be
+     * re-created in the background
+     *
+     * @param host
+     * @param backlog
+     */
+    public void setConnectionReplenishBacklog(Host host, int backlog);
+
+    /**
+     * @return the total number of connections across all hosts waiting to be re-created in the background
+     */
+    public long getConnectionReplenishBacklog();
+
+    /**
+     * A host's pool was grown by elastic pool sizing
+     *
+     * @param host
+     * @param poolSize the new target number of connections for the host
+     */
+    public void incPoolGrown(Host host, int poolSize);
+
+    public long getPoolGrownCount();
+
+    /**
+     * A host's pool was shrunk by elastic pool sizing
+     *
+     * @param host
+     * @param poolSize the new target number of connections for the host
+     */
+    public void incPoolShrunk(Host host, int poolSize);
+
+    public long getPoolShrunkCount();
+
     /**
      * Incremented for each connection borrowed
      * 
@@ -54,8 +54,14 @@ public class DecoratingListenableFuture<V> implements ListenableFuture<V> {
 		return innerFuture.get(timeout, unit);
 	}
 
+	/**
+	 * Supported only when the inner future is itself a {@link ListenableFuture}
+	 */
 	@Override
 	public void addListener(Runnable listener, Executor executor) {
-		throw new RuntimeException("Not Implemented");
+		if (!(innerFuture instanceof ListenableFuture)) {
+			throw new UnsupportedOperationException("Not Implemented");
+		}
+		((ListenableFuture<V>) innerFuture).addListener(listener, executor);
 	}
 }
@@ -44,6 +44,12 @@ public interface HashPartitioner {
 	 * @return Long
 	 */
 	public Long hash(String key);
+
+	/**
+	 * @param key
+	 * @return Long, the same as {@link #hash(String)} for the String whose UTF-8 encoding is the key
+	 */
+	public Long hash(byte[] key);
 	
 	/**
 	 * 
@@ -53,6 +53,11 @@ public interface HostConnectionStats {
 	 */
 	public long getConnectionsCreateFailed();
 
+	/**
+	 * @return the number of connections waiting to be re-created in the background
+	 */
+	public long getConnectionReplenishBacklog();
+
 	/**
 	 * @return long
 	 */
@@ -59,4 +59,40 @@ public interface OperationMonitor {
 	void recordFailure(String opName, String reason);
 
 	void recordFailure(String opName, boolean compressionEnabled, String reason);
+
+	/**
+	 * Record that the result of the operation was served from the client's near cache
+	 * @param opName
+	 */
+	void recordNearCacheHit(String opName);
+
+	/**
+	 * Record that the result of the operation was not in the client's near cache and had to be read from dynomite
+	 * @param opName
+	 */
+	void recordNearCacheMiss(String opName);
+
+	/**
+	 * Record that an entry was evicted from the client's near cache
+	 * @param reason e.g. "size" when the cache was full or "expired" when the entry outlived its ttl
+	 */
+	void recordNearCacheEviction(String reason);
+
+	/**
+	 * Record a batch of coalesced commands that was sent in one round trip
+	 * @param opName
+	 * @param batchSize the number of commands in the batch
+	 * @param delay the time the batch waited for more commands before it was sent, i.e. the latency added by coalescing
+	 * @param unit
+	 */
+	void recordCoalescedBatch(String opName, int batchSize, long delay, TimeUnit unit);
+
+	/**
+	 * Record whether adaptive compression sent a value above the compression threshold compressed
+	 * @param opName
+	 * @param compressed false if compression was skipped because it does not pay for values like this one
+	 * @param originalBytes the size of the value
+	 * @param sentBytes the size of the value as it was sent, originalBytes if it was not compressed
+	 */
+	void recordCompression(String opName, boolean compressed, int originalBytes, int sentBytes);
 }
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool;
+
+/**
+ * {@link HashPartitioner} that can also hash keys to a primitive long. The hash of a key is the same as the
+ * one returned by the corresponding {@link HashPartitioner} method, but computing it does not allocate.
+ *
+ * A String key is hashed over its UTF-8 encoding, so {@link #hashToLong(CharSequence)} and
+ * {@link #hashToLong(byte[], int, int)} with the UTF-8 bytes of the same key return the same hash.
+ */
+public interface PrimitiveHashPartitioner extends HashPartitioner {
+
+	/**
+	 * @param key
+	 * @return the same hash as {@link #hash(int)}
+	 */
+	public long hashToLong(int key);
+
+	/**
+	 * @param key
+	 * @return the same hash as {@link #hash(long)}
+	 */
+	public long hashToLong(long key);
+
+	/**
+	 * @param key
+	 * @return the same hash as {@link #hash(String)} for key.toString()
+	 */
+	public long hashToLong(CharSequence key);
+
+	/**
+	 * @param key
+	 * @param offset
+	 * @param length
+	 * @return the hash of the given bytes of the key
+	 */
+	public long hashToLong(byte[] key, int offset, int length);
+}
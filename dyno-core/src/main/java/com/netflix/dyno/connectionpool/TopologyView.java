@@ -38,4 +38,12 @@ public interface TopologyView {
      */
     Long getTokenForKey(String key);
 
+    /**
+     * Returns the token for the given binary key.
+     *
+     * @param key The binary key of the record stored in dynomite
+     * @return Long The token that owns the given key
+     */
+    Long getTokenForKey(byte[] key);
+
 }
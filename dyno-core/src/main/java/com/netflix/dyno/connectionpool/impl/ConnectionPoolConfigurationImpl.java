@@ -21,9 +21,12 @@ import java.util.List;
 import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
 import com.netflix.dyno.connectionpool.ErrorRateMonitorConfig;
 import com.netflix.dyno.connectionpool.HostSupplier;
-import com.netflix.dyno.connectionpool.RetryPolicy;
 import com.netflix.dyno.connectionpool.RetryPolicy.RetryPolicyFactory;
 import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.impl.compression.CompressionDictionary;
+import com.netflix.dyno.connectionpool.impl.compression.DictionaryCodec;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodec;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodecs;
 import com.netflix.dyno.connectionpool.impl.health.ErrorMonitor.ErrorMonitorFactory;
 import com.netflix.dyno.connectionpool.impl.health.SimpleErrorMonitorImpl.SimpleErrorMonitorFactory;
 import com.netflix.dyno.connectionpool.impl.utils.ConfigUtils;
@@ -33,6 +36,12 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 	// DEFAULTS 
 	private static final int DEFAULT_PORT = 8102; 
 	private static final int DEFAULT_MAX_CONNS_PER_HOST = 3;
+	private static final int DEFAULT_PRIME_CONNECTIONS_PARALLELISM = 1;
+	private static final PoolSizingStrategy DEFAULT_POOL_SIZING_STRATEGY = PoolSizingStrategy.Fixed;
+	private static final int DEFAULT_MIN_CONNS_PER_HOST = 1;
+	private static final int DEFAULT_POOL_GROW_BORROW_LATENCY_MICROS = 1000;
+	private static final int DEFAULT_POOL_SIZING_INTERVAL_SECONDS = 30;
+	private static final int DEFAULT_MIN_PRIMED_CONNS_PER_HOST = 0;
 	private static final int DEFAULT_MAX_TIMEOUT_WHEN_EXHAUSTED = 800;
 	private static final int DEFAULT_MAX_FAILOVER_COUNT = 3; 
 	private static final int DEFAULT_CONNECT_TIMEOUT = 3000; 
@@ -42,11 +51,35 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 	private static final int DEFAULT_FLUSH_TIMINGS_FREQ_SECONDS = 300;
 	private static final boolean DEFAULT_LOCAL_RACK_AFFINITY = true;
 	private static final LoadBalancingStrategy DEFAULT_LB_STRATEGY = LoadBalancingStrategy.TokenAware;
+	private static final ConnectionBorrowStrategy DEFAULT_BORROW_STRATEGY = ConnectionBorrowStrategy.Queue;
 	private static final CompressionStrategy DEFAULT_COMPRESSION_STRATEGY = CompressionStrategy.NONE;
     private static final String DEFAULT_CONFIG_PUBLISHER_ADDRESS = null;
     private static final boolean DEFAULT_FAIL_ON_STARTUP_IFNOHOSTS = true;
     private static final int DEFAULT_FAIL_ON_STARTUP_IFNOHOSTS_SECONDS = 60;
     private static final int DEFAULT_VALUE_COMPRESSION_THRESHOLD_BYTES = 5 * 1024; // By default, compression is OFF
+	private static final boolean DEFAULT_NEAR_CACHE_ENABLED = false;
+	private static final int DEFAULT_NEAR_CACHE_MAX_ENTRIES = 10000;
+	private static final int DEFAULT_NEAR_CACHE_MAX_WEIGHT_BYTES = 64 * 1024 * 1024;
+	private static final int DEFAULT_NEAR_CACHE_TTL_MILLIS = 1000;
+	private static final int DEFAULT_MAX_ASYNC_IN_FLIGHT_PER_HOST = 256;
+	private static final int DEFAULT_ASYNC_OPERATION_TIMEOUT = 2000;
+	private static final boolean DEFAULT_REQUEST_COALESCING_ENABLED = false;
+	private static final int DEFAULT_REQUEST_COALESCING_WINDOW_MICROS = 200;
+	private static final int DEFAULT_REQUEST_COALESCING_MAX_BATCH_SIZE = 32;
+	private static final String DEFAULT_REQUEST_COALESCING_EXCLUDED_OPS = "";
+	private static final boolean DEFAULT_HEDGED_READS_ENABLED = false;
+	private static final String DEFAULT_HEDGED_READ_OPS = "GET,HGET,HGETALL,HMGET,MGET,EXISTS,SMEMBERS,ZRANGE,LRANGE";
+	private static final int DEFAULT_HEDGED_READ_DELAY_MILLIS = 20;
+	private static final int DEFAULT_HEDGED_READ_DELAY_PERCENTILE = 0;
+	private static final int DEFAULT_HEDGED_READ_BUDGET_PERCENT = 5;
+	private static final int DEFAULT_HEDGED_READ_MAX_THREADS = 64;
+	private static final boolean DEFAULT_LATENCY_AWARE_SELECTION_ENABLED = false;
+	private static final String DEFAULT_LATENCY_AWARE_OPS = "GET,HGET,HGETALL,HMGET,EXISTS,SMEMBERS,ZRANGE,LRANGE";
+	private static final int DEFAULT_LATENCY_AWARE_LOCAL_RACK_BIAS_PERCENT = 100;
+	private static final int DEFAULT_ADAPTIVE_COMPRESSION_MIN_SAVINGS_PERCENT = 20;
+	private static final String DEFAULT_ADAPTIVE_COMPRESSION_KEY_PREFIX_DELIMITER = ":";
+	private static final int DEFAULT_COMPRESSION_DICTIONARY_ID = 0;
+	private static final boolean DEFAULT_LEGACY_BINARY_VALUE_DECOMPRESSION_ENABLED = false;
 	private static final boolean DEFAULT_IS_DUAL_WRITE_ENABLED = false;
     private static final int DEFAULT_DUAL_WRITE_PERCENTAGE = 0;
 
@@ -57,6 +90,12 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 	private final String name;
 	private int port = DEFAULT_PORT; 
 	private int maxConnsPerHost = DEFAULT_MAX_CONNS_PER_HOST; 
+	private int primeConnectionsParallelism = DEFAULT_PRIME_CONNECTIONS_PARALLELISM;
+	private PoolSizingStrategy poolSizingStrategy = DEFAULT_POOL_SIZING_STRATEGY;
+	private int minConnsPerHost = DEFAULT_MIN_CONNS_PER_HOST;
+	private int poolGrowBorrowLatencyMicros = DEFAULT_POOL_GROW_BORROW_LATENCY_MICROS;
+	private int poolSizingIntervalSeconds = DEFAULT_POOL_SIZING_INTERVAL_SECONDS;
+	private int minPrimedConnsPerHost = DEFAULT_MIN_PRIMED_CONNS_PER_HOST;
 	private int maxTimeoutWhenExhausted = DEFAULT_MAX_TIMEOUT_WHEN_EXHAUSTED; 
 	private int maxFailoverCount = DEFAULT_MAX_FAILOVER_COUNT; 
 	private int connectTimeout = DEFAULT_CONNECT_TIMEOUT; 
@@ -66,12 +105,51 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 	private int flushTimingsFrequencySeconds = DEFAULT_FLUSH_TIMINGS_FREQ_SECONDS;
 	private boolean localZoneAffinity = DEFAULT_LOCAL_RACK_AFFINITY;
 	private LoadBalancingStrategy lbStrategy = DEFAULT_LB_STRATEGY; 
+	private ConnectionBorrowStrategy borrowStrategy = DEFAULT_BORROW_STRATEGY;
 	private String localRack;
 	private String localDataCenter;
     private boolean failOnStartupIfNoHosts = DEFAULT_FAIL_ON_STARTUP_IFNOHOSTS;
     private int failOnStarupIfNoHostsSeconds = DEFAULT_FAIL_ON_STARTUP_IFNOHOSTS_SECONDS;
     private CompressionStrategy compressionStrategy = DEFAULT_COMPRESSION_STRATEGY;
 	private int valueCompressionThreshold = DEFAULT_VALUE_COMPRESSION_THRESHOLD_BYTES;
+	private ValueCodec valueCodec;
+
+	// Near Cache Settings
+	private boolean nearCacheEnabled = DEFAULT_NEAR_CACHE_ENABLED;
+	private int nearCacheMaxEntries = DEFAULT_NEAR_CACHE_MAX_ENTRIES;
+	private int nearCacheMaxWeightBytes = DEFAULT_NEAR_CACHE_MAX_WEIGHT_BYTES;
+	private int nearCacheTtlMillis = DEFAULT_NEAR_CACHE_TTL_MILLIS;
+
+	// Async Settings
+	private int maxAsyncInFlightPerHost = DEFAULT_MAX_ASYNC_IN_FLIGHT_PER_HOST;
+	private int asyncOperationTimeout = DEFAULT_ASYNC_OPERATION_TIMEOUT;
+
+	// Request Coalescing Settings
+	private boolean requestCoalescingEnabled = DEFAULT_REQUEST_COALESCING_ENABLED;
+	private int requestCoalescingWindowMicros = DEFAULT_REQUEST_COALESCING_WINDOW_MICROS;
+	private int requestCoalescingMaxBatchSize = DEFAULT_REQUEST_COALESCING_MAX_BATCH_SIZE;
+	private String requestCoalescingExcludedOps = DEFAULT_REQUEST_COALESCING_EXCLUDED_OPS;
+
+	// Hedged Read Settings
+	private boolean hedgedReadsEnabled = DEFAULT_HEDGED_READS_ENABLED;
+	private String hedgedReadOps = DEFAULT_HEDGED_READ_OPS;
+	private int hedgedReadDelayMillis = DEFAULT_HEDGED_READ_DELAY_MILLIS;
+	private int hedgedReadDelayPercentile = DEFAULT_HEDGED_READ_DELAY_PERCENTILE;
+	private int hedgedReadBudgetPercent = DEFAULT_HEDGED_READ_BUDGET_PERCENT;
+	private int hedgedReadMaxThreads = DEFAULT_HEDGED_READ_MAX_THREADS;
+
+	// Latency Aware Selection Settings
+	private boolean latencyAwareSelectionEnabled = DEFAULT_LATENCY_AWARE_SELECTION_ENABLED;
+	private String latencyAwareOps = DEFAULT_LATENCY_AWARE_OPS;
+	private int latencyAwareLocalRackBiasPercent = DEFAULT_LATENCY_AWARE_LOCAL_RACK_BIAS_PERCENT;
+
+	// Adaptive Compression Settings
+	private int adaptiveCompressionMinSavingsPercent = DEFAULT_ADAPTIVE_COMPRESSION_MIN_SAVINGS_PERCENT;
+	private String adaptiveCompressionKeyPrefixDelimiter = DEFAULT_ADAPTIVE_COMPRESSION_KEY_PREFIX_DELIMITER;
+
+	// Dictionary Compression Settings
+	private int compressionDictionaryId = DEFAULT_COMPRESSION_DICTIONARY_ID;
+	private boolean legacyBinaryValueDecompressionEnabled = DEFAULT_LEGACY_BINARY_VALUE_DECOMPRESSION_ENABLED;
 
 	// Dual Write Settings
 	private boolean isDualWriteEnabled = DEFAULT_IS_DUAL_WRITE_ENABLED;
@@ -79,13 +157,7 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
     private int dualWritePercentage = DEFAULT_DUAL_WRITE_PERCENTAGE;
 
 
-    private RetryPolicyFactory retryFactory = new RetryPolicyFactory() {
-
-		@Override
-		public RetryPolicy getRetryPolicy() {
-			return new RunOnce();
-		}
-	};
+    private RetryPolicyFactory retryFactory = new RunOnce.RetryFactory();
 	
 	private ErrorMonitorFactory errorMonitorFactory = new SimpleErrorMonitorFactory();
 
@@ -107,13 +179,21 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 
         this.compressionStrategy = config.getCompressionStrategy();
         this.valueCompressionThreshold = config.getValueCompressionThreshold();
+        this.valueCodec = config.getValueCodec();
         this.connectTimeout = config.getConnectTimeout();
         this.failOnStartupIfNoHosts = config.getFailOnStartupIfNoHosts();
         this.lbStrategy = config.getLoadBalancingStrategy();
+        this.borrowStrategy = config.getConnectionBorrowStrategy();
         this.localDataCenter = config.getLocalDataCenter();
         this.localRack = config.getLocalRack();
         this.localZoneAffinity = config.localZoneAffinity;
         this.maxConnsPerHost = config.getMaxConnsPerHost();
+        this.primeConnectionsParallelism = config.getPrimeConnectionsParallelism();
+        this.poolSizingStrategy = config.getPoolSizingStrategy();
+        this.minConnsPerHost = config.getMinConnsPerHost();
+        this.poolGrowBorrowLatencyMicros = config.getPoolGrowBorrowLatencyMicros();
+        this.poolSizingIntervalSeconds = config.getPoolSizingIntervalSeconds();
+        this.minPrimedConnsPerHost = config.getMinPrimedConnsPerHost();
         this.maxFailoverCount = config.getMaxFailoverCount();
         this.maxTimeoutWhenExhausted = config.getMaxTimeoutWhenExhausted();
         this.pingFrequencySeconds = config.getPingFrequencySeconds();
@@ -123,6 +203,29 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
         this.socketTimeout = config.getSocketTimeout();
         this.errorMonitorFactory = config.getErrorMonitorFactory();
         this.tokenSupplier = config.getTokenSupplier();
+        this.nearCacheEnabled = config.isNearCacheEnabled();
+        this.nearCacheMaxEntries = config.getNearCacheMaxEntries();
+        this.nearCacheMaxWeightBytes = config.getNearCacheMaxWeightBytes();
+        this.nearCacheTtlMillis = config.getNearCacheTtlMillis();
+        this.maxAsyncInFlightPerHost = config.getMaxAsyncInFlightPerHost();
+        this.asyncOperationTimeout = config.getAsyncOperationTimeout();
+        this.requestCoalescingEnabled = config.isRequestCoalescingEnabled();
+        this.requestCoalescingWindowMicros = config.getRequestCoalescingWindowMicros();
+        this.requestCoalescingMaxBatchSize = config.getRequestCoalescingMaxBatchSize();
+        this.requestCoalescingExcludedOps = config.getRequestCoalescingExcludedOps();
+        this.hedgedReadsEnabled = config.isHedgedReadsEnabled();
+        this.hedgedReadOps = config.getHedgedReadOps();
+        this.hedgedReadDelayMillis = config.getHedgedReadDelayMillis();
+        this.hedgedReadDelayPercentile = config.getHedgedReadDelayPercentile();
+        this.hedgedReadBudgetPercent = config.getHedgedReadBudgetPercent();
+        this.hedgedReadMaxThreads = config.getHedgedReadMaxThreads();
+        this.latencyAwareSelectionEnabled = config.isLatencyAwareSelectionEnabled();
+        this.latencyAwareOps = config.getLatencyAwareOps();
+        this.latencyAwareLocalRackBiasPercent = config.getLatencyAwareLocalRackBiasPercent();
+        this.adaptiveCompressionMinSavingsPercent = config.getAdaptiveCompressionMinSavingsPercent();
+        this.adaptiveCompressionKeyPrefixDelimiter = config.getAdaptiveCompressionKeyPrefixDelimiter();
+        this.compressionDictionaryId = config.getCompressionDictionaryId();
+        this.legacyBinaryValueDecompressionEnabled = config.isLegacyBinaryValueDecompressionEnabled();
         this.isDualWriteEnabled = config.isDualWriteEnabled();
         this.dualWriteClusterName = config.getDualWriteClusterName();
         this.dualWritePercentage = config.getDualWritePercentage();
@@ -143,6 +246,36 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 		return maxConnsPerHost;
 	}
 
+	@Override
+	public PoolSizingStrategy getPoolSizingStrategy() {
+		return poolSizingStrategy;
+	}
+
+	@Override
+	public int getMinConnsPerHost() {
+		return minConnsPerHost;
+	}
+
+	@Override
+	public int getPoolGrowBorrowLatencyMicros() {
+		return poolGrowBorrowLatencyMicros;
+	}
+
+	@Override
+	public int getPoolSizingIntervalSeconds() {
+		return poolSizingIntervalSeconds;
+	}
+
+	@Override
+	public int getPrimeConnectionsParallelism() {
+		return primeConnectionsParallelism;
+	}
+
+	@Override
+	public int getMinPrimedConnsPerHost() {
+		return minPrimedConnsPerHost;
+	}
+
 	@Override
 	public int getMaxTimeoutWhenExhausted() {
 		return maxTimeoutWhenExhausted;
@@ -192,6 +325,11 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 	public LoadBalancingStrategy getLoadBalancingStrategy() {
 		return lbStrategy;
 	}
+
+	@Override
+	public ConnectionBorrowStrategy getConnectionBorrowStrategy() {
+		return borrowStrategy;
+	}
 	
 	@Override
 	public int getPingFrequencySeconds() {
@@ -233,10 +371,130 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
         return valueCompressionThreshold;
     }
 
+    @Override
+    public ValueCodec getValueCodec() {
+        return valueCodec;
+    }
+
     public int getDefaultFailOnStartupIfNoHostsSeconds() {
         return failOnStarupIfNoHostsSeconds;
     }
 
+    @Override
+    public boolean isNearCacheEnabled() {
+        return nearCacheEnabled;
+    }
+
+    @Override
+    public int getNearCacheMaxEntries() {
+        return nearCacheMaxEntries;
+    }
+
+    @Override
+    public int getNearCacheMaxWeightBytes() {
+        return nearCacheMaxWeightBytes;
+    }
+
+    @Override
+    public int getNearCacheTtlMillis() {
+        return nearCacheTtlMillis;
+    }
+
+    @Override
+    public int getMaxAsyncInFlightPerHost() {
+        return maxAsyncInFlightPerHost;
+    }
+
+    @Override
+    public int getAsyncOperationTimeout() {
+        return asyncOperationTimeout;
+    }
+
+    @Override
+    public boolean isRequestCoalescingEnabled() {
+        return requestCoalescingEnabled;
+    }
+
+    @Override
+    public int getRequestCoalescingWindowMicros() {
+        return requestCoalescingWindowMicros;
+    }
+
+    @Override
+    public int getRequestCoalescingMaxBatchSize() {
+        return requestCoalescingMaxBatchSize;
+    }
+
+    @Override
+    public String getRequestCoalescingExcludedOps() {
+        return requestCoalescingExcludedOps;
+    }
+
+    @Override
+    public boolean isHedgedReadsEnabled() {
+        return hedgedReadsEnabled;
+    }
+
+    @Override
+    public String getHedgedReadOps() {
+        return hedgedReadOps;
+    }
+
+    @Override
+    public int getHedgedReadDelayMillis() {
+        return hedgedReadDelayMillis;
+    }
+
+    @Override
+    public int getHedgedReadDelayPercentile() {
+        return hedgedReadDelayPercentile;
+    }
+
+    @Override
+    public int getHedgedReadBudgetPercent() {
+        return hedgedReadBudgetPercent;
+    }
+
+    @Override
+    public int getHedgedReadMaxThreads() {
+        return hedgedReadMaxThreads;
+    }
+
+    @Override
+    public boolean isLatencyAwareSelectionEnabled() {
+        return latencyAwareSelectionEnabled;
+    }
+
+    @Override
+    public String getLatencyAwareOps() {
+        return latencyAwareOps;
+    }
+
+    @Override
+    public int getLatencyAwareLocalRackBiasPercent() {
+        return latencyAwareLocalRackBiasPercent;
+    }
+
+    @Override
+    public int getAdaptiveCompressionMinSavingsPercent() {
+        return adaptiveCompressionMinSavingsPercent;
+    }
+
+    @Override
+    public String getAdaptiveCompressionKeyPrefixDelimiter() {
+        return adaptiveCompressionKeyPrefixDelimiter;
+    }
+
+    @Override
+    public int getCompressionDictionaryId() {
+        return compressionDictionaryId;
+    }
+
+    @Override
+    public boolean isLegacyBinaryValueDecompressionEnabled() {
+        return legacyBinaryValueDecompressionEnabled;
+    }
+
     @Override
     public boolean isDualWriteEnabled() {
         return isDualWriteEnabled;
@@ -262,6 +520,12 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 				", name='" + name + '\'' +
 				", port=" + port +
 				", maxConnsPerHost=" + maxConnsPerHost +
+				", poolSizingStrategy=" + poolSizingStrategy +
+				", minConnsPerHost=" + minConnsPerHost +
+				", poolGrowBorrowLatencyMicros=" + poolGrowBorrowLatencyMicros +
+				", poolSizingIntervalSeconds=" + poolSizingIntervalSeconds +
+				", primeConnectionsParallelism=" + primeConnectionsParallelism +
+				", minPrimedConnsPerHost=" + minPrimedConnsPerHost +
 				", maxTimeoutWhenExhausted=" + maxTimeoutWhenExhausted +
 				", maxFailoverCount=" + maxFailoverCount +
 				", connectTimeout=" + connectTimeout +
@@ -271,12 +535,37 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 				", flushTimingsFrequencySeconds=" + flushTimingsFrequencySeconds +
 				", localZoneAffinity=" + localZoneAffinity +
 				", lbStrategy=" + lbStrategy +
+				", borrowStrategy=" + borrowStrategy +
 				", localRack='" + localRack + '\'' +
 				", localDataCenter='" + localDataCenter + '\'' +
 				", failOnStartupIfNoHosts=" + failOnStartupIfNoHosts +
 				", failOnStarupIfNoHostsSeconds=" + failOnStarupIfNoHostsSeconds +
 				", compressionStrategy=" + compressionStrategy +
 				", valueCompressionThreshold=" + valueCompressionThreshold +
+				", valueCodec=" + (valueCodec == null ? null : valueCodec.getName()) +
+				", nearCacheEnabled=" + nearCacheEnabled +
+				", nearCacheMaxEntries=" + nearCacheMaxEntries +
+				", nearCacheMaxWeightBytes=" + nearCacheMaxWeightBytes +
+				", nearCacheTtlMillis=" + nearCacheTtlMillis +
+				", maxAsyncInFlightPerHost=" + maxAsyncInFlightPerHost +
+				", asyncOperationTimeout=" + asyncOperationTimeout +
+				", requestCoalescingEnabled=" + requestCoalescingEnabled +
+				", requestCoalescingWindowMicros=" + requestCoalescingWindowMicros +
+				", requestCoalescingMaxBatchSize=" + requestCoalescingMaxBatchSize +
+				", requestCoalescingExcludedOps='" + requestCoalescingExcludedOps + '\'' +
+				", hedgedReadsEnabled=" + hedgedReadsEnabled +
+				", hedgedReadOps='" + hedgedReadOps + '\'' +
+				", hedgedReadDelayMillis=" + hedgedReadDelayMillis +
+				", hedgedReadDelayPercentile=" + hedgedReadDelayPercentile +
+				", hedgedReadBudgetPercent=" + hedgedReadBudgetPercent +
+				", hedgedReadMaxThreads=" + hedgedReadMaxThreads +
+				", latencyAwareSelectionEnabled=" + latencyAwareSelectionEnabled +
+				", latencyAwareOps='" + latencyAwareOps + '\'' +
+				", latencyAwareLocalRackBiasPercent=" + latencyAwareLocalRackBiasPercent +
+				", adaptiveCompressionMinSavingsPercent=" + adaptiveCompressionMinSavingsPercent +
+				", adaptiveCompressionKeyPrefixDelimiter='" + adaptiveCompressionKeyPrefixDelimiter + '\'' +
+				", compressionDictionaryId=" + compressionDictionaryId +
+				", legacyBinaryValueDecompressionEnabled=" + legacyBinaryValueDecompressionEnabled +
 				", isDualWriteEnabled=" + isDualWriteEnabled +
 				", dualWriteClusterName='" + dualWriteClusterName + '\'' +
 				", dualWritePercentage=" + dualWritePercentage +
@@ -291,6 +580,36 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 		return this;
 	}
 
+	public ConnectionPoolConfigurationImpl setPoolSizingStrategy(PoolSizingStrategy strategy) {
+		this.poolSizingStrategy = strategy;
+		return this;
+	}
+
+	public ConnectionPoolConfigurationImpl setMinConnsPerHost(int minConnsPerHost) {
+		this.minConnsPerHost = minConnsPerHost;
+		return this;
+	}
+
+	public ConnectionPoolConfigurationImpl setPoolGrowBorrowLatencyMicros(int micros) {
+		this.poolGrowBorrowLatencyMicros = micros;
+		return this;
+	}
+
+	public ConnectionPoolConfigurationImpl setPoolSizingIntervalSeconds(int seconds) {
+		this.poolSizingIntervalSeconds = seconds;
+		return this;
+	}
+
+	public ConnectionPoolConfigurationImpl setPrimeConnectionsParallelism(int parallelism) {
+		this.primeConnectionsParallelism = parallelism;
+		return this;
+	}
+
+	public ConnectionPoolConfigurationImpl setMinPrimedConnsPerHost(int minPrimedConnsPerHost) {
+		this.minPrimedConnsPerHost = minPrimedConnsPerHost;
+		return this;
+	}
+
 	public ConnectionPoolConfigurationImpl setMaxTimeoutWhenExhausted(int maxTimeoutWhenExhausted) {
 		this.maxTimeoutWhenExhausted = maxTimeoutWhenExhausted;
 		return this;
@@ -316,6 +635,11 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 		return this;
 	}
 
+	public ConnectionPoolConfigurationImpl setConnectionBorrowStrategy(ConnectionBorrowStrategy strategy) {
+		this.borrowStrategy = strategy;
+		return this;
+	}
+
 	public ConnectionPoolConfigurationImpl setRetryPolicyFactory(RetryPolicyFactory factory) {
 		this.retryFactory = factory;
 		return this;
@@ -351,6 +675,121 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
         return this;
     }
 
+    public ConnectionPoolConfigurationImpl setNearCacheEnabled(boolean enabled) {
+        this.nearCacheEnabled = enabled;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setNearCacheMaxEntries(int maxEntries) {
+        this.nearCacheMaxEntries = maxEntries;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setNearCacheMaxWeightBytes(int maxWeightBytes) {
+        this.nearCacheMaxWeightBytes = maxWeightBytes;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setNearCacheTtlMillis(int ttlMillis) {
+        this.nearCacheTtlMillis = ttlMillis;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setMaxAsyncInFlightPerHost(int maxInFlight) {
+        this.maxAsyncInFlightPerHost = maxInFlight;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setAsyncOperationTimeout(int timeoutMillis) {
+        this.asyncOperationTimeout = timeoutMillis;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setRequestCoalescingEnabled(boolean enabled) {
+        this.requestCoalescingEnabled = enabled;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setRequestCoalescingWindowMicros(int windowMicros) {
+        this.requestCoalescingWindowMicros = windowMicros;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setRequestCoalescingMaxBatchSize(int maxBatchSize) {
+        this.requestCoalescingMaxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setRequestCoalescingExcludedOps(String excludedOps) {
+        this.requestCoalescingExcludedOps = excludedOps;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadsEnabled(boolean enabled) {
+        this.hedgedReadsEnabled = enabled;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadOps(String ops) {
+        this.hedgedReadOps = ops;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadDelayMillis(int delayMillis) {
+        this.hedgedReadDelayMillis = delayMillis;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadDelayPercentile(int percentile) {
+        this.hedgedReadDelayPercentile = percentile;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadBudgetPercent(int budgetPercent) {
+        this.hedgedReadBudgetPercent = budgetPercent;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setHedgedReadMaxThreads(int maxThreads) {
+        this.hedgedReadMaxThreads = maxThreads;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setLatencyAwareSelectionEnabled(boolean enabled) {
+        this.latencyAwareSelectionEnabled = enabled;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setLatencyAwareOps(String ops) {
+        this.latencyAwareOps = ops;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setLatencyAwareLocalRackBiasPercent(int biasPercent) {
+        this.latencyAwareLocalRackBiasPercent = biasPercent;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setAdaptiveCompressionMinSavingsPercent(int percent) {
+        this.adaptiveCompressionMinSavingsPercent = percent;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setAdaptiveCompressionKeyPrefixDelimiter(String delimiter) {
+        this.adaptiveCompressionKeyPrefixDelimiter = delimiter;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setCompressionDictionaryId(int dictionaryId) {
+        this.compressionDictionaryId = dictionaryId;
+        return this;
+    }
+
+    public ConnectionPoolConfigurationImpl setLegacyBinaryValueDecompressionEnabled(boolean enabled) {
+        this.legacyBinaryValueDecompressionEnabled = enabled;
+        return this;
+    }
+
 	public ConnectionPoolConfigurationImpl setCompressionThreshold(int thresholdInBytes) {
 		this.valueCompressionThreshold = thresholdInBytes;
 		return this;
@@ -375,6 +814,32 @@ public class ConnectionPoolConfigurationImpl implements ConnectionPoolConfigurat
 		return this;
 	}
 
+	/**
+	 * Sets the codec used by {@link CompressionStrategy#CODEC} and registers it with {@link ValueCodecs} so that
+	 * the values it compresses can be read back.
+	 *
+	 * @param codec
+	 * @return this
+	 */
+	public ConnectionPoolConfigurationImpl withValueCodec(ValueCodec codec) {
+		ValueCodecs.register(codec);
+		valueCodec = codec;
+		return this;
+	}
+
+	/**
+	 * Loads a dictionary for {@link CompressionStrategy#DICTIONARY}, see {@link DictionaryCodec#load}. Load every
+	 * dictionary that values in the cluster may have been compressed with; new values are compressed with the one
+	 * {@link #getCompressionDictionaryId()} names, or the one loaded last.
+	 *
+	 * @param dictionary
+	 * @return this
+	 */
+	public ConnectionPoolConfigurationImpl withCompressionDictionary(CompressionDictionary dictionary) {
+		DictionaryCodec.load(dictionary);
+		return this;
+	}
+
 	public ConnectionPoolConfigurationImpl withErrorMonitorFactory(ErrorMonitorFactory factory) {
 		errorMonitorFactory = factory;
 		return this;
@@ -19,14 +19,23 @@ import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.netflix.dyno.connectionpool.*;
+import com.netflix.dyno.connectionpool.RetryPolicy.RetryPolicyFactory;
 import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
 import com.netflix.dyno.connectionpool.exception.PoolExhaustedException;
+import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.exception.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,9 +43,11 @@ import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.impl.HostConnectionPoolFactory.Type;
 import com.netflix.dyno.connectionpool.impl.health.ConnectionPoolHealthTracker;
+import com.netflix.dyno.connectionpool.impl.lb.HostLoadTracker;
 import com.netflix.dyno.connectionpool.impl.lb.HostSelectionWithFallback;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils.Predicate;
+import com.netflix.dyno.connectionpool.impl.utils.EstimatedHistogram;
 
 import javax.management.*;
 
@@ -88,6 +99,25 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
     private final AtomicBoolean idling = new AtomicBoolean(false);
 
     private HostSelectionWithFallback<CL> selectionStrategy;
+
+	// async operations in flight per host, see ConnectionPoolConfiguration#getMaxAsyncInFlightPerHost()
+	private final ConcurrentHashMap<Host, AtomicInteger> asyncInFlight = new ConcurrentHashMap<Host, AtomicInteger>();
+	// times out async operation attempts, created with the first async operation
+	private final AtomicReference<ScheduledExecutorService> asyncTimeoutThread = new AtomicReference<ScheduledExecutorService>();
+	// runs the retries of async operations, so that neither the timeout thread nor the thread that completed the
+	// failed attempt waits for a connection. Created with the first retry.
+	private final AtomicReference<ExecutorService> asyncRetryThreads = new AtomicReference<ExecutorService>();
+
+	// runs hedged reads and the attempts they hedge, created with the first hedged read
+	private final AtomicReference<ThreadPoolExecutor> hedgedReadThreads = new AtomicReference<ThreadPoolExecutor>();
+	// hundredths of a hedged read that may still be sent, see ConnectionPoolConfiguration#getHedgedReadBudgetPercent()
+	private final AtomicLong hedgedReadBudget = new AtomicLong();
+	// recent latency of the reads that may be hedged, in microseconds
+	private final EstimatedHistogram hedgedReadLatency = new EstimatedHistogram();
+	private final AtomicInteger hedgedReadSamples = new AtomicInteger();
+	private volatile long hedgedReadPercentileMicros = -1;
+	private volatile String hedgedReadOpsConfig;
+	private volatile Set<String> hedgedReadOps = Collections.emptySet();
 	
 	private Type poolType;
 
@@ -105,7 +135,11 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 
         switch (type) {
             case Sync:
-                hostConnPoolFactory = new SyncHostConnectionPoolFactory();
+                if (cpConfig.getConnectionBorrowStrategy() == ConnectionPoolConfiguration.ConnectionBorrowStrategy.Striped) {
+                    hostConnPoolFactory = new StripedHostConnectionPoolFactory();
+                } else {
+                    hostConnPoolFactory = new SyncHostConnectionPoolFactory();
+                }
                 break;
             case Async:
                 hostConnPoolFactory = new AsyncHostConnectionPoolFactory();
@@ -260,11 +294,21 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 
 	@Override
 	public <R> OperationResult<R> executeWithFailover(Operation<CL, R> op) throws DynoException {
+		if (isHedgedRead(op)) {
+			return new HedgedRead<R>(op).execute();
+		}
+		return executeWithRetries(op);
+	}
+
+	private <R> OperationResult<R> executeWithRetries(Operation<CL, R> op) throws DynoException {
 		
 		// Start recording the operation
 		long startTime = System.currentTimeMillis();
 		
-		RetryPolicy retry = cpConfiguration.getRetryPolicyFactory().getRetryPolicy();
+		// The built in policies only do something once an attempt has failed, so for these the policy is not
+		// created until then and the common case of a first attempt that succeeds does not allocate one
+		RetryPolicyFactory retryFactory = cpConfiguration.getRetryPolicyFactory();
+		RetryPolicy retry = isCreatedOnFailure(retryFactory) ? FirstAttempt : retryFactory.getRetryPolicy();
 		retry.begin();
 		
 		DynoException lastException = null;
@@ -281,7 +325,7 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
                                     retry
                             );
 
-				OperationResult<R> result = connection.execute(op);
+				OperationResult<R> result = executeOnConnection(connection, op);
 				
 				// Add context to the result from the successful execution
 				result.setNode(connection.getHost())
@@ -302,6 +346,10 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
                 cpHealthTracker.trackConnectionError(e.getHostConnectionPool(), e);
 			} catch(DynoException e) {
 				
+				if (retry == FirstAttempt) {
+					retry = retryFactory.getRetryPolicy();
+					retry.begin();
+				}
 				retry.failure(e);
 				lastException = e;
 
@@ -341,6 +389,68 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 		throw lastException;
 	}
 
+	/**
+	 * Executes the operation on the connection and reports it to the {@link HostLoadTracker}, if any
+	 */
+	private <R> OperationResult<R> executeOnConnection(Connection<CL> connection, Operation<CL, R> op) throws DynoException {
+		HostLoadTracker hostLoads = selectionStrategy.getHostLoadTracker();
+		if (hostLoads == null) {
+			return connection.execute(op);
+		}
+
+		Host host = connection.getHost();
+		hostLoads.operationStarted(host);
+		long startTime = System.nanoTime();
+		try {
+			return connection.execute(op);
+		} finally {
+			hostLoads.operationFinished(host, System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static boolean isCreatedOnFailure(RetryPolicyFactory factory) {
+		return factory instanceof RunOnce.RetryFactory || factory instanceof RetryNTimes.RetryFactory;
+	}
+
+	/**
+	 * Stateless stand in for a {@link RunOnce} or {@link RetryNTimes} policy that has not seen an attempt yet
+	 */
+	private static final RetryPolicy FirstAttempt = new RetryPolicy() {
+
+		@Override
+		public void begin() {
+		}
+
+		@Override
+		public void success() {
+		}
+
+		@Override
+		public void failure(Exception e) {
+			throw new IllegalStateException("A failure must be recorded against the real retry policy");
+		}
+
+		@Override
+		public boolean allowRetry() {
+			return true;
+		}
+
+		@Override
+		public boolean allowCrossZoneFallback() {
+			return false;
+		}
+
+		@Override
+		public int getAttemptCount() {
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return "FirstAttempt";
+		}
+	};
+
 	@Override
 	public <R> Collection<OperationResult<R>> executeWithRing(Operation<CL, R> op) throws DynoException {
 
@@ -425,6 +535,25 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 		}
 	}
 	
+	/**
+	 * Routes a batch of operations in one pass, falling back to remote racks for the operations whose local pool is
+	 * not active.
+	 *
+	 * @param ops
+	 * @return the operations grouped by the host pool that serves them
+	 */
+	public Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops)
+			throws NoAvailableHostsException {
+		return selectionStrategy.getPoolsForOperationBatch(ops);
+	}
+
+	/**
+	 * @return a host pool for every token of the ring, see {@link HostSelectionWithFallback#getPoolsToRing()}
+	 */
+	public List<HostConnectionPool<CL>> getPoolsToRing() throws NoAvailableHostsException {
+		return selectionStrategy.getPoolsToRing();
+	}
+
 	/**
 	 * Use with EXTREME CAUTION. Connection that is borrowed must be returned, else we will have connection pool exhaustion
 	 * @param baseOperation
@@ -444,6 +573,15 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
             cpHealthTracker.stop();
             hostsUpdater.stop();
             connPoolThreadPool.shutdownNow();
+            if (asyncTimeoutThread.get() != null) {
+                asyncTimeoutThread.get().shutdownNow();
+            }
+            if (asyncRetryThreads.get() != null) {
+                asyncRetryThreads.get().shutdownNow();
+            }
+            if (hedgedReadThreads.get() != null) {
+                hedgedReadThreads.get().shutdownNow();
+            }
             deregisterMonitorConsoleMBean();
         }
 	}
@@ -627,6 +765,14 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 		}
 	}
 	
+	private class StripedHostConnectionPoolFactory implements HostConnectionPoolFactory<CL> {
+
+		@Override
+		public HostConnectionPool<CL> createHostConnectionPool(Host host, ConnectionPoolImpl<CL> parentPoolImpl) {
+			return new StripedHostConnectionPoolImpl<CL>(host, connFactory, cpConfiguration, cpMonitor);
+		}
+	}
+
 	private class AsyncHostConnectionPoolFactory implements HostConnectionPoolFactory<CL> {
 
 		@Override
@@ -635,44 +781,576 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 		}
 	}
 	
+	/**
+	 * Starts the operation on a connection borrowed for it and returns without waiting for the operation to complete.
+	 *
+	 * The connection is held until the operation completes, and at most
+	 * {@link ConnectionPoolConfiguration#getMaxAsyncInFlightPerHost()} operations are in flight to a host at the
+	 * same time. An attempt that fails, that would go over that bound, or that does not complete within
+	 * {@link ConnectionPoolConfiguration#getAsyncOperationTimeout()} is retried on the host chosen by the
+	 * {@link HostSelectionWithFallback} as the {@link RetryPolicy} allows. Timeouts are enforced by a single
+	 * scheduler thread, no thread waits on an operation. The caller only takes a connection that is free right away,
+	 * when there is none the attempt waits for one on the async retry threads instead.
+	 *
+	 * Connections whose futures do not support listeners can not be tracked, for these the connection is returned
+	 * right away and their future is handed back as is.
+	 *
+	 * @return the future result, failed with the last exception once the retry policy gives up
+	 * @throws NoAvailableHostsException if there is no host for the first attempt
+	 */
 	@Override
 	public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<CL, R> op) throws DynoException {
-		
-		DynoException lastException = null;
-		Connection<CL> connection = null;
-		long startTime = System.currentTimeMillis();
-		
-		try { 
-			connection = 
-					selectionStrategy.getConnection(op, cpConfiguration.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
-			
-			ListenableFuture<OperationResult<R>> futureResult = connection.executeAsync(op);
-			
-			cpMonitor.incOperationSuccess(connection.getHost(), System.currentTimeMillis()-startTime);
-		
-			return futureResult; 
-			
-		} catch(NoAvailableHostsException e) {
-			cpMonitor.incOperationFailure(null, e);
-			throw e;
-		} catch(DynoException e) {
-			
-			lastException = e;
-			cpMonitor.incOperationFailure(connection != null ? connection.getHost() : null, e);
-			
-			// Track the connection health so that the pool can be purged at a later point
-			if (connection != null) {
-				cpHealthTracker.trackConnectionError(connection.getParentConnectionPool(), lastException);
+		return new AsyncExecution<R>(op).start();
+	}
+
+	private ScheduledExecutorService asyncTimeoutThread() {
+		ScheduledExecutorService timeouts = asyncTimeoutThread.get();
+		if (timeouts != null) {
+			return timeouts;
+		}
+		timeouts = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "DynoAsyncTimeouts-" + getName());
+				thread.setDaemon(true);
+				return thread;
 			}
-			
-		} catch(Throwable t) {
-			t.printStackTrace();
-		} finally {
-			if (connection != null) {
-				connection.getParentConnectionPool().returnConnection(connection);
+		});
+		if (asyncTimeoutThread.compareAndSet(null, timeouts)) {
+			return timeouts;
+		}
+		timeouts.shutdownNow();
+		return asyncTimeoutThread.get();
+	}
+
+	private ExecutorService asyncRetryThreads() {
+		ExecutorService threads = asyncRetryThreads.get();
+		if (threads != null) {
+			return threads;
+		}
+		threads = newDaemonThreads("DynoAsyncRetries-" + getName(), Math.max(2, Runtime.getRuntime().availableProcessors()),
+				new LinkedBlockingQueue<Runnable>());
+		if (asyncRetryThreads.compareAndSet(null, threads)) {
+			return threads;
+		}
+		threads.shutdownNow();
+		return asyncRetryThreads.get();
+	}
+
+	/**
+	 * @return an executor with at most the given number of daemon threads, which exit after a minute without work
+	 */
+	private static ThreadPoolExecutor newDaemonThreads(final String name, int maxThreads, BlockingQueue<Runnable> queue) {
+		ThreadPoolExecutor threads = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, queue,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		threads.allowCoreThreadTimeOut(true);
+		return threads;
+	}
+
+	private AtomicInteger asyncInFlight(Host host) {
+		AtomicInteger inFlight = asyncInFlight.get(host);
+		if (inFlight == null) {
+			AtomicInteger newInFlight = new AtomicInteger();
+			inFlight = asyncInFlight.putIfAbsent(host, newInFlight);
+			if (inFlight == null) {
+				inFlight = newInFlight;
+			}
+		}
+		return inFlight;
+	}
+
+	private void returnConnection(Connection<CL> connection) {
+		if (connection.getLastException() instanceof FatalConnectionException) {
+			Logger.warn("Received FatalConnectionException; closing connection " +
+					connection.getContext().getAll() + " to host " + connection.getParentConnectionPool().getHost());
+			connection.getParentConnectionPool().closeConnection(connection);
+		} else {
+			connection.getContext().reset();
+			connection.getParentConnectionPool().returnConnection(connection);
+		}
+	}
+
+	private static final Executor SameThread = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	/**
+	 * The attempts of one async operation, each one started once the previous one has failed
+	 */
+	private class AsyncExecution<R> {
+
+		private final AsyncOperation<CL, R> op;
+		private final SettableListenableFuture<OperationResult<R>> result = new SettableListenableFuture<OperationResult<R>>();
+		private final long startTime = System.currentTimeMillis();
+		private final RetryPolicy retry;
+
+		// the future of a connection that does not support listeners, handed back instead of the result
+		private ListenableFuture<OperationResult<R>> untrackedResult;
+		private volatile boolean returned;
+
+		private AsyncExecution(AsyncOperation<CL, R> op) {
+			this.op = op;
+			this.retry = cpConfiguration.getRetryPolicyFactory().getRetryPolicy();
+			this.retry.begin();
+		}
+
+		private ListenableFuture<OperationResult<R>> start() {
+			// the caller only takes a connection that is free right away, the wait for one is left to the retry threads
+			attempt(0);
+			returned = true;
+			return (untrackedResult != null) ? untrackedResult : result;
+		}
+
+		private void attempt(int maxWaitMillis) {
+
+			Connection<CL> connection;
+			try {
+				connection = selectionStrategy.getConnectionUsingRetryPolicy(op,
+						maxWaitMillis, TimeUnit.MILLISECONDS, retry);
+
+			} catch (PoolTimeoutException e) {
+				if (maxWaitMillis == 0) {
+					retryOnAsyncThreads(e);
+					return;
+				}
+				cpMonitor.incOperationFailure(null, e);
+				failed(null, e);
+				return;
+			} catch (NoAvailableHostsException e) {
+				cpMonitor.incOperationFailure(null, e);
+				if (retry.getAttemptCount() == 0) {
+					throw e;
+				}
+				result.setException(e);
+				return;
+			} catch (PoolExhaustedException e) {
+				Logger.warn("Pool exhausted: " + e.getMessage());
+				cpMonitor.incOperationFailure(null, e);
+				cpHealthTracker.trackConnectionError(e.getHostConnectionPool(), e);
+				failed(null, e);
+				return;
+			} catch (DynoException e) {
+				cpMonitor.incOperationFailure(null, e);
+				failed(null, e);
+				return;
+			}
+
+			Host host = connection.getHost();
+			AtomicInteger inFlight = asyncInFlight(host);
+			if (inFlight.incrementAndGet() > cpConfiguration.getMaxAsyncInFlightPerHost()) {
+				inFlight.decrementAndGet();
+				returnConnection(connection);
+				ThrottledException e = new ThrottledException("Too many async operations in flight to host " + host);
+				cpMonitor.incOperationFailure(host, e);
+				failed(host, e);
+				return;
+			}
+
+			new AsyncAttempt(connection, inFlight).start();
+		}
+
+		/**
+		 * Retries on the async retry threads if the retry policy allows it. This runs on the thread that completed or
+		 * timed out the attempt, which must not wait for a connection.
+		 */
+		private void failed(Host host, final DynoException e) {
+			retry.failure(e);
+			if (!retry.allowRetry()) {
+				result.setException(e);
+				return;
+			}
+			if (host != null) {
+				cpMonitor.incFailover(host, e);
+			}
+			retryOnAsyncThreads(e);
+		}
+
+		/**
+		 * Makes the next attempt on the async retry threads, which may wait for a connection
+		 */
+		private void retryOnAsyncThreads(DynoException e) {
+			try {
+				asyncRetryThreads().execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							attempt(cpConfiguration.getMaxTimeoutWhenExhausted());
+						} catch (RuntimeException re) {
+							result.setException(re);
+						}
+					}
+				});
+			} catch (RejectedExecutionException re) {
+				// the pool is shutting down
+				result.setException(e);
+			}
+		}
+
+		/**
+		 * One attempt, that ends either when the operation completes or when it times out. The connection is
+		 * returned once the operation completes, even when the attempt timed out before.
+		 */
+		private class AsyncAttempt implements Runnable {
+
+			private final Connection<CL> connection;
+			private final AtomicInteger inFlight;
+			private final AtomicBoolean ended = new AtomicBoolean(false);
+
+			private ListenableFuture<OperationResult<R>> future;
+			private volatile ScheduledFuture<?> timeout;
+
+			private AsyncAttempt(Connection<CL> connection, AtomicInteger inFlight) {
+				this.connection = connection;
+				this.inFlight = inFlight;
+			}
+
+			private void start() {
+				try {
+					future = connection.executeAsync(op);
+				} catch (DynoException e) {
+					release();
+					ended(e);
+					return;
+				} catch (RuntimeException e) {
+					release();
+					ended(new DynoException(e));
+					return;
+				}
+
+				final int timeoutMillis = cpConfiguration.getAsyncOperationTimeout();
+				if (timeoutMillis > 0) {
+					timeout = asyncTimeoutThread().schedule(new Runnable() {
+						@Override
+						public void run() {
+							ended(new TimeoutException("Async operation " + op.getName() + " timed out after " +
+									timeoutMillis + " ms on host " + connection.getHost()));
+						}
+					}, timeoutMillis, TimeUnit.MILLISECONDS);
+				}
+
+				try {
+					future.addListener(this, SameThread);
+				} catch (UnsupportedOperationException e) {
+					if (timeout != null) {
+						timeout.cancel(false);
+					}
+					ended.set(true);
+					release();
+					cpMonitor.incOperationSuccess(connection.getHost(), System.currentTimeMillis() - startTime);
+					if (returned) {
+						// too late to hand the future back, this retry thread waits on it instead
+						relay(future);
+					} else {
+						untrackedResult = future;
+					}
+				}
+			}
+
+			private void relay(ListenableFuture<OperationResult<R>> future) {
+				try {
+					result.set(future.get());
+				} catch (ExecutionException e) {
+					result.setException(e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					result.setException(e);
+				}
+			}
+
+			/**
+			 * Called once the operation on the connection completes
+			 */
+			@Override
+			public void run() {
+				try {
+					if (!ended.compareAndSet(false, true)) {
+						return;
+					}
+					if (timeout != null) {
+						timeout.cancel(false);
+					}
+
+					OperationResult<R> opResult;
+					try {
+						opResult = future.get();
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						failed((cause instanceof DynoException) ? (DynoException) cause : new DynoException(cause));
+						return;
+					} catch (CancellationException e) {
+						result.cancel(false);
+						return;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						failed(new DynoException(e));
+						return;
+					}
+
+					opResult.setNode(connection.getHost()).addMetadata(connection.getContext().getAll());
+					retry.success();
+					cpMonitor.incOperationSuccess(connection.getHost(), System.currentTimeMillis() - startTime);
+					result.set(opResult);
+
+				} finally {
+					release();
+				}
+			}
+
+			private void ended(DynoException e) {
+				if (ended.compareAndSet(false, true)) {
+					failed(e);
+				}
+			}
+
+			private void failed(DynoException e) {
+				cpMonitor.incOperationFailure(connection.getHost(), e);
+				// Track the connection health so that the pool can be purged at a later point
+				cpHealthTracker.trackConnectionError(connection.getParentConnectionPool(), e);
+				AsyncExecution.this.failed(connection.getHost(), e);
+			}
+
+			private void release() {
+				inFlight.decrementAndGet();
+				returnConnection(connection);
+			}
+		}
+	}
+
+	private boolean isHedgedRead(Operation<CL, ?> op) {
+
+		if (!cpConfiguration.isHedgedReadsEnabled() || selectionStrategy == null) {
+			return false;
+		}
+
+		String opsConfig = cpConfiguration.getHedgedReadOps();
+		if (opsConfig != null && !opsConfig.equals(hedgedReadOpsConfig)) {
+			Set<String> ops = new HashSet<String>();
+			for (String opName : opsConfig.split(",")) {
+				if (!opName.trim().isEmpty()) {
+					ops.add(opName.trim().toUpperCase());
+				}
+			}
+			hedgedReadOps = ops;
+			hedgedReadOpsConfig = opsConfig;
+		}
+		return hedgedReadOps.contains(op.getName());
+	}
+
+	/**
+	 * @return the threads of the hedged reads, which do not queue: a read or hedge is rejected when they are all busy
+	 */
+	private ExecutorService hedgedReadThreads() {
+		int maxThreads = Math.max(1, cpConfiguration.getHedgedReadMaxThreads());
+		ThreadPoolExecutor threads = hedgedReadThreads.get();
+		if (threads == null) {
+			threads = newDaemonThreads("DynoHedgedReads-" + getName(), maxThreads, new SynchronousQueue<Runnable>());
+			if (!hedgedReadThreads.compareAndSet(null, threads)) {
+				threads.shutdownNow();
+				threads = hedgedReadThreads.get();
+			}
+		}
+
+		// the core size may not exceed the maximum size, so the order depends on whether the pool grows or shrinks
+		if (maxThreads > threads.getMaximumPoolSize()) {
+			threads.setMaximumPoolSize(maxThreads);
+			threads.setCorePoolSize(maxThreads);
+		} else if (maxThreads < threads.getMaximumPoolSize()) {
+			threads.setCorePoolSize(maxThreads);
+			threads.setMaximumPoolSize(maxThreads);
+		}
+		return threads;
+	}
+
+	/**
+	 * @return the time a read waits for the local rack before it is hedged, in microseconds
+	 */
+	private long hedgedReadDelayMicros() {
+		long percentileMicros = hedgedReadPercentileMicros;
+		if (cpConfiguration.getHedgedReadDelayPercentile() > 0 && percentileMicros >= 0) {
+			return percentileMicros;
+		}
+		return TimeUnit.MILLISECONDS.toMicros(cpConfiguration.getHedgedReadDelayMillis());
+	}
+
+	/**
+	 * Records the latency of a read that may be hedged. The percentile the reads are hedged after is computed again
+	 * every 256 reads, and the histogram starts over every 16384 reads so that it follows the recent latency.
+	 */
+	private void recordHedgedReadLatency(long latencyMicros) {
+		hedgedReadLatency.add(latencyMicros);
+		int samples = hedgedReadSamples.incrementAndGet();
+		if ((samples & 0xFF) != 0) {
+			return;
+		}
+
+		int percentile = cpConfiguration.getHedgedReadDelayPercentile();
+		if (percentile > 0) {
+			try {
+				hedgedReadPercentileMicros = hedgedReadLatency.percentile(Math.min(percentile, 100) / 100.0);
+			} catch (IllegalStateException e) {
+				// overflowed, keep the previous percentile
+			}
+		}
+		if ((samples & 0x3FFF) == 0) {
+			hedgedReadLatency.getBuckets(true);
+		}
+	}
+
+	/**
+	 * Each read that may be hedged adds its share of a hedged read to the budget, and each hedged read takes one
+	 * whole read out of it. The budget holds at most 100 hedged reads, so a burst of slow reads after a quiet period
+	 * is bounded too.
+	 */
+	private void creditHedgedReadBudget() {
+		long budget = hedgedReadBudget.addAndGet(cpConfiguration.getHedgedReadBudgetPercent());
+		if (budget > 100 * 100) {
+			hedgedReadBudget.set(100 * 100);
+		}
+	}
+
+	private boolean takeHedgedReadBudget() {
+		while (true) {
+			long budget = hedgedReadBudget.get();
+			if (budget < 100) {
+				return false;
+			}
+			if (hedgedReadBudget.compareAndSet(budget, budget - 100)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * A read that is also sent to the owner of its token in a remote rack when the local rack has not answered it
+	 * within {@link #hedgedReadDelayMicros()}, and the hedged read budget allows it. The first successful reply is
+	 * returned, and the read only fails when every attempt has failed.
+	 *
+	 * Both attempts run on the hedged read threads and go through the whole of a normal execution, so the attempt
+	 * that loses still completes on its own thread and returns its connection as usual.
+	 */
+	private class HedgedRead<R> {
+
+		private final Operation<CL, R> op;
+		private final SettableListenableFuture<OperationResult<R>> result = new SettableListenableFuture<OperationResult<R>>();
+		// the primary and the hedge each hold a slot until they end, the hedge slot is ended unused when no hedge is sent
+		private final AtomicInteger pending = new AtomicInteger(2);
+		private final AtomicReference<DynoException> firstFailure = new AtomicReference<DynoException>();
+
+		private HedgedRead(Operation<CL, R> op) {
+			this.op = op;
+		}
+
+		private OperationResult<R> execute() {
+
+			try {
+				hedgedReadThreads().execute(new Runnable() {
+					@Override
+					public void run() {
+						long startTime = System.nanoTime();
+						try {
+							OperationResult<R> opResult = executeWithRetries(op);
+							recordHedgedReadLatency((System.nanoTime() - startTime) / 1000);
+							result.set(opResult);
+						} catch (RuntimeException e) {
+							failed(e);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// every hedged read thread is busy, rather than adding one the read runs here and is not hedged
+				return executeWithRetries(op);
+			}
+			creditHedgedReadBudget();
+
+			try {
+				try {
+					return result.get(hedgedReadDelayMicros(), TimeUnit.MICROSECONDS);
+				} catch (java.util.concurrent.TimeoutException e) {
+					hedge();
+				}
+				return result.get();
+
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				throw (cause instanceof DynoException) ? (DynoException) cause : new DynoException(cause);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DynoException("Interrupted while waiting for " + op.getName(), e);
+			}
+		}
+
+		private void hedge() {
+
+			if (result.isDone() || !takeHedgedReadBudget()) {
+				attemptEnded();
+				return;
+			}
+			Runnable hedge = new Runnable() {
+				@Override
+				public void run() {
+					Connection<CL> connection = null;
+					try {
+						connection = selectionStrategy.getConnectionInRemoteRack(op,
+								cpConfiguration.getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+						cpMonitor.incHedgedRead(connection.getHost());
+
+						long startTime = System.currentTimeMillis();
+						OperationResult<R> opResult = executeOnConnection(connection, op);
+						opResult.setNode(connection.getHost()).addMetadata(connection.getContext().getAll());
+						cpMonitor.incOperationSuccess(connection.getHost(), System.currentTimeMillis() - startTime);
+						if (result.set(opResult)) {
+							cpMonitor.incHedgedReadWon(connection.getHost());
+						}
+
+					} catch (DynoException e) {
+						if (connection != null) {
+							cpMonitor.incOperationFailure(connection.getHost(), e);
+							cpHealthTracker.trackConnectionError(connection.getParentConnectionPool(), e);
+						}
+						failed(e);
+					} catch (RuntimeException e) {
+						failed(e);
+					} finally {
+						if (connection != null) {
+							returnConnection(connection);
+						}
+					}
+				}
+			};
+
+			try {
+				hedgedReadThreads().execute(hedge);
+			} catch (RejectedExecutionException e) {
+				// every hedged read thread is busy, the read is left to the local rack
+				attemptEnded();
+			}
+		}
+
+		/**
+		 * Fails the read with the first failure once every attempt has failed
+		 */
+		private void failed(RuntimeException e) {
+			firstFailure.compareAndSet(null, (e instanceof DynoException) ? (DynoException) e : new DynoException(e));
+			attemptEnded();
+		}
+
+		private void attemptEnded() {
+			if (pending.decrementAndGet() == 0) {
+				result.setException(firstFailure.get());
 			}
 		}
-		return null;
 	}
 
 	public TokenPoolTopology getTopology() {
@@ -693,4 +1371,14 @@ public class ConnectionPoolImpl<CL> implements ConnectionPool<CL>, TopologyView
 
         return null;
     }
+
+    @Override
+    public Long getTokenForKey(byte[] key) {
+        if (cpConfiguration.getLoadBalancingStrategy() ==
+                ConnectionPoolConfiguration.LoadBalancingStrategy.TokenAware) {
+            return selectionStrategy.getTokenForKey(key);
+        }
+
+        return null;
+    }
 }
@@ -46,6 +46,10 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
     private final AtomicLong connectionBorrowCount  = new AtomicLong();
     private final AtomicLong connectionReturnCount  = new AtomicLong();
     private final AtomicLong operationFailoverCount = new AtomicLong();
+    private final AtomicLong hedgedReadCount        = new AtomicLong();
+    private final AtomicLong hedgedReadWonCount     = new AtomicLong();
+    private final AtomicLong poolGrownCount         = new AtomicLong();
+    private final AtomicLong poolShrunkCount        = new AtomicLong();
 
     private final AtomicLong poolTimeoutCount       = new AtomicLong();
     private final AtomicLong poolExhastedCount      = new AtomicLong();
@@ -150,6 +154,40 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
         return this.connectionCreateFailureCount.get();
     }
 
+    @Override
+    public void setConnectionReplenishBacklog(Host host, int backlog) {
+        getOrCreateHostStats(host).replenishBacklog.set(backlog);
+    }
+
+    @Override
+    public long getConnectionReplenishBacklog() {
+        long backlog = 0;
+        for (HostConnectionStats stats : hostStats.values()) {
+            backlog += stats.getConnectionReplenishBacklog();
+        }
+        return backlog;
+    }
+
+    @Override
+    public void incPoolGrown(Host host, int poolSize) {
+        this.poolGrownCount.incrementAndGet();
+    }
+
+    @Override
+    public long getPoolGrownCount() {
+        return this.poolGrownCount.get();
+    }
+
+    @Override
+    public void incPoolShrunk(Host host, int poolSize) {
+        this.poolShrunkCount.incrementAndGet();
+    }
+
+    @Override
+    public long getPoolShrunkCount() {
+        return this.poolShrunkCount.get();
+    }
+
     @Override
     public void incConnectionBorrowed(Host host, long delay) {
         this.connectionBorrowCount.incrementAndGet();
@@ -222,6 +260,26 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
         return this.operationFailoverCount.get();
     }
 
+    @Override
+    public void incHedgedRead(Host host) {
+        this.hedgedReadCount.incrementAndGet();
+    }
+
+    @Override
+    public long getHedgedReadCount() {
+        return this.hedgedReadCount.get();
+    }
+
+    @Override
+    public void incHedgedReadWon(Host host) {
+        this.hedgedReadWonCount.incrementAndGet();
+    }
+
+    @Override
+    public long getHedgedReadWonCount() {
+        return this.hedgedReadWonCount.get();
+    }
+
     @Override
     public long getNoHostCount() {
         return this.noHostsCount.get();
@@ -257,12 +315,17 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
                     .append(",createFailed="     ).append(connectionCreateFailureCount.get())
                     .append(",borrow="     ).append(connectionBorrowCount.get())
                     .append(",return="     ).append(connectionReturnCount.get())
+                    .append(",replenishBacklog=").append(getConnectionReplenishBacklog())
+                    .append(",poolGrown="  ).append(poolGrownCount.get())
+                    .append(",poolShrunk=" ).append(poolShrunkCount.get())
                 .append("], Operations[")
                     .append( "success="    ).append(operationSuccessCount.get())
                     .append(",failure="    ).append(operationFailureCount.get())
                     .append(",optimeout="  ).append(operationTimeoutCount.get())
                     .append(",timeout="    ).append(socketTimeoutCount.get())
                     .append(",failover="   ).append(operationFailoverCount.get())
+                    .append(",hedged="     ).append(hedgedReadCount.get())
+                    .append(",hedgedWon="  ).append(hedgedReadWonCount.get())
                     .append(",nohosts="    ).append(noHostsCount.get())
                     .append(",unknown="    ).append(unknownErrorCount.get())
                     .append(",exhausted="  ).append(poolExhastedCount.get())
@@ -338,6 +401,7 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
 		private final AtomicLong createFailed = new AtomicLong();
 		private final AtomicLong borrowed  = new AtomicLong();
 		private final AtomicLong returned  = new AtomicLong();
+		private final AtomicLong replenishBacklog = new AtomicLong();
 
 		private HostConnectionStatsImpl(Host host) {
 			this.name = host.getHostAddress();
@@ -373,6 +437,11 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
 			return createFailed.get();
 		}
 
+		@Override
+		public long getConnectionReplenishBacklog() {
+			return replenishBacklog.get();
+		}
+
 		@Override
 		public long getOperationSuccessCount() {
 			return opSuccess.get();
@@ -390,6 +459,7 @@ public class CountingConnectionPoolMonitor implements ConnectionPoolMonitor {
 					", created: " + created.get() +
 					", closed: " + closed.get() +
 					", createFailed: " + createFailed.get() +
+					", replenishBacklog: " + replenishBacklog.get() +
 					", success: " + opSuccess.get() +
 					", error: " + opFailure.get();
 		}
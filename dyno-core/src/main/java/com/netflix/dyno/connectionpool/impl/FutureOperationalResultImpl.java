@@ -106,8 +106,14 @@ public class FutureOperationalResultImpl<R> implements ListenableFuture<Operatio
 	}
 	
 
+	/**
+	 * Supported only when the inner future is itself a {@link ListenableFuture}
+	 */
 	@Override
 	public void addListener(Runnable listener, Executor executor) {
-		throw new RuntimeException("Not Implemented");
+		if (!(future instanceof ListenableFuture)) {
+			throw new UnsupportedOperationException("Not Implemented");
+		}
+		((ListenableFuture<R>) future).addListener(listener, executor);
 	}
 }
@@ -18,8 +18,18 @@ package com.netflix.dyno.connectionpool.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -46,11 +56,16 @@ import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
  * Hence it uses a {@link LinkedBlockingQueue} to manage the available connections. 
  * When a connection needs to be borrowed, we wait or poll the queue. As connections are returned, they are added back into the queue. 
  * This is the normal behavior during the "Active" state of this pool. 
+ * Sub classes can change how idle connections are held by overriding {@link #addAvailableConnection(Connection)}, 
+ * {@link #pollAvailableConnection(int, TimeUnit)} and {@link #drainAvailableConnections(Collection)}.
  * 
  * The class also manages another state called "Inactive" where it can be put "Down" where it stops accepting requests for borrowing more connections, 
  * and simply terminates every connection that is returned to it. This is generally useful when the host is going away, or where the error rate 
  * from the connections of this pool are greater than a configured error threshold and then an external component decides to recycle the connection pool. 
  * 
+ * Connections that are closed while the pool is active are re-created in the background by a {@link ConnectionReplenisher}, 
+ * so that threads returning or borrowing connections never block on opening a socket. 
+ * 
  * @author poberai
  *
  * @param <CL>
@@ -58,6 +73,16 @@ import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
 public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 
 	private static final Logger Logger = LoggerFactory.getLogger(HostConnectionPoolImpl.class);
+
+	// Limits the rate at which a single pool re-creates connections to at most 50 per second
+	private static final int REPLENISH_MIN_INTERVAL_MS = 20;
+	// Backoff after failing to re-create a connection, doubled on every consecutive failure
+	private static final int REPLENISH_BASE_BACKOFF_MS = 100;
+	private static final int REPLENISH_MAX_BACKOFF_MS = 10000;
+
+	// Shared by the replenishers of all pools, each pool has at most one task scheduled at any time
+	private static final ScheduledExecutorService replenishThreadPool =
+			Executors.newScheduledThreadPool(2, new DaemonThreadFactory("DynoConnectionReplenisher"));
 	
 	// The connections available for this connection pool
 	private final LinkedBlockingQueue<Connection<CL>> availableConnections = new LinkedBlockingQueue<Connection<CL>>();
@@ -83,6 +108,18 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 	
 	// The thread safe reference to the pool state
 	private final AtomicReference<ConnectionPoolState<CL>> cpState = new AtomicReference<ConnectionPoolState<CL>>(cpNotInited);
+
+	// re-creates closed connections off the request path
+	private final ConnectionReplenisher replenisher = new ConnectionReplenisher();
+
+	// opens connections when priming in parallel, created by the first reconnect that needs it. Only accessed by
+	// reconnects, which are serialized by the pool state, and its idle threads exit so it is never shut down
+	private ThreadPoolExecutor primerThreadPool;
+	// priming attempts that have not completed yet, the last one to complete leaves the rest to the replenisher
+	private final AtomicInteger pendingPrimingAttempts = new AtomicInteger(0);
+
+	// adjusts the number of connections to the load on the host, null when the pool has a fixed size
+	private final ElasticPoolSizer sizer;
 	
 	public HostConnectionPoolImpl(Host host, ConnectionFactory<CL> conFactory, 
 			                      ConnectionPoolConfiguration cpConfig, ConnectionPoolMonitor poolMonitor) {
@@ -90,6 +127,8 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		this.connFactory = conFactory;
 		this.cpConfig = cpConfig;
 		this.monitor = poolMonitor;
+		this.sizer = (cpConfig.getPoolSizingStrategy() == ConnectionPoolConfiguration.PoolSizingStrategy.Elastic) ?
+				new ElasticPoolSizer() : null;
 	}
 	
 	@Override
@@ -99,11 +138,17 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 
 	@Override
 	public boolean returnConnection(Connection<CL> connection) {
+		if (sizer != null) {
+			sizer.onReturn();
+		}
 		return cpState.get().returnConnection(connection);
 	}
 
 	@Override
 	public boolean closeConnection(Connection<CL> connection) {
+		if (sizer != null) {
+			sizer.onReturn();
+		}
 		return cpState.get().closeConnection(connection);
 	}
 
@@ -147,9 +192,12 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		
 		Logger.info("Shutting down connection pool for host:" + host);
 		cpState.set(cpDown);
+		if (sizer != null) {
+			sizer.stop();
+		}
 		
 		List<Connection<CL>> connections = new ArrayList<Connection<CL>>();
-		availableConnections.drainTo(connections);
+		drainAvailableConnections(connections);
 		
 		for (Connection<CL> connection : connections) {
 			cpState.get().closeConnection(connection);
@@ -182,20 +230,37 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 			Logger.info("Reconnect connections already called by someone else, ignoring reconnect connections request");
 			return 0;
 		}
-		
-		int successfullyCreated = 0; 
-		
-		for (int i=0; i<cpConfig.getMaxConnsPerHost(); i++) {
-			boolean success = createConnectionWithRetries();
-			if (success) {
-				successfullyCreated++;
+
+		int maxConns = cpConfig.getMaxConnsPerHost();
+		int minConns = getMinPrimedConnections();
+
+		boolean parallel = cpConfig.getPrimeConnectionsParallelism() > 1 && maxConns > 1;
+
+		int successfullyCreated;
+		if (parallel) {
+			successfullyCreated = createConnectionsInParallel(maxConns, minConns);
+		} else {
+			successfullyCreated = 0;
+			for (int i=0; i<maxConns && successfullyCreated<minConns; i++) {
+				boolean success = createConnectionWithRetries();
+				if (success) {
+					successfullyCreated++;
+				}
 			}
 		}
 		
-		if (successfullyCreated == cpConfig.getMaxConnsPerHost()) {
+		if (successfullyCreated >= minConns) {
+			if (sizer != null) {
+				sizer.reset(maxConns);
+			}
 			if (!(cpState.compareAndSet(cpReconnecting, cpActive))) {
 				throw new IllegalStateException("something went wrong with prime connections");
 			}
+			if (pendingPrimingAttempts.get() == 0) {
+				// anything that has not been created yet is left to the replenisher. Priming attempts that are
+				// still running request the refill themselves once the last of them completes
+				replenisher.requestRefill();
+			}
 		} else {
 			if (!(cpState.compareAndSet(cpReconnecting, cpDown))) {
 				throw new IllegalStateException("something went wrong with prime connections");
@@ -203,7 +268,83 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		}
 		return successfullyCreated;
 	}
+
+	/**
+	 * @return the number of connections that need to be created before the pool can be marked active
+	 */
+	private int getMinPrimedConnections() {
+		int maxConns = cpConfig.getMaxConnsPerHost();
+		int minConns = cpConfig.getMinPrimedConnsPerHost();
+		return (minConns <= 0 || minConns > maxConns) ? maxConns : minConns;
+	}
+
+	/**
+	 * Opens connections using up to {@link ConnectionPoolConfiguration#getPrimeConnectionsParallelism()} threads,
+	 * and returns as soon as minConns connections have been created or all attempts have completed.
+	 * Connections that are still being opened at that point continue to be created in the background.
+	 *
+	 * @return the number of connections created when this method returns
+	 */
+	private int createConnectionsInParallel(final int maxConns, final int minConns) {
+
+		final AtomicInteger created = new AtomicInteger(0);
+		final AtomicInteger completed = new AtomicInteger(0);
+		final CountDownLatch enoughCreated = new CountDownLatch(1);
+
+		ExecutorService threadPool = getPrimerThreadPool(Math.min(cpConfig.getPrimeConnectionsParallelism(), maxConns));
+		pendingPrimingAttempts.addAndGet(maxConns);
+
+		for (int i = 0; i < maxConns; i++) {
+			threadPool.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					// the pool may have gone down while this attempt was queued
+					ConnectionPoolState<CL> state = cpState.get();
+					boolean success = (state == cpReconnecting || state == cpActive) && createConnectionWithRetries();
+
+					int numCreated = success ? created.incrementAndGet() : created.get();
+					int numCompleted = completed.incrementAndGet();
+
+					if (numCreated >= minConns || numCompleted == maxConns) {
+						enoughCreated.countDown();
+					}
+					if (pendingPrimingAttempts.decrementAndGet() == 0) {
+						// does nothing if the pool is not active yet, in which case reconnect requests it
+						replenisher.requestRefill();
+					}
+				}
+			});
+		}
+
+		try {
+			enoughCreated.await();
+		} catch (InterruptedException e) {
+			Logger.info("Thread interrupted when waiting on connections to be primed for host: " + host);
+			Thread.currentThread().interrupt();
+		}
+
+		return created.get();
+	}
 	
+	/**
+	 * @return the pool's primer threads, sized to the given parallelism
+	 */
+	private ExecutorService getPrimerThreadPool(int parallelism) {
+		if (primerThreadPool == null) {
+			primerThreadPool = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("DynoConnectionPrimer-" + host.getHostAddress()));
+			primerThreadPool.allowCoreThreadTimeOut(true);
+		} else if (parallelism > primerThreadPool.getMaximumPoolSize()) {
+			primerThreadPool.setMaximumPoolSize(parallelism);
+			primerThreadPool.setCorePoolSize(parallelism);
+		} else if (parallelism < primerThreadPool.getMaximumPoolSize()) {
+			primerThreadPool.setCorePoolSize(parallelism);
+			primerThreadPool.setMaximumPoolSize(parallelism);
+		}
+		return primerThreadPool;
+	}
+
 	private boolean createConnectionWithRetries() {
 		
 		boolean success = false;
@@ -218,6 +359,9 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 				retry.success();
 				success = true;
 				break;
+			} catch (PoolOfflineException e) {
+				// the pool went down, there is no point in retrying
+				break;
 			} catch (DynoException e) {
 				retry.failure(e);
 			}
@@ -226,6 +370,14 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		return success;
 	}
 
+	/**
+	 * @return the number of connections the pool currently aims to keep open, this is
+	 * {@link ConnectionPoolConfiguration#getMaxConnsPerHost()} unless the pool is sized elastically
+	 */
+	public int getTargetConnections() {
+		return (sizer != null) ? sizer.getTarget() : cpConfig.getMaxConnsPerHost();
+	}
+
 	@Override
 	public Host getHost() {
 		return host;
@@ -259,6 +411,42 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		return cpConfig.getConnectTimeout();
 	}
 
+	/**
+	 * Makes the given connection available to be borrowed
+	 * @param connection
+	 */
+	protected void addAvailableConnection(Connection<CL> connection) {
+		availableConnections.add(connection);
+	}
+
+	/**
+	 * Removes the given connection from the available connections
+	 * @param connection
+	 * @return false if the connection was not available, e.g. because it has been borrowed
+	 */
+	protected boolean removeAvailableConnection(Connection<CL> connection) {
+		return availableConnections.remove(connection);
+	}
+
+	/**
+	 * Wait for an available connection
+	 * @param duration
+	 * @param unit
+	 * @return the connection or null if none became available within the given duration
+	 * @throws InterruptedException
+	 */
+	protected Connection<CL> pollAvailableConnection(int duration, TimeUnit unit) throws InterruptedException {
+		return availableConnections.poll(duration, unit);
+	}
+
+	/**
+	 * Remove all available connections from the pool
+	 * @param connections the collection to add the removed connections to
+	 */
+	protected void drainAvailableConnections(Collection<Connection<CL>> connections) {
+		availableConnections.drainTo(connections);
+	}
+
 	private interface ConnectionPoolState<CL> { 
 		
 		
@@ -284,15 +472,14 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		@Override
 		public Connection<CL> createConnection() {
 			
+			Connection<CL> connection;
 			try { 
-				Connection<CL> connection = connFactory.createConnection((HostConnectionPool<CL>) pool, null);
+				connection = connFactory.createConnection((HostConnectionPool<CL>) pool, null);
 				connection.open();
-				availableConnections.add(connection);
+				addAvailableConnection(connection);
 
 				monitor.incConnectionCreated(host);
 				numActiveConnections.incrementAndGet();
-				
-				return connection;
 			} catch (DynoConnectException e) {
 				if (Logger.isDebugEnabled()) {
                     if (monitor.getConnectionCreateFailedCount() % 10000 == 0) {
@@ -310,26 +497,35 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 				monitor.incConnectionCreateFailed(host, e);
 				throw new DynoConnectException(e);
 			}
+
+			// the primer or the replenisher may still be opening a connection when the pool goes down, after
+			// shutdown() has closed the connections that were available
+			ConnectionPoolState<CL> state = cpState.get();
+			if (state != cpActive && state != cpReconnecting && removeAvailableConnection(connection)) {
+				cpDown.closeConnection(connection);
+				throw new PoolOfflineException(host, "Pool went down while a connection was being created");
+			}
+			return connection;
 		}
 
 
 		@Override
 		public boolean returnConnection(Connection<CL> connection) {
 			try {
-				if (numActiveConnections.get() > cpConfig.getMaxConnsPerHost()) {
+				if (numActiveConnections.get() > getTargetConnections()) {
 
                     // Just close the connection
                     return closeConnection(connection);
 
-                } else if (numActiveConnections.get() < cpConfig.getMaxConnsPerHost()) {
+                } else if (numActiveConnections.get() < getTargetConnections()) {
 
-                    // Create a connection and add it to the pool
-                    createConnectionWithRetries();
+                    // Have a connection created in the background and added to the pool
+                    replenisher.requestRefill();
 
 				}
 
 				// Add the given connection back to the pool
-				availableConnections.add(connection);
+				addAvailableConnection(connection);
 				return false;
 
 			} finally { 
@@ -348,6 +544,7 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 			} finally {
 				numActiveConnections.decrementAndGet();
 				monitor.incConnectionClosed(host, connection.getLastException());
+				replenisher.requestRefill();
 			}
 		}
 		
@@ -355,6 +552,7 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 		public Connection<CL> borrowConnection(int duration, TimeUnit unit) {
 
             if (numActiveConnections.get() < 1) {
+                replenisher.requestRefill();
                 // Need to throw something other than DynoConnectException in order to bubble past HostSelectionWithFallback
                 // Is that the right thing to do ???
                 throw new PoolExhaustedException(HostConnectionPoolImpl.this,
@@ -367,7 +565,7 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 			Connection<CL> conn = null;
 			try {
 				// wait on the connection pool with a timeout
-				conn = availableConnections.poll(duration, unit);
+				conn = pollAvailableConnection(duration, unit);
 			} catch (InterruptedException e) {
 				Logger.info("Thread interrupted when waiting on connections");
 				throw new DynoConnectException(e);
@@ -376,18 +574,261 @@ public class HostConnectionPoolImpl<CL> implements HostConnectionPool<CL> {
 			long delay = System.nanoTime()/1000 - startTime;
 
 			if (conn == null) {
+                if (sizer != null) {
+                    sizer.onBorrowTimeout();
+                }
                 throw new PoolTimeoutException("Fast fail waiting for connection from pool")
                         .setHost(getHost())
                         .setLatency(delay);
 			}
 
             monitor.incConnectionBorrowed(host, delay);
+            if (sizer != null) {
+                sizer.onBorrow(delay);
+            }
 			return conn;
 		}
 	}
 
 
 	
+	private static class DaemonThreadFactory implements ThreadFactory {
+
+		private final String namePrefix;
+		private final AtomicInteger count = new AtomicInteger(0);
+
+		private DaemonThreadFactory(String namePrefix) {
+			this.namePrefix = namePrefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, namePrefix + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * Re-creates connections that were closed while the pool is active, at a bounded rate and with a jittered
+	 * exponential backoff when the host refuses connections. At most one task per pool is scheduled on the shared
+	 * {@link #replenishThreadPool} at any time, and the number of missing connections is reported to the
+	 * {@link ConnectionPoolMonitor} as the replenish backlog.
+	 */
+	private class ConnectionReplenisher implements Runnable {
+
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+		private final Random random = new Random();
+
+		// only accessed by the single scheduled task
+		private int consecutiveFailures = 0;
+
+		private int getBacklog() {
+			return Math.max(0, getTargetConnections() - numActiveConnections.get());
+		}
+
+		private void requestRefill() {
+			if (cpState.get() != cpActive || getBacklog() == 0) {
+				return;
+			}
+			if (scheduled.compareAndSet(false, true)) {
+				schedule(0);
+			}
+		}
+
+		private void schedule(long delayMillis) {
+			try {
+				replenishThreadPool.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				scheduled.set(false);
+			}
+		}
+
+		@Override
+		public void run() {
+
+			int backlog = (cpState.get() == cpActive) ? getBacklog() : 0;
+			monitor.setConnectionReplenishBacklog(host, backlog);
+
+			if (backlog == 0) {
+				consecutiveFailures = 0;
+				scheduled.set(false);
+				// pick up requests made after the last check
+				requestRefill();
+				return;
+			}
+
+			long delay;
+			try {
+				cpActive.createConnection();
+				consecutiveFailures = 0;
+				delay = REPLENISH_MIN_INTERVAL_MS;
+			} catch (DynoException e) {
+				consecutiveFailures++;
+				delay = getBackoff();
+			} catch (RuntimeException e) {
+				Logger.warn("Unexpected error while replenishing connections for host: " + host, e);
+				consecutiveFailures++;
+				delay = getBackoff();
+			}
+
+			schedule(delay);
+		}
+
+		private long getBackoff() {
+			long backoff = REPLENISH_BASE_BACKOFF_MS << Math.min(consecutiveFailures - 1, 16);
+			backoff = Math.min(backoff, REPLENISH_MAX_BACKOFF_MS);
+			// jitter in [backoff/2, backoff) so that clients don't all retry a recovering host in lock step
+			return backoff / 2 + (long) (random.nextDouble() * (backoff / 2));
+		}
+	}
+
+	/**
+	 * Grows and shrinks the pool between {@link ConnectionPoolConfiguration#getMinConnsPerHost()} and
+	 * {@link ConnectionPoolConfiguration#getMaxConnsPerHost()}.
+	 *
+	 * Every {@link ConnectionPoolConfiguration#getPoolSizingIntervalSeconds()} the sizer looks at the borrows made
+	 * since the last evaluation. If every connection was in use and borrowers had to wait longer than
+	 * {@link ConnectionPoolConfiguration#getPoolGrowBorrowLatencyMicros()} (or timed out) the pool is grown by a
+	 * quarter, and the replenisher opens the new connections. If some connections were never needed during the
+	 * interval half of them are released, idle connections are closed right away and the rest as they are returned.
+	 *
+	 * The evaluation runs on the {@link #replenishThreadPool} for as long as the pool is active, so a pool that sees
+	 * no traffic shrinks to {@link ConnectionPoolConfiguration#getMinConnsPerHost()}.
+	 */
+	private class ElasticPoolSizer implements Runnable {
+
+		private final AtomicInteger target = new AtomicInteger(cpConfig.getMaxConnsPerHost());
+		private final AtomicInteger inUse = new AtomicInteger(0);
+		private final AtomicInteger slowBorrows = new AtomicInteger(0);
+
+		// high watermark of connections in use since the last evaluation, approximate under contention
+		private volatile int peakInUse = 0;
+
+		// the next evaluation, null once the sizer is stopped. Guarded by the sizer
+		private ScheduledFuture<?> evaluation;
+		private long nextEvaluation;
+
+		private int getTarget() {
+			return target.get();
+		}
+
+		private synchronized void reset(int size) {
+			target.set(size);
+			slowBorrows.set(0);
+			peakInUse = inUse.get();
+			stop();
+			schedule();
+		}
+
+		private synchronized void stop() {
+			if (evaluation != null) {
+				evaluation.cancel(false);
+				evaluation = null;
+			}
+		}
+
+		private synchronized void schedule() {
+			long interval = getInterval();
+			nextEvaluation = System.nanoTime() + interval;
+			evaluation = replenishThreadPool.schedule(this, interval, TimeUnit.NANOSECONDS);
+		}
+
+		private void onBorrow(long delayMicros) {
+			int numInUse = inUse.incrementAndGet();
+			if (numInUse > peakInUse) {
+				peakInUse = numInUse;
+			}
+			if (delayMicros > cpConfig.getPoolGrowBorrowLatencyMicros()) {
+				slowBorrows.incrementAndGet();
+			}
+		}
+
+		private void onBorrowTimeout() {
+			slowBorrows.incrementAndGet();
+		}
+
+		private void onReturn() {
+			inUse.decrementAndGet();
+		}
+
+		private long getInterval() {
+			return TimeUnit.SECONDS.toNanos(Math.max(1, cpConfig.getPoolSizingIntervalSeconds()));
+		}
+
+		@Override
+		public synchronized void run() {
+			// stopped, or a reset scheduled another evaluation after this one had started
+			if (evaluation == null || System.nanoTime() - nextEvaluation < 0) {
+				return;
+			}
+			if (cpState.get() != cpActive) {
+				// a reconnect resets the sizer, which starts the evaluations again
+				evaluation = null;
+				return;
+			}
+			try {
+				evaluate();
+				releaseSurplus();
+			} catch (RuntimeException e) {
+				Logger.warn("Unexpected error while sizing connection pool for host: " + host, e);
+			}
+			schedule();
+		}
+
+		private void evaluate() {
+			int numSlowBorrows = slowBorrows.getAndSet(0);
+			int peak = peakInUse;
+			peakInUse = inUse.get();
+
+			int maxConns = cpConfig.getMaxConnsPerHost();
+			int minConns = Math.max(1, Math.min(cpConfig.getMinConnsPerHost(), maxConns));
+			int current = target.get();
+
+			if (numSlowBorrows > 0 && peak >= current && current < maxConns) {
+
+				int newTarget = Math.min(maxConns, current + Math.max(1, current / 4));
+				if (target.compareAndSet(current, newTarget)) {
+					Logger.info("Growing connection pool for host: " + host + " from " + current + " to " + newTarget);
+					monitor.incPoolGrown(host, newTarget);
+					replenisher.requestRefill();
+				}
+
+			} else if (numSlowBorrows == 0 && peak < current && current > minConns) {
+
+				int newTarget = Math.max(minConns, current - Math.max(1, (current - peak) / 2));
+				if (target.compareAndSet(current, newTarget)) {
+					Logger.info("Shrinking connection pool for host: " + host + " from " + current + " to " + newTarget);
+					monitor.incPoolShrunk(host, newTarget);
+				}
+
+			} else if (current > maxConns) {
+				// max conns per host was lowered
+				target.compareAndSet(current, maxConns);
+			}
+		}
+
+		/**
+		 * Closes idle connections until the pool is down to its target, connections in use are closed as they are
+		 * returned
+		 */
+		private void releaseSurplus() {
+			while (numActiveConnections.get() > target.get()) {
+				Connection<CL> connection;
+				try {
+					connection = pollAvailableConnection(0, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (connection == null) {
+					return;
+				}
+				cpActive.closeConnection(connection);
+			}
+		}
+	}
+
 	private class ConnectionPoolReconnectingOrDown implements ConnectionPoolState<CL> {
 		
 		private ConnectionPoolReconnectingOrDown() {
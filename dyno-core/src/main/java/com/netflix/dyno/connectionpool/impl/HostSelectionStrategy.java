@@ -43,12 +43,15 @@ public interface HostSelectionStrategy<CL> {
 	HostConnectionPool<CL> getPoolForOperation(BaseOperation<CL, ?> op) throws NoAvailableHostsException;
 
 	/**
-	 * 
+	 * Routes a batch of operations in one pass. Every operation is routed the same way as by
+	 * {@link #getPoolForOperation(BaseOperation)}, but the whole batch is resolved against a single view of the hosts.
+	 *
 	 * @param ops
-	 * @return
-	 * @throws NoAvailableHostsException
+	 * @return the operations grouped by the pool that serves them, in the order each pool was first selected and with
+	 *         the operations of a pool in the order they were given
+	 * @throws NoAvailableHostsException if any of the operations cannot be routed
 	 */
-	Map<HostConnectionPool<CL>,BaseOperation<CL,?>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops) throws NoAvailableHostsException;
+	Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops) throws NoAvailableHostsException;
 	
 	/**
 	 * 
@@ -80,6 +83,16 @@ public interface HostSelectionStrategy<CL> {
      */
     HostToken getTokenForKey(String key) throws UnsupportedOperationException;
 
+    /**
+     * Finds the server Host that owns the specified binary key. This is the same Host as for the String whose
+     * UTF-8 encoding is the key.
+     *
+     * @param key
+     * @return {@link HostToken}
+     * @throws UnsupportedOperationException for non-token aware load balancing strategies
+     */
+    HostToken getTokenForKey(byte[] key) throws UnsupportedOperationException;
+
 	/**
 	 * Init the connection pool with the set of hosts provided
 	 * @param hostPools
@@ -33,6 +33,9 @@ public class LastOperationMonitor implements OperationMonitor {
 	private final ConcurrentHashMap<String, Long> latestTimings = new ConcurrentHashMap<String, Long>();
 	private final ConcurrentHashMap<String, AtomicInteger> opCounters = new ConcurrentHashMap<String, AtomicInteger>();
 	private final ConcurrentHashMap<String, AtomicInteger> opFailureCounters = new ConcurrentHashMap<String, AtomicInteger>();
+	private final ConcurrentHashMap<String, AtomicInteger> nearCacheCounters = new ConcurrentHashMap<String, AtomicInteger>();
+	private final ConcurrentHashMap<String, AtomicInteger> coalescedCounters = new ConcurrentHashMap<String, AtomicInteger>();
+	private final ConcurrentHashMap<String, AtomicInteger> compressionCounters = new ConcurrentHashMap<String, AtomicInteger>();
 	
 	@Override
 	public void recordLatency(String opName, long duration, TimeUnit unit) {
@@ -81,6 +84,48 @@ public class LastOperationMonitor implements OperationMonitor {
         }
 	}
 
+	@Override
+	public void recordNearCacheHit(String opName) {
+		incrementNearCacheCounter(opName + "_hit");
+	}
+
+	@Override
+	public void recordNearCacheMiss(String opName) {
+		incrementNearCacheCounter(opName + "_miss");
+	}
+
+	@Override
+	public void recordNearCacheEviction(String reason) {
+		incrementNearCacheCounter("eviction_" + reason);
+	}
+
+	private void incrementNearCacheCounter(String name) {
+		incrementCounter(nearCacheCounters, name, 1);
+	}
+
+	@Override
+	public void recordCoalescedBatch(String opName, int batchSize, long delay, TimeUnit unit) {
+		incrementCounter(coalescedCounters, opName + "_batches", 1);
+		incrementCounter(coalescedCounters, opName + "_commands", batchSize);
+	}
+
+	@Override
+	public void recordCompression(String opName, boolean compressed, int originalBytes, int sentBytes) {
+		incrementCounter(compressionCounters, opName + (compressed ? "_compressed" : "_skipped"), 1);
+		incrementCounter(compressionCounters, opName + "_savedBytes", originalBytes - sentBytes);
+	}
+
+	private static void incrementCounter(ConcurrentHashMap<String, AtomicInteger> counters, String name, int delta) {
+		AtomicInteger count = counters.get(name);
+		if (count == null) {
+			count = counters.putIfAbsent(name, new AtomicInteger(delta));
+			if (count == null) {
+				return;
+			}
+		}
+		count.addAndGet(delta);
+	}
+
     public Integer getSuccessCount(String opName) {
         return opCounters.get(opName).get();
     }
@@ -89,4 +134,48 @@ public class LastOperationMonitor implements OperationMonitor {
         return opCounters.get(opName + "_" + compressionEnabled).get();
     }
 
+    public int getNearCacheHitCount(String opName) {
+        return getNearCacheCount(opName + "_hit");
+    }
+
+    public int getNearCacheMissCount(String opName) {
+        return getNearCacheCount(opName + "_miss");
+    }
+
+    public int getNearCacheEvictionCount(String reason) {
+        return getNearCacheCount("eviction_" + reason);
+    }
+
+    private int getNearCacheCount(String name) {
+        AtomicInteger count = nearCacheCounters.get(name);
+        return count != null ? count.get() : 0;
+    }
+
+    public int getCoalescedBatchCount(String opName) {
+        AtomicInteger count = coalescedCounters.get(opName + "_batches");
+        return count != null ? count.get() : 0;
+    }
+
+    public int getCoalescedCommandCount(String opName) {
+        AtomicInteger count = coalescedCounters.get(opName + "_commands");
+        return count != null ? count.get() : 0;
+    }
+
+    public int getCompressedCount(String opName) {
+        return getCompressionCount(opName + "_compressed");
+    }
+
+    public int getCompressionSkippedCount(String opName) {
+        return getCompressionCount(opName + "_skipped");
+    }
+
+    public int getCompressionSavedBytes(String opName) {
+        return getCompressionCount(opName + "_savedBytes");
+    }
+
+    private int getCompressionCount(String name) {
+        AtomicInteger count = compressionCounters.get(name);
+        return count != null ? count.get() : 0;
+    }
+
 }
@@ -42,13 +42,28 @@ public class OperationResultImpl<R> implements OperationResult<R> {
 	private long duration = 0;
 	private int attempts = 0;
 	private final OperationMonitor opMonitor; 
-	private final ConcurrentHashMap<String, String> metadata = new ConcurrentHashMap<String, String>();
+	// metadata that is the same for every result of a connection, e.g. the connection id
+	private final Map<String, String> sharedMetadata;
+	// created on first use, most results never carry metadata of their own
+	private volatile ConcurrentHashMap<String, String> metadata = null;
 	
 	public OperationResultImpl(String name, R r, OperationMonitor monitor) {
+		this(name, r, monitor, null);
+	}
+	
+	/**
+	 * @param name
+	 * @param r
+	 * @param monitor
+	 * @param shared immutable metadata that is shared between results and only copied when this result's
+	 *               metadata is read or added to
+	 */
+	public OperationResultImpl(String name, R r, OperationMonitor monitor, Map<String, String> shared) {
 		opName = name;
 		result = r;
 		futureResult = null;
 		opMonitor = monitor;
+		sharedMetadata = shared;
 	}
 	
 	public OperationResultImpl(String name, Future<R> future, OperationMonitor monitor) {
@@ -56,6 +71,7 @@ public class OperationResultImpl<R> implements OperationResult<R> {
 		result = null;
 		futureResult = future;
 		opMonitor = monitor;
+		sharedMetadata = null;
 	}
 
 	@Override
@@ -122,20 +138,41 @@ public class OperationResultImpl<R> implements OperationResult<R> {
 
 	@Override
 	public Map<String, String> getMetadata() {
-		return metadata;
+		return metadata();
 	}
 
 	@Override
 	public OperationResultImpl<R> addMetadata(String key, String value) {
-		metadata.put(key, value);
+		metadata().put(key, value);
 		return this;
 	}
 
 	@Override
 	public OperationResultImpl<R> addMetadata(Map<String, Object> map) {
+		if (map.isEmpty()) {
+			return this;
+		}
+		Map<String, String> m = metadata();
 		for (String key : map.keySet()) {
-			metadata.put(key, map.get(key).toString());
+			m.put(key, map.get(key).toString());
 		}
 		return this;
 	}
+
+	private ConcurrentHashMap<String, String> metadata() {
+		ConcurrentHashMap<String, String> m = metadata;
+		if (m == null) {
+			synchronized (this) {
+				m = metadata;
+				if (m == null) {
+					m = new ConcurrentHashMap<String, String>();
+					if (sharedMetadata != null) {
+						m.putAll(sharedMetadata);
+					}
+					metadata = m;
+				}
+			}
+		}
+		return m;
+	}
 }
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.ListenableFuture;
+
+/**
+ * {@link ListenableFuture} that is completed by whoever holds it, with either a value or a failure. Only the first
+ * completion counts, later ones are ignored.
+ *
+ * Listeners added before the future completes run once it does, listeners added afterwards run right away.
+ *
+ * @param <V>
+ */
+public class SettableListenableFuture<V> implements ListenableFuture<V> {
+
+	private static final Logger Logger = LoggerFactory.getLogger(SettableListenableFuture.class);
+
+	private final AtomicBoolean completed = new AtomicBoolean(false);
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	private volatile V value;
+	private volatile Throwable failure;
+	private volatile boolean cancelled = false;
+
+	// guarded by this, null once the listeners have been run
+	private List<Runnable> listeners = new ArrayList<Runnable>();
+
+	/**
+	 * @param result
+	 * @return true if this call completed the future
+	 */
+	public boolean set(V result) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		value = result;
+		complete();
+		return true;
+	}
+
+	/**
+	 * @param t
+	 * @return true if this call completed the future
+	 */
+	public boolean setException(Throwable t) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		failure = t;
+		complete();
+		return true;
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		cancelled = true;
+		complete();
+		return true;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	@Override
+	public V get() throws InterruptedException, ExecutionException {
+		done.await();
+		return getDone();
+	}
+
+	@Override
+	public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException("Future not done after " + timeout + " " + unit);
+		}
+		return getDone();
+	}
+
+	private V getDone() throws ExecutionException {
+		if (cancelled) {
+			throw new CancellationException();
+		}
+		if (failure != null) {
+			throw new ExecutionException(failure);
+		}
+		return value;
+	}
+
+	@Override
+	public void addListener(Runnable listener, Executor executor) {
+		Runnable toRun = new ExecutingListener(listener, executor);
+		synchronized (this) {
+			if (listeners != null) {
+				listeners.add(toRun);
+				return;
+			}
+		}
+		toRun.run();
+	}
+
+	private void complete() {
+		done.countDown();
+
+		List<Runnable> toRun;
+		synchronized (this) {
+			toRun = listeners;
+			listeners = null;
+		}
+		for (Runnable listener : toRun) {
+			listener.run();
+		}
+	}
+
+	private static class ExecutingListener implements Runnable {
+
+		private final Runnable listener;
+		private final Executor executor;
+
+		private ExecutingListener(Runnable listener, Executor executor) {
+			this.listener = listener;
+			this.executor = executor;
+		}
+
+		@Override
+		public void run() {
+			try {
+				executor.execute(listener);
+			} catch (RuntimeException e) {
+				Logger.warn("Failed to run listener of future " + listener, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.netflix.dyno.connectionpool.Connection;
+
+/**
+ * Lock free holder for the idle connections of a single host.
+ *
+ * Idle connections are kept in a fixed array of slots. Each thread starts probing at a slot derived from its
+ * thread id, so a thread that repeatedly borrows and returns a connection usually finds it where it left it and
+ * threads working on different slots never touch the same memory. When every slot is taken a returned connection
+ * spills over to a shared lock free stack.
+ *
+ * Neither borrow nor return takes a lock or allocates in the common case. A borrower only parks when there is
+ * no idle connection at all, and is woken up by the next thread that returns one.
+ *
+ * @param <CL>
+ */
+class StripedConnectionBag<CL> {
+
+	private final AtomicReferenceArray<Connection<CL>> slots;
+	private final int mask;
+
+	// overflow for when all slots are taken, used as a stack
+	private final ConcurrentLinkedDeque<Connection<CL>> sharedStack = new ConcurrentLinkedDeque<Connection<CL>>();
+
+	// threads parked waiting for a connection to be returned
+	private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<Thread>();
+
+	StripedConnectionBag(int expectedSize) {
+		// twice the expected number of connections keeps the probe sequences short
+		int size = 2;
+		while (size < expectedSize * 2) {
+			size <<= 1;
+		}
+		slots = new AtomicReferenceArray<Connection<CL>>(size);
+		mask = size - 1;
+	}
+
+	void add(Connection<CL> connection) {
+
+		int home = homeSlot();
+		boolean added = false;
+
+		for (int i = 0; i <= mask; i++) {
+			int index = (home + i) & mask;
+			if (slots.get(index) == null && slots.compareAndSet(index, null, connection)) {
+				added = true;
+				break;
+			}
+		}
+
+		if (!added) {
+			sharedStack.push(connection);
+		}
+
+		Thread waiter = waiters.poll();
+		if (waiter != null) {
+			LockSupport.unpark(waiter);
+		}
+	}
+
+	/**
+	 * @return an idle connection or null if there are none
+	 */
+	Connection<CL> poll() {
+
+		int home = homeSlot();
+
+		for (int i = 0; i <= mask; i++) {
+			int index = (home + i) & mask;
+			Connection<CL> connection = slots.get(index);
+			if (connection != null && slots.compareAndSet(index, connection, null)) {
+				return connection;
+			}
+		}
+
+		return sharedStack.pollFirst();
+	}
+
+	/**
+	 * Wait for an idle connection
+	 *
+	 * @param duration
+	 * @param unit
+	 * @return an idle connection or null if none was returned within the given duration
+	 * @throws InterruptedException
+	 */
+	Connection<CL> poll(long duration, TimeUnit unit) throws InterruptedException {
+
+		Connection<CL> connection = poll();
+		if (connection != null) {
+			return connection;
+		}
+
+		long deadline = System.nanoTime() + unit.toNanos(duration);
+		Thread current = Thread.currentThread();
+
+		while (true) {
+			// register before checking again so that a concurrent add() cannot miss us
+			waiters.add(current);
+			try {
+				connection = poll();
+				if (connection != null) {
+					return connection;
+				}
+
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return null;
+				}
+
+				LockSupport.parkNanos(this, remaining);
+
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+			} finally {
+				waiters.remove(current);
+			}
+		}
+	}
+
+	/**
+	 * @param connection
+	 * @return true if the connection was idle and has been removed
+	 */
+	boolean remove(Connection<CL> connection) {
+		for (int i = 0; i <= mask; i++) {
+			if (slots.get(i) == connection && slots.compareAndSet(i, connection, null)) {
+				return true;
+			}
+		}
+		return sharedStack.remove(connection);
+	}
+
+	/**
+	 * Remove all idle connections
+	 * @param connections the collection to add the removed connections to
+	 * @return the number of connections removed
+	 */
+	int drainTo(Collection<Connection<CL>> connections) {
+
+		int count = 0;
+		for (int i = 0; i <= mask; i++) {
+			Connection<CL> connection = slots.getAndSet(i, null);
+			if (connection != null) {
+				connections.add(connection);
+				count++;
+			}
+		}
+
+		Connection<CL> connection;
+		while ((connection = sharedStack.pollFirst()) != null) {
+			connections.add(connection);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of idle connections. This is only an estimate if the bag is being concurrently modified.
+	 */
+	int size() {
+		int count = 0;
+		for (int i = 0; i <= mask; i++) {
+			if (slots.get(i) != null) {
+				count++;
+			}
+		}
+		return count + sharedStack.size();
+	}
+
+	private int homeSlot() {
+		// fibonacci hashing spreads sequential thread ids across the slots
+		long id = Thread.currentThread().getId();
+		return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+}
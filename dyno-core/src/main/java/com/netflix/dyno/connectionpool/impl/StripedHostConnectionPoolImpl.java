@@ -0,0 +1,74 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.ConnectionBorrowStrategy;
+import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.Host;
+
+/**
+ * {@link HostConnectionPoolImpl} that keeps its idle connections in a {@link StripedConnectionBag} instead of a
+ * blocking queue, so that borrowing and returning connections does not contend on a lock when many threads
+ * hit the same host.
+ *
+ * The life cycle of the pool and the exceptions thrown when borrowing connections are the same as those
+ * of {@link HostConnectionPoolImpl}.
+ *
+ * @see ConnectionBorrowStrategy#Striped
+ *
+ * @param <CL>
+ */
+public class StripedHostConnectionPoolImpl<CL> extends HostConnectionPoolImpl<CL> {
+
+	private final StripedConnectionBag<CL> idleConnections;
+
+	public StripedHostConnectionPoolImpl(Host host, ConnectionFactory<CL> conFactory,
+										 ConnectionPoolConfiguration cpConfig, ConnectionPoolMonitor poolMonitor) {
+		super(host, conFactory, cpConfig, poolMonitor);
+		this.idleConnections = new StripedConnectionBag<CL>(cpConfig.getMaxConnsPerHost());
+	}
+
+	@Override
+	protected void addAvailableConnection(Connection<CL> connection) {
+		idleConnections.add(connection);
+	}
+
+	@Override
+	protected boolean removeAvailableConnection(Connection<CL> connection) {
+		return idleConnections.remove(connection);
+	}
+
+	@Override
+	protected Connection<CL> pollAvailableConnection(int duration, TimeUnit unit) throws InterruptedException {
+		return idleConnections.poll(duration, unit);
+	}
+
+	@Override
+	protected void drainAvailableConnections(Collection<Connection<CL>> connections) {
+		idleConnections.drainTo(connections);
+	}
+
+	@Override
+	public String toString() {
+		return "StripedHostConnectionPool: [Host: " + getHost() + ", Pool active: " + isActive() + "]";
+	}
+}
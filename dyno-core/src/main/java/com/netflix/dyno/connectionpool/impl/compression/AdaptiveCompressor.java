@@ -0,0 +1,322 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
+import com.netflix.dyno.connectionpool.OperationMonitor;
+
+/**
+ * Compression for {@link CompressionStrategy#ADAPTIVE}, which learns for every operation and key prefix whether
+ * compressing values pays and at which deflate level.
+ *
+ * Every class of values, i.e. operation and key prefix, keeps a moving average of the share of the value that
+ * compression saves. Once that drops below {@link ConnectionPoolConfiguration#getAdaptiveCompressionMinSavingsPercent()}
+ * values are sent as they are, except for every 16th one which is still compressed to notice when the values change.
+ *
+ * A class starts at the fastest deflate level. Every 16th compressed value is also compressed at the level above
+ * or below, in turns. A class moves up once the level above has made values at least 5% smaller for at most 3 times
+ * the CPU, and moves down once the level below has made them less than 2% larger, so each class settles on the
+ * highest level that still buys something. The smaller of the two results is sent.
+ *
+ * Decisions and the bytes they saved are reported to {@link OperationMonitor#recordCompression}. The sizes of
+ * String values are counted in characters, which is what they take on the wire unless they hold non ASCII text.
+ */
+public class AdaptiveCompressor {
+
+	private static final DeflateCodec[] Codecs = { new DeflateCodec(Deflater.BEST_SPEED), new DeflateCodec(6),
+			new DeflateCodec(Deflater.BEST_COMPRESSION) };
+
+	private static final int MinSamples = 8;
+	private static final int ProbeInterval = 16;
+	private static final int TrialInterval = 16;
+	private static final int MinTrials = 3;
+	private static final double RaiseMinGain = 0.05;
+	private static final double RaiseMaxCost = 3.0;
+	private static final double LowerMaxLoss = 0.02;
+	private static final double Alpha = 0.25;
+
+	/** Classes beyond this many share the class of their operation */
+	static final int MaxTrackedClasses = 1024;
+
+	private final ConnectionPoolConfiguration config;
+	private final OperationMonitor opMonitor;
+
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, ValueClass>> classes =
+			new ConcurrentHashMap<String, ConcurrentHashMap<String, ValueClass>>();
+	private final AtomicInteger classCount = new AtomicInteger();
+
+	/**
+	 * @param config
+	 * @param opMonitor may be null
+	 */
+	public AdaptiveCompressor(ConnectionPoolConfiguration config, OperationMonitor opMonitor) {
+		this.config = config;
+		this.opMonitor = opMonitor;
+	}
+
+	/**
+	 * @param opName
+	 * @param key
+	 * @param value
+	 * @return the value compressed with {@link ValueCodecs#compressToBase64String}, or the value itself if
+	 *         compressing does not pay
+	 * @throws IOException
+	 */
+	public String compress(String opName, String key, final String value) throws IOException {
+
+		return compress(opName, getValueClass(opName, keyPrefix(key)), new Value<String>(value.length()) {
+			@Override
+			String compress(ValueCodec codec) throws IOException {
+				return ValueCodecs.compressToBase64String(codec, value);
+			}
+
+			@Override
+			int length(String compressed) {
+				return compressed.length();
+			}
+		}, value);
+	}
+
+	/**
+	 * @param opName
+	 * @param key
+	 * @param value
+	 * @return the value compressed with {@link ValueCodecs#compress}, or the value itself if compressing does not pay
+	 * @throws IOException
+	 */
+	public byte[] compress(String opName, byte[] key, final byte[] value) throws IOException {
+
+		return compress(opName, getValueClass(opName, keyPrefix(key)), new Value<byte[]>(value.length) {
+			@Override
+			byte[] compress(ValueCodec codec) throws IOException {
+				return ValueCodecs.compress(codec, value);
+			}
+
+			@Override
+			int length(byte[] compressed) {
+				return compressed.length;
+			}
+		}, value);
+	}
+
+	private <T> T compress(String opName, ValueClass valueClass, Value<T> value, T original) throws IOException {
+
+		long n = valueClass.count.incrementAndGet();
+		if (valueClass.skipping && n % ProbeInterval != 0) {
+			record(opName, false, value.length, value.length);
+			return original;
+		}
+
+		int level = valueClass.level;
+		long start = System.nanoTime();
+		T compressed = value.compress(Codecs[level]);
+		long nanos = System.nanoTime() - start;
+		int length = value.length(compressed);
+
+		if (!valueClass.skipping && n % TrialInterval == 0) {
+			boolean up = (n / TrialInterval) % 2 == 0 ? level < Codecs.length - 1 : level == 0;
+			int trialLevel = up ? level + 1 : level - 1;
+
+			start = System.nanoTime();
+			T trial = value.compress(Codecs[trialLevel]);
+			long trialNanos = System.nanoTime() - start;
+			int trialLength = value.length(trial);
+
+			valueClass.trial(level, up, (double) trialLength / Math.max(1, length), (double) trialNanos / Math.max(1, nanos));
+			if (trialLength < length) {
+				compressed = trial;
+				length = trialLength;
+			}
+		}
+
+		valueClass.sample(1.0 - (double) length / Math.max(1, value.length), config.getAdaptiveCompressionMinSavingsPercent());
+
+		if (length >= value.length) {
+			record(opName, false, value.length, value.length);
+			return original;
+		}
+		record(opName, true, value.length, length);
+		return compressed;
+	}
+
+	private void record(String opName, boolean compressed, int originalBytes, int sentBytes) {
+		if (opMonitor != null) {
+			opMonitor.recordCompression(opName, compressed, originalBytes, sentBytes);
+		}
+	}
+
+	private ValueClass getValueClass(String opName, String keyPrefix) {
+
+		ConcurrentHashMap<String, ValueClass> byPrefix = classes.get(opName);
+		if (byPrefix == null) {
+			byPrefix = new ConcurrentHashMap<String, ValueClass>();
+			ConcurrentHashMap<String, ValueClass> prev = classes.putIfAbsent(opName, byPrefix);
+			if (prev != null) {
+				byPrefix = prev;
+			}
+		}
+
+		ValueClass valueClass = byPrefix.get(keyPrefix);
+		if (valueClass != null) {
+			return valueClass;
+		}
+		if (classCount.get() >= MaxTrackedClasses && !keyPrefix.isEmpty()) {
+			return getValueClass(opName, "");
+		}
+
+		valueClass = new ValueClass();
+		ValueClass prev = byPrefix.putIfAbsent(keyPrefix, valueClass);
+		if (prev != null) {
+			return prev;
+		}
+		classCount.incrementAndGet();
+		return valueClass;
+	}
+
+	private String keyPrefix(String key) {
+		String delimiter = config.getAdaptiveCompressionKeyPrefixDelimiter();
+		if (key == null || delimiter == null || delimiter.isEmpty()) {
+			return "";
+		}
+		int end = key.indexOf(delimiter);
+		return end > 0 ? key.substring(0, end) : "";
+	}
+
+	private String keyPrefix(byte[] key) {
+		String delimiter = config.getAdaptiveCompressionKeyPrefixDelimiter();
+		if (key == null || delimiter == null || delimiter.isEmpty()) {
+			return "";
+		}
+		byte[] d = delimiter.getBytes(StandardCharsets.UTF_8);
+		for (int end = 1; end <= key.length - d.length; end++) {
+			int i = 0;
+			while (i < d.length && key[end + i] == d[i]) {
+				i++;
+			}
+			if (i == d.length) {
+				return new String(key, 0, end, StandardCharsets.UTF_8);
+			}
+		}
+		return "";
+	}
+
+	/**
+	 * @param opName
+	 * @param keyPrefix
+	 * @return the deflate level values of the class are compressed at, or -1 if the class is not known
+	 */
+	int getLevel(String opName, String keyPrefix) {
+		ValueClass valueClass = findValueClass(opName, keyPrefix);
+		return valueClass != null ? Codecs[valueClass.level].getLevel() : -1;
+	}
+
+	/**
+	 * @param opName
+	 * @param keyPrefix
+	 * @return true if values of the class are sent uncompressed
+	 */
+	boolean isSkipping(String opName, String keyPrefix) {
+		ValueClass valueClass = findValueClass(opName, keyPrefix);
+		return valueClass != null && valueClass.skipping;
+	}
+
+	private ValueClass findValueClass(String opName, String keyPrefix) {
+		ConcurrentHashMap<String, ValueClass> byPrefix = classes.get(opName);
+		return byPrefix != null ? byPrefix.get(keyPrefix) : null;
+	}
+
+	/**
+	 * A value and how to compress it, so that the same decisions apply to String and binary values
+	 */
+	private abstract static class Value<T> {
+
+		private final int length;
+
+		private Value(int length) {
+			this.length = length;
+		}
+
+		abstract T compress(ValueCodec codec) throws IOException;
+
+		abstract int length(T compressed);
+	}
+
+	/**
+	 * What compression achieves for the values of an operation and key prefix. Updates from concurrent operations
+	 * may race and lose a sample now and then, which only delays a decision.
+	 */
+	private static final class ValueClass {
+
+		private final AtomicLong count = new AtomicLong();
+		private volatile int samples;
+		private volatile double savings;
+		private volatile boolean skipping;
+
+		private volatile int level;
+		private volatile int upTrials;
+		private volatile double upSizeRatio;
+		private volatile double upCostRatio;
+		private volatile int downTrials;
+		private volatile double downSizeRatio;
+
+		private void sample(double saved, int minSavingsPercent) {
+			savings = samples == 0 ? saved : savings + Alpha * (saved - savings);
+			if (samples < MinSamples) {
+				samples++;
+				return;
+			}
+			skipping = savings * 100 < minSavingsPercent;
+		}
+
+		/**
+		 * @param atLevel the level the trial was compared with
+		 * @param up true if the trial was at the level above
+		 * @param sizeRatio the size at the trial level over the size at the current level
+		 * @param costRatio the time taken at the trial level over the time taken at the current level
+		 */
+		private void trial(int atLevel, boolean up, double sizeRatio, double costRatio) {
+			if (atLevel != level) {
+				return;
+			}
+			if (up) {
+				upSizeRatio = upTrials == 0 ? sizeRatio : upSizeRatio + Alpha * (sizeRatio - upSizeRatio);
+				upCostRatio = upTrials == 0 ? costRatio : upCostRatio + Alpha * (costRatio - upCostRatio);
+				if (++upTrials >= MinTrials && upSizeRatio <= 1.0 - RaiseMinGain && upCostRatio <= RaiseMaxCost) {
+					moveTo(level + 1);
+				}
+			} else {
+				downSizeRatio = downTrials == 0 ? sizeRatio : downSizeRatio + Alpha * (sizeRatio - downSizeRatio);
+				if (++downTrials >= MinTrials && downSizeRatio <= 1.0 + LowerMaxLoss) {
+					moveTo(level - 1);
+				}
+			}
+		}
+
+		private void moveTo(int newLevel) {
+			level = newLevel;
+			upTrials = 0;
+			downTrials = 0;
+		}
+	}
+}
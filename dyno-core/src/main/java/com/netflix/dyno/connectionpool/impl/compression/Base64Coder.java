@@ -0,0 +1,195 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base64 encoding with the standard alphabet and padding, to and from caller supplied buffers.
+ *
+ * The output of {@link #encode} is the same as com.sun.jersey.core.util.Base64, which wrote the values that are
+ * already stored. Decoding skips line breaks but rejects any other character outside of the alphabet.
+ */
+public final class Base64Coder {
+
+	private static final byte[] Alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.getBytes(StandardCharsets.US_ASCII);
+
+	private static final int Skip = -2;
+	private static final int Invalid = -1;
+	private static final int[] Values = new int[128];
+
+	static {
+		Arrays.fill(Values, Invalid);
+		for (int i = 0; i < Alphabet.length; i++) {
+			Values[Alphabet[i]] = i;
+		}
+		Values['\r'] = Skip;
+		Values['\n'] = Skip;
+	}
+
+	private Base64Coder() {
+	}
+
+	/**
+	 * @param length
+	 * @return the number of characters that encode the given number of bytes
+	 */
+	public static int encodedLength(int length) {
+		return ((length + 2) / 3) * 4;
+	}
+
+	/**
+	 * @param length
+	 * @return the largest number of bytes that the given number of characters can decode to
+	 */
+	public static int maxDecodedLength(int length) {
+		return ((length + 3) / 4) * 3;
+	}
+
+	/**
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dest with at least {@link #encodedLength(int)} bytes available from destOffset
+	 * @param destOffset
+	 * @return the number of characters, one per byte, written to dest
+	 */
+	public static int encode(byte[] src, int offset, int length, byte[] dest, int destOffset) {
+
+		int p = destOffset;
+		int end = offset + length;
+		int i = offset;
+
+		for (; i + 2 < end; i += 3) {
+			int bits = ((src[i] & 0xFF) << 16) | ((src[i + 1] & 0xFF) << 8) | (src[i + 2] & 0xFF);
+			dest[p++] = Alphabet[bits >>> 18];
+			dest[p++] = Alphabet[(bits >>> 12) & 0x3F];
+			dest[p++] = Alphabet[(bits >>> 6) & 0x3F];
+			dest[p++] = Alphabet[bits & 0x3F];
+		}
+
+		int remaining = end - i;
+		if (remaining > 0) {
+			int bits = (src[i] & 0xFF) << 16;
+			if (remaining == 2) {
+				bits |= (src[i + 1] & 0xFF) << 8;
+			}
+			dest[p++] = Alphabet[bits >>> 18];
+			dest[p++] = Alphabet[(bits >>> 12) & 0x3F];
+			dest[p++] = remaining == 2 ? Alphabet[(bits >>> 6) & 0x3F] : (byte) '=';
+			dest[p++] = '=';
+		}
+		return p - destOffset;
+	}
+
+	/**
+	 * Decodes the characters src[start, end)
+	 *
+	 * @param src
+	 * @param start
+	 * @param end
+	 * @param dest with at least {@link #maxDecodedLength(int)} bytes available from destOffset
+	 * @param destOffset
+	 * @return the number of bytes written to dest
+	 * @throws IOException if src holds characters outside of the Base64 alphabet
+	 */
+	public static int decode(CharSequence src, int start, int end, byte[] dest, int destOffset) throws IOException {
+
+		int p = destOffset;
+		int bits = 0;
+		int count = 0;
+
+		for (int i = start; i < end; i++) {
+			char c = src.charAt(i);
+			if (c == '=') {
+				break;
+			}
+			int value = c < 128 ? Values[c] : Invalid;
+			if (value < 0) {
+				if (value == Skip) {
+					continue;
+				}
+				throw new IOException("Invalid Base64 character at " + i);
+			}
+			bits = (bits << 6) | value;
+			if (++count == 4) {
+				dest[p++] = (byte) (bits >>> 16);
+				dest[p++] = (byte) (bits >>> 8);
+				dest[p++] = (byte) bits;
+				bits = 0;
+				count = 0;
+			}
+		}
+
+		if (count == 3) {
+			dest[p++] = (byte) (bits >>> 10);
+			dest[p++] = (byte) (bits >>> 2);
+		} else if (count == 2) {
+			dest[p++] = (byte) (bits >>> 4);
+		} else if (count == 1) {
+			throw new IOException("Truncated Base64 value");
+		}
+		return p - destOffset;
+	}
+
+	/**
+	 * Decodes the characters src[offset, offset + length), one per byte
+	 *
+	 * @see #decode(CharSequence, int, int, byte[], int)
+	 */
+	public static int decode(byte[] src, int offset, int length, byte[] dest, int destOffset) throws IOException {
+		return decode(new AsciiSequence(src, offset, length), 0, length, dest, destOffset);
+	}
+
+	/**
+	 * Views bytes as characters without copying them
+	 */
+	private static final class AsciiSequence implements CharSequence {
+
+		private final byte[] bytes;
+		private final int offset;
+		private final int length;
+
+		private AsciiSequence(byte[] bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (bytes[offset + index] & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new AsciiSequence(bytes, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
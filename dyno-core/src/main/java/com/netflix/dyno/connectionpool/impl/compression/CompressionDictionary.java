@@ -0,0 +1,109 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.util.Arrays;
+import java.util.zip.Adler32;
+
+/**
+ * A preset dictionary for {@link DictionaryCodec}: bytes that values typically contain, e.g. the field names and
+ * common values of a JSON schema, which compressed values refer back to instead of repeating them.
+ *
+ * The id is written to every value compressed with the dictionary and is how readers find it again, so an id must
+ * never be reused for different bytes. Train a new dictionary under a new id when the values change and keep the old
+ * one loaded for as long as values compressed with it may be read.
+ *
+ * Deflate can refer back at most 32KB, so that is the longest useful dictionary. Compressing indexes the whole
+ * dictionary for every value though, so for values of a few KB a dictionary of 2 to 8KB is usually the better trade
+ * off. The end of the dictionary is the cheapest to refer to, which is where {@link DictionaryTrainer} puts the most
+ * common content.
+ */
+public final class CompressionDictionary {
+
+	public static final int MaxId = 0xFFFF;
+	public static final int MaxLength = 32 * 1024;
+
+	private final int id;
+	private final byte[] data;
+	private final long checksum;
+
+	/**
+	 * @param id from 1 to {@link #MaxId}
+	 * @param data the dictionary, at most {@link #MaxLength} bytes
+	 */
+	public CompressionDictionary(int id, byte[] data) {
+		if (id < 1 || id > MaxId) {
+			throw new IllegalArgumentException("Dictionary id must be between 1 and " + MaxId + ", not " + id);
+		}
+		if (data == null || data.length == 0 || data.length > MaxLength) {
+			throw new IllegalArgumentException("Dictionary must hold between 1 and " + MaxLength + " bytes");
+		}
+		this.id = id;
+		this.data = data.clone();
+
+		Adler32 adler = new Adler32();
+		adler.update(data, 0, data.length);
+		this.checksum = adler.getValue();
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public int getLength() {
+		return data.length;
+	}
+
+	/**
+	 * @return a copy of the dictionary
+	 */
+	public byte[] getData() {
+		return data.clone();
+	}
+
+	/**
+	 * @return the Adler-32 checksum of the dictionary, which zlib also uses to identify dictionaries
+	 */
+	public long getChecksum() {
+		return checksum;
+	}
+
+	byte[] data() {
+		return data;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CompressionDictionary)) {
+			return false;
+		}
+		CompressionDictionary other = (CompressionDictionary) obj;
+		return id == other.id && Arrays.equals(data, other.data);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * id + (int) checksum;
+	}
+
+	@Override
+	public String toString() {
+		return "CompressionDictionary [id=" + id + ", length=" + data.length + ", checksum=" + Long.toHexString(checksum) + "]";
+	}
+}
@@ -0,0 +1,487 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Per thread state for compressing and decompressing values, so that the hot path allocates little more than its
+ * result.
+ *
+ * Every thread keeps a Deflater per compression level, an Inflater, a CRC32 and a few growable scratch buffers,
+ * and resets them between values. Deflaters and Inflaters hold native zlib memory that is otherwise allocated and
+ * freed (by the finalizer) for every value.
+ *
+ * Scratch buffers are addressed by slot, and a caller that needs several intermediate results at once uses a
+ * different slot for each. The content of a slot is only valid until the same thread asks for that slot again, so
+ * a scratch buffer must never be handed to code outside of the compression pipeline.
+ */
+public final class CompressionEngine {
+
+	public static final int Slots = 3;
+
+	/** Scratch buffers larger than this are not kept between values */
+	public static final int MaxRetainedScratchBytes = 1 << 20;
+
+	private static final int GzipHeaderLength = 10;
+	private static final int GzipTrailerLength = 8;
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	/* the header written by java.util.zip.GZIPOutputStream */
+	private static final byte[] GzipHeader = { (byte) 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 0 };
+
+	private static final class State {
+		private final Deflater[] deflaters = new Deflater[Deflater.BEST_COMPRESSION + 2];
+		private final byte[][] scratch = new byte[Slots][];
+		private final CRC32 crc = new CRC32();
+		private Inflater inflater;
+	}
+
+	private static final ThreadLocal<State> States = new ThreadLocal<State>() {
+		@Override
+		protected State initialValue() {
+			return new State();
+		}
+	};
+
+	private CompressionEngine() {
+	}
+
+	/**
+	 * A buffer larger than {@link #MaxRetainedScratchBytes} stays in its slot until the next request for a buffer of
+	 * at most that size, which replaces it, so it is kept for the value it was needed for but not for long after.
+	 *
+	 * @param slot
+	 * @param capacity
+	 * @return the buffer of the slot, grown to at least the given capacity, with undefined content
+	 */
+	public static byte[] scratch(int slot, int capacity) {
+		byte[][] scratch = States.get().scratch;
+		byte[] buffer = scratch[slot];
+		if (buffer != null && buffer.length >= capacity
+				&& (buffer.length <= MaxRetainedScratchBytes || capacity > MaxRetainedScratchBytes)) {
+			return buffer;
+		}
+		int length;
+		if (capacity > MaxRetainedScratchBytes) {
+			length = capacity;
+		} else {
+			// grow geometrically so that a thread settles on the size of its largest values quickly
+			int previous = (buffer == null || buffer.length > MaxRetainedScratchBytes) ? 512 : buffer.length;
+			length = Math.min(MaxRetainedScratchBytes, Math.max(capacity, 2 * previous));
+		}
+		buffer = new byte[length];
+		scratch[slot] = buffer;
+		return buffer;
+	}
+
+	/**
+	 * @param slot
+	 * @return the buffer that {@link #scratch} last returned for the slot, which holds what was written to it
+	 */
+	public static byte[] buffer(int slot) {
+		return States.get().scratch[slot];
+	}
+
+	/**
+	 * @param length
+	 * @return the largest number of bytes that {@link #deflate} can write for an input of the given length
+	 */
+	public static int maxDeflatedLength(int length) {
+		// zlib's deflateBound() plus room for the final empty block
+		return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 13 + 5;
+	}
+
+	/**
+	 * @param length
+	 * @return the largest number of bytes that {@link #gzip} can write for an input of the given length
+	 */
+	public static int maxGzippedLength(int length) {
+		return GzipHeaderLength + maxDeflatedLength(length) + GzipTrailerLength;
+	}
+
+	/**
+	 * @param length
+	 * @return the largest number of bytes that {@link #inflate} can write for an input of the given length
+	 */
+	public static int maxInflatedLength(int length) {
+		// a deflate block can not do better than 258 bytes, the longest match, for every 2 bits
+		return (int) Math.min(Integer.MAX_VALUE, 1032L * length);
+	}
+
+	/**
+	 * Writes src[offset, offset + length) as a raw deflate stream to dest
+	 *
+	 * @param level
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dest
+	 * @param destOffset
+	 * @return the number of bytes written
+	 * @throws IOException if the result does not fit in dest
+	 */
+	public static int deflate(int level, byte[] src, int offset, int length, byte[] dest, int destOffset) throws IOException {
+		return deflate(level, null, src, offset, length, dest, destOffset);
+	}
+
+	/**
+	 * Writes src[offset, offset + length) as a raw deflate stream to dest, with a preset dictionary that the stream
+	 * can refer back to. Deflate indexes the dictionary for every value, so this costs more the longer it is.
+	 *
+	 * @param level
+	 * @param dictionary may be null
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dest
+	 * @param destOffset
+	 * @return the number of bytes written
+	 * @throws IOException if the result does not fit in dest
+	 */
+	public static int deflate(int level, byte[] dictionary, byte[] src, int offset, int length, byte[] dest, int destOffset)
+			throws IOException {
+
+		Deflater deflater = deflater(level);
+		try {
+			if (dictionary != null) {
+				deflater.setDictionary(dictionary);
+			}
+			deflater.setInput(src, offset, length);
+			deflater.finish();
+
+			int written = 0;
+			int capacity = dest.length - destOffset;
+			while (!deflater.finished()) {
+				int n = deflater.deflate(dest, destOffset + written, capacity - written);
+				if (n == 0 && written == capacity) {
+					throw new IOException("Compressed value does not fit in " + capacity + " bytes");
+				}
+				written += n;
+			}
+			return written;
+		} finally {
+			deflater.reset();
+		}
+	}
+
+	/**
+	 * Inflates the raw deflate stream in src[offset, offset + length) into dest[destOffset, destOffset + originalLength)
+	 *
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dest
+	 * @param destOffset
+	 * @param originalLength
+	 * @throws IOException if the stream is malformed or holds less than originalLength bytes
+	 */
+	public static void inflate(byte[] src, int offset, int length, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+		inflate(null, src, offset, length, dest, destOffset, originalLength);
+	}
+
+	/**
+	 * Inflates the raw deflate stream in src[offset, offset + length), which was written with the given preset
+	 * dictionary, into dest[destOffset, destOffset + originalLength)
+	 *
+	 * @param dictionary may be null
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dest
+	 * @param destOffset
+	 * @param originalLength
+	 * @throws IOException if the stream is malformed or holds less than originalLength bytes
+	 */
+	public static void inflate(byte[] dictionary, byte[] src, int offset, int length, byte[] dest, int destOffset,
+							   int originalLength) throws IOException {
+
+		Inflater inflater = inflater();
+		try {
+			// a raw stream does not ask for its dictionary, it has to be set up front
+			if (dictionary != null) {
+				inflater.setDictionary(dictionary);
+			}
+			inflater.setInput(src, offset, length);
+
+			int read = 0;
+			while (read < originalLength) {
+				int n = inflater.inflate(dest, destOffset + read, originalLength - read);
+				if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IOException("Compressed value ended after " + read + " of " + originalLength + " bytes");
+				}
+				read += n;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		} finally {
+			inflater.reset();
+		}
+	}
+
+	/**
+	 * Writes src[offset, offset + length) in the GZIP format, with the same header GZIPOutputStream writes, to the
+	 * scratch buffer of the given slot
+	 *
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param slot
+	 * @return the number of bytes written to the scratch buffer
+	 * @throws IOException
+	 */
+	public static int gzip(byte[] src, int offset, int length, int slot) throws IOException {
+		return gzip(src, offset, length, scratch(slot, maxGzippedLength(length)), 0);
+	}
+
+	/**
+	 * Writes src[offset, offset + length) in the GZIP format, with the same header GZIPOutputStream writes, to dest
+	 *
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dest with at least {@link #maxGzippedLength(int)} bytes available from destOffset
+	 * @param destOffset
+	 * @return the number of bytes written
+	 * @throws IOException
+	 */
+	public static int gzip(byte[] src, int offset, int length, byte[] dest, int destOffset) throws IOException {
+
+		System.arraycopy(GzipHeader, 0, dest, destOffset, GzipHeaderLength);
+
+		int n = destOffset + GzipHeaderLength;
+		n += deflate(Deflater.DEFAULT_COMPRESSION, src, offset, length, dest, n);
+
+		writeIntLE((int) crc32(src, offset, length), dest, n);
+		writeIntLE(length, dest, n + 4);
+		return n + GzipTrailerLength - destOffset;
+	}
+
+	/**
+	 * Decompresses the single GZIP member in src[offset, offset + length) into dest[destOffset, destOffset + originalLength)
+	 *
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dest
+	 * @param destOffset
+	 * @param originalLength
+	 * @throws IOException if the data is malformed, or does not hold exactly originalLength bytes
+	 */
+	public static void gunzip(byte[] src, int offset, int length, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+
+		if (gunzippedLength(src, offset, length) != originalLength) {
+			throw new IOException("GZIP trailer does not match the original length " + originalLength);
+		}
+		try {
+			int headerLength = gzipHeaderLength(src, offset, length);
+			int trailerAt = offset + length - GzipTrailerLength;
+
+			inflate(src, offset + headerLength, trailerAt - offset - headerLength, dest, destOffset, originalLength);
+
+			if ((int) crc32(dest, destOffset, originalLength) != readIntLE(src, trailerAt)) {
+				throw new IOException("GZIP CRC does not match");
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @return the decompressed content of the GZIP data in src[offset, offset + length)
+	 * @throws IOException
+	 */
+	public static byte[] gunzip(byte[] src, int offset, int length) throws IOException {
+
+		int originalLength = gunzippedLength(src, offset, length);
+		byte[] dest = new byte[originalLength];
+		if (gunzip(src, offset, length, dest, originalLength)) {
+			return dest;
+		}
+		return gunzipStream(src, offset, length);
+	}
+
+	/**
+	 * Decompresses the GZIP data in src[offset, offset + length) into the scratch buffer of the given slot
+	 *
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param slot
+	 * @return the number of bytes written to the scratch buffer
+	 * @throws IOException
+	 */
+	public static int gunzip(byte[] src, int offset, int length, int slot) throws IOException {
+
+		int originalLength = gunzippedLength(src, offset, length);
+		if (gunzip(src, offset, length, scratch(slot, originalLength), originalLength)) {
+			return originalLength;
+		}
+		byte[] result = gunzipStream(src, offset, length);
+		System.arraycopy(result, 0, scratch(slot, result.length), 0, result.length);
+		return result.length;
+	}
+
+	/**
+	 * Decompresses the data in one pass into a buffer sized from the trailer. Returns false for anything that
+	 * GZIPInputStream handles but this does not, e.g. several concatenated members.
+	 */
+	private static boolean gunzip(byte[] src, int offset, int length, byte[] dest, int originalLength) {
+
+		try {
+			gunzip(src, offset, length, dest, 0, originalLength);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static byte[] gunzipStream(byte[] src, int offset, int length) throws IOException {
+		return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(src, offset, length)));
+	}
+
+	private static int gunzippedLength(byte[] src, int offset, int length) throws IOException {
+
+		if (length < GzipHeaderLength + GzipTrailerLength || src[offset] != GzipHeader[0] || src[offset + 1] != GzipHeader[1]) {
+			throw new IOException("Not in GZIP format");
+		}
+		// deflate can not do better than about 1:1032, anything beyond that is a corrupt trailer
+		long originalLength = readIntLE(src, offset + length - 4) & 0xFFFFFFFFL;
+		if (originalLength > 1032L * length + 1024 || originalLength > Integer.MAX_VALUE - 8) {
+			throw new IOException("Corrupt GZIP trailer, original length " + originalLength);
+		}
+		return (int) originalLength;
+	}
+
+	private static int gzipHeaderLength(byte[] src, int offset, int length) throws IOException {
+
+		if (src[offset + 2] != 8) {
+			throw new IOException("Unsupported GZIP compression method " + src[offset + 2]);
+		}
+		int flags = src[offset + 3] & 0xFF;
+		int p = offset + GzipHeaderLength;
+
+		if ((flags & FEXTRA) != 0) {
+			p += 2 + ((src[p] & 0xFF) | ((src[p + 1] & 0xFF) << 8));
+		}
+		if ((flags & FNAME) != 0) {
+			while (src[p++] != 0) {
+			}
+		}
+		if ((flags & FCOMMENT) != 0) {
+			while (src[p++] != 0) {
+			}
+		}
+		if ((flags & FHCRC) != 0) {
+			p += 2;
+		}
+		return p - offset;
+	}
+
+	/**
+	 * Encodes the value as UTF-8, like String.getBytes() does, but into the scratch buffer of the given slot
+	 *
+	 * @param value
+	 * @param slot
+	 * @return the number of bytes written to the scratch buffer
+	 */
+	public static int encodeUtf8(String value, int slot) {
+
+		int length = value.length();
+		byte[] dest = scratch(slot, 3 * length);
+		int p = 0;
+
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				dest[p++] = (byte) c;
+			} else if (c < 0x800) {
+				dest[p++] = (byte) (0xC0 | (c >> 6));
+				dest[p++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				int codePoint = Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))
+						? Character.toCodePoint(c, value.charAt(++i)) : -1;
+				if (codePoint < 0) {
+					// unpaired surrogate, replaced the same way String.getBytes() does
+					dest[p++] = (byte) '?';
+				} else {
+					dest[p++] = (byte) (0xF0 | (codePoint >> 18));
+					dest[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+					dest[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+					dest[p++] = (byte) (0x80 | (codePoint & 0x3F));
+				}
+			} else {
+				dest[p++] = (byte) (0xE0 | (c >> 12));
+				dest[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				dest[p++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return p;
+	}
+
+	private static Deflater deflater(int level) {
+		Deflater[] deflaters = States.get().deflaters;
+		// DEFAULT_COMPRESSION is -1
+		int index = level + 1;
+		if (deflaters[index] == null) {
+			deflaters[index] = new Deflater(level, true);
+		}
+		return deflaters[index];
+	}
+
+	private static Inflater inflater() {
+		State state = States.get();
+		if (state.inflater == null) {
+			state.inflater = new Inflater(true);
+		}
+		return state.inflater;
+	}
+
+	private static long crc32(byte[] b, int offset, int length) {
+		CRC32 crc = States.get().crc;
+		crc.reset();
+		crc.update(b, offset, length);
+		return crc.getValue();
+	}
+
+	private static void writeIntLE(int value, byte[] dest, int offset) {
+		dest[offset] = (byte) value;
+		dest[offset + 1] = (byte) (value >>> 8);
+		dest[offset + 2] = (byte) (value >>> 16);
+		dest[offset + 3] = (byte) (value >>> 24);
+	}
+
+	private static int readIntLE(byte[] src, int offset) {
+		return (src[offset] & 0xFF) | ((src[offset + 1] & 0xFF) << 8) | ((src[offset + 2] & 0xFF) << 16)
+				| ((src[offset + 3] & 0xFF) << 24);
+	}
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * {@link ValueCodec} that writes a raw deflate stream, i.e. GZIP without its header and trailer.
+ *
+ * The Deflater and Inflater are the ones {@link CompressionEngine} keeps for the calling thread, so the native
+ * zlib state is allocated once per thread and level instead of once per value.
+ */
+public class DeflateCodec implements ValueCodec {
+
+	public static final int Id = 1;
+
+	private final int level;
+
+	public DeflateCodec() {
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param level the deflate level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+	 */
+	public DeflateCodec(int level) {
+		this.level = level;
+	}
+
+	@Override
+	public int getId() {
+		return Id;
+	}
+
+	@Override
+	public String getName() {
+		return "DEFLATE";
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return CompressionEngine.maxDeflatedLength(length);
+	}
+
+	@Override
+	public int maxDecompressedLength(int length) {
+		return CompressionEngine.maxInflatedLength(length);
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) throws IOException {
+		return CompressionEngine.deflate(level, src, srcOffset, length, dest, destOffset);
+	}
+
+	@Override
+	public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+		CompressionEngine.inflate(src, srcOffset, length, dest, destOffset, originalLength);
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+/**
+ * {@link ValueCodec} that deflates values with a preset {@link CompressionDictionary}, which makes small values that
+ * share a schema compress far better than they do on their own.
+ *
+ * Every value starts with the id of its dictionary, 2 bytes big endian, followed by the raw deflate stream.
+ * Dictionaries are loaded once per JVM with {@link #load} and all loaded dictionaries stay available to decompress,
+ * so values written with an older dictionary remain readable after moving on to a new one.
+ *
+ * A codec either compresses with a given dictionary or, when created without one, with the dictionary that was
+ * loaded last. Any codec decompresses values written with any loaded dictionary.
+ */
+public class DictionaryCodec implements ValueCodec {
+
+	public static final int Id = 3;
+
+	private static final int DictionaryIdLength = 2;
+
+	private static final ConcurrentHashMap<Integer, CompressionDictionary> Dictionaries =
+			new ConcurrentHashMap<Integer, CompressionDictionary>();
+	private static final ConcurrentHashMap<Integer, DictionaryCodec> Codecs = new ConcurrentHashMap<Integer, DictionaryCodec>();
+	private static volatile CompressionDictionary latest;
+
+	private final int dictionaryId;
+
+	/**
+	 * A codec that compresses with the dictionary that was loaded last
+	 */
+	public DictionaryCodec() {
+		this(0);
+	}
+
+	/**
+	 * @param dictionaryId the id of the dictionary to compress with, or 0 for the one that was loaded last
+	 */
+	public DictionaryCodec(int dictionaryId) {
+		this.dictionaryId = dictionaryId;
+	}
+
+	/**
+	 * Makes a dictionary available to compress and decompress with. Loading the same dictionary again does nothing.
+	 *
+	 * @param dictionary
+	 * @throws IllegalArgumentException if a different dictionary with the same id is already loaded
+	 */
+	public static void load(CompressionDictionary dictionary) {
+		CompressionDictionary prev = Dictionaries.putIfAbsent(dictionary.getId(), dictionary);
+		if (prev != null && !prev.equals(dictionary)) {
+			throw new IllegalArgumentException("A different dictionary is already loaded as " + prev);
+		}
+		latest = dictionary;
+	}
+
+	/**
+	 * @param dictionaryId
+	 * @return the loaded dictionary with the given id, or null
+	 */
+	public static CompressionDictionary getDictionary(int dictionaryId) {
+		return Dictionaries.get(dictionaryId);
+	}
+
+	/**
+	 * @param dictionaryId the id of the dictionary to compress with, or 0 for the one that was loaded last
+	 * @return a codec for the dictionary, shared between callers
+	 */
+	public static DictionaryCodec forDictionary(int dictionaryId) {
+		DictionaryCodec codec = Codecs.get(dictionaryId);
+		if (codec == null) {
+			codec = new DictionaryCodec(dictionaryId);
+			DictionaryCodec prev = Codecs.putIfAbsent(dictionaryId, codec);
+			if (prev != null) {
+				codec = prev;
+			}
+		}
+		return codec;
+	}
+
+	@Override
+	public int getId() {
+		return Id;
+	}
+
+	@Override
+	public String getName() {
+		return "DICTIONARY";
+	}
+
+	/**
+	 * @return the id of the dictionary this codec compresses with, or 0 for the one that was loaded last
+	 */
+	public int getDictionaryId() {
+		return dictionaryId;
+	}
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return DictionaryIdLength + CompressionEngine.maxDeflatedLength(length);
+	}
+
+	@Override
+	public int maxDecompressedLength(int length) {
+		return CompressionEngine.maxInflatedLength(length - DictionaryIdLength);
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) throws IOException {
+
+		CompressionDictionary dictionary = dictionaryId == 0 ? latest : Dictionaries.get(dictionaryId);
+		if (dictionary == null) {
+			throw new IOException(dictionaryId == 0 ? "No compression dictionary is loaded"
+					: "Compression dictionary " + dictionaryId + " is not loaded");
+		}
+
+		dest[destOffset] = (byte) (dictionary.getId() >>> 8);
+		dest[destOffset + 1] = (byte) dictionary.getId();
+		return DictionaryIdLength + CompressionEngine.deflate(Deflater.DEFAULT_COMPRESSION, dictionary.data(), src,
+				srcOffset, length, dest, destOffset + DictionaryIdLength);
+	}
+
+	@Override
+	public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+
+		if (length < DictionaryIdLength) {
+			throw new IOException("Value compressed with a dictionary is too short");
+		}
+		int id = ((src[srcOffset] & 0xFF) << 8) | (src[srcOffset + 1] & 0xFF);
+		CompressionDictionary dictionary = Dictionaries.get(id);
+		if (dictionary == null) {
+			throw new IOException("Value was compressed with dictionary " + id + ", which is not loaded");
+		}
+		CompressionEngine.inflate(dictionary.data(), src, srcOffset + DictionaryIdLength, length - DictionaryIdLength,
+				dest, destOffset, originalLength);
+	}
+}
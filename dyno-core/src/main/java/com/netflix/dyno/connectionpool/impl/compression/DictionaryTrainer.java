@@ -0,0 +1,208 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds a {@link CompressionDictionary} from sample values, either offline from values exported from the cluster
+ * or in the client by feeding it values with {@link #addSample} as they are written.
+ *
+ * The samples are cut into segments of 64 bytes and the dictionary is made of the segments that cover the most
+ * 8 byte sequences occurring in many samples. Each sequence only counts towards the first segment chosen that holds
+ * it, so the dictionary does not repeat itself. The best segments go to the end of the dictionary, where they are
+ * the cheapest for deflate to refer to.
+ *
+ * The trainer keeps a uniform random sample of at most maxSamples of the values it is given.
+ */
+public class DictionaryTrainer {
+
+	private static final int SegmentLength = 64;
+	private static final int SequenceLength = 8;
+	private static final int TableBits = 18;
+
+	private final int maxSamples;
+	private final List<byte[]> samples;
+	private final Random random = new Random();
+	private long seen = 0;
+
+	/**
+	 * @param maxSamples the number of samples to keep
+	 */
+	public DictionaryTrainer(int maxSamples) {
+		this.maxSamples = maxSamples;
+		this.samples = new ArrayList<byte[]>(Math.min(maxSamples, 1024));
+	}
+
+	/**
+	 * @param value a value to learn from, which is copied
+	 */
+	public synchronized void addSample(byte[] value) {
+		seen++;
+		if (samples.size() < maxSamples) {
+			samples.add(value.clone());
+			return;
+		}
+		long index = (long) (random.nextDouble() * seen);
+		if (index < maxSamples) {
+			samples.set((int) index, value.clone());
+		}
+	}
+
+	/**
+	 * @return the number of samples kept
+	 */
+	public synchronized int getSampleCount() {
+		return samples.size();
+	}
+
+	/**
+	 * @param id the id of the new dictionary
+	 * @param length the length of the dictionary, at most {@link CompressionDictionary#MaxLength}
+	 * @return a dictionary trained on the samples kept
+	 * @throws IllegalStateException if there are no samples to learn from
+	 */
+	public CompressionDictionary train(int id, int length) {
+		List<byte[]> copy;
+		synchronized (this) {
+			copy = new ArrayList<byte[]>(samples);
+		}
+		return new CompressionDictionary(id, train(copy, length));
+	}
+
+	/**
+	 * @param samples
+	 * @param length the length of the dictionary, at most {@link CompressionDictionary#MaxLength}
+	 * @return the dictionary, which may be shorter than length if the samples hold less useful content
+	 * @throws IllegalStateException if the samples hold nothing to learn from
+	 */
+	public static byte[] train(Collection<byte[]> samples, int length) {
+
+		if (length < 1 || length > CompressionDictionary.MaxLength) {
+			throw new IllegalArgumentException("Dictionary length must be between 1 and " + CompressionDictionary.MaxLength);
+		}
+
+		int total = 0;
+		for (byte[] sample : samples) {
+			total += sample.length;
+		}
+		byte[] data = new byte[total];
+		int[] sampleStarts = new int[samples.size() + 1];
+		int s = 0;
+		for (byte[] sample : samples) {
+			System.arraycopy(sample, 0, data, sampleStarts[s], sample.length);
+			sampleStarts[s + 1] = sampleStarts[s] + sample.length;
+			s++;
+		}
+
+		// the number of samples every sequence occurs in
+		int[] frequencies = new int[1 << TableBits];
+		int[] lastSample = new int[1 << TableBits];
+		Arrays.fill(lastSample, -1);
+		for (s = 0; s < samples.size(); s++) {
+			for (int i = sampleStarts[s]; i + SequenceLength <= sampleStarts[s + 1]; i++) {
+				int h = hash(data, i);
+				if (lastSample[h] != s) {
+					lastSample[h] = s;
+					frequencies[h]++;
+				}
+			}
+		}
+
+		// a sequence that only occurs in one sample helps no other value
+		for (int h = 0; h < frequencies.length; h++) {
+			if (frequencies[h] < 2) {
+				frequencies[h] = 0;
+			}
+		}
+
+		// pick the best segment of every epoch, filling the dictionary from the end
+		byte[] dictionary = new byte[length];
+		int free = length;
+		int epochs = Math.max(1, length / SegmentLength);
+		int epochLength = Math.max(SegmentLength, total / epochs);
+		int[] inWindow = lastSample;
+
+		for (int epochStart = 0; epochStart + SequenceLength <= total && free > 0; epochStart += epochLength) {
+			int epochEnd = Math.min(total, epochStart + epochLength);
+			int best = bestSegment(data, epochStart, epochEnd, frequencies, inWindow);
+			if (best < 0) {
+				continue;
+			}
+
+			int segmentEnd = Math.min(best + SegmentLength, total);
+			for (int i = best; i + SequenceLength <= segmentEnd; i++) {
+				frequencies[hash(data, i)] = 0;
+			}
+			int n = Math.min(segmentEnd - best, free);
+			free -= n;
+			System.arraycopy(data, segmentEnd - n, dictionary, free, n);
+		}
+
+		if (free == length) {
+			throw new IllegalStateException("The samples have no content in common to build a dictionary from");
+		}
+		return free == 0 ? dictionary : Arrays.copyOfRange(dictionary, free, length);
+	}
+
+	/**
+	 * @return the start of the segment in [start, end) whose distinct sequences have the highest total frequency,
+	 *         or -1 if no segment holds a sequence with a frequency
+	 */
+	private static int bestSegment(byte[] data, int start, int end, int[] frequencies, int[] inWindow) {
+
+		int sequences = SegmentLength - SequenceLength + 1;
+		int last = Math.min(end, data.length - SequenceLength + 1);
+		if (last <= start) {
+			return -1;
+		}
+		Arrays.fill(inWindow, 0);
+
+		int best = -1;
+		long bestScore = 0;
+		long score = 0;
+		for (int i = start; i < last; i++) {
+			int h = hash(data, i);
+			if (inWindow[h]++ == 0) {
+				score += frequencies[h];
+			}
+			int windowStart = i - sequences + 1;
+			if (windowStart > start) {
+				int out = hash(data, windowStart - 1);
+				if (--inWindow[out] == 0) {
+					score -= frequencies[out];
+				}
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				best = Math.max(start, windowStart);
+			}
+		}
+		return best;
+	}
+
+	private static int hash(byte[] data, int offset) {
+		long v = 0;
+		for (int i = 0; i < SequenceLength; i++) {
+			v = (v << 8) | (data[offset + i] & 0xFF);
+		}
+		return (int) ((v * 0x9E3779B97F4A7C15L) >>> (64 - TableBits));
+	}
+}
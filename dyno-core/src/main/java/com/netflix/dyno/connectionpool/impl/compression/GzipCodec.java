@@ -0,0 +1,59 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+
+/**
+ * {@link ValueCodec} that writes the GZIP format, like {@link com.netflix.dyno.connectionpool.impl.utils.ZipUtils}
+ * does. {@link com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy#THRESHOLD} frames
+ * binary values with it, so that they can be told apart from values that merely start like GZIP.
+ */
+public class GzipCodec implements ValueCodec {
+
+	public static final int Id = 4;
+
+	@Override
+	public int getId() {
+		return Id;
+	}
+
+	@Override
+	public String getName() {
+		return "GZIP";
+	}
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return CompressionEngine.maxGzippedLength(length);
+	}
+
+	@Override
+	public int maxDecompressedLength(int length) {
+		return CompressionEngine.maxInflatedLength(length);
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) throws IOException {
+		return CompressionEngine.gzip(src, srcOffset, length, dest, destOffset);
+	}
+
+	@Override
+	public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+		CompressionEngine.gunzip(src, srcOffset, length, dest, destOffset, originalLength);
+	}
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link ValueCodec} that writes the LZ4 block format.
+ *
+ * LZ4 only replaces repeated byte sequences with back references and does no entropy coding, so it compresses
+ * less than deflate but is several times faster in both directions. That makes it a good fit for values that are
+ * read far more often than they are written, or for clients that are short on CPU.
+ *
+ * The compressor uses a single entry per hash bucket and skips ahead faster the longer it goes without a match,
+ * which keeps the cost of incompressible values close to a copy. Every thread keeps its own hash table.
+ */
+public class Lz4Codec implements ValueCodec {
+
+	public static final int Id = 2;
+
+	private static final int MinMatch = 4;
+	private static final int HashLog = 12;
+	private static final int MaxDistance = 65535;
+
+	/* a match may not start within the last 12 bytes of the input, and the last 5 bytes are always literals */
+	private static final int MatchFindLimit = 12;
+	private static final int LastLiterals = 5;
+
+	private static final int RunMask = 0x0F;
+	private static final int MlMask = 0x0F;
+
+	private final ThreadLocal<int[]> hashTables = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1 << HashLog];
+		}
+	};
+
+	@Override
+	public int getId() {
+		return Id;
+	}
+
+	@Override
+	public String getName() {
+		return "LZ4";
+	}
+
+	@Override
+	public int maxCompressedLength(int length) {
+		return length + length / 255 + 16;
+	}
+
+	@Override
+	public int maxDecompressedLength(int length) {
+		// every 255 bytes of a match take at least one byte to encode its length
+		return (int) Math.min(Integer.MAX_VALUE, 255L * length + 255);
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) throws IOException {
+
+		final int srcEnd = srcOffset + length;
+		int anchor = srcOffset;
+		int op = destOffset;
+
+		if (length >= MatchFindLimit + 1) {
+			final int[] table = hashTables.get();
+			Arrays.fill(table, -1);
+
+			final int matchFindLimit = srcEnd - MatchFindLimit;
+			final int matchLimit = srcEnd - LastLiterals;
+
+			int ip = srcOffset;
+			while (ip < matchFindLimit) {
+				int sequence = readInt(src, ip);
+				int h = hash(sequence);
+				int ref = table[h];
+				table[h] = ip;
+
+				if (ref < 0 || ip - ref > MaxDistance || readInt(src, ref) != sequence) {
+					ip += 1 + ((ip - anchor) >>> 6);
+					continue;
+				}
+
+				// catch up with any bytes before the match that are also equal
+				while (ip > anchor && ref > srcOffset && src[ip - 1] == src[ref - 1]) {
+					ip--;
+					ref--;
+				}
+
+				int matchLength = MinMatch;
+				while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+					matchLength++;
+				}
+
+				op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dest, op);
+				ip += matchLength;
+				anchor = ip;
+			}
+		}
+
+		op = writeLiterals(src, anchor, srcEnd - anchor, dest, op);
+		return op - destOffset;
+	}
+
+	@Override
+	public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int originalLength)
+			throws IOException {
+
+		final int srcEnd = srcOffset + length;
+		final int destEnd = destOffset + originalLength;
+		int ip = srcOffset;
+		int op = destOffset;
+
+		try {
+			while (true) {
+				int token = src[ip++] & 0xFF;
+
+				int literalLength = token >>> 4;
+				if (literalLength == RunMask) {
+					int b;
+					do {
+						b = src[ip++] & 0xFF;
+						literalLength += b;
+					} while (b == 0xFF);
+				}
+				if (ip + literalLength > srcEnd || op + literalLength > destEnd) {
+					throw malformed(ip);
+				}
+				System.arraycopy(src, ip, dest, op, literalLength);
+				ip += literalLength;
+				op += literalLength;
+
+				// the last sequence has literals only
+				if (ip == srcEnd) {
+					break;
+				}
+
+				int offset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+				ip += 2;
+
+				int matchLength = token & MlMask;
+				if (matchLength == MlMask) {
+					int b;
+					do {
+						b = src[ip++] & 0xFF;
+						matchLength += b;
+					} while (b == 0xFF);
+				}
+				matchLength += MinMatch;
+
+				int ref = op - offset;
+				if (offset == 0 || ref < destOffset || op + matchLength > destEnd) {
+					throw malformed(ip);
+				}
+				if (offset >= matchLength) {
+					System.arraycopy(dest, ref, dest, op, matchLength);
+					op += matchLength;
+				} else {
+					// overlapping copy, e.g. a run of one repeated byte
+					for (int i = 0; i < matchLength; i++) {
+						dest[op++] = dest[ref++];
+					}
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw malformed(ip);
+		}
+
+		if (op != destEnd) {
+			throw new IOException("Compressed value decompressed to " + (op - destOffset) + " instead of "
+					+ originalLength + " bytes");
+		}
+	}
+
+	private static int writeSequence(byte[] src, int literalStart, int literalLength, int offset, int matchLength,
+									 byte[] dest, int op) {
+
+		int tokenAt = op++;
+		int token;
+
+		if (literalLength >= RunMask) {
+			token = RunMask << 4;
+			op = writeLength(literalLength - RunMask, dest, op);
+		} else {
+			token = literalLength << 4;
+		}
+		System.arraycopy(src, literalStart, dest, op, literalLength);
+		op += literalLength;
+
+		dest[op++] = (byte) offset;
+		dest[op++] = (byte) (offset >>> 8);
+
+		int ml = matchLength - MinMatch;
+		if (ml >= MlMask) {
+			token |= MlMask;
+			op = writeLength(ml - MlMask, dest, op);
+		} else {
+			token |= ml;
+		}
+
+		dest[tokenAt] = (byte) token;
+		return op;
+	}
+
+	private static int writeLiterals(byte[] src, int literalStart, int literalLength, byte[] dest, int op) {
+
+		if (literalLength >= RunMask) {
+			dest[op++] = (byte) (RunMask << 4);
+			op = writeLength(literalLength - RunMask, dest, op);
+		} else {
+			dest[op++] = (byte) (literalLength << 4);
+		}
+		System.arraycopy(src, literalStart, dest, op, literalLength);
+		return op + literalLength;
+	}
+
+	private static int writeLength(int length, byte[] dest, int op) {
+		while (length >= 0xFF) {
+			dest[op++] = (byte) 0xFF;
+			length -= 0xFF;
+		}
+		dest[op++] = (byte) length;
+		return op;
+	}
+
+	private static int readInt(byte[] b, int i) {
+		return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | ((b[i + 3] & 0xFF) << 24);
+	}
+
+	private static int hash(int sequence) {
+		return (sequence * -1640531535) >>> (32 - HashLog);
+	}
+
+	private static IOException malformed(int position) {
+		return new IOException("Malformed LZ4 value at offset " + position);
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+
+/**
+ * Compresses and decompresses values on their way to and from Dynomite.
+ *
+ * Codecs work on byte arrays only and know nothing about the header that {@link ValueCodecs} puts in front of
+ * every compressed value. The header records the id of the codec and the length of the original value, so a
+ * codec is handed a destination that is exactly large enough when decompressing.
+ *
+ * Implementations must be thread safe. Custom codecs are registered with {@link ValueCodecs#register(ValueCodec)}
+ * and must use an id from {@link ValueCodecs#MinCustomCodecId} upwards, the lower ids are kept for built in codecs.
+ */
+public interface ValueCodec {
+
+	/**
+	 * @return the id written into the header of the values compressed by this codec, between 1 and 255
+	 */
+	int getId();
+
+	/**
+	 * @return a name for logging
+	 */
+	String getName();
+
+	/**
+	 * @param length
+	 * @return the largest number of bytes that {@link #compress} can write for an input of the given length
+	 */
+	int maxCompressedLength(int length);
+
+	/**
+	 * Values whose header claims a longer original length are taken for values that were not compressed by this codec
+	 * and merely start like a header, so the bound should be tight enough to keep that from allocating much.
+	 *
+	 * @param length
+	 * @return the largest number of bytes that {@link #decompress} can write for an input of the given length
+	 */
+	int maxDecompressedLength(int length);
+
+	/**
+	 * Compresses src[srcOffset, srcOffset + length) into dest starting at destOffset
+	 *
+	 * @param src
+	 * @param srcOffset
+	 * @param length
+	 * @param dest with at least {@link #maxCompressedLength(int)} bytes available from destOffset
+	 * @param destOffset
+	 * @return the number of bytes written to dest
+	 * @throws IOException
+	 */
+	int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) throws IOException;
+
+	/**
+	 * Decompresses src[srcOffset, srcOffset + length) into dest[destOffset, destOffset + originalLength)
+	 *
+	 * @param src
+	 * @param srcOffset
+	 * @param length
+	 * @param dest
+	 * @param destOffset
+	 * @param originalLength the length of the value before it was compressed
+	 * @throws IOException if the compressed data is malformed or does not decompress to originalLength bytes
+	 */
+	void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int originalLength) throws IOException;
+}
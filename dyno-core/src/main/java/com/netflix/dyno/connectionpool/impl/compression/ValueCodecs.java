@@ -0,0 +1,306 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
+import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
+
+/**
+ * Frames the values compressed by a {@link ValueCodec} and keeps the registry of codecs by id.
+ *
+ * Every compressed value starts with a 7 byte header
+ * <pre>
+ *   0xDC 0xF1    magic, which can not start a valid UTF-8 string
+ *   id           the id of the codec that compressed the value
+ *   length       the length of the original value, 4 bytes big endian
+ * </pre>
+ * followed by whatever the codec wrote. Binary values are stored as is and String values are Base64 encoded once,
+ * after compression.
+ *
+ * Values written by {@link ZipUtils} before codecs existed have no header. String values, the Base64 of the GZIP of
+ * the Base64 of the value, are still recognized and decompressed, so clients can move to a codec while the cluster
+ * holds values in both formats. Binary values were plain GZIP, which a value stored as is may start like, so they
+ * are only decompressed when the caller asks for it, see
+ * {@link ConnectionPoolConfiguration#isLegacyBinaryValueDecompressionEnabled()}.
+ *
+ * Intermediate results live in the scratch buffers of {@link CompressionEngine}, so compressing allocates the
+ * result and decompressing allocates the result and nothing else that grows with the value.
+ */
+public final class ValueCodecs {
+
+	public static final int HeaderLength = 7;
+
+	/** Ids below this one are kept for the codecs that come with Dyno */
+	public static final int MinCustomCodecId = 64;
+
+	private static final byte Magic0 = (byte) 0xDC;
+	private static final byte Magic1 = (byte) 0xF1;
+
+	/* the first 2 characters of the Base64 encoding of every header, and the number of characters that hold it */
+	private static final String Base64Magic = "3P";
+	private static final int Base64HeaderLength = 12;
+
+	private static final DeflateCodec Deflate = new DeflateCodec();
+	private static final Lz4Codec Lz4 = new Lz4Codec();
+	private static final DictionaryCodec Dictionary = new DictionaryCodec();
+	private static final GzipCodec Gzip = new GzipCodec();
+
+	private static final AtomicReferenceArray<ValueCodec> Codecs = new AtomicReferenceArray<ValueCodec>(256);
+
+	static {
+		Codecs.set(Deflate.getId(), Deflate);
+		Codecs.set(Lz4.getId(), Lz4);
+		Codecs.set(Dictionary.getId(), Dictionary);
+		Codecs.set(Gzip.getId(), Gzip);
+	}
+
+	private ValueCodecs() {
+	}
+
+	/**
+	 * Makes a custom codec available for decompression. Values compressed by a codec can only be read by clients
+	 * that have it registered.
+	 *
+	 * @param codec
+	 * @throws IllegalArgumentException if the id of the codec is below {@link #MinCustomCodecId} or above 255
+	 */
+	public static void register(ValueCodec codec) {
+		int id = codec.getId();
+		if (id < MinCustomCodecId || id > 255) {
+			throw new IllegalArgumentException("Codec " + codec.getName() + " has id " + id + ", custom codec ids must be between "
+					+ MinCustomCodecId + " and 255");
+		}
+		Codecs.set(id, codec);
+	}
+
+	/**
+	 * @param id
+	 * @return the codec registered under the given id, or null
+	 */
+	public static ValueCodec getCodec(int id) {
+		return (id > 0 && id < 256) ? Codecs.get(id) : null;
+	}
+
+	/**
+	 * @param config
+	 * @return the codec that new values are compressed with, or null if the compression strategy does not use a
+	 *         codec, in which case {@link CompressionStrategy#THRESHOLD} compresses with {@link ZipUtils}
+	 */
+	public static ValueCodec forConfiguration(ConnectionPoolConfiguration config) {
+		CompressionStrategy strategy = config.getCompressionStrategy();
+		if (strategy == null) {
+			return null;
+		}
+		switch (strategy) {
+			case DEFLATE:
+				return Deflate;
+			case LZ4:
+				return Lz4;
+			case CODEC:
+				return config.getValueCodec();
+			case DICTIONARY:
+				return DictionaryCodec.forDictionary(config.getCompressionDictionaryId());
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Binary values are always framed, so where String values are compressed with {@link ZipUtils} binary values
+	 * are compressed with {@link GzipCodec}
+	 *
+	 * @param config
+	 * @return the codec that new binary values are compressed with
+	 */
+	public static ValueCodec forBinaryValues(ConnectionPoolConfiguration config) {
+		ValueCodec codec = forConfiguration(config);
+		return (codec == null) ? Gzip : codec;
+	}
+
+	/**
+	 * @param codec
+	 * @param value
+	 * @return the header followed by the value compressed with the given codec
+	 * @throws IOException
+	 */
+	public static byte[] compress(ValueCodec codec, byte[] value) throws IOException {
+		int length = compress(codec, value, 0, value.length, 1);
+		return Arrays.copyOf(CompressionEngine.buffer(1), length);
+	}
+
+	/**
+	 * @param codec
+	 * @param value
+	 * @return the Base64 encoding of the header followed by the UTF-8 bytes of the value compressed with the codec
+	 * @throws IOException
+	 */
+	public static String compressToBase64String(ValueCodec codec, String value) throws IOException {
+
+		int length = CompressionEngine.encodeUtf8(value, 0);
+		length = compress(codec, CompressionEngine.buffer(0), 0, length, 1);
+
+		byte[] encoded = CompressionEngine.scratch(2, Base64Coder.encodedLength(length));
+		length = Base64Coder.encode(CompressionEngine.buffer(1), 0, length, encoded, 0);
+		return new String(encoded, 0, length, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Writes the header and the compressed value to the scratch buffer of the given slot
+	 *
+	 * @return the number of bytes written
+	 */
+	private static int compress(ValueCodec codec, byte[] src, int offset, int length, int slot) throws IOException {
+
+		byte[] dest = CompressionEngine.scratch(slot, HeaderLength + codec.maxCompressedLength(length));
+		writeHeader(codec.getId(), length, dest);
+		return HeaderLength + codec.compress(src, offset, length, dest, HeaderLength);
+	}
+
+	/**
+	 * @param value
+	 * @return true if the value was compressed by a codec
+	 * @throws IOException
+	 */
+	public static boolean isCompressed(byte[] value) throws IOException {
+		return value != null && hasHeader(value, value.length);
+	}
+
+	/**
+	 * @param value
+	 * @return true if the value was compressed by {@link #compressToBase64String(ValueCodec, String)} or by
+	 *         {@link ZipUtils#compressStringToBase64String(String)}
+	 * @throws IOException
+	 */
+	public static boolean isCompressed(String value) throws IOException {
+		return hasBase64Header(value) || ZipUtils.isCompressed(value);
+	}
+
+	/**
+	 * Same as {@link #decompress(byte[], boolean)} without decompressing values written by {@link ZipUtils}
+	 *
+	 * @param value
+	 * @return the decompressed value, or the value itself if it is not compressed
+	 */
+	public static byte[] decompress(byte[] value) {
+		return decompress(value, false);
+	}
+
+	/**
+	 * Binary values may start like a compressed value by chance, so a value that looks compressed but does not
+	 * decompress is taken for a value that was stored as is.
+	 *
+	 * @param value
+	 * @param legacyValues also decompress values without a header that look like the GZIP written by
+	 *                     {@link ZipUtils#compressBytesNonBase64(byte[])}
+	 * @return the decompressed value, or the value itself if it is not compressed
+	 */
+	public static byte[] decompress(byte[] value, boolean legacyValues) {
+		try {
+			if (value != null && hasHeader(value, value.length)) {
+				byte[] result = new byte[readLength(value)];
+				decompress(value, value.length, result);
+				return result;
+			}
+			if (legacyValues && ZipUtils.isCompressed(value)) {
+				return ZipUtils.decompressBytesNonBase64(value);
+			}
+		} catch (IOException | RuntimeException e) {
+			// not compressed after all
+		}
+		return value;
+	}
+
+	/**
+	 * @param value a value for which {@link #isCompressed(String)} is true
+	 * @return the decompressed value
+	 * @throws IOException
+	 */
+	public static String decompressFromBase64String(String value) throws IOException {
+
+		byte[] decoded = CompressionEngine.scratch(0, Base64Coder.maxDecodedLength(value.length()));
+		int length = Base64Coder.decode(value, 0, value.length(), decoded, 0);
+
+		if (hasHeader(decoded, length)) {
+			int originalLength = readLength(decoded);
+			byte[] result = CompressionEngine.scratch(1, originalLength);
+			decompress(decoded, length, result);
+			return new String(result, 0, originalLength, StandardCharsets.UTF_8);
+		}
+		return ZipUtils.decompressString(decoded, 0, length);
+	}
+
+	/**
+	 * Decompresses value[0, length), which starts with a header, into the start of dest
+	 */
+	private static void decompress(byte[] value, int length, byte[] dest) throws IOException {
+		ValueCodec codec = Codecs.get(value[2] & 0xFF);
+		codec.decompress(value, HeaderLength, length - HeaderLength, dest, 0, readLength(value));
+	}
+
+	private static boolean hasHeader(byte[] value, int length) {
+		return hasHeader(value, length, length);
+	}
+
+	/**
+	 * @param value holds the start of the value
+	 * @param length the number of bytes of the value in the given array
+	 * @param valueLength the length of the whole value, which bounds the original length the header may claim
+	 */
+	private static boolean hasHeader(byte[] value, int length, int valueLength) {
+		if (length < HeaderLength || value[0] != Magic0 || value[1] != Magic1) {
+			return false;
+		}
+		ValueCodec codec = Codecs.get(value[2] & 0xFF);
+		int originalLength = readLength(value);
+		return codec != null && originalLength >= 0 && originalLength <= codec.maxDecompressedLength(valueLength - HeaderLength);
+	}
+
+	/**
+	 * Checks the header by decoding only the Base64 characters that hold it
+	 */
+	private static boolean hasBase64Header(String value) {
+		if (value == null || value.length() < Base64HeaderLength || !value.startsWith(Base64Magic)) {
+			return false;
+		}
+		try {
+			byte[] header = CompressionEngine.scratch(0, HeaderLength + 2);
+			return hasHeader(header, Base64Coder.decode(value, 0, Base64HeaderLength, header, 0),
+					Base64Coder.maxDecodedLength(value.length()));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static void writeHeader(int codecId, int length, byte[] buffer) {
+		buffer[0] = Magic0;
+		buffer[1] = Magic1;
+		buffer[2] = (byte) codecId;
+		buffer[3] = (byte) (length >>> 24);
+		buffer[4] = (byte) (length >>> 16);
+		buffer[5] = (byte) (length >>> 8);
+		buffer[6] = (byte) length;
+	}
+
+	private static int readLength(byte[] value) {
+		return ((value[3] & 0xFF) << 24) | ((value[4] & 0xFF) << 16) | ((value[5] & 0xFF) << 8) | (value[6] & 0xFF);
+	}
+}
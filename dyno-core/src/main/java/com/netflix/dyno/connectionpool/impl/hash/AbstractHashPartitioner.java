@@ -0,0 +1,159 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.hash;
+
+import java.nio.charset.Charset;
+
+import com.netflix.dyno.connectionpool.HashPartitioner;
+import com.netflix.dyno.connectionpool.PrimitiveHashPartitioner;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Base class for the {@link PrimitiveHashPartitioner}s that hash the bytes of a key.
+ *
+ * Keys are converted to bytes without allocating: Strings are UTF-8 encoded and numbers are written big endian into a
+ * per thread scratch buffer, which is then handed to {@link #hashToLong(byte[], int, int)}. The {@link HashPartitioner}
+ * methods return the same hashes boxed.
+ */
+public abstract class AbstractHashPartitioner implements PrimitiveHashPartitioner {
+
+	private static final Charset charset = Charset.forName("UTF-8");
+
+	// keys that may need more bytes than this are encoded with String.getBytes() instead of being kept around per thread
+	private static final int MaxScratchBytes = 4096;
+
+	private static final ThreadLocal<byte[]> scratch = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[64];
+		}
+	};
+
+	@Override
+	public Long hash(int key) {
+		return hashToLong(key);
+	}
+
+	@Override
+	public Long hash(long key) {
+		return hashToLong(key);
+	}
+
+	@Override
+	public Long hash(String key) {
+		return hashToLong(key);
+	}
+
+	@Override
+	public Long hash(byte[] key) {
+		if (key == null) {
+			return 0L;
+		}
+		return hashToLong(key, 0, key.length);
+	}
+
+	@Override
+	public long hashToLong(int key) {
+		byte[] b = scratch(4);
+		b[0] = (byte) (key >>> 24);
+		b[1] = (byte) (key >>> 16);
+		b[2] = (byte) (key >>> 8);
+		b[3] = (byte) key;
+		return hashToLong(b, 0, 4);
+	}
+
+	@Override
+	public long hashToLong(long key) {
+		byte[] b = scratch(8);
+		for (int i = 7; i >= 0; i--) {
+			b[i] = (byte) key;
+			key >>>= 8;
+		}
+		return hashToLong(b, 0, 8);
+	}
+
+	@Override
+	public long hashToLong(CharSequence key) {
+		if (key == null) {
+			return 0L;
+		}
+
+		// a char never takes more than 3 bytes, a surrogate pair takes 4
+		int maxBytes = key.length() * 3;
+		if (maxBytes > MaxScratchBytes) {
+			byte[] b = key.toString().getBytes(charset);
+			return hashToLong(b, 0, b.length);
+		}
+
+		byte[] b = scratch(maxBytes);
+		int length = encodeUtf8(key, b);
+		return hashToLong(b, 0, length);
+	}
+
+	@Override
+	public HostToken getToken(Long keyHash) {
+		throw new RuntimeException("NotImplemented");
+	}
+
+	private static byte[] scratch(int minLength) {
+		byte[] b = scratch.get();
+		if (b.length < minLength) {
+			b = new byte[Math.max(minLength, b.length * 2)];
+			scratch.set(b);
+		}
+		return b;
+	}
+
+	/**
+	 * Encodes the key the same way as String.getBytes() with the UTF-8 charset, i.e. an unpaired surrogate is
+	 * replaced with '?'
+	 *
+	 * @param key
+	 * @param dest must be able to hold 3 bytes per char of the key
+	 * @return the number of bytes written
+	 */
+	static int encodeUtf8(CharSequence key, byte[] dest) {
+
+		int length = key.length();
+		int pos = 0;
+
+		for (int i = 0; i < length; i++) {
+			char c = key.charAt(i);
+
+			if (c < 0x80) {
+				dest[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				dest[pos++] = (byte) (0xC0 | (c >> 6));
+				dest[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, key.charAt(++i));
+					dest[pos++] = (byte) (0xF0 | (codePoint >> 18));
+					dest[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+					dest[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+					dest[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+				} else {
+					dest[pos++] = (byte) '?';
+				}
+			} else {
+				dest[pos++] = (byte) (0xE0 | (c >> 12));
+				dest[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				dest[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return pos;
+	}
+}
@@ -15,15 +15,13 @@
  ******************************************************************************/
 package com.netflix.dyno.connectionpool.impl.hash;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
 
 import com.netflix.dyno.connectionpool.HashPartitioner;
 import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.PrimitiveHashPartitioner;
 import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.impl.lb.HostToken;
 
@@ -35,15 +33,19 @@ import com.netflix.dyno.connectionpool.impl.lb.HostToken;
  * @author poberai
  *
  */
-public class BinarySearchTokenMapper implements HashPartitioner {
+public class BinarySearchTokenMapper implements PrimitiveHashPartitioner {
 
 	private final HashPartitioner partitioner; 
+	// the same partitioner if it can hash to a primitive long, otherwise null
+	private final PrimitiveHashPartitioner primitivePartitioner;
 	
-	private final AtomicReference<DynoBinarySearch<Long>> binarySearch = new AtomicReference<DynoBinarySearch<Long>>(null); 
+	// copy on write snapshot of the ring, replaced whenever a token is added or removed
+	private volatile TokenRing<HostToken> tokenRing = TokenRing.empty();
 	private final ConcurrentHashMap<Long, HostToken> tokenMap = new ConcurrentHashMap<Long, HostToken>(); 
 	
 	public BinarySearchTokenMapper(HashPartitioner p) {
 		this.partitioner = p;
+		this.primitivePartitioner = (p instanceof PrimitiveHashPartitioner) ? (PrimitiveHashPartitioner) p : null;
 	}
 	
 	@Override
@@ -61,36 +63,81 @@ public class BinarySearchTokenMapper implements HashPartitioner {
 		return partitioner.hash(key);
 	}
 
+	@Override
+	public Long hash(byte[] key) {
+		return partitioner.hash(key);
+	}
+
+	@Override
+	public long hashToLong(int key) {
+		return primitivePartitioner != null ? primitivePartitioner.hashToLong(key) : partitioner.hash(key);
+	}
+
+	@Override
+	public long hashToLong(long key) {
+		return primitivePartitioner != null ? primitivePartitioner.hashToLong(key) : partitioner.hash(key);
+	}
+
+	@Override
+	public long hashToLong(CharSequence key) {
+		if (primitivePartitioner != null) {
+			return primitivePartitioner.hashToLong(key);
+		}
+		return partitioner.hash(key != null ? key.toString() : null);
+	}
+
+	@Override
+	public long hashToLong(byte[] key, int offset, int length) {
+		if (primitivePartitioner != null) {
+			return primitivePartitioner.hashToLong(key, offset, length);
+		}
+		if (offset != 0 || length != key.length) {
+			key = Arrays.copyOfRange(key, offset, offset + length);
+		}
+		return partitioner.hash(key);
+	}
+
 	@Override
 	public HostToken getToken(Long keyHash) {
-		Long token = binarySearch.get().getTokenOwner(keyHash);
-		if (token == null) {
+		return getToken(keyHash.longValue());
+	}
+
+	public HostToken getToken(long keyHash) {
+		HostToken hostToken = tokenRing.getTokenOwner(keyHash);
+		if (hostToken == null) {
 			throw new NoAvailableHostsException("Token not found for key hash: " + keyHash);
 		}
-		return tokenMap.get(token);
+		return hostToken;
+	}
+
+	/**
+	 * @return the current ring. A ring never changes, so lookups against it all see the same topology
+	 */
+	public TokenRing<HostToken> getTokenRing() {
+		return tokenRing;
 	}
 
-	public void initSearchMecahnism(Collection<HostToken> hostTokens) {
+	public synchronized void initSearchMecahnism(Collection<HostToken> hostTokens) {
 
 		for (HostToken hostToken : hostTokens) {
 			tokenMap.put(hostToken.getToken(), hostToken);
 		}
-		initBinarySearch();
+		tokenRing = TokenRing.create(tokenMap);
 	}
 	
-	public void addHostToken(HostToken hostToken) {
+	public synchronized void addHostToken(HostToken hostToken) {
 
 		HostToken prevToken = tokenMap.putIfAbsent(hostToken.getToken(), hostToken);
 		if (prevToken == null) {
-			initBinarySearch();
+			tokenRing = tokenRing.withToken(hostToken.getToken(), hostToken);
 		}
 	}
 	
-	public void remoteHostToken(HostToken hostToken) {
+	public synchronized void remoteHostToken(HostToken hostToken) {
 
 		HostToken prevToken = tokenMap.remove(hostToken.getToken());
 		if (prevToken != null) {
-			initBinarySearch();
+			tokenRing = tokenRing.withoutToken(hostToken.getToken());
 		}
 	}
 	
@@ -110,17 +157,11 @@ public class BinarySearchTokenMapper implements HashPartitioner {
 		}
 	}
 
-	private void initBinarySearch() {
-		List<Long> tokens = new ArrayList<Long>(tokenMap.keySet());
-		Collections.sort(tokens);
-		binarySearch.set(new DynoBinarySearch<Long>(tokens));
-	}
-
 	public boolean isEmpty() {
 		return this.tokenMap.size() == 0;
 	}
 	
 	public String toString() {
-		return binarySearch.toString();
+		return tokenRing.toString();
 	}
 }
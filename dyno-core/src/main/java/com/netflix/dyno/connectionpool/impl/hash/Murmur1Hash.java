@@ -33,10 +33,56 @@ public class Murmur1Hash {
 	  }
 
 	  public static int hash(byte[] data, int length) {
-		  
+		  return hash(data, 0, length);
+	  }
+
+	  /**
+	   * Hashes bytes in part of an array with the same seed as {@link #hash(byte[], int)}, reading them
+	   * straight from the array instead of through a ByteBuffer.
+	   * @param data    The data to hash.
+	   * @param offset  Where to start munging.
+	   * @param length  How many bytes to process.
+	   * @return        The 32-bit hash of the data in question.
+	   */
+	  public static int hash(byte[] data, int offset, int length) {
+
 		  int seed = (0xdeadbeef * length);
-		  
-		  return hash(ByteBuffer.wrap(data, 0, length), seed);
+
+		  int m = 0x5bd1e995;
+		  int r = 24;
+
+		  int h = seed ^ length;
+
+		  int i = offset;
+		  int end4 = offset + (length & ~3);
+
+		  for (; i < end4; i += 4) {
+			  // little endian, like the ByteBuffer version
+			  int k = (data[i] & 0xff) | ((data[i + 1] & 0xff) << 8) | ((data[i + 2] & 0xff) << 16) | (data[i + 3] << 24);
+
+			  k *= m;
+			  k ^= k >>> r;
+			  k *= m;
+			  h *= m;
+			  h ^= k;
+		  }
+
+		  if ((length & 3) > 0) {
+			  int k = 0;
+			  switch (length & 3) {
+			  case 3: k |= (data[i + 2] & 0xff) << 16;
+			  case 2: k |= (data[i + 1] & 0xff) << 8;
+			  case 1: k |= (data[i] & 0xff);
+			  }
+			  h ^= k;
+			  h *= m;
+		  }
+
+		  h ^= h >>> 13;
+		  h *= m;
+		  h ^= h >>> 15;
+
+		  return h;
 	  }
 
 	  /**
@@ -33,6 +33,9 @@ package com.netflix.dyno.connectionpool.impl.hash;
  */
 public final class Murmur2Hash {
     
+    /** Seed used by the methods that do not take one */
+    public static final int DEFAULT_SEED = 0x9747b28c;
+
     // all methods static; private constructor. 
     private Murmur2Hash() {}
 
@@ -46,6 +49,19 @@ public final class Murmur2Hash {
      * @return 32 bit hash of the given array
      */
     public static int hash32(final byte[] data, int length, int seed) {
+        return hash32(data, 0, length, seed);
+    }
+
+    /** 
+     * Generates 32 bit hash from part of a byte array with the given seed.
+     * 
+     * @param data byte array to hash
+     * @param offset index of the first byte to hash
+     * @param length number of bytes to hash
+     * @param seed initial seed value
+     * @return 32 bit hash of the given bytes
+     */
+    public static int hash32(final byte[] data, int offset, int length, int seed) {
         // 'm' and 'r' are mixing constants generated offline.
         // They're not really 'magic', they just happen to work well.
         final int m = 0x5bd1e995;
@@ -56,7 +72,7 @@ public final class Murmur2Hash {
         int length4 = length/4;
 
         for (int i=0; i<length4; i++) {
-            final int i4 = i*4;
+            final int i4 = offset + i*4;
             int k = (data[i4+0]&0xff) +((data[i4+1]&0xff)<<8)
                     +((data[i4+2]&0xff)<<16) +((data[i4+3]&0xff)<<24);
             k *= m;
@@ -67,10 +83,11 @@ public final class Murmur2Hash {
         }
         
         // Handle the last few bytes of the input array
+        final int tail = offset + (length&~3);
         switch (length%4) {
-        case 3: h ^= (data[(length&~3) +2]&0xff) << 16;
-        case 2: h ^= (data[(length&~3) +1]&0xff) << 8;
-        case 1: h ^= (data[length&~3]&0xff);
+        case 3: h ^= (data[tail +2]&0xff) << 16;
+        case 2: h ^= (data[tail +1]&0xff) << 8;
+        case 1: h ^= (data[tail]&0xff);
                 h *= m;
         }
 
@@ -89,7 +106,7 @@ public final class Murmur2Hash {
      * @return 32 bit hash of the given array
      */
     public static int hash32(final byte[] data, int length) {
-        return hash32(data, length, 0x9747b28c); 
+        return hash32(data, length, DEFAULT_SEED); 
     }
 
     /** 
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.hash;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of the dynomite topology ring that maps a key hash to the owner of the token range it falls in.
+ *
+ * The tokens are kept in a sorted primitive long[] with the owners in a parallel array, so a lookup is a binary search
+ * over primitives that neither boxes the hash nor follows any pointers. Adding or removing a token returns a new ring
+ * and leaves this one untouched, so readers never need to synchronize with writers.
+ *
+ * The owner of a hash is the same as with {@link DynoBinarySearch}
+ *    1.  If a hash directly maps to a token on the ring, then the owner of that token is chosen.
+ *    2.  If a hash falls between two tokens A and B where A < B then the owner of B is chosen.
+ *    3.  A hash that goes past the last token on the ring wraps around to the owner of the first token.
+ *
+ * @param <V> the owner of a token, e.g. a HostToken
+ */
+public class TokenRing<V> {
+
+	private static final TokenRing<?> Empty = new TokenRing<Object>(new long[0], new Object[0]);
+
+	private final long[] tokens;
+	private final Object[] owners;
+
+	private TokenRing(long[] tokens, Object[] owners) {
+		this.tokens = tokens;
+		this.owners = owners;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <V> TokenRing<V> empty() {
+		return (TokenRing<V>) Empty;
+	}
+
+	/**
+	 * @param ownersByToken
+	 * @return a ring with the given tokens and their owners
+	 */
+	public static <V> TokenRing<V> create(Map<Long, V> ownersByToken) {
+
+		TreeMap<Long, V> sorted = new TreeMap<Long, V>(ownersByToken);
+		long[] tokens = new long[sorted.size()];
+		Object[] owners = new Object[sorted.size()];
+
+		int i = 0;
+		for (Map.Entry<Long, V> entry : sorted.entrySet()) {
+			tokens[i] = entry.getKey();
+			owners[i] = entry.getValue();
+			i++;
+		}
+		return new TokenRing<V>(tokens, owners);
+	}
+
+	/**
+	 * @param hash
+	 * @return the owner of the token range the hash falls in, or null if the ring is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public V getTokenOwner(long hash) {
+
+		final long[] t = tokens;
+		int length = t.length;
+		if (length == 0) {
+			return null;
+		}
+
+		// find the first token >= hash. The loop always runs log2(n) times and the only data dependent
+		// decision is which half to keep, which the JIT can turn into a conditional move.
+		int base = 0;
+		while (length > 1) {
+			int half = length >>> 1;
+			base = (t[base + half] < hash) ? base + half : base;
+			length -= half;
+		}
+		if (t[base] < hash) {
+			base++;
+		}
+
+		// past the last token, wrap around to the start of the ring
+		return (V) owners[base == t.length ? 0 : base];
+	}
+
+	/**
+	 * @param token
+	 * @param owner
+	 * @return a copy of this ring with the given token added, or its owner replaced if the token is already present
+	 */
+	public TokenRing<V> withToken(long token, V owner) {
+
+		int index = Arrays.binarySearch(tokens, token);
+		if (index >= 0) {
+			Object[] newOwners = owners.clone();
+			newOwners[index] = owner;
+			return new TokenRing<V>(tokens, newOwners);
+		}
+
+		int insertAt = -(index + 1);
+		long[] newTokens = new long[tokens.length + 1];
+		Object[] newOwners = new Object[owners.length + 1];
+
+		System.arraycopy(tokens, 0, newTokens, 0, insertAt);
+		System.arraycopy(owners, 0, newOwners, 0, insertAt);
+		newTokens[insertAt] = token;
+		newOwners[insertAt] = owner;
+		System.arraycopy(tokens, insertAt, newTokens, insertAt + 1, tokens.length - insertAt);
+		System.arraycopy(owners, insertAt, newOwners, insertAt + 1, owners.length - insertAt);
+
+		return new TokenRing<V>(newTokens, newOwners);
+	}
+
+	/**
+	 * @param token
+	 * @return a copy of this ring without the given token, or this ring if the token is not present
+	 */
+	public TokenRing<V> withoutToken(long token) {
+
+		int index = Arrays.binarySearch(tokens, token);
+		if (index < 0) {
+			return this;
+		}
+
+		long[] newTokens = new long[tokens.length - 1];
+		Object[] newOwners = new Object[owners.length - 1];
+
+		System.arraycopy(tokens, 0, newTokens, 0, index);
+		System.arraycopy(owners, 0, newOwners, 0, index);
+		System.arraycopy(tokens, index + 1, newTokens, index, tokens.length - index - 1);
+		System.arraycopy(owners, index + 1, newOwners, index, owners.length - index - 1);
+
+		return new TokenRing<V>(newTokens, newOwners);
+	}
+
+	public int size() {
+		return tokens.length;
+	}
+
+	public boolean isEmpty() {
+		return tokens.length == 0;
+	}
+
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder("[TokenRing:\n");
+		for (int i = 0; i < tokens.length; i++) {
+			sb.append("(").append(i == 0 ? "null" : String.valueOf(tokens[i - 1])).append(",").append(tokens[i])
+					.append("] -> ").append(owners[i]).append("\n");
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+}
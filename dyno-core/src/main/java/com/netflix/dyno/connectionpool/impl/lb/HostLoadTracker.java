@@ -0,0 +1,169 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.lb;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.dyno.connectionpool.Host;
+
+/**
+ * Tracks the load this client puts on each host: the number of operations in flight on it, and exponentially
+ * weighted moving averages (EWMA) of their latency and of the time spent waiting to borrow a connection to it.
+ * Selection strategies use it to send an operation to the least loaded of the hosts that could serve it.
+ *
+ * The averages of a host that is not being used decay towards the lowest sample seen for it, so a host that was avoided
+ * because it was slow gets an operation again after a while, which refreshes the estimate, but an idle host never looks
+ * faster than it has ever been.
+ */
+public class HostLoadTracker {
+
+	// weight of a new sample in the moving average
+	private static final double Alpha = 0.25;
+	// the average of an idle host halves every second
+	private static final double IdleHalfLifeNanos = TimeUnit.SECONDS.toNanos(1);
+
+	private final ConcurrentHashMap<Host, HostLoad> loads = new ConcurrentHashMap<Host, HostLoad>();
+
+	public void operationStarted(Host host) {
+		getLoad(host).inFlight.incrementAndGet();
+	}
+
+	public void operationFinished(Host host, long latency, TimeUnit unit) {
+		HostLoad load = getLoad(host);
+		load.inFlight.decrementAndGet();
+		load.latency.addSample(unit.toNanos(latency), System.nanoTime());
+	}
+
+	/**
+	 * Records the time spent borrowing a connection to the host, whether or not one was borrowed
+	 */
+	public void borrowFinished(Host host, long wait, TimeUnit unit) {
+		getLoad(host).borrowWait.addSample(unit.toNanos(wait), System.nanoTime());
+	}
+
+	/**
+	 * @param host
+	 * @return the number of operations in flight on the host
+	 */
+	public int getInFlight(Host host) {
+		HostLoad load = loads.get(host);
+		return load != null ? load.inFlight.get() : 0;
+	}
+
+	/**
+	 * @param host
+	 * @return true if an operation on the host has finished, so that it has a latency estimate
+	 */
+	public boolean hasLatency(Host host) {
+		HostLoad load = loads.get(host);
+		return load != null && load.latency.hasSamples();
+	}
+
+	/**
+	 * @param host
+	 * @return the moving average of the latency of the host in nanos, or 0 if it has not been used
+	 */
+	public double getLatency(Host host) {
+		HostLoad load = loads.get(host);
+		return load != null ? load.latency.get(System.nanoTime()) : 0;
+	}
+
+	/**
+	 * @param host
+	 * @return the moving average of the time spent borrowing a connection to the host in nanos, or 0 if it has not
+	 *         been used
+	 */
+	public double getBorrowWait(Host host) {
+		HostLoad load = loads.get(host);
+		return load != null ? load.borrowWait.get(System.nanoTime()) : 0;
+	}
+
+	/**
+	 * Scores a host the way C3 ranks replicas: the latency estimate grows with the cube of the operations queued on
+	 * the host, so a host that starts to queue up is avoided well before its latency shows it.
+	 *
+	 * @param host
+	 * @param unmeasuredLatency the latency in nanos to score the host with if it has no estimate yet, e.g. the one of
+	 *        the host it is compared with
+	 * @return the score of the host, lower is better
+	 */
+	public double getScore(Host host, double unmeasuredLatency) {
+		HostLoad load = loads.get(host);
+		if (load == null) {
+			return unmeasuredLatency;
+		}
+		double latency = load.latency.hasSamples() ? load.latency.get(System.nanoTime()) : unmeasuredLatency;
+		double queue = 1 + load.inFlight.get();
+		return latency * queue * queue * queue;
+	}
+
+	public void removeHost(Host host) {
+		loads.remove(host);
+	}
+
+	private HostLoad getLoad(Host host) {
+		HostLoad load = loads.get(host);
+		if (load == null) {
+			HostLoad newLoad = new HostLoad();
+			load = loads.putIfAbsent(host, newLoad);
+			if (load == null) {
+				load = newLoad;
+			}
+		}
+		return load;
+	}
+
+	private static class HostLoad {
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final MovingAverage latency = new MovingAverage();
+		private final MovingAverage borrowWait = new MovingAverage();
+	}
+
+	private static class MovingAverage {
+
+		// Concurrent samples may race and one of them be lost, which does not matter for an estimate
+		private volatile double average = 0;
+		private volatile double floor = Double.MAX_VALUE;
+		private volatile long lastSampleTime = 0;
+
+		private boolean hasSamples() {
+			return floor != Double.MAX_VALUE;
+		}
+
+		private double get(long now) {
+			double current = average;
+			if (!hasSamples()) {
+				return 0;
+			}
+			long idle = now - lastSampleTime;
+			if (idle <= 0) {
+				return current;
+			}
+			double min = Math.min(floor, current);
+			return min + (current - min) * Math.pow(0.5, idle / IdleHalfLifeNanos);
+		}
+
+		private void addSample(long sample, long now) {
+			double current = get(now);
+			average = hasSamples() ? current + Alpha * (sample - current) : sample;
+			floor = Math.min(floor, sample);
+			lastSampleTime = now;
+		}
+	}
+}
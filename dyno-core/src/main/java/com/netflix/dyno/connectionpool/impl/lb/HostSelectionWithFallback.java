@@ -42,12 +42,16 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -62,6 +66,10 @@ import java.util.concurrent.atomic.AtomicReference;
  * outage in the local rack.
  * <p>
  * Note that this class does not prefer any one remote HostSelectionStrategy over another.
+ * <p>
+ * With latency aware selection the local rack is no longer always preferred. An operation goes to whichever of the
+ * local replica and the replica in a random remote rack has the better {@link HostLoadTracker} score, with a bias
+ * towards the local one.
  *  
  * @author poberai
  * @author jcacciatore
@@ -99,6 +107,12 @@ public class HostSelectionWithFallback<CL> {
 
 	private final HostSelectionStrategyFactory<CL> selectorFactory;
 
+	private final HostLoadTracker hostLoads = new HostLoadTracker();
+
+	// names of the operations that may go to the least loaded replica, parsed from the config when it changes
+	private volatile Set<String> latencyAwareOps = Collections.emptySet();
+	private volatile String latencyAwareOpsConfig;
+
 	public HostSelectionWithFallback(ConnectionPoolConfiguration config, ConnectionPoolMonitor monitor) {
 
 		cpMonitor = monitor;
@@ -129,6 +143,9 @@ public class HostSelectionWithFallback<CL> {
             // By default zone affinity is enabled; if the local rack is not known at startup it is disabled
             if (cpConfig.localZoneAffinity()) {
                 hostPool = getHostPoolForOperationOrTokenInLocalZone(op, token);
+                if (hostPool != null && op != null && isLatencyAware(op)) {
+                    hostPool = getLeastLoadedReplica(op, hostPool);
+                }
             } else {
                 hostPool = getFallbackHostPool(op, token);
             }
@@ -138,7 +155,7 @@ public class HostSelectionWithFallback<CL> {
             try {
                 // Note that if a PoolExhaustedException is thrown it is caught by the calling
                 // ConnectionPoolImpl#executeXXX() method
-                return hostPool.borrowConnection(duration, unit);
+                return borrowConnection(hostPool, duration, unit);
             } catch (PoolTimeoutException pte) {
                 lastEx = pte;
                 cpMonitor.incOperationFailure(null, pte);
@@ -153,7 +170,7 @@ public class HostSelectionWithFallback<CL> {
             hostPool = getFallbackHostPool(op, token);
 
             if (hostPool != null) {
-                return hostPool.borrowConnection(duration, unit);
+                return borrowConnection(hostPool, duration, unit);
             }
         }
 
@@ -164,6 +181,17 @@ public class HostSelectionWithFallback<CL> {
         }
     }
 
+    /**
+     * Borrows a connection to the owner of the operation's token in a remote rack, e.g. for a hedged read that the
+     * local rack has not answered in time
+     *
+     * @throws NoAvailableHostsException if there is no active pool for the token in any remote rack
+     */
+    public Connection<CL> getConnectionInRemoteRack(BaseOperation<CL, ?> op, int duration, TimeUnit unit)
+            throws NoAvailableHostsException, PoolExhaustedException {
+        return borrowConnection(getFallbackHostPool(op, null), duration, unit);
+    }
+
     private HostConnectionPool<CL> getHostPoolForOperationOrTokenInLocalZone(BaseOperation<CL, ?> op, Long token) {
         HostConnectionPool<CL> hostPool;
         try {
@@ -181,6 +209,77 @@ public class HostSelectionWithFallback<CL> {
         return null;
     }
 
+    /**
+     * Power of two choices between the local replica and the replica in a random remote rack
+     *
+     * @return the remote replica if its score, raised by the local rack bias, is still better than the local one's
+     */
+    private HostConnectionPool<CL> getLeastLoadedReplica(BaseOperation<CL, ?> op, HostConnectionPool<CL> localPool) {
+        List<String> remotes = remoteDCNames.getEntireList();
+        if (remotes == null || remotes.isEmpty()) {
+            return localPool;
+        }
+
+        HostSelectionStrategy<CL> remoteSelector = remoteDCSelectors.get(remotes.get(ThreadLocalRandom.current().nextInt(remotes.size())));
+        HostConnectionPool<CL> remotePool;
+        try {
+            remotePool = (remoteSelector != null) ? remoteSelector.getPoolForOperation(op) : null;
+        } catch (NoAvailableHostsException e) {
+            return localPool;
+        }
+        if (!isConnectionPoolActive(remotePool)) {
+            return localPool;
+        }
+
+        // a remote replica that has not been used yet is scored with the local latency, so that it only takes traffic
+        // once the local replica queues up
+        double localLatency = hostLoads.getLatency(localPool.getHost());
+        double localScore = hostLoads.getScore(localPool.getHost(), localLatency);
+        double remoteScore = hostLoads.getScore(remotePool.getHost(), localLatency) * (100 + cpConfig.getLatencyAwareLocalRackBiasPercent()) / 100;
+        return (remoteScore < localScore) ? remotePool : localPool;
+    }
+
+    private boolean isLatencyAware(BaseOperation<CL, ?> op) {
+
+        if (!cpConfig.isLatencyAwareSelectionEnabled()) {
+            return false;
+        }
+
+        String opsConfig = cpConfig.getLatencyAwareOps();
+        if (opsConfig != null && !opsConfig.equals(latencyAwareOpsConfig)) {
+            Set<String> ops = new HashSet<String>();
+            for (String opName : opsConfig.split(",")) {
+                if (!opName.trim().isEmpty()) {
+                    ops.add(opName.trim().toUpperCase());
+                }
+            }
+            latencyAwareOps = ops;
+            latencyAwareOpsConfig = opsConfig;
+        }
+        return latencyAwareOps.contains(op.getName());
+    }
+
+    /**
+     * @return the tracker that operations report their latency to, or null if nothing uses it
+     */
+    public HostLoadTracker getHostLoadTracker() {
+        return (cpConfig.isLatencyAwareSelectionEnabled() || cpConfig.getLoadBalancingStrategy() == LoadBalancingStrategy.LeastOutstanding) ? hostLoads : null;
+    }
+
+    private Connection<CL> borrowConnection(HostConnectionPool<CL> hostPool, int duration, TimeUnit unit) {
+        HostLoadTracker hostLoads = getHostLoadTracker();
+        if (hostLoads == null) {
+            return hostPool.borrowConnection(duration, unit);
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            return hostPool.borrowConnection(duration, unit);
+        } finally {
+            hostLoads.borrowFinished(hostPool.getHost(), System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
     private boolean attemptFallback() {
         return cpConfig.getMaxFailoverCount() > 0 &&
                 (cpConfig.localZoneAffinity() && remoteDCNames.getEntireList().size() > 0) ||
@@ -225,6 +324,96 @@ public class HostSelectionWithFallback<CL> {
 		}
 	}
 
+	/**
+	 * Routes a batch of operations in one pass, see {@link HostSelectionStrategy#getPoolsForOperationBatch(Collection)}.
+	 * The groups whose local pool is not active are routed again, together, with the selector of a remote rack.
+	 *
+	 * @param ops
+	 * @return the operations grouped by the pool that serves them
+	 * @throws NoAvailableHostsException if some operations could not be routed to an active pool in any rack
+	 */
+	public Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops)
+			throws NoAvailableHostsException {
+
+		Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> poolOps = new LinkedHashMap<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>>();
+		List<BaseOperation<CL, ?>> fallbackOps = new ArrayList<BaseOperation<CL, ?>>();
+
+		if (cpConfig.localZoneAffinity() && !localSelector.isEmpty()) {
+			try {
+				fallbackOps = addActivePools(poolOps, localSelector.getPoolsForOperationBatch(ops));
+			} catch (NoAvailableHostsException e) {
+				cpMonitor.incOperationFailure(null, e);
+				fallbackOps.addAll(ops);
+			}
+		} else {
+			fallbackOps.addAll(ops);
+		}
+
+		if (!fallbackOps.isEmpty()) {
+			addFallbackPools(poolOps, fallbackOps);
+		}
+		return poolOps;
+	}
+
+	private void addFallbackPools(Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> poolOps, List<BaseOperation<CL, ?>> ops) {
+		int numRemotes = remoteDCNames.getEntireList().size();
+		if (numRemotes == 0) {
+			throw new NoAvailableHostsException("Could not find any remote Racks for fallback");
+		}
+
+		int numTries = Math.min(numRemotes, cpConfig.getMaxFailoverCount());
+
+		DynoException lastEx = null;
+
+		while (numTries > 0 && !ops.isEmpty()) {
+
+			numTries--;
+			String remoteDC = remoteDCNames.getNextElement();
+			HostSelectionStrategy<CL> remoteDCSelector = remoteDCSelectors.get(remoteDC);
+
+			try {
+				ops = addActivePools(poolOps, remoteDCSelector.getPoolsForOperationBatch(ops));
+			} catch (NoAvailableHostsException e) {
+				cpMonitor.incOperationFailure(null, e);
+				lastEx = e;
+			}
+		}
+
+		if (ops.isEmpty()) {
+			return;
+		}
+		if (lastEx != null) {
+			throw lastEx;
+		} else {
+			throw new NoAvailableHostsException("Local rack host offline and could not find any remote hosts for fallback connection");
+		}
+	}
+
+	/**
+	 * Adds the groups whose pool is active to the pool operations
+	 *
+	 * @return the operations of the groups whose pool is not active
+	 */
+	private List<BaseOperation<CL, ?>> addActivePools(Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> poolOps,
+													  Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> groups) {
+
+		List<BaseOperation<CL, ?>> inactiveOps = new ArrayList<BaseOperation<CL, ?>>();
+		for (Map.Entry<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> group : groups.entrySet()) {
+			if (!isConnectionPoolActive(group.getKey())) {
+				inactiveOps.addAll(group.getValue());
+				continue;
+			}
+
+			List<BaseOperation<CL, ?>> ops = poolOps.get(group.getKey());
+			if (ops == null) {
+				poolOps.put(group.getKey(), group.getValue());
+			} else {
+				ops.addAll(group.getValue());
+			}
+		}
+		return inactiveOps;
+	}
+
 	public Collection<Connection<CL>> getConnectionsToRing(int duration, TimeUnit unit) throws NoAvailableHostsException, PoolExhaustedException {
 		
 		final Collection<HostToken> localZoneTokens = CollectionUtils.filter(hostTokens.values(), new Predicate<HostToken>() {
@@ -272,6 +461,30 @@ public class HostSelectionWithFallback<CL> {
 	}
 
 
+	/**
+	 * Finds a pool for every token of the local rack, the same way {@link #getConnectionsToRing(int, TimeUnit)} does,
+	 * but without borrowing any connections
+	 *
+	 * @return one pool per token, in a remote rack for the tokens whose local pool is not active
+	 * @throws NoAvailableHostsException if no active pool could be found for one of the tokens
+	 */
+	public List<HostConnectionPool<CL>> getPoolsToRing() throws NoAvailableHostsException {
+
+		Set<Long> tokens = new LinkedHashSet<Long>();
+		for (HostToken hostToken : hostTokens.values()) {
+			if (localRack == null || localRack.equalsIgnoreCase(hostToken.getHost().getRack())) {
+				tokens.add(hostToken.getToken());
+			}
+		}
+
+		List<HostConnectionPool<CL>> pools = new ArrayList<HostConnectionPool<CL>>(tokens.size());
+		for (Long token : tokens) {
+			HostConnectionPool<CL> hostPool = cpConfig.localZoneAffinity() ? getHostPoolForOperationOrTokenInLocalZone(null, token) : null;
+			pools.add(hostPool != null ? hostPool : getFallbackHostPool(null, token));
+		}
+		return pools;
+	}
+
 	private HostSelectionStrategy<CL> findSelector(Host host) {
 		String dc = host.getRack();
 		if (localRack == null) {
@@ -413,6 +626,7 @@ public class HostSelectionWithFallback<CL> {
 	public void removeHost(Host host, HostConnectionPool<CL> hostPool) {
 
 		HostToken hostToken = hostTokens.remove(host);
+		hostLoads.removeHost(host);
 		if (hostToken != null) {
 			HostSelectionStrategy<CL> selector = findSelector(host);
 			if (selector != null) {
@@ -435,6 +649,8 @@ public class HostSelectionWithFallback<CL> {
 				return new RoundRobinSelection<CL>();
 			case TokenAware:
 				return new TokenAwareSelection<CL>();
+			case LeastOutstanding:
+				return new LeastOutstandingSelection<CL>(hostLoads);
 			default :
 				throw new RuntimeException("LoadBalancing strategy not supported! " + cpConfig.getLoadBalancingStrategy().name());
 			}
@@ -474,4 +690,8 @@ public class HostSelectionWithFallback<CL> {
     public Long getTokenForKey(String key) {
         return localSelector.getTokenForKey(key).getToken();
     }
+
+    public Long getTokenForKey(byte[] key) {
+        return localSelector.getTokenForKey(key).getToken();
+    }
 }
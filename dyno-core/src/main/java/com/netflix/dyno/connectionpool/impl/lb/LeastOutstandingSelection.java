@@ -0,0 +1,185 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.lb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.netflix.dyno.connectionpool.BaseOperation;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
+import com.netflix.dyno.connectionpool.impl.HostSelectionStrategy;
+
+/**
+ * Impl of {@link HostSelectionStrategy} that, like {@link RoundRobinSelection}, lets any host serve any operation, but
+ * sends each operation to the less loaded of two hosts picked at random ("power of two choices"). A host is less loaded
+ * if it has fewer operations in flight or, when that is the same, a shorter recent wait to borrow a connection,
+ * according to the {@link HostLoadTracker}. A host whose pool is saturated thus stops getting its full share of the
+ * operations, while the selection stays O(1) and lock free.
+ *
+ * @param <CL>
+ */
+public class LeastOutstandingSelection<CL> implements HostSelectionStrategy<CL> {
+
+	private final HostLoadTracker hostLoads;
+
+	private final ConcurrentHashMap<Long, HostConnectionPool<CL>> tokenPools = new ConcurrentHashMap<Long, HostConnectionPool<CL>>();
+
+	// Immutable snapshot of the pools to choose from, replaced whenever a host is added or removed
+	private volatile List<HostConnectionPool<CL>> pools = Collections.emptyList();
+
+	public LeastOutstandingSelection(HostLoadTracker hostLoads) {
+		this.hostLoads = hostLoads;
+	}
+
+	@Override
+	public HostConnectionPool<CL> getPoolForOperation(BaseOperation<CL, ?> op) throws NoAvailableHostsException {
+
+		List<HostConnectionPool<CL>> pools = this.pools;
+		int size = pools.size();
+		if (size == 0) {
+			throw new NoAvailableHostsException("No hosts to select from");
+		}
+		if (size == 1) {
+			return pools.get(0);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+
+		HostConnectionPool<CL> pool = getLessLoaded(pools.get(first), pools.get(second));
+		if (isActive(pool)) {
+			return pool;
+		}
+
+		// Neither of the two is active, look for any host that is. If there is none then return the inactive pool
+		// anyways, and HostSelectionWithFallback can choose a fallback pool from another rack
+		for (int i = 1; i < size; i++) {
+			HostConnectionPool<CL> next = pools.get((first + i) % size);
+			if (isActive(next)) {
+				return next;
+			}
+		}
+		return pool;
+	}
+
+	private HostConnectionPool<CL> getLessLoaded(HostConnectionPool<CL> a, HostConnectionPool<CL> b) {
+
+		boolean aActive = isActive(a);
+		if (aActive != isActive(b)) {
+			return aActive ? a : b;
+		}
+
+		int aInFlight = hostLoads.getInFlight(a.getHost());
+		int bInFlight = hostLoads.getInFlight(b.getHost());
+		if (aInFlight != bInFlight) {
+			return (aInFlight < bInFlight) ? a : b;
+		}
+		return (hostLoads.getBorrowWait(b.getHost()) < hostLoads.getBorrowWait(a.getHost())) ? b : a;
+	}
+
+	private boolean isActive(HostConnectionPool<CL> pool) {
+		return pool.isActive() && pool.getHost().isUp();
+	}
+
+	/**
+	 * Any host can serve any key, so the whole batch goes to the one host that is selected
+	 */
+	@Override
+	public Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops) throws NoAvailableHostsException {
+		Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> map = new HashMap<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>>();
+		if (!ops.isEmpty()) {
+			map.put(getPoolForOperation(ops.iterator().next()), new ArrayList<BaseOperation<CL, ?>>(ops));
+		}
+		return map;
+	}
+
+	@Override
+	public List<HostConnectionPool<CL>> getOrderedHostPools() {
+		return new ArrayList<HostConnectionPool<CL>>(tokenPools.values());
+	}
+
+	@Override
+	public HostConnectionPool<CL> getPoolForToken(Long token) {
+		return tokenPools.get(token);
+	}
+
+	@Override
+	public List<HostConnectionPool<CL>> getPoolsForTokens(Long start, Long end) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public HostToken getTokenForKey(String key) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("Not implemented for Least Outstanding load balancing strategy");
+	}
+
+	@Override
+	public HostToken getTokenForKey(byte[] key) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("Not implemented for Least Outstanding load balancing strategy");
+	}
+
+	@Override
+	public synchronized void initWithHosts(Map<HostToken, HostConnectionPool<CL>> hPools) {
+
+		for (HostToken token : hPools.keySet()) {
+			tokenPools.put(token.getToken(), hPools.get(token));
+		}
+		pools = Collections.unmodifiableList(new ArrayList<HostConnectionPool<CL>>(tokenPools.values()));
+	}
+
+	@Override
+	public synchronized boolean addHostPool(HostToken host, HostConnectionPool<CL> hostPool) {
+
+		HostConnectionPool<CL> prevPool = tokenPools.put(host.getToken(), hostPool);
+		pools = Collections.unmodifiableList(new ArrayList<HostConnectionPool<CL>>(tokenPools.values()));
+		return prevPool == null;
+	}
+
+	@Override
+	public synchronized boolean removeHostPool(HostToken host) {
+
+		HostConnectionPool<CL> prevPool = tokenPools.remove(host.getToken());
+		if (prevPool != null) {
+			pools = Collections.unmodifiableList(new ArrayList<HostConnectionPool<CL>>(tokenPools.values()));
+		}
+		return prevPool != null;
+	}
+
+	@Override
+	public boolean isTokenAware() {
+		return false;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return tokenPools.isEmpty();
+	}
+
+	public String toString() {
+		return "LeastOutstandingSelector: pools: " + pools;
+	}
+}
@@ -66,11 +66,14 @@ public class RoundRobinSelection<CL> implements HostSelectionStrategy<CL> {
 		return lastPool; 
 	}
 
+	/**
+	 * Any host can serve any key, so the whole batch goes to the next host in the round robin
+	 */
 	@Override
-	public Map<HostConnectionPool<CL>, BaseOperation<CL, ?>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops) throws NoAvailableHostsException {
-		Map<HostConnectionPool<CL>, BaseOperation<CL, ?>> map = new HashMap<HostConnectionPool<CL>, BaseOperation<CL, ?>>();
-		for (BaseOperation<CL, ?> op : ops) {
-			map.put(getNextConnectionPool(), op);
+	public Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops) throws NoAvailableHostsException {
+		Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> map = new HashMap<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>>();
+		if (!ops.isEmpty()) {
+			map.put(getPoolForOperation(ops.iterator().next()), new ArrayList<BaseOperation<CL, ?>>(ops));
 		}
 		return map;
 	}
@@ -98,6 +101,11 @@ public class RoundRobinSelection<CL> implements HostSelectionStrategy<CL> {
         throw new UnsupportedOperationException("Not implemented for Round Robin load balancing strategy");
     }
 
+    @Override
+    public HostToken getTokenForKey(byte[] key) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Not implemented for Round Robin load balancing strategy");
+    }
+
     private HostConnectionPool<CL> getNextConnectionPool() throws NoAvailableHostsException {
 
 		HostToken hostToken = circularList.getNextElement();
@@ -16,7 +16,9 @@
 package com.netflix.dyno.connectionpool.impl.lb;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -28,6 +30,7 @@ import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.impl.HostSelectionStrategy;
 import com.netflix.dyno.connectionpool.impl.hash.BinarySearchTokenMapper;
 import com.netflix.dyno.connectionpool.impl.hash.Murmur1HashPartitioner;
+import com.netflix.dyno.connectionpool.impl.hash.TokenRing;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils.Transform;
 
@@ -69,8 +72,8 @@ public class TokenAwareSelection<CL> implements HostSelectionStrategy<CL> {
 	@Override
 	public HostConnectionPool<CL> getPoolForOperation(BaseOperation<CL, ?> op) throws NoAvailableHostsException {
 		
-		String key = op.getKey();
-		HostToken hToken = this.getTokenForKey(key);
+		byte[] binaryKey = op.getBinaryKey();
+		HostToken hToken = (binaryKey != null) ? this.getTokenForKey(binaryKey) : this.getTokenForKey(op.getKey());
 		
 		HostConnectionPool<CL> hostPool = null;
 		if (hToken != null) {
@@ -78,16 +81,54 @@ public class TokenAwareSelection<CL> implements HostSelectionStrategy<CL> {
 		}
 		
 		if (hostPool == null) {
+			String key = (binaryKey != null) ? Arrays.toString(binaryKey) : op.getKey();
+			Long hash = (binaryKey != null) ? tokenMapper.hash(binaryKey) : tokenMapper.hash(op.getKey());
 			throw new NoAvailableHostsException("Could not find host connection pool for key: " + key + ", hash: " +
-                    tokenMapper.hash(key));
+                    hash);
 		}
 		
 		return hostPool;
 	}
 
 	@Override
-	public Map<HostConnectionPool<CL>,BaseOperation<CL,?>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops) throws NoAvailableHostsException {
-		throw new RuntimeException("Not Implemented");
+	public Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> getPoolsForOperationBatch(Collection<BaseOperation<CL, ?>> ops) throws NoAvailableHostsException {
+
+		// every key is resolved against the same ring, and the pool of each token owner is looked up only once
+		TokenRing<HostToken> ring = tokenMapper.getTokenRing();
+		Map<HostToken, List<BaseOperation<CL, ?>>> opsByOwner = new LinkedHashMap<HostToken, List<BaseOperation<CL, ?>>>();
+
+		for (BaseOperation<CL, ?> op : ops) {
+			byte[] binaryKey = op.getBinaryKey();
+			long hash = (binaryKey != null) ? tokenMapper.hashToLong(binaryKey, 0, binaryKey.length) : tokenMapper.hashToLong(op.getKey());
+
+			HostToken owner = ring.getTokenOwner(hash);
+			if (owner == null) {
+				throw new NoAvailableHostsException("Token not found for key hash: " + hash);
+			}
+
+			List<BaseOperation<CL, ?>> ownerOps = opsByOwner.get(owner);
+			if (ownerOps == null) {
+				ownerOps = new ArrayList<BaseOperation<CL, ?>>();
+				opsByOwner.put(owner, ownerOps);
+			}
+			ownerOps.add(op);
+		}
+
+		Map<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>> poolOps = new LinkedHashMap<HostConnectionPool<CL>, List<BaseOperation<CL, ?>>>();
+		for (Map.Entry<HostToken, List<BaseOperation<CL, ?>>> entry : opsByOwner.entrySet()) {
+			HostConnectionPool<CL> hostPool = tokenPools.get(entry.getKey().getToken());
+			if (hostPool == null) {
+				throw new NoAvailableHostsException("Could not find host connection pool for token: " + entry.getKey());
+			}
+
+			List<BaseOperation<CL, ?>> ownerOps = poolOps.get(hostPool);
+			if (ownerOps == null) {
+				poolOps.put(hostPool, entry.getValue());
+			} else {
+				ownerOps.addAll(entry.getValue());
+			}
+		}
+		return poolOps;
 	}
 	
 	@Override
@@ -106,7 +147,13 @@ public class TokenAwareSelection<CL> implements HostSelectionStrategy<CL> {
 
     @Override
     public HostToken getTokenForKey(String key) throws UnsupportedOperationException {
-        Long keyHash = tokenMapper.hash(key);
+        long keyHash = tokenMapper.hashToLong(key);
+        return tokenMapper.getToken(keyHash);
+    }
+
+    @Override
+    public HostToken getTokenForKey(byte[] key) throws UnsupportedOperationException {
+        long keyHash = tokenMapper.hashToLong(key, 0, key.length);
         return tokenMapper.getToken(keyHash);
     }
 
@@ -149,6 +196,11 @@ public class TokenAwareSelection<CL> implements HostSelectionStrategy<CL> {
 		return keyHash;
 	}
 
+	public Long getKeyHash(byte[] key) {
+		Long keyHash = tokenMapper.hash(key);
+		return keyHash;
+	}
+
 	
 	public String toString() {
 		return "TokenAwareSelection: " + tokenMapper.toString();
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.utils;
+
+/**
+ * Approximate access frequency of keys, used by {@link NearCache} to decide whether a new entry is worth keeping
+ * at the expense of the entry it would evict.
+ *
+ * This is a count-min sketch with 4 bit counters, 16 of which are packed into each long. Every key maps to one
+ * counter in each of 4 rows and its frequency is the smallest of them. Once the number of recorded accesses reaches
+ * 10 times the capacity all counters are halved, so that keys that used to be popular eventually age out.
+ *
+ * Not thread safe, callers must synchronize.
+ */
+class FrequencySketch {
+
+	private static final long[] Seeds = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+	private static final long ResetMask = 0x7777777777777777L;
+
+	private final long[] table;
+	private final int tableMask;
+	private final int sampleSize;
+	private int size;
+
+	/**
+	 * @param capacity the number of keys whose frequency should be told apart, rounded up to a power of 2
+	 */
+	FrequencySketch(int capacity) {
+		int length = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+		this.table = new long[length];
+		this.tableMask = length - 1;
+		this.sampleSize = 10 * length;
+	}
+
+	/**
+	 * @param hashCode
+	 * @return the estimated number of times the key was recorded, at most 15
+	 */
+	int frequency(int hashCode) {
+		int hash = spread(hashCode);
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Records an access of the key
+	 * @param hashCode
+	 */
+	void increment(int hashCode) {
+		int hash = spread(hashCode);
+		int start = (hash & 3) << 2;
+
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+
+		if (added && ++size == sampleSize) {
+			reset();
+		}
+	}
+
+	private boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		if ((table[index] & mask) != mask) {
+			table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & ResetMask;
+		}
+		size = size / 2;
+	}
+
+	private int indexOf(int hash, int row) {
+		long h = (hash + Seeds[row]) * Seeds[row];
+		h += h >>> 32;
+		return ((int) h) & tableMask;
+	}
+
+	private static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+}
@@ -0,0 +1,477 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-process cache with per entry expiration, used to serve hot keys without a round trip to dynomite.
+ *
+ * The cache is bounded both by the number of entries and by their total weight, e.g. their size in bytes.
+ * Entries are evicted with the W-TinyLFU policy:
+ * <ul>
+ *     <li>New entries go into a small LRU window that holds about 1% of the cache</li>
+ *     <li>The rest of the cache is a segmented LRU, split into a probation and a protected segment. Entries that
+ *     fall out of the window are put on probation, and move to the protected segment when they are read again.</li>
+ *     <li>When the cache is full, the entry that most recently went on probation competes with the least recently
+ *     used entry on probation. Whichever of them was accessed less often according to a {@link FrequencySketch}
+ *     is evicted, so that a burst of keys that are read once does not flush the keys that are read all the time.</li>
+ * </ul>
+ *
+ * Lookups do not block. Updating the policy after a read needs a lock, and is skipped when another thread holds it,
+ * since losing some of the access history only makes the policy slightly less accurate. Writes always take the lock.
+ *
+ * Expired entries are dropped when they are read, or when they are evicted to make room for new ones.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class NearCache<K, V> {
+
+	/**
+	 * Computes the weight of an entry, which counts against {@link NearCache#getMaxWeight()}
+	 */
+	public interface Weigher<K, V> {
+		int weigh(K key, V value);
+	}
+
+	/**
+	 * Notified when an entry is evicted from the cache. Invalidated entries are not reported.
+	 */
+	public interface EvictionListener<K> {
+		/**
+		 * @param key
+		 * @param expired true if the entry had expired, false if it was evicted to make room for other entries
+		 */
+		void onEviction(K key, boolean expired);
+	}
+
+	interface Ticker {
+		long nanoTime();
+	}
+
+	private static final Ticker SystemTicker = new Ticker() {
+		@Override
+		public long nanoTime() {
+			return System.nanoTime();
+		}
+	};
+
+	private static final int Window = 0;
+	private static final int Probation = 1;
+	private static final int Protected = 2;
+	private static final int Removed = 3;
+
+	private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<K, Node<K, V>>();
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final int maxEntries;
+	private final long maxWeight;
+	private final int windowMaxEntries;
+	private final long windowMaxWeight;
+	private final int protectedMaxEntries;
+	private final long protectedMaxWeight;
+
+	private final Weigher<K, V> weigher;
+	private final EvictionListener<K> listener;
+	private final Ticker ticker;
+
+	// guarded by lock
+	private final FrequencySketch sketch;
+	private final AccessQueue<K, V> window = new AccessQueue<K, V>();
+	private final AccessQueue<K, V> probation = new AccessQueue<K, V>();
+	private final AccessQueue<K, V> protectedQueue = new AccessQueue<K, V>();
+	private int entries;
+	private long weight;
+	private int windowEntries;
+	private long windowWeight;
+	private int protectedEntries;
+	private long protectedWeight;
+
+	// only changed while holding the lock
+	private volatile long invalidations;
+
+	/**
+	 * @param maxEntries maximum number of entries
+	 * @param maxWeight maximum total weight of the entries
+	 * @param weigher
+	 * @param listener
+	 */
+	public NearCache(int maxEntries, long maxWeight, Weigher<K, V> weigher, EvictionListener<K> listener) {
+		this(maxEntries, maxWeight, weigher, listener, SystemTicker);
+	}
+
+	NearCache(int maxEntries, long maxWeight, Weigher<K, V> weigher, EvictionListener<K> listener, Ticker ticker) {
+		if (maxEntries <= 0 || maxWeight <= 0) {
+			throw new IllegalArgumentException("maxEntries and maxWeight must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.windowMaxEntries = Math.max(1, maxEntries / 100);
+		this.windowMaxWeight = Math.max(1, maxWeight / 100);
+		this.protectedMaxEntries = (int) ((maxEntries - windowMaxEntries) * 0.8);
+		this.protectedMaxWeight = (long) ((maxWeight - windowMaxWeight) * 0.8);
+		this.weigher = weigher;
+		this.listener = listener;
+		this.ticker = ticker;
+		this.sketch = new FrequencySketch(maxEntries);
+	}
+
+	/**
+	 * @param key
+	 * @return the value of the key, or null if it is not cached or has expired
+	 */
+	public V get(K key) {
+
+		Node<K, V> node = data.get(key);
+		if (node != null && node.expiresAt - ticker.nanoTime() <= 0) {
+			expire(node);
+			node = null;
+		}
+
+		if (lock.tryLock()) {
+			try {
+				sketch.increment(key.hashCode());
+				if (node != null && node.queue != Removed) {
+					onAccess(node);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		return node != null ? node.value : null;
+	}
+
+	/**
+	 * The number of invalidations so far. Read this before loading a value that is about to be cached, and pass it
+	 * to {@link #put(Object, Object, long, TimeUnit, long)} so that the value is not cached if its key may have been
+	 * written in the meantime.
+	 *
+	 * @return a stamp for {@link #put(Object, Object, long, TimeUnit, long)}
+	 */
+	public long getInvalidationStamp() {
+		return invalidations;
+	}
+
+	/**
+	 * Caches the value of the key, replacing its current value
+	 *
+	 * @param key
+	 * @param value
+	 * @param ttl time after which the entry expires
+	 * @param unit
+	 * @return true if the value was cached, false if it weighs more than the whole cache
+	 */
+	public boolean put(K key, V value, long ttl, TimeUnit unit) {
+		return put(key, value, ttl, unit, -1);
+	}
+
+	/**
+	 * Caches the value of the key, replacing its current value, unless the cache was invalidated after the stamp
+	 * was taken.
+	 *
+	 * @param key
+	 * @param value
+	 * @param ttl time after which the entry expires
+	 * @param unit
+	 * @param invalidationStamp from {@link #getInvalidationStamp()}, or -1 to cache the value regardless
+	 * @return true if the value was cached
+	 */
+	public boolean put(K key, V value, long ttl, TimeUnit unit, long invalidationStamp) {
+
+		int entryWeight = weigher.weigh(key, value);
+		long expiresAt = ticker.nanoTime() + unit.toNanos(ttl);
+
+		lock.lock();
+		try {
+			if (invalidationStamp != -1 && invalidationStamp != invalidations) {
+				return false;
+			}
+			sketch.increment(key.hashCode());
+
+			Node<K, V> prev = data.remove(key);
+			if (prev != null) {
+				unlink(prev);
+			}
+			if (entryWeight > maxWeight) {
+				return false;
+			}
+
+			Node<K, V> node = new Node<K, V>(key, value, entryWeight, expiresAt);
+			data.put(key, node);
+			node.queue = Window;
+			window.addLast(node);
+			entries++;
+			weight += entryWeight;
+			windowEntries++;
+			windowWeight += entryWeight;
+
+			evict();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the key from the cache
+	 * @param key
+	 */
+	public void invalidate(K key) {
+		lock.lock();
+		try {
+			invalidations++;
+			Node<K, V> node = data.remove(key);
+			if (node != null) {
+				unlink(node);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all keys from the cache
+	 */
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			invalidations++;
+			for (Node<K, V> node : data.values()) {
+				node.queue = Removed;
+			}
+			data.clear();
+			window.clear();
+			probation.clear();
+			protectedQueue.clear();
+			entries = 0;
+			weight = 0;
+			windowEntries = 0;
+			windowWeight = 0;
+			protectedEntries = 0;
+			protectedWeight = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int size() {
+		return data.size();
+	}
+
+	public long getWeightedSize() {
+		lock.lock();
+		try {
+			return weight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	private void expire(Node<K, V> node) {
+		lock.lock();
+		try {
+			if (node.queue != Removed && data.remove(node.key, node)) {
+				unlink(node);
+				listener.onEviction(node.key, true);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void onAccess(Node<K, V> node) {
+		switch (node.queue) {
+			case Window:
+				window.moveToLast(node);
+				break;
+			case Probation:
+				probation.remove(node);
+				node.queue = Protected;
+				protectedQueue.addLast(node);
+				protectedEntries++;
+				protectedWeight += node.weight;
+				demoteProtected();
+				break;
+			case Protected:
+				protectedQueue.moveToLast(node);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Moves the least recently used protected entries on probation while the protected segment is too large
+	 */
+	private void demoteProtected() {
+		while ((protectedEntries > protectedMaxEntries || protectedWeight > protectedMaxWeight) && !protectedQueue.isEmpty()) {
+			Node<K, V> node = protectedQueue.first();
+			protectedQueue.remove(node);
+			protectedEntries--;
+			protectedWeight -= node.weight;
+			node.queue = Probation;
+			probation.addLast(node);
+		}
+	}
+
+	private void evict() {
+
+		// entries that fall out of the window become candidates for the main segments
+		while ((windowEntries > windowMaxEntries || windowWeight > windowMaxWeight) && !window.isEmpty()) {
+			Node<K, V> node = window.first();
+			window.remove(node);
+			windowEntries--;
+			windowWeight -= node.weight;
+			node.queue = Probation;
+			probation.addLast(node);
+		}
+
+		long now = ticker.nanoTime();
+		while (entries > maxEntries || weight > maxWeight) {
+
+			Node<K, V> victim = probation.first();
+			Node<K, V> candidate = probation.last();
+
+			Node<K, V> evict;
+			if (victim == null) {
+				evict = !protectedQueue.isEmpty() ? protectedQueue.first() : window.first();
+			} else if (victim == candidate || victim.expiresAt - now <= 0) {
+				evict = victim;
+			} else if (candidate.expiresAt - now <= 0) {
+				evict = candidate;
+			} else {
+				evict = sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode()) ? victim : candidate;
+			}
+
+			data.remove(evict.key, evict);
+			unlink(evict);
+			listener.onEviction(evict.key, evict.expiresAt - now <= 0);
+		}
+	}
+
+	private void unlink(Node<K, V> node) {
+		switch (node.queue) {
+			case Window:
+				window.remove(node);
+				windowEntries--;
+				windowWeight -= node.weight;
+				break;
+			case Probation:
+				probation.remove(node);
+				break;
+			case Protected:
+				protectedQueue.remove(node);
+				protectedEntries--;
+				protectedWeight -= node.weight;
+				break;
+			default:
+				return;
+		}
+		node.queue = Removed;
+		entries--;
+		weight -= node.weight;
+	}
+
+	private static final class Node<K, V> {
+
+		private final K key;
+		private final V value;
+		private final int weight;
+		private final long expiresAt;
+
+		// guarded by lock
+		private int queue;
+		private Node<K, V> prev;
+		private Node<K, V> next;
+
+		private Node(K key, V value, int weight, long expiresAt) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * Doubly linked list of nodes from least to most recently used
+	 */
+	private static final class AccessQueue<K, V> {
+
+		private Node<K, V> head;
+		private Node<K, V> tail;
+
+		private boolean isEmpty() {
+			return head == null;
+		}
+
+		private Node<K, V> first() {
+			return head;
+		}
+
+		private Node<K, V> last() {
+			return tail;
+		}
+
+		private void addLast(Node<K, V> node) {
+			node.prev = tail;
+			node.next = null;
+			if (tail == null) {
+				head = node;
+			} else {
+				tail.next = node;
+			}
+			tail = node;
+		}
+
+		private void remove(Node<K, V> node) {
+			if (node.prev == null) {
+				head = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				tail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+		}
+
+		private void moveToLast(Node<K, V> node) {
+			if (node != tail) {
+				remove(node);
+				addLast(node);
+			}
+		}
+
+		private void clear() {
+			head = null;
+			tail = null;
+		}
+	}
+}
@@ -15,27 +15,47 @@
  ******************************************************************************/
 package com.netflix.dyno.connectionpool.impl.utils;
 
-import org.apache.commons.io.IOUtils;
-
-import com.sun.jersey.core.util.Base64;
+import com.netflix.dyno.connectionpool.impl.compression.Base64Coder;
+import com.netflix.dyno.connectionpool.impl.compression.CompressionEngine;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
+/**
+ * The GZIP based compression of the {@link com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy#THRESHOLD}
+ * compression strategy.
+ *
+ * Compression and decompression run on the per thread Deflater, Inflater and scratch buffers of
+ * {@link CompressionEngine}, so that only the result is allocated.
+ */
 public final class ZipUtils {
+
+    /* Base64 of the first 3 bytes GZIPOutputStream writes, the magic and the deflate compression method */
+    private static final String Base64GzipMagic = "H4sI";
+
     private ZipUtils() {
     }
 
     public static byte[] compressString(String value) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(value.length());
-        GZIPOutputStream gos = new GZIPOutputStream(baos);
-        gos.write(Base64.encode(value.getBytes(StandardCharsets.UTF_8)));
-        gos.close();
-        byte[] compressed = baos.toByteArray();
-        baos.close();
-        return compressed;
+        int length = compressString(value, 2);
+        return Arrays.copyOf(CompressionEngine.buffer(2), length);
+    }
+
+    /**
+     * GZIP compresses the Base64 encoding of the UTF-8 bytes of the value into the scratch buffer of the given slot,
+     * using the other two slots for the intermediate results
+     */
+    private static int compressString(String value, int slot) throws IOException {
+        int utf8Slot = (slot + 1) % CompressionEngine.Slots;
+        int base64Slot = (slot + 2) % CompressionEngine.Slots;
+
+        int length = CompressionEngine.encodeUtf8(value, utf8Slot);
+        byte[] encoded = CompressionEngine.scratch(base64Slot, Base64Coder.encodedLength(length));
+        length = Base64Coder.encode(CompressionEngine.buffer(utf8Slot), 0, length, encoded, 0);
+
+        return CompressionEngine.gzip(encoded, 0, length, slot);
     }
 
     /**
@@ -46,7 +66,9 @@ public final class ZipUtils {
      * @throws IOException
      */
     public static byte[] compressStringNonBase64(String value) throws IOException {
-        return compressBytesNonBase64(value.getBytes(StandardCharsets.UTF_8));
+        int length = CompressionEngine.encodeUtf8(value, 0);
+        length = CompressionEngine.gzip(CompressionEngine.buffer(0), 0, length, 1);
+        return Arrays.copyOf(CompressionEngine.buffer(1), length);
     }
 
     /**
@@ -57,13 +79,8 @@ public final class ZipUtils {
      * @throws IOException
      */
     public static byte[] compressBytesNonBase64(byte[] value) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(value.length);
-        GZIPOutputStream gos = new GZIPOutputStream(baos);
-        gos.write(value);
-        gos.close();
-        byte[] compressed = baos.toByteArray();
-        baos.close();
-        return compressed;
+        int length = CompressionEngine.gzip(value, 0, value.length, 0);
+        return Arrays.copyOf(CompressionEngine.buffer(0), length);
     }
 
     /**
@@ -74,9 +91,7 @@ public final class ZipUtils {
      * @throws IOException
      */
     public static byte[] decompressBytesNonBase64(byte[] compressed) throws IOException {
-        ByteArrayInputStream is = new ByteArrayInputStream(compressed);
-        InputStream gis = new GZIPInputStream(is);
-        return IOUtils.toByteArray(gis);
+        return CompressionEngine.gunzip(compressed, 0, compressed.length);
     }
 
     /**
@@ -87,9 +102,8 @@ public final class ZipUtils {
      * @throws IOException
      */
     public static String decompressStringNonBase64(byte[] compressed) throws IOException {
-        ByteArrayInputStream is = new ByteArrayInputStream(compressed);
-        InputStream gis = new GZIPInputStream(is);
-        return new String(IOUtils.toByteArray(gis), StandardCharsets.UTF_8);
+        int length = CompressionEngine.gunzip(compressed, 0, compressed.length, 0);
+        return new String(CompressionEngine.buffer(0), 0, length, StandardCharsets.UTF_8);
     }
 
     /**
@@ -101,7 +115,10 @@ public final class ZipUtils {
      * @throws IOException
      */
     public static String compressStringToBase64String(String value) throws IOException {
-        return new String(Base64.encode(compressString(value)), StandardCharsets.UTF_8);
+        int length = compressString(value, 2);
+        byte[] encoded = CompressionEngine.scratch(0, Base64Coder.encodedLength(length));
+        length = Base64Coder.encode(CompressionEngine.buffer(2), 0, length, encoded, 0);
+        return new String(encoded, 0, length, StandardCharsets.ISO_8859_1);
     }
 
     /**
@@ -112,9 +129,24 @@ public final class ZipUtils {
      * @throws IOException
      */
     public static String decompressString(byte[] compressed) throws IOException {
-        ByteArrayInputStream is = new ByteArrayInputStream(compressed);
-        InputStream gis = new GZIPInputStream(is);
-        return new String(Base64.decode(IOUtils.toByteArray(gis)), StandardCharsets.UTF_8);
+        return decompressString(compressed, 0, compressed.length);
+    }
+
+    /**
+     * Decompresses compressed[offset, offset + length) and decodes with Base64 decoding. The compressed bytes may
+     * be in the first scratch buffer of {@link CompressionEngine}, the other two are used for intermediate results.
+     *
+     * @param compressed byte array input
+     * @param offset
+     * @param length
+     * @return decompressed data in string format
+     * @throws IOException
+     */
+    public static String decompressString(byte[] compressed, int offset, int length) throws IOException {
+        int gunzipped = CompressionEngine.gunzip(compressed, offset, length, 1);
+        byte[] decoded = CompressionEngine.scratch(2, Base64Coder.maxDecodedLength(gunzipped));
+        int decodedLength = Base64Coder.decode(CompressionEngine.buffer(1), 0, gunzipped, decoded, 0);
+        return new String(decoded, 0, decodedLength, StandardCharsets.UTF_8);
     }
 
     /**
@@ -125,7 +157,9 @@ public final class ZipUtils {
      * @throws IOException
      */
     public static String decompressFromBase64String(String compressed) throws IOException {
-        return decompressString(Base64.decode(compressed.getBytes(StandardCharsets.UTF_8)));
+        byte[] decoded = CompressionEngine.scratch(0, Base64Coder.maxDecodedLength(compressed.length()));
+        int length = Base64Coder.decode(compressed, 0, compressed.length(), decoded, 0);
+        return decompressString(decoded, 0, length);
     }
 
     /**
@@ -165,15 +199,13 @@ public final class ZipUtils {
 
     /**
      * Determines if a String is compressed. The input String <b>must be Base64 encoded</b>.
-     * The java.util.zip GZip implementation does not expose the GZip header so it is difficult to determine
-     * if a string is compressed.
+     * Only the first characters, which encode the GZip header, are looked at, nothing is decoded.
      *
      * @param input String
      * @return true if the String is compressed or false otherwise
      * @throws java.io.IOException if the byte array of String couldn't be read
      */
     public static boolean isCompressed(String input) throws IOException {
-        return input != null && Base64.isBase64(input) &&
-                isCompressed(Base64.decode(input.getBytes(StandardCharsets.UTF_8)));
+        return input != null && (input.length() & 3) == 0 && input.startsWith(Base64GzipMagic);
     }
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.ConnectionBorrowStrategy;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.LoadBalancingStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.HostSupplier;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.RetryPolicy;
+import com.netflix.dyno.connectionpool.RetryPolicy.RetryPolicyFactory;
+import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Measures the bytes allocated by {@link ConnectionPoolImpl#executeWithFailover(Operation)} on the success path.
+ *
+ * The connection hands out the same result for every operation so that only the allocations made by the
+ * connection pool itself are counted.
+ */
+public class ConnectionPoolImplAllocationTest {
+
+	private static final int WarmupOps = 50000;
+	private static final int MeasuredOps = 200000;
+
+	private static class TestClient {
+	}
+
+	private static final TestClient client = new TestClient();
+
+	private final Host host = new Host("host1", 8080, Status.Up).setRack("localRack");
+
+	private final Operation<TestClient, String> op = new Operation<TestClient, String>() {
+
+		@Override
+		public String execute(TestClient client, ConnectionContext state) throws DynoException {
+			return "OK";
+		}
+
+		@Override
+		public String getName() {
+			return "Test";
+		}
+
+		@Override
+		public String getKey() {
+			return "key";
+		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
+	};
+
+	private static class TestConnection implements Connection<TestClient> {
+
+		private final HostConnectionPool<TestClient> hostPool;
+		private final ConnectionContextImpl context = new ConnectionContextImpl();
+		private final OperationResultImpl<String> result = new OperationResultImpl<String>("Test", "OK", null);
+
+		private TestConnection(HostConnectionPool<TestClient> pool) {
+			this.hostPool = pool;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <R> OperationResult<R> execute(Operation<TestClient, R> op) throws DynoException {
+			op.execute(client, context);
+			return (OperationResult<R>) result;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Host getHost() {
+			return hostPool.getHost();
+		}
+
+		@Override
+		public void open() throws DynoException {
+		}
+
+		@Override
+		public DynoConnectException getLastException() {
+			return null;
+		}
+
+		@Override
+		public HostConnectionPool<TestClient> getParentConnectionPool() {
+			return hostPool;
+		}
+
+		@Override
+		public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<TestClient, R> op) throws DynoException {
+			throw new RuntimeException("Not Implemented");
+		}
+
+		@Override
+		public void execPing() {
+		}
+
+		@Override
+		public ConnectionContext getContext() {
+			return context;
+		}
+	}
+
+	private static final ConnectionFactory<TestClient> connFactory = new ConnectionFactory<TestClient>() {
+
+		@Override
+		public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor observor) throws DynoConnectException, ThrottledException {
+			return new TestConnection(pool);
+		}
+	};
+
+	private com.sun.management.ThreadMXBean threadMXBean;
+	private ConnectionPoolImpl<TestClient> pool;
+
+	@Before
+	public void beforeTest() {
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+		threadMXBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@After
+	public void afterTest() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSuccessPathAllocatesLessThanEagerRetryPolicy() throws Exception {
+
+		// a factory the pool does not know about, so a policy is created for every operation
+		RetryPolicyFactory eagerFactory = new RetryPolicyFactory() {
+			@Override
+			public RetryPolicy getRetryPolicy() {
+				return new RunOnce();
+			}
+		};
+
+		double eagerBytesPerOp = measureBytesPerOp(eagerFactory);
+		double defaultBytesPerOp = measureBytesPerOp(new RunOnce.RetryFactory());
+
+		System.out.println("Bytes per op, eager retry policy: " + eagerBytesPerOp + ", default: " + defaultBytesPerOp);
+
+		Assert.assertTrue("eager: " + eagerBytesPerOp + ", default: " + defaultBytesPerOp,
+				defaultBytesPerOp < eagerBytesPerOp);
+	}
+
+	private double measureBytesPerOp(RetryPolicyFactory retryFactory) throws Exception {
+
+		ConnectionPoolConfigurationImpl cpConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setLoadBalancingStrategy(LoadBalancingStrategy.RoundRobin)
+				.setConnectionBorrowStrategy(ConnectionBorrowStrategy.Striped)
+				.setRetryPolicyFactory(retryFactory)
+				.setLocalRack("localRack")
+				.withHostSupplier(new HostSupplier() {
+					@Override
+					public Collection<Host> getHosts() {
+						return Collections.singletonList(host);
+					}
+				})
+				.withTokenSupplier(new TokenMapSupplier() {
+					@Override
+					public List<HostToken> getTokens(Set<Host> activeHosts) {
+						List<HostToken> tokens = new ArrayList<HostToken>();
+						tokens.add(new HostToken(309687905L, host));
+						return tokens;
+					}
+
+					@Override
+					public HostToken getTokenForHost(Host h, Set<Host> activeHosts) {
+						return new HostToken(309687905L, host);
+					}
+				});
+
+		if (pool != null) {
+			pool.shutdown();
+		}
+		pool = new ConnectionPoolImpl<TestClient>(connFactory, cpConfig, new CountingConnectionPoolMonitor());
+		pool.start();
+
+		for (int i = 0; i < WarmupOps; i++) {
+			pool.executeWithFailover(op);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long before = threadMXBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < MeasuredOps; i++) {
+			pool.executeWithFailover(op);
+		}
+		long after = threadMXBean.getThreadAllocatedBytes(threadId);
+
+		return (double) (after - before) / MeasuredOps;
+	}
+}
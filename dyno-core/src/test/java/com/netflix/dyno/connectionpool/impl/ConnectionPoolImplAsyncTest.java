@@ -0,0 +1,357 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.LoadBalancingStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.HostSupplier;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.exception.TimeoutException;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Tests {@link ConnectionPoolImpl#executeAsync} with connections whose async operations are completed by the test
+ */
+public class ConnectionPoolImplAsyncTest {
+
+	private final Host host1 = new Host("host1", 8080, Status.Up).setRack("localRack");
+	private final Host host2 = new Host("host2", 8080, Status.Up).setRack("localRack");
+
+	// the pending operations of each host, in the order they were started
+	private final Map<Host, BlockingQueue<SettableListenableFuture<OperationResult<String>>>> pending =
+			new HashMap<Host, BlockingQueue<SettableListenableFuture<OperationResult<String>>>>();
+	// the host of the operation last returned by nextPending()
+	private Host lastPendingHost;
+	// the threads that started the operations, in the order they were started
+	private final BlockingQueue<Thread> startingThreads = new LinkedBlockingQueue<Thread>();
+
+	private ConnectionPoolConfigurationImpl cpConfig;
+	private CountingConnectionPoolMonitor cpMonitor;
+	private ConnectionPoolImpl<Object> pool;
+
+	@Before
+	public void beforeTest() {
+
+		pending.put(host1, new LinkedBlockingQueue<SettableListenableFuture<OperationResult<String>>>());
+		pending.put(host2, new LinkedBlockingQueue<SettableListenableFuture<OperationResult<String>>>());
+
+		cpConfig = new ConnectionPoolConfigurationImpl("AsyncTestClient")
+				.setLoadBalancingStrategy(LoadBalancingStrategy.RoundRobin)
+				.setLocalRack("localRack")
+				.setMaxConnsPerHost(4)
+				.withHostSupplier(new HostSupplier() {
+					@Override
+					public Collection<Host> getHosts() {
+						return pending.keySet();
+					}
+				})
+				.withTokenSupplier(new TokenMapSupplier() {
+					@Override
+					public List<HostToken> getTokens(Set<Host> activeHosts) {
+						List<HostToken> tokens = new ArrayList<HostToken>();
+						for (Host host : activeHosts) {
+							tokens.add(getTokenForHost(host, activeHosts));
+						}
+						return tokens;
+					}
+
+					@Override
+					public HostToken getTokenForHost(Host host, Set<Host> activeHosts) {
+						return new HostToken(host == host1 ? 1383429731L : 3530913377L, host);
+					}
+				});
+		cpMonitor = new CountingConnectionPoolMonitor();
+	}
+
+	@After
+	public void afterTest() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testConnectionHeldUntilOperationCompletes() throws Exception {
+
+		startPool();
+
+		ListenableFuture<OperationResult<String>> result = pool.executeAsync(new TestOperation());
+		SettableListenableFuture<OperationResult<String>> operation = nextPending();
+
+		Assert.assertFalse(result.isDone());
+		Assert.assertEquals(cpMonitor.getConnectionBorrowedCount() - 1, cpMonitor.getConnectionReturnedCount());
+
+		operation.set(new OperationResultImpl<String>("Test", "value", null));
+
+		Assert.assertEquals("value", result.get(1, TimeUnit.SECONDS).getResult());
+		Assert.assertNotNull(result.get().getNode());
+		Assert.assertEquals(cpMonitor.getConnectionBorrowedCount(), cpMonitor.getConnectionReturnedCount());
+		Assert.assertEquals(1, cpMonitor.getOperationSuccessCount());
+	}
+
+	@Test
+	public void testFailedAttemptIsRetriedOnAnotherHost() throws Exception {
+
+		cpConfig.setRetryPolicyFactory(new RetryNTimes.RetryFactory(1, false));
+		startPool();
+
+		ListenableFuture<OperationResult<String>> result = pool.executeAsync(new TestOperation());
+		SettableListenableFuture<OperationResult<String>> first = nextPending();
+		Host firstHost = lastPendingHost;
+
+		first.setException(new DynoConnectException("connection reset"));
+		SettableListenableFuture<OperationResult<String>> second = nextPending();
+
+		Assert.assertNotEquals(firstHost, lastPendingHost);
+		second.set(new OperationResultImpl<String>("Test", "value", null));
+
+		Assert.assertEquals("value", result.get(1, TimeUnit.SECONDS).getResult());
+		Assert.assertEquals(1, cpMonitor.getOperationFailureCount());
+		Assert.assertEquals(cpMonitor.getConnectionBorrowedCount(), cpMonitor.getConnectionReturnedCount());
+	}
+
+	@Test
+	public void testRetryDoesNotRunOnCompletingThread() throws Exception {
+
+		cpConfig.setRetryPolicyFactory(new RetryNTimes.RetryFactory(1, false));
+		startPool();
+
+		ListenableFuture<OperationResult<String>> result = pool.executeAsync(new TestOperation());
+		SettableListenableFuture<OperationResult<String>> first = nextPending();
+		Assert.assertEquals(Thread.currentThread(), startingThreads.take());
+
+		// completes the attempt on this thread, which must not be the one to borrow the connection for the retry
+		first.setException(new DynoConnectException("connection reset"));
+		nextPending().set(new OperationResultImpl<String>("Test", "value", null));
+
+		Assert.assertNotEquals(Thread.currentThread(), startingThreads.take());
+		Assert.assertEquals("value", result.get(1, TimeUnit.SECONDS).getResult());
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+
+		cpConfig.setAsyncOperationTimeout(50);
+		startPool();
+
+		ListenableFuture<OperationResult<String>> result = pool.executeAsync(new TestOperation());
+		SettableListenableFuture<OperationResult<String>> operation = nextPending();
+
+		try {
+			result.get(1, TimeUnit.SECONDS);
+			Assert.fail("Expected a timeout");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof TimeoutException);
+		}
+
+		// the connection is only given back once the operation on it is done
+		Assert.assertEquals(cpMonitor.getConnectionBorrowedCount() - 1, cpMonitor.getConnectionReturnedCount());
+		operation.set(new OperationResultImpl<String>("Test", "late", null));
+		Assert.assertEquals(cpMonitor.getConnectionBorrowedCount(), cpMonitor.getConnectionReturnedCount());
+	}
+
+	@Test
+	public void testInFlightBoundPerHost() throws Exception {
+
+		pending.remove(host2);
+		cpConfig.setMaxAsyncInFlightPerHost(1);
+		startPool();
+
+		ListenableFuture<OperationResult<String>> first = pool.executeAsync(new TestOperation());
+		ListenableFuture<OperationResult<String>> second = pool.executeAsync(new TestOperation());
+
+		try {
+			second.get(1, TimeUnit.SECONDS);
+			Assert.fail("Expected the second operation to be throttled");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof ThrottledException);
+		}
+
+		nextPending().set(new OperationResultImpl<String>("Test", "value", null));
+		Assert.assertEquals("value", first.get(1, TimeUnit.SECONDS).getResult());
+
+		// in flight again once the first one is done
+		ListenableFuture<OperationResult<String>> third = pool.executeAsync(new TestOperation());
+		nextPending().set(new OperationResultImpl<String>("Test", "value", null));
+		Assert.assertEquals("value", third.get(1, TimeUnit.SECONDS).getResult());
+	}
+
+	@Test
+	public void testCallerDoesNotWaitForConnection() throws Exception {
+
+		pending.remove(host2);
+		cpConfig.setMaxConnsPerHost(1);
+		cpConfig.setMaxTimeoutWhenExhausted(5000);
+		startPool();
+
+		ListenableFuture<OperationResult<String>> first = pool.executeAsync(new TestOperation());
+		SettableListenableFuture<OperationResult<String>> firstOperation = nextPending();
+		Assert.assertEquals(Thread.currentThread(), startingThreads.take());
+
+		// the only connection is held by the first operation, the second one waits for it on another thread
+		long start = System.currentTimeMillis();
+		ListenableFuture<OperationResult<String>> second = pool.executeAsync(new TestOperation());
+		Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+		Assert.assertFalse(second.isDone());
+
+		firstOperation.set(new OperationResultImpl<String>("Test", "first", null));
+		Assert.assertEquals("first", first.get(1, TimeUnit.SECONDS).getResult());
+
+		nextPending().set(new OperationResultImpl<String>("Test", "second", null));
+		Assert.assertEquals("second", second.get(1, TimeUnit.SECONDS).getResult());
+		Assert.assertNotEquals(Thread.currentThread(), startingThreads.take());
+		Assert.assertEquals(cpMonitor.getConnectionBorrowedCount(), cpMonitor.getConnectionReturnedCount());
+	}
+
+	private void startPool() throws Exception {
+		pool = new ConnectionPoolImpl<Object>(new TestConnectionFactory(), cpConfig, cpMonitor);
+		pool.start().get();
+	}
+
+	private SettableListenableFuture<OperationResult<String>> nextPending() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 1000;
+		while (System.currentTimeMillis() < deadline) {
+			for (BlockingQueue<SettableListenableFuture<OperationResult<String>>> queue : pending.values()) {
+				SettableListenableFuture<OperationResult<String>> operation = queue.poll();
+				if (operation != null) {
+					lastPendingHost = hostOfQueue(queue);
+					return operation;
+				}
+			}
+			Thread.sleep(5);
+		}
+		throw new AssertionError("No pending operation");
+	}
+
+	private Host hostOfQueue(BlockingQueue<SettableListenableFuture<OperationResult<String>>> queue) {
+		for (Map.Entry<Host, BlockingQueue<SettableListenableFuture<OperationResult<String>>>> entry : pending.entrySet()) {
+			if (entry.getValue() == queue) {
+				return entry.getKey();
+			}
+		}
+		return null;
+	}
+
+	private static class TestOperation implements AsyncOperation<Object, String> {
+
+		@Override
+		public ListenableFuture<String> executeAsync(Object client) throws DynoException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getName() {
+			return "TestOperation";
+		}
+
+		@Override
+		public String getKey() {
+			return "TestOperation";
+		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
+	}
+
+	private class TestConnectionFactory implements ConnectionFactory<Object> {
+
+		@Override
+		public Connection<Object> createConnection(final HostConnectionPool<Object> hostPool, ConnectionObservor observor) {
+
+			return new Connection<Object>() {
+
+				private final ConnectionContextImpl context = new ConnectionContextImpl();
+
+				@Override
+				public <R> OperationResult<R> execute(Operation<Object, R> op) throws DynoException {
+					throw new UnsupportedOperationException();
+				}
+
+				@SuppressWarnings("unchecked")
+				@Override
+				public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<Object, R> op) throws DynoException {
+					SettableListenableFuture<OperationResult<String>> future = new SettableListenableFuture<OperationResult<String>>();
+					startingThreads.add(Thread.currentThread());
+					pending.get(hostPool.getHost()).add(future);
+					return (ListenableFuture<OperationResult<R>>) (ListenableFuture<?>) future;
+				}
+
+				@Override
+				public void close() {
+				}
+
+				@Override
+				public Host getHost() {
+					return hostPool.getHost();
+				}
+
+				@Override
+				public void open() throws DynoException {
+				}
+
+				@Override
+				public DynoConnectException getLastException() {
+					return null;
+				}
+
+				@Override
+				public HostConnectionPool<Object> getParentConnectionPool() {
+					return hostPool;
+				}
+
+				@Override
+				public void execPing() {
+				}
+
+				@Override
+				public ConnectionContext getContext() {
+					return context;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,332 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.LoadBalancingStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.HostSupplier;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Tests hedged reads with one host in the local rack and one in a remote rack that own the same token. An operation
+ * replies with the name of the host it ran on, after the latency of the host.
+ */
+public class ConnectionPoolImplHedgedReadTest {
+
+	private final Host localHost = new Host("localHost", 8080, Status.Up).setRack("localRack");
+	private final Host remoteHost = new Host("remoteHost", 8080, Status.Up).setRack("remoteRack");
+
+	private final Map<Host, Long> latencyMillis = new ConcurrentHashMap<Host, Long>();
+	private final Map<Host, Boolean> failing = new ConcurrentHashMap<Host, Boolean>();
+
+	private ConnectionPoolConfigurationImpl cpConfig;
+	private CountingConnectionPoolMonitor cpMonitor;
+	private ConnectionPoolImpl<Object> pool;
+
+	@Before
+	public void beforeTest() throws Exception {
+
+		latencyMillis.put(localHost, 0L);
+		latencyMillis.put(remoteHost, 0L);
+		failing.put(localHost, false);
+		failing.put(remoteHost, false);
+
+		cpConfig = new ConnectionPoolConfigurationImpl("HedgedReadTestClient")
+				.setLoadBalancingStrategy(LoadBalancingStrategy.TokenAware)
+				.setLocalRack("localRack")
+				.setMaxConnsPerHost(4)
+				.setHedgedReadsEnabled(true)
+				.setHedgedReadOps("GET")
+				.setHedgedReadDelayMillis(20)
+				.setHedgedReadBudgetPercent(100)
+				.withHostSupplier(new HostSupplier() {
+					@Override
+					public Collection<Host> getHosts() {
+						return latencyMillis.keySet();
+					}
+				})
+				.withTokenSupplier(new TokenMapSupplier() {
+					@Override
+					public List<HostToken> getTokens(Set<Host> activeHosts) {
+						List<HostToken> tokens = new ArrayList<HostToken>();
+						for (Host host : activeHosts) {
+							tokens.add(getTokenForHost(host, activeHosts));
+						}
+						return tokens;
+					}
+
+					@Override
+					public HostToken getTokenForHost(Host host, Set<Host> activeHosts) {
+						return new HostToken(1383429731L, host);
+					}
+				});
+		cpMonitor = new CountingConnectionPoolMonitor();
+
+		pool = new ConnectionPoolImpl<Object>(new TestConnectionFactory(), cpConfig, cpMonitor);
+		pool.start().get();
+	}
+
+	@After
+	public void afterTest() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testFastReadIsNotHedged() {
+
+		OperationResult<String> result = pool.executeWithFailover(new TestOperation("GET"));
+
+		Assert.assertEquals("localHost", result.getResult());
+		Assert.assertEquals(localHost, result.getNode());
+		Assert.assertEquals(0, cpMonitor.getHedgedReadCount());
+	}
+
+	@Test
+	public void testSlowReadIsHedged() throws Exception {
+
+		latencyMillis.put(localHost, 1000L);
+
+		long start = System.currentTimeMillis();
+		OperationResult<String> result = pool.executeWithFailover(new TestOperation("GET"));
+
+		Assert.assertEquals("remoteHost", result.getResult());
+		Assert.assertTrue(System.currentTimeMillis() - start < 800);
+
+		// the local attempt still completes and gives its connection back
+		awaitConnectionsReturned();
+		Assert.assertEquals(1, cpMonitor.getHedgedReadCount());
+		Assert.assertEquals(1, cpMonitor.getHedgedReadWonCount());
+	}
+
+	@Test
+	public void testHedgeAnswersWhenLocalReadFails() throws Exception {
+
+		latencyMillis.put(localHost, 200L);
+		latencyMillis.put(remoteHost, 400L);
+		failing.put(localHost, true);
+
+		OperationResult<String> result = pool.executeWithFailover(new TestOperation("GET"));
+
+		Assert.assertEquals("remoteHost", result.getResult());
+		awaitConnectionsReturned();
+	}
+
+	@Test
+	public void testHedgeAnswersWhenLocalReadFailsBeforeDelay() throws Exception {
+
+		failing.put(localHost, true);
+
+		// the local failure must not end the read while its hedge is still to be sent
+		OperationResult<String> result = pool.executeWithFailover(new TestOperation("GET"));
+
+		Assert.assertEquals("remoteHost", result.getResult());
+		Assert.assertEquals(1, cpMonitor.getHedgedReadCount());
+		awaitConnectionsReturned();
+	}
+
+	@Test
+	public void testFailsOnceAllAttemptsFailed() throws Exception {
+
+		latencyMillis.put(localHost, 100L);
+		failing.put(localHost, true);
+		failing.put(remoteHost, true);
+
+		try {
+			pool.executeWithFailover(new TestOperation("GET"));
+			Assert.fail("Expected the read to fail");
+		} catch (DynoException e) {
+			// expected
+		}
+		awaitConnectionsReturned();
+		Assert.assertEquals(1, cpMonitor.getHedgedReadCount());
+	}
+
+	@Test
+	public void testBudgetCapsHedgedReads() {
+
+		latencyMillis.put(localHost, 100L);
+		cpConfig.setHedgedReadBudgetPercent(0);
+
+		OperationResult<String> result = pool.executeWithFailover(new TestOperation("GET"));
+
+		Assert.assertEquals("localHost", result.getResult());
+		Assert.assertEquals(0, cpMonitor.getHedgedReadCount());
+	}
+
+	@Test
+	public void testOnlyConfiguredOpsAreHedged() {
+
+		latencyMillis.put(localHost, 100L);
+
+		OperationResult<String> result = pool.executeWithFailover(new TestOperation("SET"));
+
+		Assert.assertEquals("localHost", result.getResult());
+		Assert.assertEquals(0, cpMonitor.getHedgedReadCount());
+	}
+
+	@Test
+	public void testReadsBeyondMaxThreadsAreNotHedged() throws Exception {
+
+		latencyMillis.put(localHost, 300L);
+		cpConfig.setHedgedReadMaxThreads(1);
+
+		// the first read takes the only thread, and finds no thread for its hedge either
+		final List<OperationResult<String>> firstResult = new ArrayList<OperationResult<String>>();
+		Thread first = new Thread() {
+			@Override
+			public void run() {
+				firstResult.add(pool.executeWithFailover(new TestOperation("GET")));
+			}
+		};
+		first.start();
+		Thread.sleep(100);
+
+		OperationResult<String> result = pool.executeWithFailover(new TestOperation("GET"));
+		first.join();
+
+		Assert.assertEquals("localHost", result.getResult());
+		Assert.assertEquals("localHost", firstResult.get(0).getResult());
+		Assert.assertEquals(0, cpMonitor.getHedgedReadCount());
+		awaitConnectionsReturned();
+	}
+
+	private void awaitConnectionsReturned() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (cpMonitor.getConnectionBorrowedCount() != cpMonitor.getConnectionReturnedCount() &&
+				System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(cpMonitor.getConnectionBorrowedCount(), cpMonitor.getConnectionReturnedCount());
+	}
+
+	private static class TestOperation implements Operation<Object, String> {
+
+		private final String name;
+
+		private TestOperation(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String execute(Object client, ConnectionContext state) throws DynoException {
+			return null;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String getKey() {
+			return "key";
+		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
+	}
+
+	private class TestConnectionFactory implements ConnectionFactory<Object> {
+
+		@Override
+		public Connection<Object> createConnection(final HostConnectionPool<Object> hostPool, ConnectionObservor observor) {
+
+			return new Connection<Object>() {
+
+				private final ConnectionContextImpl context = new ConnectionContextImpl();
+
+				@SuppressWarnings("unchecked")
+				@Override
+				public <R> OperationResult<R> execute(Operation<Object, R> op) throws DynoException {
+					Host host = hostPool.getHost();
+					try {
+						Thread.sleep(latencyMillis.get(host));
+					} catch (InterruptedException e) {
+						throw new DynoException(e);
+					}
+					if (failing.get(host)) {
+						throw new DynoConnectException("connection reset by " + host.getHostAddress());
+					}
+					return (OperationResult<R>) new OperationResultImpl<String>(op.getName(), host.getHostAddress(), null);
+				}
+
+				@Override
+				public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<Object, R> op) throws DynoException {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void close() {
+				}
+
+				@Override
+				public Host getHost() {
+					return hostPool.getHost();
+				}
+
+				@Override
+				public void open() throws DynoException {
+				}
+
+				@Override
+				public DynoConnectException getLastException() {
+					return null;
+				}
+
+				@Override
+				public HostConnectionPool<Object> getParentConnectionPool() {
+					return hostPool;
+				}
+
+				@Override
+				public void execPing() {
+				}
+
+				@Override
+				public ConnectionContext getContext() {
+					return context;
+				}
+			};
+		}
+	}
+}
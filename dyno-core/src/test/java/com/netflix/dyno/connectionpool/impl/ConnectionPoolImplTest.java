@@ -682,6 +682,11 @@ public class ConnectionPoolImplTest {
 			public String getKey() {
 				return "TestOperation";
 			}
+
+			@Override
+			public byte[] getBinaryKey() {
+				return null;
+			}
 		});
 	}
 
@@ -718,6 +723,11 @@ public class ConnectionPoolImplTest {
 									public String getKey() {
 										return "TestOperation";
 									}
+
+									@Override
+									public byte[] getBinaryKey() {
+										return null;
+									}
 								});
 							} catch (DynoException e) {
 //								System.out.println("FAILED Test Worker operation: " + e.getMessage());
@@ -22,6 +22,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -43,6 +44,7 @@ import com.netflix.dyno.connectionpool.OperationResult;
 import com.netflix.dyno.connectionpool.exception.DynoConnectException;
 import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
 import com.netflix.dyno.connectionpool.exception.ThrottledException;
 
 public class HostConnectionPoolImplTest {
@@ -257,6 +259,273 @@ public class HostConnectionPoolImplTest {
 		Assert.assertTrue(result.failureCount.get() > 0);
 	}
 
+	@Test
+	public void testClosedConnectionsAreReplenishedInBackground() throws Exception {
+
+		final AtomicBoolean slowConnect = new AtomicBoolean(false);
+
+		ConnectionFactory<TestClient> slowConnFactory = new ConnectionFactory<TestClient>() {
+
+			@Override
+			public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor cObservor) throws DynoConnectException, ThrottledException {
+				if (slowConnect.get()) {
+					try {
+						Thread.sleep(500);
+					} catch (InterruptedException e) {
+						throw new DynoConnectException(e);
+					}
+				}
+				return new TestConnection(pool);
+			}
+		};
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, slowConnFactory, config, cpMonitor);
+		pool.primeConnections();
+
+		slowConnect.set(true);
+
+		Connection<TestClient> first = pool.borrowConnection(100, TimeUnit.MILLISECONDS);
+		Connection<TestClient> second = pool.borrowConnection(100, TimeUnit.MILLISECONDS);
+		pool.closeConnection(first);
+
+		long start = System.currentTimeMillis();
+		pool.returnConnection(second);
+		Assert.assertTrue(System.currentTimeMillis() - start < 250);
+
+		Thread.sleep(1000);
+
+		Assert.assertEquals(config.getMaxConnsPerHost() + 1, cpMonitor.getConnectionCreatedCount());
+		Assert.assertEquals(1, cpMonitor.getConnectionClosedCount());
+		Assert.assertEquals(0, cpMonitor.getConnectionReplenishBacklog());
+	}
+
+	@Test
+	public void testConnectionCreatedWhileShuttingDownIsClosed() throws Exception {
+
+		final CountDownLatch connecting = new CountDownLatch(1);
+		final CountDownLatch shutDown = new CountDownLatch(1);
+		final AtomicBoolean slowConnect = new AtomicBoolean(false);
+
+		ConnectionFactory<TestClient> slowConnFactory = new ConnectionFactory<TestClient>() {
+
+			@Override
+			public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor cObservor) throws DynoConnectException, ThrottledException {
+				if (slowConnect.get()) {
+					connecting.countDown();
+					try {
+						shutDown.await();
+					} catch (InterruptedException e) {
+						throw new DynoConnectException(e);
+					}
+				}
+				return new TestConnection(pool);
+			}
+		};
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, slowConnFactory, config, cpMonitor);
+		pool.primeConnections();
+
+		// the replenisher starts to re-create the closed connection, and the pool is shut down meanwhile
+		slowConnect.set(true);
+		pool.closeConnection(pool.borrowConnection(100, TimeUnit.MILLISECONDS));
+		Assert.assertTrue(connecting.await(5, TimeUnit.SECONDS));
+		pool.shutdown();
+		shutDown.countDown();
+
+		Thread.sleep(200);
+		Assert.assertEquals(config.getMaxConnsPerHost() + 1, cpMonitor.getConnectionCreatedCount());
+		Assert.assertEquals(cpMonitor.getConnectionCreatedCount(), cpMonitor.getConnectionClosedCount());
+	}
+
+	@Test
+	public void testParallelPrimingActivatesAtMinimum() throws Exception {
+
+		final AtomicInteger concurrentConnects = new AtomicInteger(0);
+		final AtomicInteger maxConcurrentConnects = new AtomicInteger(0);
+
+		ConnectionFactory<TestClient> slowConnFactory = new ConnectionFactory<TestClient>() {
+
+			@Override
+			public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor cObservor) throws DynoConnectException, ThrottledException {
+				int concurrent = concurrentConnects.incrementAndGet();
+				if (concurrent > maxConcurrentConnects.get()) {
+					maxConcurrentConnects.set(concurrent);
+				}
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					throw new DynoConnectException(e);
+				} finally {
+					concurrentConnects.decrementAndGet();
+				}
+				return new TestConnection(pool);
+			}
+		};
+
+		ConnectionPoolConfigurationImpl parallelConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(20)
+				.setPrimeConnectionsParallelism(5)
+				.setMinPrimedConnsPerHost(5);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, slowConnFactory, parallelConfig, cpMonitor);
+
+		long start = System.currentTimeMillis();
+		int numConns = pool.primeConnections();
+		long duration = System.currentTimeMillis() - start;
+
+		Assert.assertTrue(pool.isActive());
+		Assert.assertTrue(numConns >= 5);
+		Assert.assertTrue("priming took " + duration + "ms", duration < 1000);
+		Assert.assertNotNull(pool.borrowConnection(100, TimeUnit.MILLISECONDS));
+
+		Thread.sleep(1000);
+
+		Assert.assertEquals(20, cpMonitor.getConnectionCreatedCount());
+		Assert.assertTrue(maxConcurrentConnects.get() > 1);
+		Assert.assertTrue(maxConcurrentConnects.get() <= 5);
+	}
+
+	@Test
+	public void testParallelPrimingBelowMinimum() throws Exception {
+
+		final AtomicInteger attempts = new AtomicInteger(0);
+
+		ConnectionFactory<TestClient> failingConnFactory = new ConnectionFactory<TestClient>() {
+
+			@Override
+			public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor cObservor) throws DynoConnectException, ThrottledException {
+				if (attempts.incrementAndGet() > 2) {
+					throw new DynoConnectException("connection refused");
+				}
+				return new TestConnection(pool);
+			}
+		};
+
+		ConnectionPoolConfigurationImpl parallelConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(6)
+				.setPrimeConnectionsParallelism(3)
+				.setMinPrimedConnsPerHost(3);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, failingConnFactory, parallelConfig, cpMonitor);
+
+		Assert.assertEquals(2, pool.primeConnections());
+		Assert.assertFalse(pool.isActive());
+	}
+
+	@Test
+	public void testParallelPrimingRefillsAfterLastAttempt() throws Exception {
+
+		final AtomicReference<Thread> failingThread = new AtomicReference<Thread>();
+		final AtomicInteger failuresLeft = new AtomicInteger(4);
+
+		// the first attempt fails all of its tries at once, so the attempt that reaches the minimum is the last one
+		ConnectionFactory<TestClient> primingConnFactory = new ConnectionFactory<TestClient>() {
+
+			@Override
+			public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor cObservor) throws DynoConnectException, ThrottledException {
+				failingThread.compareAndSet(null, Thread.currentThread());
+				if (failingThread.get() == Thread.currentThread() && failuresLeft.getAndDecrement() > 0) {
+					throw new DynoConnectException("connection refused");
+				}
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					throw new DynoConnectException(e);
+				}
+				return new TestConnection(pool);
+			}
+		};
+
+		ConnectionPoolConfigurationImpl parallelConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setMaxConnsPerHost(4)
+				.setPrimeConnectionsParallelism(2)
+				.setMinPrimedConnsPerHost(3);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, primingConnFactory, parallelConfig, cpMonitor);
+
+		Assert.assertEquals(3, pool.primeConnections());
+		Assert.assertTrue(pool.isActive());
+
+		// the connection that could not be primed is opened by the replenisher
+		Thread.sleep(500);
+		Assert.assertEquals(4, cpMonitor.getConnectionCreatedCount());
+		Assert.assertEquals(0, cpMonitor.getConnectionReplenishBacklog());
+	}
+
+	@Test
+	public void testElasticPoolSizing() throws Exception {
+
+		ConnectionPoolConfigurationImpl elasticConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setPoolSizingStrategy(ConnectionPoolConfigurationImpl.PoolSizingStrategy.Elastic)
+				.setMaxConnsPerHost(8)
+				.setMinConnsPerHost(2)
+				.setPoolSizingIntervalSeconds(1);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, connFactory, elasticConfig, cpMonitor);
+		pool.primeConnections();
+		Assert.assertEquals(8, pool.getTargetConnections());
+
+		// a single thread only ever needs one connection, so the pool shrinks towards the minimum
+		long end = System.currentTimeMillis() + 3500;
+		while (System.currentTimeMillis() < end) {
+			Connection<TestClient> connection = pool.borrowConnection(100, TimeUnit.MILLISECONDS);
+			Thread.sleep(5);
+			pool.returnConnection(connection);
+		}
+
+		Assert.assertTrue(cpMonitor.getPoolShrunkCount() > 0);
+		Assert.assertEquals(0, cpMonitor.getPoolGrownCount());
+		Assert.assertTrue(pool.getTargetConnections() < 8);
+		Assert.assertEquals(pool.getTargetConnections(), cpMonitor.getConnectionCreatedCount() - cpMonitor.getConnectionClosedCount());
+
+		// hold every connection and time out on the next borrow, the pool grows
+		int target = pool.getTargetConnections();
+		for (int i = 0; i < target; i++) {
+			pool.borrowConnection(100, TimeUnit.MILLISECONDS);
+		}
+		try {
+			pool.borrowConnection(10, TimeUnit.MILLISECONDS);
+			Assert.fail("Expected PoolTimeoutException");
+		} catch (PoolTimeoutException e) {
+		}
+
+		// grown by the next evaluation
+		end = System.currentTimeMillis() + 2500;
+		while (cpMonitor.getPoolGrownCount() == 0 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(1, cpMonitor.getPoolGrownCount());
+		Assert.assertTrue(pool.getTargetConnections() > target);
+
+		Thread.sleep(200);
+		Assert.assertNotNull(pool.borrowConnection(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testIdleElasticPoolShrinksToMinimum() throws Exception {
+
+		ConnectionPoolConfigurationImpl elasticConfig = new ConnectionPoolConfigurationImpl("TestClient")
+				.setPoolSizingStrategy(ConnectionPoolConfigurationImpl.PoolSizingStrategy.Elastic)
+				.setMaxConnsPerHost(8)
+				.setMinConnsPerHost(2)
+				.setPoolSizingIntervalSeconds(1);
+
+		pool = new HostConnectionPoolImpl<TestClient>(TestHost, connFactory, elasticConfig, cpMonitor);
+		pool.primeConnections();
+		Assert.assertEquals(8, cpMonitor.getConnectionCreatedCount());
+
+		// nothing is ever borrowed, the idle connections are closed without waiting for a return
+		long end = System.currentTimeMillis() + 5000;
+		while (cpMonitor.getConnectionClosedCount() < 6 && System.currentTimeMillis() < end) {
+			Thread.sleep(50);
+		}
+
+		Assert.assertEquals(2, pool.getTargetConnections());
+		Assert.assertEquals(6, cpMonitor.getConnectionClosedCount());
+		Assert.assertEquals(8, cpMonitor.getConnectionCreatedCount());
+		Assert.assertEquals(0, cpMonitor.getConnectionBorrowedCount());
+	}
+
 	private class BasicWorker implements Callable<Void> {
 
 		private final BasicResult result;
@@ -15,6 +15,9 @@
  */
 package com.netflix.dyno.connectionpool.impl;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
@@ -44,4 +47,22 @@ public class OperationResultImplTest {
 		Assert.assertEquals("f1", opResult.getMetadata().get("foo"));
 		Assert.assertEquals("b1", opResult.getMetadata().get("bar"));
 	}
+
+	@Test
+	public void testSharedMetadata() throws Exception {
+
+		Map<String, String> shared = Collections.singletonMap("connectionId", "1234");
+		OperationResultImpl<Integer> opResult = new OperationResultImpl<Integer>("test", 11, null, shared);
+
+		// an empty context does not add anything
+		opResult.addMetadata(new HashMap<String, Object>());
+		Assert.assertEquals(shared, opResult.getMetadata());
+
+		opResult.addMetadata("foo", "f1");
+		Assert.assertEquals("1234", opResult.getMetadata().get("connectionId"));
+		Assert.assertEquals("f1", opResult.getMetadata().get("foo"));
+
+		// the shared metadata is never modified
+		Assert.assertEquals(1, shared.size());
+	}
 }
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SettableListenableFutureTest {
+
+	private static final Executor SameThread = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	@Test
+	public void testFirstCompletionWins() throws Exception {
+
+		SettableListenableFuture<Integer> future = new SettableListenableFuture<Integer>();
+		Assert.assertFalse(future.isDone());
+
+		Assert.assertTrue(future.set(11));
+		Assert.assertFalse(future.setException(new RuntimeException()));
+		Assert.assertFalse(future.cancel(false));
+
+		Assert.assertTrue(future.isDone());
+		Assert.assertEquals(11, future.get().intValue());
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+
+		SettableListenableFuture<Integer> future = new SettableListenableFuture<Integer>();
+		RuntimeException failure = new RuntimeException("failed");
+		future.setException(failure);
+
+		try {
+			future.get();
+			Assert.fail("Expected the failure");
+		} catch (ExecutionException e) {
+			Assert.assertSame(failure, e.getCause());
+		}
+	}
+
+	@Test(expected = CancellationException.class)
+	public void testCancel() throws Exception {
+
+		SettableListenableFuture<Integer> future = new SettableListenableFuture<Integer>();
+		future.cancel(true);
+
+		Assert.assertTrue(future.isCancelled());
+		future.get();
+	}
+
+	@Test(expected = TimeoutException.class)
+	public void testGetTimesOut() throws Exception {
+		new SettableListenableFuture<Integer>().get(10, TimeUnit.MILLISECONDS);
+	}
+
+	@Test
+	public void testListenersRunOnceWhenDone() throws Exception {
+
+		final AtomicInteger calls = new AtomicInteger();
+		Runnable listener = new Runnable() {
+			@Override
+			public void run() {
+				calls.incrementAndGet();
+			}
+		};
+
+		SettableListenableFuture<Integer> future = new SettableListenableFuture<Integer>();
+		future.addListener(listener, SameThread);
+		Assert.assertEquals(0, calls.get());
+
+		future.set(11);
+		future.set(12);
+		Assert.assertEquals(1, calls.get());
+
+		// added after the future is done, runs right away
+		future.addListener(listener, SameThread);
+		Assert.assertEquals(2, calls.get());
+	}
+}
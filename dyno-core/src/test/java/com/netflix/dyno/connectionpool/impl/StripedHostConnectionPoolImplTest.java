@@ -0,0 +1,270 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.PoolOfflineException;
+import com.netflix.dyno.connectionpool.exception.PoolTimeoutException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+
+public class StripedHostConnectionPoolImplTest {
+
+	private static final Host TestHost = new Host("TestHost", "TestAddress", 1234);
+
+	private class TestClient {
+
+	}
+
+	private static StripedHostConnectionPoolImpl<TestClient> pool;
+	private static ExecutorService threadPool;
+
+	private static class TestConnection implements Connection<TestClient> {
+
+		private final HostConnectionPool<TestClient> myPool;
+
+		private TestConnection(HostConnectionPool<TestClient> pool) {
+			myPool = pool;
+		}
+
+		@Override
+		public <R> OperationResult<R> execute(Operation<TestClient, R> op) throws DynoException {
+			return null;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Host getHost() {
+			return TestHost;
+		}
+
+		@Override
+		public void open() throws DynoException {
+		}
+
+		@Override
+		public DynoConnectException getLastException() {
+			return null;
+		}
+
+		@Override
+		public HostConnectionPool<TestClient> getParentConnectionPool() {
+			return myPool;
+		}
+
+		@Override
+		public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<TestClient, R> op) throws DynoException {
+			throw new RuntimeException("Not Implemented");
+		}
+
+		@Override
+		public void execPing() {
+		}
+
+		@Override
+		public ConnectionContext getContext() {
+			return null;
+		}
+	}
+
+	private static ConnectionFactory<TestClient> connFactory = new ConnectionFactory<TestClient>() {
+
+		@Override
+		public Connection<TestClient> createConnection(HostConnectionPool<TestClient> pool, ConnectionObservor cObservor) throws DynoConnectException, ThrottledException {
+			return new TestConnection(pool);
+		}
+	};
+
+	private static ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("TestClient")
+			.setConnectionBorrowStrategy(ConnectionPoolConfigurationImpl.ConnectionBorrowStrategy.Striped);
+	private static CountingConnectionPoolMonitor cpMonitor = new CountingConnectionPoolMonitor();
+
+	@BeforeClass
+	public static void beforeClass() {
+		threadPool = Executors.newFixedThreadPool(10);
+	}
+
+	@Before
+	public void beforeTest() {
+		cpMonitor = new CountingConnectionPoolMonitor();
+		pool = new StripedHostConnectionPoolImpl<TestClient>(TestHost, connFactory, config, cpMonitor);
+	}
+
+	@After
+	public void afterTest() {
+		pool.shutdown();
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		threadPool.shutdownNow();
+	}
+
+	@Test
+	public void testBorrowAndReturn() throws Exception {
+
+		int numConns = pool.primeConnections();
+		Assert.assertEquals(config.getMaxConnsPerHost(), numConns);
+		Assert.assertTrue(pool.isActive());
+
+		final AtomicBoolean stop = new AtomicBoolean(false);
+		final AtomicInteger success = new AtomicInteger(0);
+		final AtomicInteger failure = new AtomicInteger(0);
+		final CountDownLatch latch = new CountDownLatch(numConns);
+
+		for (int i = 0; i < numConns; i++) {
+			threadPool.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					while (!stop.get()) {
+						try {
+							Connection<TestClient> connection = pool.borrowConnection(100, TimeUnit.MILLISECONDS);
+							pool.returnConnection(connection);
+							success.incrementAndGet();
+						} catch (DynoException e) {
+							failure.incrementAndGet();
+						}
+					}
+					latch.countDown();
+					return null;
+				}
+			});
+		}
+
+		Thread.sleep(300);
+		stop.set(true);
+		latch.await();
+
+		pool.shutdown();
+
+		Assert.assertTrue(success.get() > 0);
+		Assert.assertEquals(0, failure.get());
+		Assert.assertEquals(success.get(), cpMonitor.getConnectionBorrowedCount());
+		Assert.assertEquals(success.get(), cpMonitor.getConnectionReturnedCount());
+		Assert.assertEquals(config.getMaxConnsPerHost(), cpMonitor.getConnectionCreatedCount());
+		Assert.assertEquals(config.getMaxConnsPerHost(), cpMonitor.getConnectionClosedCount());
+	}
+
+	@Test
+	public void testPoolTimeout() throws Exception {
+
+		pool.primeConnections();
+
+		List<Connection<TestClient>> borrowed = new ArrayList<Connection<TestClient>>();
+		for (int i = 0; i < config.getMaxConnsPerHost(); i++) {
+			borrowed.add(pool.borrowConnection(10, TimeUnit.MILLISECONDS));
+		}
+
+		try {
+			pool.borrowConnection(20, TimeUnit.MILLISECONDS);
+			Assert.fail("Expected PoolTimeoutException");
+		} catch (PoolTimeoutException e) {
+			Assert.assertEquals(TestHost, e.getHost());
+		}
+
+		for (Connection<TestClient> connection : borrowed) {
+			pool.returnConnection(connection);
+		}
+		Assert.assertNotNull(pool.borrowConnection(10, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testWaiterIsHandedReturnedConnection() throws Exception {
+
+		pool.primeConnections();
+
+		final List<Connection<TestClient>> borrowed = new ArrayList<Connection<TestClient>>();
+		for (int i = 0; i < config.getMaxConnsPerHost(); i++) {
+			borrowed.add(pool.borrowConnection(10, TimeUnit.MILLISECONDS));
+		}
+
+		Future<Connection<TestClient>> waiter = threadPool.submit(new Callable<Connection<TestClient>>() {
+			@Override
+			public Connection<TestClient> call() throws Exception {
+				return pool.borrowConnection(5000, TimeUnit.MILLISECONDS);
+			}
+		});
+
+		Thread.sleep(50);
+		Assert.assertFalse(waiter.isDone());
+
+		pool.returnConnection(borrowed.get(0));
+		Assert.assertSame(borrowed.get(0), waiter.get(1, TimeUnit.SECONDS));
+	}
+
+	@Test(expected = PoolOfflineException.class)
+	public void testBorrowWhenDown() throws Exception {
+
+		pool.primeConnections();
+		pool.markAsDown(null);
+		pool.borrowConnection(10, TimeUnit.MILLISECONDS);
+	}
+
+	@Test
+	public void testBagOverflowsToSharedStack() throws Exception {
+
+		StripedConnectionBag<TestClient> bag = new StripedConnectionBag<TestClient>(1);
+
+		List<Connection<TestClient>> connections = new ArrayList<Connection<TestClient>>();
+		for (int i = 0; i < 5; i++) {
+			TestConnection connection = new TestConnection(pool);
+			connections.add(connection);
+			bag.add(connection);
+		}
+		Assert.assertEquals(5, bag.size());
+
+		List<Connection<TestClient>> polled = new ArrayList<Connection<TestClient>>();
+		Connection<TestClient> connection;
+		while ((connection = bag.poll()) != null) {
+			polled.add(connection);
+		}
+
+		Assert.assertEquals(5, polled.size());
+		Assert.assertTrue(polled.containsAll(connections));
+		Assert.assertNull(bag.poll(10, TimeUnit.MILLISECONDS));
+	}
+}
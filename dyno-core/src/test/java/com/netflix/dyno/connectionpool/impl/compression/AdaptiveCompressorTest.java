@@ -0,0 +1,116 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.LastOperationMonitor;
+
+public class AdaptiveCompressorTest {
+
+	private LastOperationMonitor opMonitor;
+	private AdaptiveCompressor compressor;
+
+	@Before
+	public void before() {
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("AdaptiveCompressorTest")
+				.setCompressionStrategy(CompressionStrategy.ADAPTIVE)
+				.setAdaptiveCompressionMinSavingsPercent(20);
+		opMonitor = new LastOperationMonitor();
+		compressor = new AdaptiveCompressor(config, opMonitor);
+	}
+
+	@Test
+	public void testCompressibleValues() throws IOException {
+
+		String value = text(10000);
+		for (int i = 0; i < 200; i++) {
+			String compressed = compressor.compress("SET", "user:" + i, value);
+			Assert.assertNotSame(value, compressed);
+			Assert.assertEquals(value, ValueCodecs.decompressFromBase64String(compressed));
+		}
+
+		Assert.assertFalse(compressor.isSkipping("SET", "user"));
+		Assert.assertTrue(compressor.getLevel("SET", "user") >= 1);
+		Assert.assertEquals(200, opMonitor.getCompressedCount("SET"));
+		Assert.assertEquals(0, opMonitor.getCompressionSkippedCount("SET"));
+		Assert.assertTrue(opMonitor.getCompressionSavedBytes("SET") > 200 * 10000 / 2);
+	}
+
+	@Test
+	public void testIncompressibleValues() throws IOException {
+
+		byte[] value = new byte[4096];
+		new Random(1).nextBytes(value);
+
+		int sentAsIs = 0;
+		for (int i = 0; i < 160; i++) {
+			byte[] key = ("blob:" + i).getBytes(StandardCharsets.UTF_8);
+			if (compressor.compress("SET", key, value) == value) {
+				sentAsIs++;
+			}
+		}
+
+		Assert.assertTrue(compressor.isSkipping("SET", "blob"));
+		Assert.assertEquals(160, sentAsIs);
+		Assert.assertEquals(160, opMonitor.getCompressionSkippedCount("SET"));
+		Assert.assertEquals(0, opMonitor.getCompressedCount("SET"));
+	}
+
+	@Test
+	public void testClassesByOperationAndKeyPrefix() throws IOException {
+
+		String text = text(4096);
+		byte[] random = new byte[4096];
+		new Random(2).nextBytes(random);
+		String noise = new String(random, StandardCharsets.ISO_8859_1);
+
+		for (int i = 0; i < 100; i++) {
+			compressor.compress("SET", "text:" + i, text);
+			compressor.compress("SET", "noise:" + i, noise);
+			compressor.compress("HSET", "noise:" + i, text);
+		}
+
+		Assert.assertFalse(compressor.isSkipping("SET", "text"));
+		Assert.assertTrue(compressor.isSkipping("SET", "noise"));
+		Assert.assertFalse(compressor.isSkipping("HSET", "noise"));
+		Assert.assertEquals(-1, compressor.getLevel("GET", "text"));
+
+		// keys without the delimiter share a class
+		compressor.compress("SET", "nodelimiter", text);
+		Assert.assertTrue(compressor.getLevel("SET", "") >= 1);
+	}
+
+	private static String text(int length) {
+
+		Random random = new Random(1);
+		String[] words = { "{\"id\":", "\"name\":", "\"value\":", "\"timestamp\":", "true", "false", "null", "}," };
+		StringBuilder sb = new StringBuilder(length + 16);
+		while (sb.length() < length) {
+			sb.append(words[random.nextInt(words.length)]).append(random.nextInt(1000));
+		}
+		sb.setLength(length);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
+import com.sun.jersey.core.util.Base64;
+
+public class CompressionEngineTest {
+
+	private final Random random = new Random(1);
+
+	@Test
+	public void testGzipIsReadByGzipInputStream() throws IOException {
+
+		byte[] value = text(10000);
+		int length = CompressionEngine.gzip(value, 0, value.length, 0);
+		byte[] gzipped = Arrays.copyOf(CompressionEngine.buffer(0), length);
+
+		Assert.assertArrayEquals(value, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped))));
+		Assert.assertTrue(ZipUtils.isCompressed(gzipped));
+	}
+
+	@Test
+	public void testGunzipReadsGzipOutputStream() throws IOException {
+
+		for (int size : new int[] { 0, 1, 100, 100000 }) {
+			byte[] value = text(size);
+			Assert.assertArrayEquals(value, CompressionEngine.gunzip(gzipStream(value), 0, gzipStream(value).length));
+		}
+
+		// a header with a file name, which GZIPOutputStream never writes
+		byte[] value = text(1000);
+		byte[] gzipped = gzipStream(value);
+		ByteArrayOutputStream named = new ByteArrayOutputStream();
+		named.write(gzipped, 0, 3);
+		named.write(8);
+		named.write(gzipped, 4, 6);
+		named.write("value.json\0".getBytes(StandardCharsets.US_ASCII));
+		named.write(gzipped, 10, gzipped.length - 10);
+		Assert.assertArrayEquals(value, CompressionEngine.gunzip(named.toByteArray(), 0, named.size()));
+
+		// two members, which the streaming fallback reads
+		ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+		concatenated.write(gzipStream(text(100)));
+		concatenated.write(gzipStream(text(200)));
+		byte[] expected = new byte[300];
+		System.arraycopy(text(100), 0, expected, 0, 100);
+		System.arraycopy(text(200), 0, expected, 100, 200);
+		int length = CompressionEngine.gunzip(concatenated.toByteArray(), 0, concatenated.size(), 1);
+		Assert.assertArrayEquals(expected, Arrays.copyOf(CompressionEngine.buffer(1), length));
+	}
+
+	@Test(expected = IOException.class)
+	public void testGunzipCorruptValue() throws IOException {
+
+		byte[] gzipped = gzipStream(text(1000));
+		gzipped[gzipped.length / 2] ^= 0x55;
+		CompressionEngine.gunzip(gzipped, 0, gzipped.length);
+	}
+
+	@Test
+	public void testBase64() throws IOException {
+
+		for (int length = 0; length < 64; length++) {
+			byte[] value = new byte[length];
+			random.nextBytes(value);
+
+			byte[] encoded = new byte[Base64Coder.encodedLength(length)];
+			int n = Base64Coder.encode(value, 0, length, encoded, 0);
+			String jersey = new String(Base64.encode(value), StandardCharsets.US_ASCII);
+			Assert.assertEquals(jersey, new String(encoded, 0, n, StandardCharsets.US_ASCII));
+
+			byte[] decoded = new byte[Base64Coder.maxDecodedLength(jersey.length())];
+			n = Base64Coder.decode(jersey, 0, jersey.length(), decoded, 0);
+			Assert.assertArrayEquals(value, Arrays.copyOf(decoded, n));
+		}
+
+		byte[] decoded = new byte[16];
+		int n = Base64Coder.decode("YWJj\r\nZGVm", 0, 10, decoded, 0);
+		Assert.assertEquals("abcdef", new String(decoded, 0, n, StandardCharsets.US_ASCII));
+
+		try {
+			Base64Coder.decode("YW*j", 0, 4, decoded, 0);
+			Assert.fail("expected an IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testEncodeUtf8() {
+
+		String[] values = { "", "ascii", "caf\u00e9", "\u4e2d\u6587", "emoji \ud83d\ude00", "unpaired \ud83d and \ude00" };
+		for (String value : values) {
+			int n = CompressionEngine.encodeUtf8(value, 0);
+			Assert.assertArrayEquals(value, value.getBytes(StandardCharsets.UTF_8), Arrays.copyOf(CompressionEngine.buffer(0), n));
+		}
+	}
+
+	@Test
+	public void testScratchBuffers() {
+
+		byte[] buffer = CompressionEngine.scratch(0, 100);
+		Assert.assertSame(buffer, CompressionEngine.scratch(0, 10));
+		Assert.assertNotSame(buffer, CompressionEngine.scratch(1, 10));
+
+		byte[] grown = CompressionEngine.scratch(0, buffer.length + 1);
+		Assert.assertTrue(grown.length > buffer.length);
+		Assert.assertSame(grown, CompressionEngine.scratch(0, buffer.length + 1));
+
+		// too large to keep around, but kept until a smaller buffer is asked for so that results can be read back
+		byte[] large = CompressionEngine.scratch(0, CompressionEngine.MaxRetainedScratchBytes + 1);
+		Assert.assertSame(large, CompressionEngine.buffer(0));
+		Assert.assertSame(large, CompressionEngine.scratch(0, CompressionEngine.MaxRetainedScratchBytes + 1));
+		byte[] small = CompressionEngine.scratch(0, 10);
+		Assert.assertTrue(small.length <= CompressionEngine.MaxRetainedScratchBytes);
+		Assert.assertSame(small, CompressionEngine.buffer(0));
+	}
+
+	@Test
+	public void testZipUtilsLargeValues() throws IOException {
+
+		// values whose intermediate results outgrow the retained scratch buffers
+		for (int size : new int[] { 340000, 360000, 1100000 }) {
+			String value = new String(text(size), StandardCharsets.UTF_8);
+			Assert.assertEquals(value, ZipUtils.decompressFromBase64String(ZipUtils.compressStringToBase64String(value)));
+			Assert.assertEquals(value, ZipUtils.decompressString(ZipUtils.compressString(value)));
+			Assert.assertEquals(value, ZipUtils.decompressStringNonBase64(ZipUtils.compressStringNonBase64(value)));
+		}
+
+		byte[] bytes = text(3 * 1024 * 1024);
+		Assert.assertArrayEquals(bytes, ZipUtils.decompressBytesNonBase64(ZipUtils.compressBytesNonBase64(bytes)));
+
+		// 3 UTF-8 bytes per character
+		String wide = wide(400000);
+		Assert.assertEquals(wide, ZipUtils.decompressFromBase64String(ZipUtils.compressStringToBase64String(wide)));
+	}
+
+	@Test
+	public void testZipUtilsIsCompressedOnlyPeeks() throws IOException {
+
+		String value = new String(text(4096), StandardCharsets.UTF_8);
+		String compressed = ZipUtils.compressStringToBase64String(value);
+
+		Assert.assertTrue(ZipUtils.isCompressed(compressed));
+		Assert.assertFalse(ZipUtils.isCompressed(value));
+		Assert.assertEquals(value, ZipUtils.decompressFromBase64String(compressed));
+
+		// still readable by the jersey based decoding used before
+		byte[] gzipped = Base64.decode(compressed);
+		byte[] inner = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped)));
+		Assert.assertEquals(value, new String(Base64.decode(inner), StandardCharsets.UTF_8));
+	}
+
+	private static byte[] gzipStream(byte[] value) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		GZIPOutputStream gos = new GZIPOutputStream(baos);
+		gos.write(value);
+		gos.close();
+		return baos.toByteArray();
+	}
+
+	private static byte[] text(int length) {
+		Random random = new Random(length);
+		byte[] text = new byte[length];
+		for (int i = 0; i < length; i++) {
+			text[i] = (byte) ('a' + random.nextInt(8));
+		}
+		return text;
+	}
+
+	private static String wide(int length) {
+		Random random = new Random(length);
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) (0x4e00 + random.nextInt(0x5000));
+		}
+		return new String(chars);
+	}
+}
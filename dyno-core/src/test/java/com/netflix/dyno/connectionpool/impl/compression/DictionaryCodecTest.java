@@ -0,0 +1,138 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+
+public class DictionaryCodecTest {
+
+	// dictionaries are loaded for the whole JVM, so every test uses ids of its own
+
+	@Test
+	public void testSmallValuesCompressBetter() throws IOException {
+
+		Random random = new Random(1);
+		DictionaryTrainer trainer = new DictionaryTrainer(500);
+		for (int i = 0; i < 2000; i++) {
+			trainer.addSample(json(random));
+		}
+		Assert.assertEquals(500, trainer.getSampleCount());
+
+		CompressionDictionary dictionary = trainer.train(101, 16 * 1024);
+		Assert.assertTrue(dictionary.getLength() <= 16 * 1024);
+		DictionaryCodec.load(dictionary);
+		ValueCodec codec = DictionaryCodec.forDictionary(101);
+
+		int plain = 0;
+		int withDictionary = 0;
+		for (int i = 0; i < 100; i++) {
+			byte[] value = json(random);
+			byte[] compressed = ValueCodecs.compress(codec, value);
+			Assert.assertArrayEquals(value, ValueCodecs.decompress(compressed));
+
+			plain += ValueCodecs.compress(new DeflateCodec(), value).length;
+			withDictionary += compressed.length;
+		}
+		Assert.assertTrue(plain + " vs " + withDictionary, withDictionary < plain * 2 / 3);
+	}
+
+	@Test
+	public void testOldDictionariesStayReadable() throws IOException {
+
+		Random random = new Random(2);
+		List<byte[]> samples = new ArrayList<byte[]>();
+		for (int i = 0; i < 200; i++) {
+			samples.add(json(random));
+		}
+
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("DictionaryCodecTest")
+				.setCompressionStrategy(CompressionStrategy.DICTIONARY)
+				.withCompressionDictionary(new CompressionDictionary(201, DictionaryTrainer.train(samples, 4096)));
+
+		String value = new String(json(random), StandardCharsets.UTF_8);
+		String compressedWithFirst = ValueCodecs.compressToBase64String(ValueCodecs.forConfiguration(config), value);
+
+		// a new dictionary is loaded last and becomes the default
+		config.withCompressionDictionary(new CompressionDictionary(202, DictionaryTrainer.train(samples.subList(0, 100), 2048)));
+		String compressedWithSecond = ValueCodecs.compressToBase64String(ValueCodecs.forConfiguration(config), value);
+
+		Assert.assertNotEquals(compressedWithFirst, compressedWithSecond);
+		Assert.assertEquals(value, ValueCodecs.decompressFromBase64String(compressedWithFirst));
+		Assert.assertEquals(value, ValueCodecs.decompressFromBase64String(compressedWithSecond));
+
+		// and the first one can still be chosen by id
+		config.setCompressionDictionaryId(201);
+		Assert.assertEquals(compressedWithFirst,
+				ValueCodecs.compressToBase64String(ValueCodecs.forConfiguration(config), value));
+	}
+
+	@Test
+	public void testDictionaryIds() throws IOException {
+
+		byte[] data = "{\"id\":,\"name\":\"\",\"value\":".getBytes(StandardCharsets.UTF_8);
+		DictionaryCodec.load(new CompressionDictionary(301, data));
+		DictionaryCodec.load(new CompressionDictionary(301, data.clone()));
+
+		try {
+			DictionaryCodec.load(new CompressionDictionary(301, "different".getBytes(StandardCharsets.UTF_8)));
+			Assert.fail("a dictionary id was reused for different content");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			ValueCodecs.compress(DictionaryCodec.forDictionary(302), data);
+			Assert.fail("compressed with a dictionary that is not loaded");
+		} catch (IOException e) {
+			// expected
+		}
+
+		byte[] compressed = ValueCodecs.compress(DictionaryCodec.forDictionary(301), data);
+		Assert.assertEquals(DictionaryCodec.Id, compressed[2]);
+		Assert.assertEquals(301, ((compressed[ValueCodecs.HeaderLength] & 0xFF) << 8) | (compressed[ValueCodecs.HeaderLength + 1] & 0xFF));
+	}
+
+	private static byte[] json(Random random) {
+		String[] states = { "ACTIVE", "SUSPENDED", "PENDING", "CLOSED" };
+		String[] countries = { "US", "BR", "DE", "JP", "IN", "FR" };
+
+		StringBuilder sb = new StringBuilder("{\"accountId\":").append(random.nextInt(100000000))
+				.append(",\"profileName\":\"user").append(random.nextInt(100000))
+				.append("\",\"state\":\"").append(states[random.nextInt(states.length)])
+				.append("\",\"country\":\"").append(countries[random.nextInt(countries.length)])
+				.append("\",\"createdAt\":").append(1500000000000L + random.nextInt(Integer.MAX_VALUE))
+				.append(",\"preferences\":{\"autoplay\":").append(random.nextBoolean())
+				.append(",\"subtitles\":").append(random.nextBoolean())
+				.append(",\"maturityLevel\":").append(random.nextInt(5))
+				.append("},\"devices\":[");
+		int devices = 1 + random.nextInt(4);
+		for (int i = 0; i < devices; i++) {
+			sb.append(i == 0 ? "" : ",").append("{\"deviceId\":\"").append(Long.toHexString(random.nextLong()))
+					.append("\",\"lastSeen\":").append(1500000000000L + random.nextInt(Integer.MAX_VALUE)).append("}");
+		}
+		return sb.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.compression;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
+
+public class ValueCodecsTest {
+
+	private final ValueCodec[] codecs = { new DeflateCodec(), new DeflateCodec(9), new Lz4Codec(), new GzipCodec() };
+
+	@Test
+	public void testRoundTrip() throws IOException {
+
+		Random random = new Random(1);
+		byte[] randomBytes = new byte[100000];
+		random.nextBytes(randomBytes);
+
+		byte[] run = new byte[70000];
+		Arrays.fill(run, (byte) 'a');
+
+		byte[][] values = { new byte[0], "short".getBytes(StandardCharsets.UTF_8), text(100),
+				text(200000), randomBytes, run };
+
+		for (ValueCodec codec : codecs) {
+			for (byte[] value : values) {
+				byte[] compressed = ValueCodecs.compress(codec, value);
+				Assert.assertTrue(codec.getName(), ValueCodecs.isCompressed(compressed));
+				Assert.assertArrayEquals(codec.getName(), value, ValueCodecs.decompress(compressed));
+			}
+
+			byte[] compressed = ValueCodecs.compress(codec, text(200000));
+			Assert.assertTrue(codec.getName(), compressed.length < 200000 * 2 / 3);
+		}
+	}
+
+	@Test
+	public void testStringRoundTrip() throws IOException {
+
+		String value = new String(text(4096), StandardCharsets.UTF_8) + "\u00e9\u4e2d";
+
+		for (ValueCodec codec : codecs) {
+			String compressed = ValueCodecs.compressToBase64String(codec, value);
+			Assert.assertTrue(ValueCodecs.isCompressed(compressed));
+			Assert.assertEquals(value, ValueCodecs.decompressFromBase64String(compressed));
+		}
+
+		// a single Base64 pass instead of two
+		String deflated = ValueCodecs.compressToBase64String(new DeflateCodec(), value);
+		Assert.assertTrue(deflated.length() < ZipUtils.compressStringToBase64String(value).length());
+
+		Assert.assertFalse(ValueCodecs.isCompressed(value));
+		Assert.assertFalse(ValueCodecs.isCompressed("3PQBAAAAAAAAAAAA"));
+	}
+
+	@Test
+	public void testLargeValues() throws IOException {
+
+		Random random = new Random(3);
+		byte[] bytes = text(3 * 1024 * 1024);
+		byte[] randomBytes = new byte[1500000];
+		random.nextBytes(randomBytes);
+
+		StringBuilder sb = new StringBuilder(400000);
+		while (sb.length() < 400000) {
+			// 3 UTF-8 bytes per character
+			sb.append((char) (0x4e00 + random.nextInt(0x5000)));
+		}
+		String wide = sb.toString();
+		String ascii = new String(text(1100000), StandardCharsets.UTF_8);
+
+		for (ValueCodec codec : codecs) {
+			Assert.assertArrayEquals(codec.getName(), bytes, ValueCodecs.decompress(ValueCodecs.compress(codec, bytes)));
+			Assert.assertArrayEquals(codec.getName(), randomBytes, ValueCodecs.decompress(ValueCodecs.compress(codec, randomBytes)));
+			Assert.assertEquals(codec.getName(), wide, ValueCodecs.decompressFromBase64String(ValueCodecs.compressToBase64String(codec, wide)));
+			Assert.assertEquals(codec.getName(), ascii, ValueCodecs.decompressFromBase64String(ValueCodecs.compressToBase64String(codec, ascii)));
+		}
+	}
+
+	@Test
+	public void testLegacyValues() throws IOException {
+
+		String value = new String(text(4096), StandardCharsets.UTF_8);
+
+		String legacy = ZipUtils.compressStringToBase64String(value);
+		Assert.assertTrue(ValueCodecs.isCompressed(legacy));
+		Assert.assertEquals(value, ValueCodecs.decompressFromBase64String(legacy));
+
+		// binary values without a header are only taken for GZIP when asked to
+		byte[] legacyBytes = ZipUtils.compressBytesNonBase64(text(4096));
+		Assert.assertFalse(ValueCodecs.isCompressed(legacyBytes));
+		Assert.assertSame(legacyBytes, ValueCodecs.decompress(legacyBytes));
+		Assert.assertArrayEquals(text(4096), ValueCodecs.decompress(legacyBytes, true));
+
+		// values that are not compressed come back untouched
+		byte[] plain = text(100);
+		Assert.assertFalse(ValueCodecs.isCompressed(plain));
+		Assert.assertSame(plain, ValueCodecs.decompress(plain));
+	}
+
+	@Test
+	public void testMalformedLz4Value() {
+
+		byte[] compressed;
+		try {
+			compressed = ValueCodecs.compress(new Lz4Codec(), text(4096));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		// claims a longer original value than the compressed data holds
+		compressed[6]++;
+		try {
+			new Lz4Codec().decompress(compressed, ValueCodecs.HeaderLength, compressed.length - ValueCodecs.HeaderLength,
+					new byte[4097], 0, 4097);
+			Assert.fail("expected an IOException");
+		} catch (IOException e) {
+			// expected
+		}
+
+		// a binary value that does not decompress is taken for one that was stored as is
+		Assert.assertSame(compressed, ValueCodecs.decompress(compressed));
+	}
+
+	@Test
+	public void testHeaderLengthIsBoundedByValueLength() throws IOException {
+
+		byte[] compressed = ValueCodecs.compress(new DeflateCodec(), text(4096));
+		Assert.assertTrue(ValueCodecs.isCompressed(compressed));
+
+		// a value that starts like a header but claims far more than its codec can expand it to is not compressed
+		byte[] lookalike = Arrays.copyOf(compressed, 20);
+		lookalike[3] = 0x7F;
+		Assert.assertFalse(ValueCodecs.isCompressed(lookalike));
+		Assert.assertSame(lookalike, ValueCodecs.decompress(lookalike));
+
+		byte[] lz4Lookalike = ValueCodecs.compress(new Lz4Codec(), text(100));
+		lz4Lookalike[4] = 0x7F;
+		Assert.assertFalse(ValueCodecs.isCompressed(lz4Lookalike));
+	}
+
+	@Test
+	public void testCustomCodec() throws IOException {
+
+		ValueCodec reversing = new ValueCodec() {
+			@Override
+			public int getId() {
+				return ValueCodecs.MinCustomCodecId;
+			}
+
+			@Override
+			public String getName() {
+				return "REVERSE";
+			}
+
+			@Override
+			public int maxCompressedLength(int length) {
+				return length;
+			}
+
+			@Override
+			public int maxDecompressedLength(int length) {
+				return length;
+			}
+
+			@Override
+			public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) {
+				for (int i = 0; i < length; i++) {
+					dest[destOffset + i] = src[srcOffset + length - 1 - i];
+				}
+				return length;
+			}
+
+			@Override
+			public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int originalLength) {
+				compress(src, srcOffset, length, dest, destOffset);
+			}
+		};
+
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("test")
+				.setCompressionStrategy(CompressionStrategy.CODEC)
+				.withValueCodec(reversing);
+		Assert.assertSame(reversing, ValueCodecs.forConfiguration(config));
+		Assert.assertSame(reversing, ValueCodecs.getCodec(ValueCodecs.MinCustomCodecId));
+
+		byte[] compressed = ValueCodecs.compress(reversing, text(10));
+		Assert.assertArrayEquals(text(10), ValueCodecs.decompress(compressed));
+
+		Assert.assertNull(ValueCodecs.forConfiguration(config.setCompressionStrategy(CompressionStrategy.THRESHOLD)));
+		Assert.assertTrue(ValueCodecs.forConfiguration(config.setCompressionStrategy(CompressionStrategy.LZ4)) instanceof Lz4Codec);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCustomCodecIdIsChecked() {
+
+		ValueCodecs.register(new DeflateCodec());
+	}
+
+	private static byte[] text(int length) {
+
+		Random random = new Random(0);
+		String[] words = { "{\"id\":", "\"name\":", "\"value\":", "true", "false", "null", "},", "[", "]" };
+		StringBuilder sb = new StringBuilder(length + 16);
+
+		while (sb.length() < length) {
+			sb.append(words[random.nextInt(words.length)]);
+			sb.append(random.nextInt(100000));
+		}
+		sb.setLength(length);
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.PrimitiveHashPartitioner;
+
+/**
+ * Checks that the allocation free hashing returns exactly the same tokens as hashing the bytes produced by
+ * String.getBytes() and ByteBuffer did before.
+ */
+public class HashPartitionerTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final Random random = new Random(42);
+
+	@Test
+	public void testMurmur1() throws Exception {
+		verify(new Murmur1HashPartitioner(), new ReferenceHash() {
+			@Override
+			public long hash(byte[] b) {
+				return UnsignedIntsUtils.toLong(Murmur1Hash.hash(ByteBuffer.wrap(b), 0xdeadbeef * b.length));
+			}
+		});
+	}
+
+	@Test
+	public void testMurmur2() throws Exception {
+		verify(new Murmur2HashPartitioner(), new ReferenceHash() {
+			@Override
+			public long hash(byte[] b) {
+				return UnsignedIntsUtils.toLong(murmur2(b, b.length, 0x9747b28c));
+			}
+		});
+	}
+
+	@Test
+	public void testMurmur3() throws Exception {
+		verify(new Murmur3HashPartitioner(), new ReferenceHash() {
+			@Override
+			public long hash(byte[] b) {
+				return UnsignedIntsUtils.toLong(Murmur3Hash.hash32(b, b.length));
+			}
+		});
+	}
+
+	@Test
+	public void testEncodeUtf8() throws Exception {
+		for (int i = 0; i < 10000; i++) {
+			String key = randomKey(random.nextInt(40));
+			byte[] dest = new byte[key.length() * 3];
+			int length = AbstractHashPartitioner.encodeUtf8(key, dest);
+			Assert.assertArrayEquals(key, key.getBytes(UTF_8), Arrays.copyOf(dest, length));
+		}
+	}
+
+	@Test
+	public void testNullKey() throws Exception {
+		Assert.assertEquals(0L, new Murmur1HashPartitioner().hashToLong((CharSequence) null));
+		Assert.assertEquals(Long.valueOf(0L), new Murmur1HashPartitioner().hash((String) null));
+	}
+
+	private interface ReferenceHash {
+		long hash(byte[] b);
+	}
+
+	private void verify(PrimitiveHashPartitioner partitioner, ReferenceHash reference) {
+
+		for (int i = 0; i < 20000; i++) {
+
+			String key = randomKey(random.nextInt(i % 100 == 0 ? 3000 : 40));
+			byte[] bytes = key.getBytes(UTF_8);
+			long expected = reference.hash(bytes);
+
+			Assert.assertEquals(key, expected, partitioner.hashToLong(key));
+			Assert.assertEquals(key, expected, partitioner.hashToLong(new StringBuilder(key)));
+			Assert.assertEquals(key, Long.valueOf(expected), partitioner.hash(key));
+
+			// the same bytes somewhere in the middle of a larger array
+			byte[] padded = new byte[bytes.length + 7];
+			System.arraycopy(bytes, 0, padded, 3, bytes.length);
+			Assert.assertEquals(key, expected, partitioner.hashToLong(padded, 3, bytes.length));
+
+			long longKey = random.nextLong();
+			byte[] longBytes = ByteBuffer.allocate(8).putLong(0, longKey).array();
+			Assert.assertEquals(reference.hash(longBytes), partitioner.hashToLong(longKey));
+			Assert.assertEquals(Long.valueOf(reference.hash(longBytes)), partitioner.hash(longKey));
+
+			int intKey = random.nextInt();
+			byte[] intBytes = ByteBuffer.allocate(4).putInt(intKey).array();
+			Assert.assertEquals(reference.hash(intBytes), partitioner.hashToLong(intKey));
+			Assert.assertEquals(Long.valueOf(reference.hash(intBytes)), partitioner.hash(intKey));
+		}
+	}
+
+	/**
+	 * @return a key that mixes ascii with 2 and 3 byte chars, surrogate pairs and unpaired surrogates
+	 */
+	private String randomKey(int length) {
+
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			switch (random.nextInt(8)) {
+			case 0:
+				sb.append((char) (0x80 + random.nextInt(0x780)));
+				break;
+			case 1:
+				sb.append((char) (0x800 + random.nextInt(0xD000)));
+				break;
+			case 2:
+				sb.appendCodePoint(0x10000 + random.nextInt(0xFFFFF));
+				break;
+			case 3:
+				if (random.nextInt(10) == 0) {
+					sb.append((char) (0xD800 + random.nextInt(0x800)));
+					break;
+				}
+			default:
+				sb.append((char) random.nextInt(0x80));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Murmur2Hash.hash32 as it was before it could hash part of an array
+	 */
+	private static int murmur2(final byte[] data, int length, int seed) {
+		final int m = 0x5bd1e995;
+		final int r = 24;
+
+		int h = seed^length;
+		int length4 = length/4;
+
+		for (int i=0; i<length4; i++) {
+			final int i4 = i*4;
+			int k = (data[i4+0]&0xff) +((data[i4+1]&0xff)<<8)
+					+((data[i4+2]&0xff)<<16) +((data[i4+3]&0xff)<<24);
+			k *= m;
+			k ^= k >>> r;
+			k *= m;
+			h *= m;
+			h ^= k;
+		}
+
+		switch (length%4) {
+		case 3: h ^= (data[(length&~3) +2]&0xff) << 16;
+		case 2: h ^= (data[(length&~3) +1]&0xff) << 8;
+		case 1: h ^= (data[length&~3]&0xff);
+				h *= m;
+		}
+
+		h ^= h >>> 13;
+		h *= m;
+		h ^= h >>> 15;
+
+		return h;
+	}
+}
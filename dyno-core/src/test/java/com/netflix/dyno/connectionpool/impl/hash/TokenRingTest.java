@@ -0,0 +1,122 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.hash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TokenRingTest {
+
+	@Test
+	public void testTokenSearch() throws Exception {
+
+		Map<Long, String> owners = new HashMap<Long, String>();
+		for (long token = 10; token <= 100; token += 10) {
+			owners.put(token, "h" + token);
+		}
+		TokenRing<String> ring = TokenRing.create(owners);
+
+		Assert.assertEquals("h10", ring.getTokenOwner(0));
+		Assert.assertEquals("h10", ring.getTokenOwner(10));
+		Assert.assertEquals("h20", ring.getTokenOwner(15));
+		Assert.assertEquals("h30", ring.getTokenOwner(30));
+		Assert.assertEquals("h60", ring.getTokenOwner(58));
+		Assert.assertEquals("h100", ring.getTokenOwner(100));
+		// wraps around to the first token
+		Assert.assertEquals("h10", ring.getTokenOwner(101));
+		Assert.assertEquals("h10", ring.getTokenOwner(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testEmptyAndSingleToken() throws Exception {
+
+		TokenRing<String> ring = TokenRing.empty();
+		Assert.assertTrue(ring.isEmpty());
+		Assert.assertNull(ring.getTokenOwner(42));
+
+		ring = ring.withToken(100, "h1");
+		Assert.assertEquals(1, ring.size());
+		Assert.assertEquals("h1", ring.getTokenOwner(0));
+		Assert.assertEquals("h1", ring.getTokenOwner(100));
+		Assert.assertEquals("h1", ring.getTokenOwner(4294967295L));
+	}
+
+	@Test
+	public void testSameOwnersAsDynoBinarySearch() throws Exception {
+
+		Random random = new Random(1);
+
+		for (int numTokens = 1; numTokens <= 65; numTokens++) {
+
+			Map<Long, Long> owners = new HashMap<Long, Long>();
+			while (owners.size() < numTokens) {
+				long token = random.nextLong() & 0xFFFFFFFFL;
+				owners.put(token, token);
+			}
+			List<Long> tokens = new ArrayList<Long>(owners.keySet());
+			Collections.sort(tokens);
+
+			DynoBinarySearch<Long> search = new DynoBinarySearch<Long>(tokens);
+			TokenRing<Long> ring = TokenRing.create(owners);
+
+			for (int i = 0; i < 2000; i++) {
+				long hash = random.nextLong() & 0xFFFFFFFFL;
+				Assert.assertEquals(search.getTokenOwner(hash), ring.getTokenOwner(hash));
+			}
+			for (Long token : tokens) {
+				Assert.assertEquals(token, ring.getTokenOwner(token));
+				Assert.assertEquals(search.getTokenOwner(token - 1), ring.getTokenOwner(token - 1));
+				Assert.assertEquals(search.getTokenOwner(token + 1), ring.getTokenOwner(token + 1));
+			}
+		}
+	}
+
+	@Test
+	public void testCopyOnWrite() throws Exception {
+
+		Map<Long, String> owners = new HashMap<Long, String>();
+		owners.put(100L, "h1");
+		owners.put(300L, "h3");
+		TokenRing<String> ring = TokenRing.create(owners);
+
+		TokenRing<String> added = ring.withToken(200L, "h2");
+		Assert.assertEquals(3, added.size());
+		Assert.assertEquals("h2", added.getTokenOwner(150));
+		// the original ring is not changed
+		Assert.assertEquals(2, ring.size());
+		Assert.assertEquals("h3", ring.getTokenOwner(150));
+
+		TokenRing<String> replaced = added.withToken(200L, "h2'");
+		Assert.assertEquals(3, replaced.size());
+		Assert.assertEquals("h2'", replaced.getTokenOwner(150));
+		Assert.assertEquals("h2", added.getTokenOwner(150));
+
+		TokenRing<String> removed = added.withoutToken(100L);
+		Assert.assertEquals(2, removed.size());
+		Assert.assertEquals("h2", removed.getTokenOwner(50));
+		Assert.assertEquals("h2", removed.getTokenOwner(350));
+		Assert.assertEquals("h1", added.getTokenOwner(50));
+
+		Assert.assertSame(removed, removed.withoutToken(100L));
+	}
+}
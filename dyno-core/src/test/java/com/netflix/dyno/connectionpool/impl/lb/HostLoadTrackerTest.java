@@ -0,0 +1,118 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.lb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+
+public class HostLoadTrackerTest {
+
+	private final Host h1 = new Host("h1", Status.Up);
+	private final Host h2 = new Host("h2", Status.Up);
+
+	@Test
+	public void testUnknownHost() {
+
+		HostLoadTracker tracker = new HostLoadTracker();
+
+		Assert.assertEquals(0, tracker.getInFlight(h1));
+		Assert.assertEquals(0.0, tracker.getLatency(h1), 0.0);
+		Assert.assertFalse(tracker.hasLatency(h1));
+		// scored as the host it is compared with
+		Assert.assertEquals(5.0, tracker.getScore(h1, 5.0), 0.0);
+
+		// an operation in flight still counts before the first one finishes
+		tracker.operationStarted(h1);
+		Assert.assertEquals(40.0, tracker.getScore(h1, 5.0), 0.0);
+	}
+
+	@Test
+	public void testMovingAverage() {
+
+		HostLoadTracker tracker = new HostLoadTracker();
+
+		record(tracker, h1, 1000, TimeUnit.MICROSECONDS);
+		Assert.assertEquals(1000000, tracker.getLatency(h1), 1000);
+
+		// a new sample moves the average a quarter of the way
+		record(tracker, h1, 5000, TimeUnit.MICROSECONDS);
+		Assert.assertEquals(2000000, tracker.getLatency(h1), 1000);
+
+		tracker.removeHost(h1);
+		Assert.assertEquals(0.0, tracker.getLatency(h1), 0.0);
+	}
+
+	@Test
+	public void testInFlightRaisesScore() {
+
+		HostLoadTracker tracker = new HostLoadTracker();
+
+		record(tracker, h1, 1, TimeUnit.MILLISECONDS);
+		record(tracker, h2, 1, TimeUnit.MILLISECONDS);
+		double idleScore = tracker.getScore(h1, 0);
+
+		tracker.operationStarted(h1);
+		tracker.operationStarted(h1);
+		Assert.assertEquals(2, tracker.getInFlight(h1));
+		Assert.assertTrue(tracker.getScore(h1, 0) > tracker.getScore(h2, 0));
+		Assert.assertEquals(27 * idleScore, tracker.getScore(h1, 0), idleScore);
+
+		tracker.operationFinished(h1, 1, TimeUnit.MILLISECONDS);
+		tracker.operationFinished(h1, 1, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(0, tracker.getInFlight(h1));
+	}
+
+	@Test
+	public void testIdleHostDecays() throws Exception {
+
+		HostLoadTracker tracker = new HostLoadTracker();
+
+		record(tracker, h1, 1, TimeUnit.MILLISECONDS);
+		record(tracker, h1, 10, TimeUnit.MILLISECONDS);
+		double latency = tracker.getLatency(h1);
+
+		Thread.sleep(200);
+		Assert.assertTrue(tracker.getLatency(h1) < latency * 0.95);
+	}
+
+	@Test
+	public void testIdleHostDecaysToLowestSample() throws Exception {
+
+		HostLoadTracker tracker = new HostLoadTracker();
+
+		record(tracker, h1, 10, TimeUnit.MILLISECONDS);
+		for (int i = 0; i < 20; i++) {
+			record(tracker, h1, 100, TimeUnit.MILLISECONDS);
+		}
+		Assert.assertTrue(tracker.getLatency(h1) > TimeUnit.MILLISECONDS.toNanos(90));
+
+		// many half lives later the estimate is back at the fastest the host has been, not 0
+		Thread.sleep(1500);
+		Assert.assertTrue(tracker.getLatency(h1) < TimeUnit.MILLISECONDS.toNanos(60));
+		Assert.assertTrue(tracker.getLatency(h1) >= TimeUnit.MILLISECONDS.toNanos(10));
+		Assert.assertTrue(tracker.hasLatency(h1));
+	}
+
+	private static void record(HostLoadTracker tracker, Host host, long latency, TimeUnit unit) {
+		tracker.operationStarted(host);
+		tracker.operationFinished(host, latency, unit);
+	}
+}
@@ -46,6 +46,7 @@ import com.netflix.dyno.connectionpool.Host;
 import com.netflix.dyno.connectionpool.Host.Status;
 import com.netflix.dyno.connectionpool.HostConnectionPool;
 import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
 import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
@@ -66,6 +67,11 @@ public class HostSelectionWithFallbackTest {
 		public String getKey() {
 			return "11";
 		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
 	};
 
 	private final ConnectionPoolConfigurationImpl cpConfig = new ConnectionPoolConfigurationImpl("test");
@@ -241,6 +247,177 @@ public class HostSelectionWithFallbackTest {
         Assert.assertTrue(!fallbackHost.equals("h1") && !fallbackHost.equals("h2"));
 	}
 
+	@Test
+	public void testBatchFallbackPerInactivePool() throws Exception {
+
+		cpConfig.setLoadBalancingStrategy(LoadBalancingStrategy.TokenAware);
+		HostSelectionWithFallback<Integer> selection = new HostSelectionWithFallback<Integer>(cpConfig, cpMonitor);
+
+		Map<Host, HostConnectionPool<Integer>> pools = new HashMap<Host, HostConnectionPool<Integer>>();
+
+		for (Host host : hosts) {
+			poolStatus.put(host, new AtomicBoolean(true));
+			pools.put(host, getMockHostConnectionPool(host, poolStatus.get(host)));
+		}
+
+		selection.initWithHosts(pools);
+
+		List<BaseOperation<Integer, ?>> ops = new ArrayList<BaseOperation<Integer, ?>>();
+		for (int i=0; i<100; i++) {
+			ops.add(getKeyOperation("" + i));
+		}
+
+		Map<HostConnectionPool<Integer>, List<BaseOperation<Integer, ?>>> batch = selection.getPoolsForOperationBatch(ops);
+		Assert.assertEquals(2, batch.size());
+		Assert.assertTrue(batch.containsKey(pools.get(h1)));
+		Assert.assertTrue(batch.containsKey(pools.get(h2)));
+		List<BaseOperation<Integer, ?>> h1Ops = batch.get(pools.get(h1));
+		List<BaseOperation<Integer, ?>> h2Ops = batch.get(pools.get(h2));
+
+		// only the operations of h1 go to one of the hosts with the same token in a remote rack
+		poolStatus.get(h1).set(false);
+
+		batch = selection.getPoolsForOperationBatch(ops);
+		Assert.assertEquals(2, batch.size());
+		Assert.assertEquals(h2Ops, batch.get(pools.get(h2)));
+		HostConnectionPool<Integer> fallbackPool = batch.get(pools.get(h3)) != null ? pools.get(h3) : pools.get(h5);
+		Assert.assertEquals(h1Ops, batch.get(fallbackPool));
+
+		// nothing can serve the token of h1 any more
+		poolStatus.get(h3).set(false);
+		poolStatus.get(h5).set(false);
+
+		try {
+			selection.getPoolsForOperationBatch(ops);
+			Assert.fail("Expected NoAvailableHostsException");
+		} catch (NoAvailableHostsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testLatencyAwareSelection() throws Exception {
+
+		cpConfig.setLoadBalancingStrategy(LoadBalancingStrategy.TokenAware);
+		cpConfig.setLatencyAwareSelectionEnabled(true);
+		HostSelectionWithFallback<Integer> selection = new HostSelectionWithFallback<Integer>(cpConfig, cpMonitor);
+
+		Map<Host, HostConnectionPool<Integer>> pools = new HashMap<Host, HostConnectionPool<Integer>>();
+
+		for (Host host : hosts) {
+			poolStatus.put(host, new AtomicBoolean(true));
+			pools.put(host, getMockHostConnectionPool(host, poolStatus.get(host)));
+		}
+
+		selection.initWithHosts(pools);
+		BaseOperation<Integer, Integer> readOperation = getOperation("GET", "11");
+
+		HostLoadTracker hostLoads = selection.getHostLoadTracker();
+		for (Host host : hosts) {
+			recordOperation(hostLoads, host, 2, TimeUnit.MILLISECONDS);
+		}
+
+		// all replicas are equally fast, the local one is kept
+		for (int i=0; i<10; i++) {
+			Connection<Integer> conn = selection.getConnection(readOperation, 1, TimeUnit.MILLISECONDS);
+			Assert.assertEquals("localTestRack", conn.getHost().getRack());
+		}
+		Host localHost = selection.getConnection(readOperation, 1, TimeUnit.MILLISECONDS).getHost();
+
+		// the local replica is a bit slower, but not by more than the bias
+		recordOperation(hostLoads, localHost, 5, TimeUnit.MILLISECONDS);
+		for (int i=0; i<10; i++) {
+			Connection<Integer> conn = selection.getConnection(readOperation, 1, TimeUnit.MILLISECONDS);
+			Assert.assertEquals(localHost, conn.getHost());
+		}
+
+		// the local replica is degraded, the operation goes to the replica in a remote rack
+		for (int i=0; i<10; i++) {
+			recordOperation(hostLoads, localHost, 50, TimeUnit.MILLISECONDS);
+		}
+		Set<String> hostnames = new HashSet<String>();
+		for (int i=0; i<20; i++) {
+			Connection<Integer> conn = selection.getConnection(readOperation, 1, TimeUnit.MILLISECONDS);
+			hostnames.add(conn.getHost().getHostAddress());
+		}
+		if (localHost.equals(h1)) {
+			verifyExactly(hostnames, "h3", "h5");
+		} else {
+			verifyExactly(hostnames, "h4", "h6");
+		}
+
+		// operations that are not latency aware, e.g. writes, stay in the local rack
+		for (int i=0; i<10; i++) {
+			Assert.assertEquals(localHost, selection.getConnection(testOperation, 1, TimeUnit.MILLISECONDS).getHost());
+		}
+
+		// disabled again, the local rack is always preferred
+		cpConfig.setLatencyAwareSelectionEnabled(false);
+		Assert.assertNull(selection.getHostLoadTracker());
+		Assert.assertEquals(localHost, selection.getConnection(readOperation, 1, TimeUnit.MILLISECONDS).getHost());
+	}
+
+	@Test
+	public void testLatencyAwareSelectionWithUnmeasuredRemotes() throws Exception {
+
+		cpConfig.setLoadBalancingStrategy(LoadBalancingStrategy.TokenAware);
+		cpConfig.setLatencyAwareSelectionEnabled(true);
+		HostSelectionWithFallback<Integer> selection = new HostSelectionWithFallback<Integer>(cpConfig, cpMonitor);
+
+		Map<Host, HostConnectionPool<Integer>> pools = new HashMap<Host, HostConnectionPool<Integer>>();
+
+		for (Host host : hosts) {
+			poolStatus.put(host, new AtomicBoolean(true));
+			pools.put(host, getMockHostConnectionPool(host, poolStatus.get(host)));
+		}
+
+		selection.initWithHosts(pools);
+		BaseOperation<Integer, Integer> readOperation = getOperation("GET", "11");
+		HostLoadTracker hostLoads = selection.getHostLoadTracker();
+
+		// only the local replica has been measured, the remote ones are assumed to be as fast
+		Host localHost = selection.getConnection(readOperation, 1, TimeUnit.MILLISECONDS).getHost();
+		for (int i=0; i<10; i++) {
+			recordOperation(hostLoads, localHost, 50, TimeUnit.MILLISECONDS);
+		}
+		for (int i=0; i<10; i++) {
+			Assert.assertEquals(localHost, selection.getConnection(readOperation, 1, TimeUnit.MILLISECONDS).getHost());
+		}
+
+		// until the local replica queues up
+		hostLoads.operationStarted(localHost);
+		Assert.assertNotEquals("localTestRack", selection.getConnection(readOperation, 1, TimeUnit.MILLISECONDS).getHost().getRack());
+	}
+
+	@Test
+	public void testLeastOutstandingSelection() throws Exception {
+
+		cpConfig.setLoadBalancingStrategy(LoadBalancingStrategy.LeastOutstanding);
+		HostSelectionWithFallback<Integer> selection = new HostSelectionWithFallback<Integer>(cpConfig, cpMonitor);
+
+		Map<Host, HostConnectionPool<Integer>> pools = new HashMap<Host, HostConnectionPool<Integer>>();
+
+		for (Host host : hosts) {
+			poolStatus.put(host, new AtomicBoolean(true));
+			pools.put(host, getMockHostConnectionPool(host, poolStatus.get(host)));
+		}
+
+		selection.initWithHosts(pools);
+
+		HostLoadTracker hostLoads = selection.getHostLoadTracker();
+		Assert.assertNotNull(hostLoads);
+
+		// h1 is busy, the local rack's other host gets the operations
+		hostLoads.operationStarted(h1);
+		Set<String> hostnames = new HashSet<String>();
+		for (int i=0; i<10; i++) {
+			Connection<Integer> conn = selection.getConnection(testOperation, 1, TimeUnit.MILLISECONDS);
+			hostnames.add(conn.getHost().getHostAddress());
+		}
+		verifyExactly(hostnames, "h2");
+		Assert.assertTrue(hostLoads.getBorrowWait(h2) > 0);
+	}
+
 	@Test
 	public void testGetConnectionsFromRingNormal() throws Exception {
 
@@ -320,6 +497,34 @@ public class HostSelectionWithFallbackTest {
 		verifyExactly(hostnames, "h5", "h6");
 	}
 
+	@Test
+	public void testGetPoolsToRing() throws Exception {
+
+		HostSelectionWithFallback<Integer> selection = new HostSelectionWithFallback<Integer>(cpConfig, cpMonitor);
+
+		Map<Host, HostConnectionPool<Integer>> pools = new HashMap<Host, HostConnectionPool<Integer>>();
+
+		for (Host host : hosts) {
+			poolStatus.put(host, new AtomicBoolean(true));
+			pools.put(host, getMockHostConnectionPool(host, poolStatus.get(host)));
+		}
+
+		selection.initWithHosts(pools);
+
+		List<HostConnectionPool<Integer>> ringPools = selection.getPoolsToRing();
+		Assert.assertEquals(2, ringPools.size());
+		Assert.assertTrue(ringPools.contains(pools.get(h1)));
+		Assert.assertTrue(ringPools.contains(pools.get(h2)));
+
+		// the token of h1 is served by one of its replicas in a remote rack
+		poolStatus.get(h1).set(false);
+
+		ringPools = selection.getPoolsToRing();
+		Assert.assertEquals(2, ringPools.size());
+		Assert.assertTrue(ringPools.contains(pools.get(h2)));
+		Assert.assertTrue(ringPools.contains(pools.get(h3)) || ringPools.contains(pools.get(h5)));
+	}
+
 	@Test
 	public void testGetConnectionsFromRingWhenHostDown() throws Exception {
 
@@ -580,6 +785,36 @@ public class HostSelectionWithFallbackTest {
 		Assert.assertTrue("Result: " + result + ", expected at least one of: " + hostnames, present);
 	}
 
+	private void recordOperation(HostLoadTracker hostLoads, Host host, long latency, TimeUnit unit) {
+		hostLoads.operationStarted(host);
+		hostLoads.operationFinished(host, latency, unit);
+	}
+
+	private BaseOperation<Integer, Integer> getKeyOperation(final String key) {
+		return getOperation("test", key);
+	}
+
+	private BaseOperation<Integer, Integer> getOperation(final String name, final String key) {
+
+		return new BaseOperation<Integer, Integer>() {
+
+			@Override
+			public String getName() {
+				return name;
+			}
+
+			@Override
+			public String getKey() {
+				return key;
+			}
+
+			@Override
+			public byte[] getBinaryKey() {
+				return null;
+			}
+		};
+	}
+
 	@SuppressWarnings("unchecked")
 	private HostConnectionPool<Integer> getMockHostConnectionPool(final Host host, final AtomicBoolean status) {
 
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.lb;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.netflix.dyno.connectionpool.BaseOperation;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
+
+public class LeastOutstandingSelectionTest {
+
+	private final HostToken h1 = new HostToken(309687905L, new Host("h1", -1, Status.Up));
+	private final HostToken h2 = new HostToken(1383429731L, new Host("h2", -1, Status.Up));
+	private final HostToken h3 = new HostToken(2457171554L, new Host("h3", -1, Status.Up));
+	private final HostToken h4 = new HostToken(3530913377L, new Host("h4", -1, Status.Up));
+
+	private final BaseOperation<Integer, Integer> testOperation = new BaseOperation<Integer, Integer>() {
+
+		@Override
+		public String getName() {
+			return "TestOperation";
+		}
+
+		@Override
+		public String getKey() {
+			return null;
+		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
+	};
+
+	private final Map<HostToken, AtomicBoolean> poolStatus = new HashMap<HostToken, AtomicBoolean>();
+	private final HostLoadTracker hostLoads = new HostLoadTracker();
+	private LeastOutstandingSelection<Integer> selection;
+
+	@Before
+	public void beforeTest() {
+
+		Map<HostToken, HostConnectionPool<Integer>> pools = new HashMap<HostToken, HostConnectionPool<Integer>>();
+		pools.put(h1, getMockHostConnectionPool(h1));
+		pools.put(h2, getMockHostConnectionPool(h2));
+		pools.put(h3, getMockHostConnectionPool(h3));
+
+		selection = new LeastOutstandingSelection<Integer>(hostLoads);
+		selection.initWithHosts(pools);
+	}
+
+	@Test
+	public void testIdleHostsShareTheLoad() throws Exception {
+
+		Map<String, Integer> result = runTest(3000);
+
+		Assert.assertEquals(3, result.size());
+		for (Integer count : result.values()) {
+			Assert.assertTrue("Result: " + result, count > 700 && count < 1300);
+		}
+	}
+
+	@Test
+	public void testHostWithMoreInFlightIsAvoided() throws Exception {
+
+		hostLoads.operationStarted(h1.getHost());
+		hostLoads.operationStarted(h1.getHost());
+
+		Map<String, Integer> result = runTest(300);
+		Assert.assertNull("Result: " + result, result.get("h1"));
+		Assert.assertEquals(300, result.get("h2") + result.get("h3"));
+
+		// a host with a single operation in flight still wins over h1
+		hostLoads.operationStarted(h2.getHost());
+		result = runTest(300);
+		Assert.assertNull("Result: " + result, result.get("h1"));
+		Assert.assertTrue("Result: " + result, result.get("h3") > result.get("h2"));
+	}
+
+	@Test
+	public void testHostWithLongerBorrowWaitIsAvoided() throws Exception {
+
+		hostLoads.borrowFinished(h1.getHost(), 500, TimeUnit.MILLISECONDS);
+		hostLoads.borrowFinished(h2.getHost(), 10, TimeUnit.MICROSECONDS);
+		hostLoads.borrowFinished(h3.getHost(), 10, TimeUnit.MICROSECONDS);
+
+		Map<String, Integer> result = runTest(300);
+		Assert.assertNull("Result: " + result, result.get("h1"));
+	}
+
+	@Test
+	public void testInactiveHostIsAvoided() throws Exception {
+
+		poolStatus.get(h1).set(false);
+		Map<String, Integer> result = runTest(300);
+		Assert.assertNull("Result: " + result, result.get("h1"));
+
+		// with every host inactive, an inactive pool is returned for HostSelectionWithFallback to fall back from
+		poolStatus.get(h2).set(false);
+		poolStatus.get(h3).set(false);
+		Assert.assertFalse(selection.getPoolForOperation(testOperation).isActive());
+	}
+
+	@Test
+	public void testAddAndRemoveHosts() throws Exception {
+
+		selection.removeHostPool(h2);
+		selection.addHostPool(h4, getMockHostConnectionPool(h4));
+
+		Map<String, Integer> result = runTest(300);
+		Assert.assertNull("Result: " + result, result.get("h2"));
+		Assert.assertTrue("Result: " + result, result.get("h4") > 0);
+
+		selection.removeHostPool(h1);
+		selection.removeHostPool(h3);
+		selection.removeHostPool(h4);
+		Assert.assertTrue(selection.isEmpty());
+		try {
+			selection.getPoolForOperation(testOperation);
+			Assert.fail("Expected NoAvailableHostsException");
+		} catch (NoAvailableHostsException e) {
+			// expected
+		}
+	}
+
+	private Map<String, Integer> runTest(int iterations) {
+
+		Map<String, Integer> result = new HashMap<String, Integer>();
+		for (int i=1; i<=iterations; i++) {
+
+			HostConnectionPool<Integer> pool = selection.getPoolForOperation(testOperation);
+			String hostName = pool.getHost().getHostAddress();
+
+			Integer count = result.get(hostName);
+			if (count == null) {
+				count = 0;
+			}
+			result.put(hostName, ++count);
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private HostConnectionPool<Integer> getMockHostConnectionPool(final HostToken hostToken) {
+
+		final AtomicBoolean status = new AtomicBoolean(true);
+		poolStatus.put(hostToken, status);
+
+		HostConnectionPool<Integer> mockHostPool = mock(HostConnectionPool.class);
+		when(mockHostPool.isActive()).thenAnswer(new Answer<Boolean>() {
+
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				return status.get();
+			}
+		});
+		when(mockHostPool.getHost()).thenReturn(hostToken.getHost());
+
+		return mockHostPool;
+	}
+}
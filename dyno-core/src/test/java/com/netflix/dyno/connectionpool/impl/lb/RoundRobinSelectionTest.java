@@ -18,9 +18,13 @@ package com.netflix.dyno.connectionpool.impl.lb;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.junit.Assert;
@@ -67,6 +71,11 @@ public class RoundRobinSelectionTest {
 		public String getKey() {
 			return null;
 		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
 	};
 
 	@Test
@@ -106,6 +115,33 @@ public class RoundRobinSelectionTest {
 		verifyTest(result, hostCount("h1", 400), hostCount("h2", 200), hostCount("h3", 400), hostCount("h4", 300));
 	}
 
+	@Test
+	public void testBatchGoesToOnePool() throws Exception {
+
+		Map<HostToken, HostConnectionPool<Integer>> pools = new HashMap<HostToken, HostConnectionPool<Integer>>();
+		pools.put(h1, getMockHostConnectionPool(h1));
+		pools.put(h2, getMockHostConnectionPool(h2));
+
+		RoundRobinSelection<Integer> rrSelection = new RoundRobinSelection<Integer>();
+		rrSelection.initWithHosts(pools);
+
+		List<BaseOperation<Integer, ?>> ops = new ArrayList<BaseOperation<Integer, ?>>();
+		for (int i=0; i<10; i++) {
+			ops.add(testOperation);
+		}
+
+		Set<String> hostnames = new HashSet<String>();
+		for (int i=0; i<2; i++) {
+			Map<HostConnectionPool<Integer>, List<BaseOperation<Integer, ?>>> batch = rrSelection.getPoolsForOperationBatch(ops);
+			Assert.assertEquals(1, batch.size());
+			Assert.assertEquals(ops, batch.values().iterator().next());
+			hostnames.add(batch.keySet().iterator().next().getHost().getHostAddress());
+		}
+
+		// consecutive batches are spread like single operations
+		Assert.assertEquals(2, hostnames.size());
+	}
+
 	private void runTest(int iterations, Map<String, Integer> result, RoundRobinSelection<Integer> rrSelection) {
 
 		for (int i=1; i<=iterations; i++) {
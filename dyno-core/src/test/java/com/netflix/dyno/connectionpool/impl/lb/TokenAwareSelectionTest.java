@@ -18,8 +18,11 @@ package com.netflix.dyno.connectionpool.impl.lb;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -61,6 +64,88 @@ public class TokenAwareSelectionTest {
 	@Test
 	public void testTokenAware() throws Exception {
 
+		TokenAwareSelection<Integer> tokenAwareSelector = getTokenAwareSelector();
+
+		Map<String, Integer> result = new HashMap<String, Integer>();
+		runTest(0L, 100000L, result, tokenAwareSelector);
+
+		System.out.println("Token distribution: " + result);
+
+		verifyTokenDistribution(result);
+	}
+
+	@Test
+	public void testTokenAwareBinaryKeys() throws Exception {
+
+		TokenAwareSelection<Integer> tokenAwareSelector = getTokenAwareSelector();
+
+		Map<String, Integer> result = new HashMap<String, Integer>();
+		for (long i=0; i<=100000L; i++) {
+
+			BaseOperation<Integer, Long> op = getTestBinaryOperation(i);
+			HostConnectionPool<Integer> pool = tokenAwareSelector.getPoolForOperation(op);
+
+			String hostName = pool.getHost().getHostAddress();
+
+			// a binary key must be routed the same as its String form
+			verifyKeyHash("" + i, hostName);
+			Assert.assertEquals(tokenAwareSelector.getTokenForKey("" + i), tokenAwareSelector.getTokenForKey(op.getBinaryKey()));
+
+			Integer count = result.get(hostName);
+			if (count == null) {
+				count = 0;
+			}
+			result.put(hostName, ++count);
+		}
+
+		System.out.println("Token distribution: " + result);
+
+		verifyTokenDistribution(result);
+	}
+
+	@Test
+	public void testBinaryKeyHashesLikeItsStringForm() throws Exception {
+
+		TokenAwareSelection<Integer> tokenAwareSelector = getTokenAwareSelector();
+
+		String[] keys = { "", "key", "user:1234:profile", "\u00e9t\u00e9", "\u4e2d\u6587", "\ud83d\ude00" };
+		for (String key : keys) {
+			Assert.assertEquals(tokenAwareSelector.getKeyHash(key), tokenAwareSelector.getKeyHash(key.getBytes("UTF-8")));
+		}
+	}
+
+	@Test
+	public void testBatchRoutesLikeSingleOperations() throws Exception {
+
+		TokenAwareSelection<Integer> tokenAwareSelector = getTokenAwareSelector();
+
+		List<BaseOperation<Integer, ?>> ops = new ArrayList<BaseOperation<Integer, ?>>();
+		for (long i=0; i<10000L; i++) {
+			ops.add((i % 2 == 0) ? getTestOperation(i) : getTestBinaryOperation(i));
+		}
+
+		Map<HostConnectionPool<Integer>, List<BaseOperation<Integer, ?>>> batch = tokenAwareSelector.getPoolsForOperationBatch(ops);
+
+		Assert.assertEquals(4, batch.size());
+
+		int count = 0;
+		for (Map.Entry<HostConnectionPool<Integer>, List<BaseOperation<Integer, ?>>> entry : batch.entrySet()) {
+			int lastIndex = -1;
+			for (BaseOperation<Integer, ?> op : entry.getValue()) {
+				Assert.assertEquals(tokenAwareSelector.getPoolForOperation(op), entry.getKey());
+
+				// the operations of a pool keep their order
+				int index = ops.indexOf(op);
+				Assert.assertTrue(index > lastIndex);
+				lastIndex = index;
+				count++;
+			}
+		}
+		Assert.assertEquals(ops.size(), count);
+	}
+
+	private TokenAwareSelection<Integer> getTokenAwareSelector() {
+
 		TreeMap<HostToken, HostConnectionPool<Integer>> pools = new TreeMap<HostToken, HostConnectionPool<Integer>>(new Comparator<HostToken>() {
 
 			@Override
@@ -76,16 +161,33 @@ public class TokenAwareSelectionTest {
 
 		TokenAwareSelection<Integer> tokenAwareSelector = new TokenAwareSelection<Integer>();
 		tokenAwareSelector.initWithHosts(pools);
+		return tokenAwareSelector;
+	}
 
-		Map<String, Integer> result = new HashMap<String, Integer>();
-		runTest(0L, 100000L, result, tokenAwareSelector);
+	private BaseOperation<Integer, Long> getTestOperation(final Long n) {
 
-		System.out.println("Token distribution: " + result);
+		return new BaseOperation<Integer, Long>() {
 
-		verifyTokenDistribution(result);
+			@Override
+			public String getName() {
+				return "TestOperation" + n;
+			}
+
+			@Override
+			public String getKey() {
+				return "" + n;
+			}
+
+			@Override
+			public byte[] getBinaryKey() {
+				return null;
+			}
+		};
 	}
 
-	private BaseOperation<Integer, Long> getTestOperation(final Long n) {
+	private BaseOperation<Integer, Long> getTestBinaryOperation(final Long n) {
+
+		final byte[] key = ("" + n).getBytes(Charset.forName("UTF-8"));
 
 		return new BaseOperation<Integer, Long>() {
 
@@ -96,7 +198,12 @@ public class TokenAwareSelectionTest {
 
 			@Override
 			public String getKey() {
-				return "" + n;
+				return null;
+			}
+
+			@Override
+			public byte[] getBinaryKey() {
+				return key;
 			}
 		};
 	}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.connectionpool.impl.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NearCacheTest {
+
+	private final AtomicLong time = new AtomicLong(0);
+	private final AtomicInteger sizeEvictions = new AtomicInteger(0);
+	private final AtomicInteger expirations = new AtomicInteger(0);
+
+	private final NearCache.Ticker ticker = new NearCache.Ticker() {
+		@Override
+		public long nanoTime() {
+			return time.get();
+		}
+	};
+
+	private final NearCache.Weigher<String, String> lengthWeigher = new NearCache.Weigher<String, String>() {
+		@Override
+		public int weigh(String key, String value) {
+			return value.length();
+		}
+	};
+
+	private final NearCache.EvictionListener<String> listener = new NearCache.EvictionListener<String>() {
+		@Override
+		public void onEviction(String key, boolean expired) {
+			if (expired) {
+				expirations.incrementAndGet();
+			} else {
+				sizeEvictions.incrementAndGet();
+			}
+		}
+	};
+
+	@Test
+	public void testGetPutInvalidate() throws Exception {
+
+		NearCache<String, String> cache = newCache(100, 10000);
+
+		Assert.assertNull(cache.get("k1"));
+		Assert.assertTrue(cache.put("k1", "v1", 1, TimeUnit.SECONDS));
+		Assert.assertEquals("v1", cache.get("k1"));
+
+		Assert.assertTrue(cache.put("k1", "v2", 1, TimeUnit.SECONDS));
+		Assert.assertEquals("v2", cache.get("k1"));
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(2, cache.getWeightedSize());
+
+		cache.invalidate("k1");
+		Assert.assertNull(cache.get("k1"));
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.getWeightedSize());
+
+		cache.put("k1", "v1", 1, TimeUnit.SECONDS);
+		cache.put("k2", "v2", 1, TimeUnit.SECONDS);
+		cache.invalidateAll();
+		Assert.assertNull(cache.get("k1"));
+		Assert.assertNull(cache.get("k2"));
+		Assert.assertEquals(0, cache.getWeightedSize());
+
+		// invalidation is not eviction
+		Assert.assertEquals(0, sizeEvictions.get() + expirations.get());
+	}
+
+	@Test
+	public void testExpiration() throws Exception {
+
+		NearCache<String, String> cache = newCache(100, 10000);
+
+		cache.put("short", "v", 100, TimeUnit.MILLISECONDS);
+		cache.put("long", "v", 10, TimeUnit.SECONDS);
+
+		time.addAndGet(TimeUnit.MILLISECONDS.toNanos(99));
+		Assert.assertEquals("v", cache.get("short"));
+
+		time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		Assert.assertNull(cache.get("short"));
+		Assert.assertEquals("v", cache.get("long"));
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(1, expirations.get());
+	}
+
+	@Test
+	public void testInvalidationStamp() throws Exception {
+
+		NearCache<String, String> cache = newCache(100, 10000);
+
+		long stamp = cache.getInvalidationStamp();
+		Assert.assertTrue(cache.put("k1", "v1", 1, TimeUnit.SECONDS, stamp));
+
+		// a value read before the key was written must not be cached
+		cache.invalidate("k2");
+		Assert.assertFalse(cache.put("k2", "stale", 1, TimeUnit.SECONDS, stamp));
+		Assert.assertNull(cache.get("k2"));
+
+		Assert.assertTrue(cache.put("k2", "v2", 1, TimeUnit.SECONDS, cache.getInvalidationStamp()));
+		Assert.assertEquals("v2", cache.get("k2"));
+	}
+
+	@Test
+	public void testMaxEntries() throws Exception {
+
+		NearCache<String, String> cache = newCache(100, 10000);
+
+		for (int i = 0; i < 1000; i++) {
+			cache.put("k" + i, "v", 1, TimeUnit.SECONDS);
+			Assert.assertTrue(cache.size() <= 100);
+		}
+		Assert.assertEquals(100, cache.size());
+		Assert.assertEquals(900, sizeEvictions.get());
+	}
+
+	@Test
+	public void testMaxWeight() throws Exception {
+
+		NearCache<String, String> cache = newCache(1000, 1000);
+
+		for (int i = 0; i < 100; i++) {
+			cache.put("k" + i, "0123456789012345678901234567890123456789", 1, TimeUnit.SECONDS);
+			Assert.assertTrue(cache.getWeightedSize() <= 1000);
+		}
+		Assert.assertEquals(25, cache.size());
+
+		// an entry that weighs more than the whole cache is not cached
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1001; i++) {
+			sb.append('x');
+		}
+		Assert.assertFalse(cache.put("huge", sb.toString(), 1, TimeUnit.SECONDS));
+		Assert.assertNull(cache.get("huge"));
+	}
+
+	@Test
+	public void testFrequentKeysSurviveScan() throws Exception {
+
+		NearCache<String, String> cache = newCache(100, 10000);
+
+		for (int i = 0; i < 50; i++) {
+			cache.put("hot" + i, "v", 1, TimeUnit.HOURS);
+		}
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 50; i++) {
+				Assert.assertEquals("v", cache.get("hot" + i));
+			}
+		}
+
+		// a scan over many keys that are each read once would flush an LRU cache
+		for (int i = 0; i < 10000; i++) {
+			if (cache.get("cold" + i) == null) {
+				cache.put("cold" + i, "v", 1, TimeUnit.HOURS);
+			}
+		}
+
+		int hotKeys = 0;
+		for (int i = 0; i < 50; i++) {
+			if (cache.get("hot" + i) != null) {
+				hotKeys++;
+			}
+		}
+		Assert.assertTrue("Only " + hotKeys + " hot keys are left", hotKeys >= 45);
+	}
+
+	@Test
+	public void testFrequencySketch() throws Exception {
+
+		FrequencySketch sketch = new FrequencySketch(512);
+
+		Assert.assertEquals(0, sketch.frequency("key".hashCode()));
+		for (int i = 0; i < 10; i++) {
+			sketch.increment("key".hashCode());
+		}
+		Assert.assertEquals(10, sketch.frequency("key".hashCode()));
+
+		// counters saturate at 15
+		for (int i = 0; i < 10; i++) {
+			sketch.increment("key".hashCode());
+		}
+		Assert.assertEquals(15, sketch.frequency("key".hashCode()));
+
+		// and are halved once enough accesses have been recorded
+		for (int i = 0; i < 10 * 512; i++) {
+			sketch.increment(("other" + i).hashCode());
+		}
+		Assert.assertTrue(sketch.frequency("key".hashCode()) <= 8);
+	}
+
+	private NearCache<String, String> newCache(int maxEntries, long maxWeight) {
+		return new NearCache<String, String>(maxEntries, maxWeight, lengthWeigher, listener, ticker);
+	}
+}
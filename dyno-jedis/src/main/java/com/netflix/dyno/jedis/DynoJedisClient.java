@@ -20,10 +20,16 @@ import com.netflix.dyno.connectionpool.*;
 import com.netflix.dyno.connectionpool.exception.DynoConnectException;
 import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.connectionpool.impl.SettableListenableFuture;
 import com.netflix.dyno.connectionpool.impl.lb.HttpEndpointBasedTokenMapSupplier;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
+import com.netflix.dyno.connectionpool.impl.compression.AdaptiveCompressor;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodec;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodecs;
 import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
 import com.netflix.dyno.contrib.*;
 
@@ -31,13 +37,25 @@ import org.slf4j.Logger;
 
 import redis.clients.jedis.BinaryClient.LIST_POSITION;
 import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.params.geo.GeoRadiusParam;
 import redis.clients.jedis.params.sortedset.ZAddParams;
 import redis.clients.jedis.params.sortedset.ZIncrByParams;
+import redis.clients.util.JedisByteHashMap;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
@@ -47,19 +65,44 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     private static final Logger Logger = org.slf4j.LoggerFactory.getLogger(DynoJedisClient.class);
 
+    // upper bound of the threads that run the groups of multi-key commands in parallel
+    private static final int MultiKeyMaxThreads = 64;
+
+    // hosts scanned at the same time and pages held in memory by default by a cluster wide scan iterator
+    private static final int DefaultScanParallelism = 4;
+    private static final int DefaultScanMaxPages = 16;
+
     private final String appName;
     private final String clusterName;
     private final ConnectionPool<Jedis> connPool;
     private final AtomicReference<DynoJedisPipelineMonitor> pipelineMonitor = new AtomicReference<DynoJedisPipelineMonitor>();
     private final EnumSet<OpName> compressionOperations = EnumSet.of(OpName.APPEND);
+    private final AtomicReference<ExecutorService> multiKeyExecutor = new AtomicReference<ExecutorService>();
 
     protected final DynoOPMonitor opMonitor;
 
+    // null unless the near cache was enabled when the client was created
+    private final JedisNearCache nearCache;
+
+    private final JedisRequestCoalescer<CoalescedCommand<?>> coalescer;
+
+    // learns which values are worth compressing when the compression strategy is ADAPTIVE
+    private final AdaptiveCompressor adaptiveCompressor;
+
     public DynoJedisClient(String name, String clusterName, ConnectionPool<Jedis> pool, DynoOPMonitor operationMonitor) {
         this.appName = name;
         this.clusterName = clusterName;
         this.connPool = pool;
         this.opMonitor = operationMonitor;
+        this.nearCache = pool.getConfiguration().isNearCacheEnabled() ? new JedisNearCache(pool.getConfiguration(), operationMonitor) : null;
+        this.adaptiveCompressor = new AdaptiveCompressor(pool.getConfiguration(), operationMonitor);
+        this.coalescer = new JedisRequestCoalescer<CoalescedCommand<?>>(pool.getConfiguration(), operationMonitor,
+                new JedisRequestCoalescer.BatchExecutor<CoalescedCommand<?>>() {
+                    @Override
+                    public OperationResult<List<Object>> execute(List<CoalescedCommand<?>> commands) {
+                        return connPool.executeWithFailover(new CoalescedBatch(commands));
+                    }
+                });
     }
 
     public ConnectionPoolImpl<Jedis> getConnPool() {
@@ -88,7 +131,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
         
         private BaseKeyOperation(final byte[] k, final OpName o) {
         	this.key = null;
-        	this.binaryKey = null;
+        	this.binaryKey = k;
         	this.op = o;
         }
         
@@ -102,6 +145,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
             return this.key;
         }
         
+        @Override
         public byte[] getBinaryKey() {
         	return this.binaryKey;
         }
@@ -131,12 +175,8 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
      *     <li>{@link #hsetnx(String, String, String) HSETNX}</li>
      *     <li>{@link #hvals(String) HVALS}</li>
      * </ul>
-     * 
-     * <ul>
-     *     <li>{@link #get(byte[]) GET}</li>
-     *     <li>{@link #set(byte[], byte[]) SET}</li>
-     *     <li>{@link #setex(byte[], int, byte[]) SETEX}</li>
-     * </ul>
+     *
+     * The binary versions of these commands compress with {@link BinaryCompressionValueOperation}.
      *
      * @param <T> the parameterized type
      */
@@ -162,8 +202,16 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
                 // prefer speed over accuracy here so rather than using getBytes() to get the actual size
                 // just estimate using 2 bytes per character
                 if ((2 * value.length()) > thresholdBytes) {
-                    result = ZipUtils.compressStringToBase64String(value);
-                    ctx.setMetadata("compression", true);
+                    if (CompressionStrategy.ADAPTIVE == connPool.getConfiguration().getCompressionStrategy()) {
+                        result = adaptiveCompressor.compress(getName(), getKey(), value);
+                    } else {
+                        ValueCodec codec = ValueCodecs.forConfiguration(connPool.getConfiguration());
+                        result = (codec == null) ? ZipUtils.compressStringToBase64String(value)
+                                : ValueCodecs.compressToBase64String(codec, value);
+                    }
+                    if (result != value) {
+                        ctx.setMetadata("compression", true);
+                    }
                 }
             } catch (IOException e) {
                 Logger.warn("UNABLE to compress [" + value + "] for key [" + getKey() + "]; sending value uncompressed");
@@ -175,9 +223,9 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
         @Override
         public String decompressValue(String value, ConnectionContext ctx) {
             try {
-                if (ZipUtils.isCompressed(value)) {
+                if (ValueCodecs.isCompressed(value)) {
                     ctx.setMetadata("decompression", true);
-                    return ZipUtils.decompressFromBase64String(value);
+                    return ValueCodecs.decompressFromBase64String(value);
                 }
             } catch (IOException e) {
                 Logger.warn("Unable to decompress value [" + value + "]");
@@ -188,6 +236,171 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     }
 
+    /**
+     * Compresses and decompresses the values of the binary commands, with the same threshold and strategy as
+     * {@link CompressionValueOperation}. Binary values are stored compressed as they are, without Base64.
+     *
+     * <ul>
+     *     <lh>String Operations</lh>
+     *     <li>{@link #get(byte[]) GET}</li>
+     *     <li>{@link #getSet(byte[], byte[]) GETSET}</li>
+     *     <li>{@link #set(byte[], byte[]) SET}</li>
+     *     <li>{@link #setex(byte[], int, byte[]) SETEX}</li>
+     * </ul>
+     * <ul>
+     *     <lh>Hash Operations</lh>
+     *     <li>{@link #hget(byte[], byte[]) HGET}</li>
+     *     <li>{@link #hgetAll(byte[]) HGETALL}</li>
+     *     <li>{@link #hmget(byte[], byte[]...) HMGET}</li>
+     *     <li>{@link #hmset(byte[], Map) HMSET}</li>
+     *     <li>{@link #hset(byte[], byte[], byte[]) HSET}</li>
+     *     <li>{@link #hsetnx(byte[], byte[], byte[]) HSETNX}</li>
+     *     <li>{@link #hvals(byte[]) HVALS}</li>
+     * </ul>
+     *
+     * @param <T> the parameterized type
+     */
+    private abstract class BinaryCompressionValueOperation<T> extends BaseKeyOperation<T> {
+
+        private BinaryCompressionValueOperation(byte[] k, OpName o) {
+            super(k, o);
+        }
+
+        /**
+         * Compresses the value based on the threshold defined by
+         * {@link ConnectionPoolConfiguration#getValueCompressionThreshold()}
+         *
+         * @param value
+         * @return the compressed value, or the value itself
+         */
+        byte[] compressValue(byte[] value, ConnectionContext ctx) {
+            byte[] result = value;
+            int thresholdBytes = connPool.getConfiguration().getValueCompressionThreshold();
+
+            try {
+                if (value != null && value.length > thresholdBytes) {
+                    if (CompressionStrategy.ADAPTIVE == connPool.getConfiguration().getCompressionStrategy()) {
+                        result = adaptiveCompressor.compress(getName(), getBinaryKey(), value);
+                    } else {
+                        result = ValueCodecs.compress(ValueCodecs.forBinaryValues(connPool.getConfiguration()), value);
+                    }
+                    if (result != value) {
+                        ctx.setMetadata("compression", true);
+                    }
+                }
+            } catch (IOException e) {
+                Logger.warn("UNABLE to compress byte array value for key [" + new String(getBinaryKey()) + "]; sending value uncompressed");
+            }
+
+            return result;
+        }
+
+        byte[] decompressValue(byte[] value, ConnectionContext ctx) {
+            // a value that does not decompress was stored uncompressed and merely looks compressed
+            byte[] result = ValueCodecs.decompress(value,
+                    connPool.getConfiguration().isLegacyBinaryValueDecompressionEnabled());
+            if (result != value) {
+                ctx.setMetadata("decompression", true);
+            }
+            return result;
+        }
+
+        List<byte[]> decompressValues(List<byte[]> values, ConnectionContext ctx) {
+            if (values != null) {
+                for (int i = 0; i < values.size(); i++) {
+                    values.set(i, decompressValue(values.get(i), ctx));
+                }
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Executes the operation, and then drops the near cache entries that it may have changed
+     */
+    private <R> OperationResult<R> executeWithFailover(BaseKeyOperation<R> op) {
+        if (nearCache == null) {
+            return connPool.executeWithFailover(op);
+        }
+        try {
+            return connPool.executeWithFailover(op);
+        } finally {
+            nearCache.invalidate(op.op, op.key, op.binaryKey);
+        }
+    }
+
+    /**
+     * Starts the operation through {@link ConnectionPool#executeAsync(AsyncOperation)}, which bounds the operations in
+     * flight per host, times them out and retries them on other hosts
+     */
+    private <R> ListenableFuture<OperationResult<R>> executeAsync(final BaseKeyOperation<R> op) {
+        ListenableFuture<OperationResult<R>> future = connPool.executeAsync(new AsyncKeyOperation<R>(op));
+        if (nearCache != null) {
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    nearCache.invalidate(op.op, op.key, op.binaryKey);
+                }
+            }, SameThread);
+        }
+        return future;
+    }
+
+    private static final Executor SameThread = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * Adapts a key operation to {@link AsyncOperation}. It stays an {@link Operation} so that the jedis connection
+     * runs it the same way as a synchronous one, with its {@link ConnectionContext}.
+     */
+    private class AsyncKeyOperation<R> implements AsyncOperation<Jedis, R>, Operation<Jedis, R> {
+
+        private final BaseKeyOperation<R> op;
+
+        private AsyncKeyOperation(BaseKeyOperation<R> op) {
+            this.op = op;
+        }
+
+        @Override
+        public R execute(Jedis client, ConnectionContext state) throws DynoException {
+            return op.execute(client, state);
+        }
+
+        @Override
+        public ListenableFuture<R> executeAsync(Jedis client) throws DynoException {
+            SettableListenableFuture<R> future = new SettableListenableFuture<R>();
+            try {
+                future.set(op.execute(client, new ConnectionContextImpl()));
+            } catch (RuntimeException e) {
+                future.setException(e);
+            }
+            return future;
+        }
+
+        @Override
+        public String getName() {
+            return op.getName();
+        }
+
+        @Override
+        public String getKey() {
+            return op.getKey();
+        }
+
+        @Override
+        public byte[] getBinaryKey() {
+            return op.getBinaryKey();
+        }
+    }
+
+    private boolean isNearCacheEnabled() {
+        return nearCache != null && nearCache.isEnabled();
+    }
+
     public TopologyView getTopologyView() {
         return this.getConnPool();
     }
@@ -199,7 +412,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_append(final String key, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.APPEND) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.APPEND) {
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
                 return client.append(key, value);
@@ -214,7 +427,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_decr(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DECR) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DECR) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -231,7 +444,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_decrBy(final String key, final Long delta) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DECRBY) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DECRBY) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -247,15 +460,34 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<Long> d_del(final String key) {
+        return executeCoalesced(delOperation(key), new CoalescedCommand<Long>() {
+            @Override
+            Response<Long> send(Pipeline pipeline, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+                return pipeline.del(key);
+            }
+        });
+    }
+
+    /**
+     * DEL that does not wait for the reply. Failures, including timeouts, are reported through the future.
+     *
+     * @param key
+     * @return the future result
+     */
+    public ListenableFuture<OperationResult<Long>> d_delAsync(final String key) {
+        return executeAsync(delOperation(key));
+    }
+
+    private BaseKeyOperation<Long> delOperation(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.DEL) {
+        return new BaseKeyOperation<Long>(key, OpName.DEL) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
                 return client.del(key);
             }
 
-        });
+        };
     }
 
     public byte[] dump(final String key) {
@@ -264,7 +496,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<byte[]> d_dump(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.DUMP) {
+        return executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.DUMP) {
 
             @Override
             public byte[] execute(Jedis client, ConnectionContext state) {
@@ -281,7 +513,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_exists(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.EXISTS) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.EXISTS) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -298,7 +530,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<Long> d_expire(final String key, final int seconds) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.EXPIRE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.EXPIRE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -316,7 +548,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_expireAt(final String key, final long unixTime) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.EXPIREAT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.EXPIREAT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -333,20 +565,81 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_get(final String key) {
 
+        if (isNearCacheEnabled()) {
+            String value = nearCache.getValue(key);
+            if (value != null) {
+                return nearCache.cachedResult(OpName.GET, value);
+            }
+            long stamp = nearCache.getInvalidationStamp();
+            OperationResult<String> result = d_getUncached(key);
+            nearCache.putValue(key, result.getResult(), stamp);
+            return result;
+        }
+        return d_getUncached(key);
+    }
+
+    private OperationResult<String> d_getUncached(final String key) {
+        return executeCoalesced(getOperation(key), new CoalescedCommand<String>() {
+            @Override
+            Response<String> send(Pipeline pipeline, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+                return pipeline.get(key);
+            }
+
+            @Override
+            String receive(String value, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+                return isCompressionEnabled() ? op.decompressValue(value, state) : value;
+            }
+        });
+    }
+
+    /**
+     * GET that does not wait for the reply. Failures, including timeouts, are reported through the future.
+     *
+     * @param key
+     * @return the future result
+     */
+    public ListenableFuture<OperationResult<String>> d_getAsync(final String key) {
+
+        if (isNearCacheEnabled()) {
+            String value = nearCache.getValue(key);
+            if (value != null) {
+                SettableListenableFuture<OperationResult<String>> cached = new SettableListenableFuture<OperationResult<String>>();
+                cached.set(nearCache.cachedResult(OpName.GET, value));
+                return cached;
+            }
+            final long stamp = nearCache.getInvalidationStamp();
+            final ListenableFuture<OperationResult<String>> future = executeAsync(getOperation(key));
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        nearCache.putValue(key, future.get().getResult(), stamp);
+                    } catch (Exception e) {
+                        // nothing to cache
+                    }
+                }
+            }, SameThread);
+            return future;
+        }
+        return executeAsync(getOperation(key));
+    }
+
+    private BaseKeyOperation<String> getOperation(final String key) {
+
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.GET) {
+            return new BaseKeyOperation<String>(key, OpName.GET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.get(key);
                 }
-            });
+            };
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.GET) {
+            return new CompressionValueOperation<String>(key, OpName.GET) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return decompressValue(client.get(key), state);
                 }
-            });
+            };
         }
     }
 
@@ -357,7 +650,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_getbit(final String key, final Long offset) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.GETBIT) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.GETBIT) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -374,7 +667,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_getrange(final String key, final Long startOffset, final Long endOffset) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.GETRANGE) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.GETRANGE) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -391,14 +684,14 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_getSet(final String key, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.GETSET) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.GETSET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.getSet(key, value);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.GETSET) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.GETSET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return decompressValue(client.getSet(key, compressValue(value, state)), state);
@@ -414,7 +707,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hdel(final String key, final String... fields) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HDEL) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HDEL) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -431,7 +724,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_hexists(final String key, final String field) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.HEXISTS) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.HEXISTS) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -447,15 +740,30 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<String> d_hget(final String key, final String field) {
+
+        if (isNearCacheEnabled()) {
+            String value = nearCache.getHashField(key, field);
+            if (value != null) {
+                return nearCache.cachedResult(OpName.HGET, value);
+            }
+            long stamp = nearCache.getInvalidationStamp();
+            OperationResult<String> result = d_hgetUncached(key, field);
+            nearCache.putHashField(key, field, result.getResult(), stamp);
+            return result;
+        }
+        return d_hgetUncached(key, field);
+    }
+
+    private OperationResult<String> d_hgetUncached(final String key, final String field) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.HGET) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.HGET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.hget(key, field);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.HGET) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.HGET) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return decompressValue(client.hget(key, field), state);
@@ -470,25 +778,38 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<Map<String, String>> d_hgetAll(final String key) {
+
+        if (isNearCacheEnabled()) {
+            Map<String, String> hash = nearCache.getHash(key);
+            if (hash != null) {
+                return nearCache.cachedResult(OpName.HGETALL, hash);
+            }
+            long stamp = nearCache.getInvalidationStamp();
+            OperationResult<Map<String, String>> result = d_hgetAllUncached(key);
+            nearCache.putHash(key, result.getResult(), stamp);
+            return result;
+        }
+        return d_hgetAllUncached(key);
+    }
+
+    private OperationResult<Map<String, String>> d_hgetAllUncached(final String key) {
        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-           return connPool.executeWithFailover(new BaseKeyOperation<Map<String, String>>(key, OpName.HGETALL) {
+           return executeWithFailover(new BaseKeyOperation<Map<String, String>>(key, OpName.HGETALL) {
                 @Override
                 public Map<String, String> execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.hgetAll(key);
                 }
            });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<Map<String, String>>(key, OpName.HGETALL) {
+            return executeWithFailover(new CompressionValueOperation<Map<String, String>>(key, OpName.HGETALL) {
                 @Override
                 public Map<String, String> execute(final Jedis client, final ConnectionContext state) {
-                    return CollectionUtils.transform(
-                            client.hgetAll(key),
-                            new CollectionUtils.MapEntryTransform<String, String, String>() {
-                                @Override
-                                public String get(String key, String val) {
-                                    return decompressValue(val, state);
-                                }
-                            });
+                    // decompress in place, a large hash is not copied into a second map
+                    Map<String, String> hash = client.hgetAll(key);
+                    for (Map.Entry<String, String> entry : hash.entrySet()) {
+                        entry.setValue(decompressValue(entry.getValue(), state));
+                    }
+                    return hash;
                 }
             });
         }
@@ -501,7 +822,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hincrBy(final String key, final String field, final long value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HINCRBY) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HINCRBY) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -518,7 +839,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Double> d_hincrByFloat(final String key, final String field, final double value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Double>(key, OpName.HINCRBYFLOAT) {
+        return executeWithFailover(new BaseKeyOperation<Double>(key, OpName.HINCRBYFLOAT) {
 
             @Override
             public Double execute(Jedis client, ConnectionContext state) {
@@ -535,7 +856,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hsetnx(final String key, final String field, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSETNX) {
+            return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSETNX) {
                 @Override
                 public Long execute(Jedis client, ConnectionContext state) {
                     return client.hsetnx(key, field, value);
@@ -543,7 +864,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<Long>(key, OpName.HSETNX) {
+            return executeWithFailover(new CompressionValueOperation<Long>(key, OpName.HSETNX) {
                 @Override
                 public Long execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return client.hsetnx(key, field, compressValue(value, state));
@@ -559,7 +880,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_hkeys(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.HKEYS) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.HKEYS) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -582,14 +903,14 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<ScanResult<Map.Entry<String, String>>> d_hscan(final String key, final String cursor){
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<Map.Entry<String, String>>>(key, OpName.HSCAN) {
+            return executeWithFailover(new BaseKeyOperation<ScanResult<Map.Entry<String, String>>>(key, OpName.HSCAN) {
                 @Override
                 public ScanResult<Map.Entry<String, String>> execute(Jedis client, ConnectionContext state) {
                     return client.hscan(key,cursor);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<ScanResult<Map.Entry<String, String>>>(key, OpName.HSCAN) {
+            return executeWithFailover(new CompressionValueOperation<ScanResult<Map.Entry<String, String>>>(key, OpName.HSCAN) {
                 @Override
                 public ScanResult<Map.Entry<String, String>> execute(final Jedis client, final ConnectionContext state) {
                     return  new ScanResult<>(cursor, new ArrayList(CollectionUtils.transform(
@@ -639,7 +960,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hlen(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HLEN) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HLEN) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -657,14 +978,14 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_hmget(final String key, final String... fields) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.HMGET) {
+            return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.HMGET) {
                 @Override
                 public List<String> execute(Jedis client, ConnectionContext state) {
                     return client.hmget(key, fields);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<List<String>>(key, OpName.HMGET) {
+            return executeWithFailover(new CompressionValueOperation<List<String>>(key, OpName.HMGET) {
                 @Override
                 public List<String> execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return new ArrayList<String>(CollectionUtils.transform(client.hmget(key, fields),
@@ -686,14 +1007,14 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_hmset(final String key, final Map<String, String> hash) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.HMSET) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.HMSET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) {
                     return client.hmset(key, hash);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.HMSET) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.HMSET) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return client.hmset(key,
@@ -717,7 +1038,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_hset(final String key, final String field, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSET) {
+            return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSET) {
                 @Override
                 public Long execute(Jedis client, ConnectionContext state) {
                     return client.hset(key, field, value);
@@ -725,7 +1046,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<Long>(key, OpName.HSET) {
+            return executeWithFailover(new CompressionValueOperation<Long>(key, OpName.HSET) {
                 @Override
                 public Long execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return client.hset(key, field, compressValue(value, state));
@@ -741,7 +1062,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_hvals(final String key) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.HVALS) {
+            return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.HVALS) {
                 @Override
                 public List<String> execute(Jedis client, ConnectionContext state) {
                     return client.hvals(key);
@@ -749,7 +1070,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<List<String>>(key, OpName.HVALS) {
+            return executeWithFailover(new CompressionValueOperation<List<String>>(key, OpName.HVALS) {
                 @Override
                 public List<String> execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return new ArrayList<String>(CollectionUtils.transform(client.hvals(key),
@@ -771,7 +1092,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_incr(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.INCR) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.INCR) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -788,7 +1109,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_incrBy(final String key, final Long delta) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.INCRBY) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.INCRBY) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -804,7 +1125,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Double> d_incrByFloat(final String key, final Double increment) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Double>(key, OpName.INCRBYFLOAT) {
+        return executeWithFailover(new BaseKeyOperation<Double>(key, OpName.INCRBYFLOAT) {
 
             @Override
             public Double execute(Jedis client, ConnectionContext state) {
@@ -821,7 +1142,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_lindex(final String key, final Long index) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.LINDEX) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.LINDEX) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -838,7 +1159,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_linsert(final String key, final LIST_POSITION where, final String pivot, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LINSERT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LINSERT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -855,7 +1176,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_llen(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LLEN) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LLEN) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -872,7 +1193,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_lpop(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.LPOP) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.LPOP) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -889,7 +1210,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_lpush(final String key, final String... values) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LPUSH) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LPUSH) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -906,7 +1227,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_lpushx(final String key, final String... values) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LPUSHX) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LPUSHX) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -923,7 +1244,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_lrange(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.LRANGE) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.LRANGE) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -940,7 +1261,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_lrem(final String key, final Long count, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LREM) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.LREM) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -957,7 +1278,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_lset(final String key, final Long index, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.LSET) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.LSET) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -974,7 +1295,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_ltrim(final String key, final long start, final long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.LTRIM) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.LTRIM) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -991,7 +1312,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_persist(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PERSIST) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PERSIST) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1007,7 +1328,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_pexpireAt(final String key, final Long millisecondsTimestamp) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PEXPIREAT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PEXPIREAT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1024,7 +1345,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_pttl(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PTTL) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.PTTL) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1041,7 +1362,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
    
     public OperationResult<String> d_rename(final String oldkey, final String newkey) {
 
-    	   return connPool.executeWithFailover(new BaseKeyOperation<String>(oldkey, OpName.RENAME) {
+    	   return executeWithFailover(new BaseKeyOperation<String>(oldkey, OpName.RENAME) {
 
                @Override
                public String execute(Jedis client, ConnectionContext state) {
@@ -1058,7 +1379,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
    
     public OperationResult<Long> d_renamenx(final String oldkey, final String newkey) {
 
-    	   return connPool.executeWithFailover(new BaseKeyOperation<Long>(oldkey, OpName.RENAMENX) {
+    	   return executeWithFailover(new BaseKeyOperation<Long>(oldkey, OpName.RENAMENX) {
 
                @Override
                public Long execute(Jedis client, ConnectionContext state) {
@@ -1074,7 +1395,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_restore(final String key, final Integer ttl, final byte[] serializedValue) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.RESTORE) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.RESTORE) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1090,7 +1411,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_rpop(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.RPOP) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.RPOP) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1106,7 +1427,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_rpoplpush(final String srckey, final String dstkey) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(srckey, OpName.RPOPLPUSH) {
+        return executeWithFailover(new BaseKeyOperation<String>(srckey, OpName.RPOPLPUSH) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1122,7 +1443,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_rpush(final String key, final String... values) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.RPUSH) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.RPUSH) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1139,7 +1460,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_rpushx(final String key, final String... values) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.RPUSHX) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.RPUSHX) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1156,7 +1477,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_sadd(final String key, final String... members) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SADD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SADD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1173,7 +1494,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_scard(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SCARD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SCARD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1189,7 +1510,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_sdiff(final String... keys) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(keys[0], OpName.SDIFF) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(keys[0], OpName.SDIFF) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1205,7 +1526,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_sdiffstore(final String dstkey, final String... keys) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(dstkey, OpName.SDIFFSTORE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(dstkey, OpName.SDIFFSTORE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1226,20 +1547,40 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<String> d_set(final String key, final String value) {
+        return executeCoalesced(setOperation(key, value), new CoalescedCommand<String>() {
+            @Override
+            Response<String> send(Pipeline pipeline, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+                return pipeline.set(key, isCompressionEnabled() ? op.compressValue(value, state) : value);
+            }
+        });
+    }
+
+    /**
+     * SET that does not wait for the reply. Failures, including timeouts, are reported through the future.
+     *
+     * @param key
+     * @param value
+     * @return the future result
+     */
+    public ListenableFuture<OperationResult<String>> d_setAsync(final String key, final String value) {
+        return executeAsync(setOperation(key, value));
+    }
+
+    private BaseKeyOperation<String> setOperation(final String key, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SET) {
+            return new BaseKeyOperation<String>(key, OpName.SET) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.set(key, value);
                 }
-            });
+            };
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.SET) {
+            return new CompressionValueOperation<String>(key, OpName.SET) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return client.set(key, compressValue(value, state));
                 }
-            });
+            };
         }
 
     }
@@ -1251,7 +1592,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_setbit(final String key, final Long offset, final Boolean value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SETBIT) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SETBIT) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -1268,7 +1609,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_setbit(final String key, final Long offset, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SETBIT) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SETBIT) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -1285,14 +1626,14 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_setex(final String key, final Integer seconds, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SETEX) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SETEX) {
                 @Override
                 public String execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.setex(key, seconds, value);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<String>(key, OpName.SETEX) {
+            return executeWithFailover(new CompressionValueOperation<String>(key, OpName.SETEX) {
                 @Override
                 public String execute(final Jedis client, final ConnectionContext state) throws DynoException {
                     return client.setex(key, seconds, compressValue(value, state));
@@ -1308,14 +1649,14 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_setnx(final String key, final String value) {
         if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
-            return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETNX) {
+            return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETNX) {
                 @Override
                 public Long execute(Jedis client, ConnectionContext state) throws DynoException {
                     return client.setnx(key, value);
                 }
             });
         } else {
-            return connPool.executeWithFailover(new CompressionValueOperation<Long>(key, OpName.SETNX) {
+            return executeWithFailover(new CompressionValueOperation<Long>(key, OpName.SETNX) {
                 @Override
                 public Long execute(final Jedis client, final ConnectionContext state) {
                     return client.setnx(key, compressValue(value, state));
@@ -1331,7 +1672,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_setrange(final String key, final Long offset, final String value) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETRANGE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SETRANGE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1348,7 +1689,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Boolean> d_sismember(final String key, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SISMEMBER) {
+        return executeWithFailover(new BaseKeyOperation<Boolean>(key, OpName.SISMEMBER) {
 
             @Override
             public Boolean execute(Jedis client, ConnectionContext state) {
@@ -1365,7 +1706,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_smembers(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.SMEMBERS) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.SMEMBERS) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1381,7 +1722,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_smove(final String srckey, final String dstkey, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(srckey, OpName.SMOVE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(srckey, OpName.SMOVE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1398,7 +1739,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_sort(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.SORT) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.SORT) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -1415,7 +1756,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_sort(final String key, final SortingParams sortingParameters) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.SORT) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.SORT) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -1432,7 +1773,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_spop(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SPOP) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SPOP) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1459,7 +1800,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_srandmember(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SRANDMEMBER) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SRANDMEMBER) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1476,7 +1817,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_srem(final String key, final String... members) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SREM) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.SREM) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1494,7 +1835,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<ScanResult<String>> d_sscan(final String key, final int cursor) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
 
             @Override
             public ScanResult<String> execute(Jedis client, ConnectionContext state) {
@@ -1511,7 +1852,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<ScanResult<String>> d_sscan(final String key, final String cursor) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
 
             @Override
             public ScanResult<String> execute(Jedis client, ConnectionContext state) {
@@ -1528,7 +1869,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 	
     public OperationResult<ScanResult<String>> d_sscan(final String key, final String cursor, final ScanParams params) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<String>>(key, OpName.SSCAN) {
 
             @Override
             public ScanResult<String> execute(Jedis client, ConnectionContext state) {
@@ -1545,7 +1886,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_strlen(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.STRLEN) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.STRLEN) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1562,7 +1903,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_substr(final String key, final Integer start, final Integer end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SUBSTR) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SUBSTR) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1579,7 +1920,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_ttl(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.TTL) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.TTL) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1596,7 +1937,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_type(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.TYPE) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.TYPE) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -1613,7 +1954,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zadd(final String key, final Double score, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1630,7 +1971,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zadd(final String key, final Map<String, Double> scoreMembers) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZADD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1647,7 +1988,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zcard(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCARD) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCARD) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1664,7 +2005,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zcount(final String key, final Double min, final Double max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCOUNT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCOUNT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1681,7 +2022,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zcount(final String key, final String min, final String max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCOUNT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZCOUNT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1698,7 +2039,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Double> d_zincrby(final String key, final Double score, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Double>(key, OpName.ZINCRBY) {
+        return executeWithFailover(new BaseKeyOperation<Double>(key, OpName.ZINCRBY) {
 
             @Override
             public Double execute(Jedis client, ConnectionContext state) {
@@ -1715,7 +2056,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrange(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1732,7 +2073,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zrank(final String key, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZRANK) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZRANK) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1749,7 +2090,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zrem(final String key, final String... member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREM) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREM) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1766,7 +2107,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zremrangeByRank(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYRANK) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYRANK) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1783,7 +2124,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zremrangeByScore(final String key, final Double start, final Double end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYSCORE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1800,7 +2141,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrange(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1817,7 +2158,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zrevrank(final String key, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREVRANK) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREVRANK) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -1834,7 +2175,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeWithScores(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -1851,7 +2192,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeWithScores(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -1868,7 +2209,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Double> d_zscore(final String key, final String member) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Double>(key, OpName.ZSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Double>(key, OpName.ZSCORE) {
 
             @Override
             public Double execute(Jedis client, ConnectionContext state) {
@@ -1885,7 +2226,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<ScanResult<Tuple>> d_zscan(final String key, final int cursor){
     	
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<Tuple>>(key, OpName.ZSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<Tuple>>(key, OpName.ZSCAN) {
         	 @Override
              public ScanResult<Tuple> execute(Jedis client, ConnectionContext state) {
                  return client.zscan(key, cursor);
@@ -1901,7 +2242,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     public OperationResult<ScanResult<Tuple>> d_zscan(final String key, final String cursor){
     	
-        return connPool.executeWithFailover(new BaseKeyOperation<ScanResult<Tuple>>(key, OpName.ZSCAN) {
+        return executeWithFailover(new BaseKeyOperation<ScanResult<Tuple>>(key, OpName.ZSCAN) {
         	 @Override
              public ScanResult<Tuple> execute(Jedis client, ConnectionContext state) {
                  return client.zscan(key, cursor);
@@ -1918,7 +2259,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrangeByScore(final String key, final Double min, final Double max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1935,7 +2276,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrangeByScore(final String key, final String min, final String max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1952,7 +2293,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrangeByScore(final String key, final Double min, final Double max, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1969,7 +2310,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrangeByScore(final String key, final String max, final String min) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -1986,7 +2327,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrangeByScore(final String key, final String min, final String max, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2003,7 +2344,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrangeByScore(final String key, final Double max, final Double min, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2020,7 +2361,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrangeByScore(final String key, final Double max, final Double min) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2037,7 +2378,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeByScoreWithScores(final String key, final Double min, final Double max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2054,7 +2395,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeByScoreWithScores(final String key, final Double max, final Double min) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2071,7 +2412,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeByScoreWithScores(final String key, final Double min, final Double max, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2088,7 +2429,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<String>> d_zrevrangeByScore(final String key, final String max, final String min, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Set<String>>(key, OpName.ZREVRANGEBYSCORE) {
 
             @Override
             public Set<String> execute(Jedis client, ConnectionContext state) {
@@ -2105,7 +2446,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeByScoreWithScores(final String key, final String min, final String max) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2122,7 +2463,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeByScoreWithScores(final String key, final String max, final String min) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2139,7 +2480,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrangeByScoreWithScores(final String key, final String min, final String max, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2156,7 +2497,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeByScoreWithScores(final String key, final Double max, final Double min, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2173,7 +2514,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Set<Tuple>> d_zrevrangeByScoreWithScores(final String key, final String max, final String min, final Integer offset, final Integer count) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
+        return executeWithFailover(new BaseKeyOperation<Set<Tuple>>(key, OpName.ZREVRANGEBYSCOREWITHSCORES) {
 
             @Override
             public Set<Tuple> execute(Jedis client, ConnectionContext state) {
@@ -2210,7 +2551,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_zremrangeByScore(final String key, final String start, final String end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYSCORE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.ZREMRANGEBYSCORE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -2233,7 +2574,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_blpop(final int timeout, final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.BLPOP) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.BLPOP) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -2255,7 +2596,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<List<String>> d_brpop(final int timeout, final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.BRPOP) {
+        return executeWithFailover(new BaseKeyOperation<List<String>>(key, OpName.BRPOP) {
 
             @Override
             public List<String> execute(Jedis client, ConnectionContext state) {
@@ -2273,7 +2614,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<String> d_echo(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.ECHO) {
+        return executeWithFailover(new BaseKeyOperation<String>(key, OpName.ECHO) {
 
             @Override
             public String execute(Jedis client, ConnectionContext state) {
@@ -2290,7 +2631,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_move(final String key, final Integer dbIndex) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.MOVE) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.MOVE) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -2307,7 +2648,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_bitcount(final String key) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.BITCOUNT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.BITCOUNT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -2334,7 +2675,7 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     public OperationResult<Long> d_bitcount(final String key, final Long start, final Long end) {
 
-        return connPool.executeWithFailover(new BaseKeyOperation<Long>(key, OpName.BITCOUNT) {
+        return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.BITCOUNT) {
 
             @Override
             public Long execute(Jedis client, ConnectionContext state) {
@@ -2411,87 +2752,506 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     @Override
     public List<String> mget(String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
-
-    @Override
-    public String mset(String... keysvalues) {
-        throw new UnsupportedOperationException("not yet implemented");
+        return d_mget(keys).getResultOrThrow();
     }
 
-    @Override
-    public Long msetnx(String... keysvalues) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+    /**
+     * Gets the values of the keys from their token owners. The keys are grouped by the host that serves them and each
+     * group is sent as one pipelined batch, with the groups running in parallel.
+     *
+     * @param keys
+     * @return the value of each key in the order of the keys, with the failure of each key whose group did not succeed
+     */
+    public MultiKeyOperationResult<String> d_mget(final String... keys) {
 
-    @Override
-    public Set<String> sinter(String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+        return new MultiKeyCommand<String>(OpName.MGET, keys) {
+            @Override
+            Response<String> send(Pipeline pipeline, int index, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+                return pipeline.get(keys[index]);
+            }
 
-    public Long sinterstore(final String dstkey, final String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
+            @Override
+            String receive(String value, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+                return (value == null || !isCompressionEnabled()) ? value : op.decompressValue(value, state);
+            }
+        }.execute();
     }
 
     @Override
-    public Long sort(String key, SortingParams sortingParameters, String dstkey) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public String mset(String... keysvalues) {
+        d_mset(keysvalues).getResultOrThrow();
+        return "OK";
     }
 
-    @Override
-    public Long sort(String key, String dstkey) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+    /**
+     * Sets the values of the keys on their token owners, see {@link #d_mget(String...)}. Unlike MSET on a single
+     * redis the keys are not set atomically, a failure leaves the keys of the other groups set.
+     *
+     * @param keysvalues
+     * @return the reply of each key in the order of the keys, with the failure of each key whose group did not succeed
+     */
+    public MultiKeyOperationResult<String> d_mset(final String... keysvalues) {
 
-    @Override
-    public Set<String> sunion(String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
+        return new MultiKeyCommand<String>(OpName.MSET, keysOf(keysvalues)) {
+            @Override
+            Response<String> send(Pipeline pipeline, int index, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+                String value = keysvalues[2 * index + 1];
+                return pipeline.set(keysvalues[2 * index], isCompressionEnabled() ? op.compressValue(value, state) : value);
+            }
+        }.execute();
     }
 
     @Override
-    public Long sunionstore(String dstkey, String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public Long msetnx(String... keysvalues) {
+        for (Long reply : d_msetnx(keysvalues).getResultOrThrow()) {
+            if (reply == null || reply == 0L) {
+                return 0L;
+            }
+        }
+        return 1L;
     }
 
-    @Override
-    public String watch(String... keys) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+    /**
+     * Sets the keys that do not exist yet on their token owners, see {@link #d_mget(String...)}. Each key is set
+     * with SETNX, so unlike MSETNX on a single redis the keys that do not exist are set even if some of the others do.
+     *
+     * @param keysvalues
+     * @return the SETNX reply of each key in the order of the keys, with the failure of each key whose group did not
+     *         succeed
+     */
+    public MultiKeyOperationResult<Long> d_msetnx(final String... keysvalues) {
 
-    @Override
-    public String unwatch() {
-        throw new UnsupportedOperationException("not yet implemented");
+        return new MultiKeyCommand<Long>(OpName.MSETNX, keysOf(keysvalues)) {
+            @Override
+            Response<Long> send(Pipeline pipeline, int index, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+                String value = keysvalues[2 * index + 1];
+                return pipeline.setnx(keysvalues[2 * index], isCompressionEnabled() ? op.compressValue(value, state) : value);
+            }
+        }.execute();
     }
 
-    @Override
-    public Long zinterstore(String dstkey, String... sets) {
-        throw new UnsupportedOperationException("not yet implemented");
+    private static String[] keysOf(String... keysvalues) {
+        if (keysvalues.length % 2 != 0) {
+            throw new IllegalArgumentException("Expected keys and values in pairs but got " + keysvalues.length + " arguments");
+        }
+        String[] keys = new String[keysvalues.length / 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keysvalues[2 * i];
+        }
+        return keys;
     }
 
-    @Override
-    public Long zinterstore(String dstkey, ZParams params, String... sets) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
-    
-    @Override
-    public  Set<String> zrevrangeByLex(String key, String max, String min) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
-    
-    @Override
-    public  Set<String> zrevrangeByLex(String key, String max, String min, int offset, int count) {
-        throw new UnsupportedOperationException("not yet implemented");
+    private boolean isCompressionEnabled() {
+        return CompressionStrategy.NONE != connPool.getConfiguration().getCompressionStrategy();
     }
 
-    @Override
-    public Long zunionstore(String dstkey, String... sets) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+    /**
+     * A command on many keys that is scattered over the token owners of the keys and gathered back in key order.
+     *
+     * The keys are grouped by the host pool that serves them with {@link ConnectionPoolImpl#getPoolsForOperationBatch},
+     * and each group runs as one {@link Batch} operation that sends the commands of all its keys in a single pipeline.
+     * The groups go through
+     * {@link ConnectionPool#executeWithFailover(Operation)} one by one, so retries and the fallback to a remote rack
+     * apply to each group on its own. All but the last group run on the {@link #multiKeyExecutor()}, the last one
+     * runs on the calling thread.
+     *
+     * @param <T> the reply of the command for a single key
+     */
+    private abstract class MultiKeyCommand<T> {
 
-    @Override
-    public Long zunionstore(String dstkey, ZParams params, String... sets) {
-        throw new UnsupportedOperationException("not yet implemented");
-    }
+        private final OpName opName;
+        private final String[] keys;
+
+        private MultiKeyCommand(OpName opName, String[] keys) {
+            this.opName = opName;
+            this.keys = keys;
+        }
+
+        /**
+         * Adds the command for the key at the given index to the pipeline
+         */
+        abstract Response<T> send(Pipeline pipeline, int index, CompressionOperation<Jedis, ?> op, ConnectionContext state);
+
+        /**
+         * Converts the reply of a key once the pipeline has been synced
+         */
+        T receive(T value, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+            return value;
+        }
+
+        MultiKeyOperationResult<T> execute() {
+
+            final Object[] replies = new Object[keys.length];
+            final Map<String, DynoException> failures = new LinkedHashMap<String, DynoException>();
+
+            try {
+                List<Batch> batches = new ArrayList<Batch>();
+                try {
+                    for (List<Integer> indexes : groupByPool()) {
+                        batches.add(new Batch(indexes));
+                    }
+                } catch (DynoException e) {
+                    for (String key : keys) {
+                        failures.put(key, e);
+                    }
+                }
+
+                List<Future<OperationResult<List<Object>>>> futures = new ArrayList<Future<OperationResult<List<Object>>>>(batches.size());
+                for (int i = 0; i < batches.size() - 1; i++) {
+                    final Batch batch = batches.get(i);
+                    futures.add(multiKeyExecutor().submit(new Callable<OperationResult<List<Object>>>() {
+                        @Override
+                        public OperationResult<List<Object>> call() throws Exception {
+                            return connPool.executeWithFailover(batch);
+                        }
+                    }));
+                }
+
+                if (!batches.isEmpty()) {
+                    Batch last = batches.get(batches.size() - 1);
+                    try {
+                        last.gather(connPool.executeWithFailover(last).getResult(), replies, failures);
+                    } catch (DynoException e) {
+                        last.fail(e, failures);
+                    }
+                }
+
+                for (int i = 0; i < futures.size(); i++) {
+                    Batch batch = batches.get(i);
+                    try {
+                        batch.gather(futures.get(i).get().getResult(), replies, failures);
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        batch.fail(cause instanceof DynoException ? (DynoException) cause : new DynoException(cause), failures);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        batch.fail(new DynoException("Interrupted while waiting for " + opName, e), failures);
+                    }
+                }
+            } finally {
+                if (nearCache != null && opName != OpName.MGET) {
+                    for (String key : keys) {
+                        nearCache.invalidate(key);
+                    }
+                }
+            }
+
+            List<T> results = new ArrayList<T>(keys.length);
+            for (Object reply : replies) {
+                results.add(convert(reply));
+            }
+            return new MultiKeyOperationResult<T>(Arrays.asList(keys), results, failures);
+        }
+
+        /**
+         * @return the indexes of the keys grouped by the host pool that serves them, or a single group when the
+         *         connection pool cannot route a batch
+         */
+        private Collection<List<Integer>> groupByPool() {
+            if (!(connPool instanceof ConnectionPoolImpl)) {
+                List<Integer> indexes = new ArrayList<Integer>(keys.length);
+                for (int i = 0; i < keys.length; i++) {
+                    indexes.add(i);
+                }
+                return Collections.singletonList(indexes);
+            }
+
+            List<BaseOperation<Jedis, ?>> keyOps = new ArrayList<BaseOperation<Jedis, ?>>(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                keyOps.add(new KeyIndex(i));
+            }
+
+            List<List<Integer>> groups = new ArrayList<List<Integer>>();
+            for (List<BaseOperation<Jedis, ?>> poolOps : getConnPool().getPoolsForOperationBatch(keyOps).values()) {
+                List<Integer> indexes = new ArrayList<Integer>(poolOps.size());
+                for (BaseOperation<Jedis, ?> keyOp : poolOps) {
+                    indexes.add(((KeyIndex) keyOp).index);
+                }
+                groups.add(indexes);
+            }
+            return groups;
+        }
+
+        /**
+         * Routes the key at an index of the command
+         */
+        private class KeyIndex implements BaseOperation<Jedis, T> {
+
+            private final int index;
+
+            private KeyIndex(int index) {
+                this.index = index;
+            }
+
+            @Override
+            public String getName() {
+                return opName.name();
+            }
+
+            @Override
+            public String getKey() {
+                return keys[index];
+            }
+
+            @Override
+            public byte[] getBinaryKey() {
+                return null;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T convert(Object reply) {
+            return (reply instanceof DynoException) ? null : (T) reply;
+        }
+
+        /**
+         * The keys of one group, routed with the first of them. The result has the reply of each key in the group,
+         * or the DynoException for a key whose command got an error reply.
+         */
+        private class Batch extends CompressionValueOperation<List<Object>> {
+
+            private final List<Integer> indexes;
+
+            private Batch(List<Integer> indexes) {
+                super(keys[indexes.get(0)], opName);
+                this.indexes = indexes;
+            }
+
+            @Override
+            public List<Object> execute(Jedis client, ConnectionContext state) throws DynoException {
+                Pipeline pipeline = client.pipelined();
+                List<Response<T>> responses = new ArrayList<Response<T>>(indexes.size());
+                for (int index : indexes) {
+                    responses.add(send(pipeline, index, this, state));
+                }
+                pipeline.sync();
+
+                List<Object> replies = new ArrayList<Object>(responses.size());
+                for (Response<T> response : responses) {
+                    try {
+                        replies.add(receive(response.get(), this, state));
+                    } catch (JedisDataException e) {
+                        replies.add(new DynoException(e));
+                    }
+                }
+                return replies;
+            }
+
+            private void gather(List<Object> batchReplies, Object[] replies, Map<String, DynoException> failures) {
+                for (int i = 0; i < indexes.size(); i++) {
+                    Object reply = batchReplies.get(i);
+                    replies[indexes.get(i)] = reply;
+                    if (reply instanceof DynoException) {
+                        failures.put(keys[indexes.get(i)], (DynoException) reply);
+                    }
+                }
+            }
+
+            private void fail(DynoException e, Map<String, DynoException> failures) {
+                for (int index : indexes) {
+                    failures.put(keys[index], e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes a single key operation, coalesced with the concurrent commands for the same host into one pipelined
+     * round trip when {@link ConnectionPoolConfiguration#isRequestCoalescingEnabled()} and the operation is not
+     * excluded from coalescing.
+     *
+     * The batches go through {@link ConnectionPool#executeWithFailover(Operation)}, so retries and the fallback to a
+     * remote rack apply to a batch as a whole.
+     *
+     * @param op the operation to execute when the command is not coalesced
+     * @param command the same command, for a batch
+     */
+    @SuppressWarnings("unchecked")
+    private <T> OperationResult<T> executeCoalesced(BaseKeyOperation<T> op, CoalescedCommand<T> command) {
+
+        if (!(connPool instanceof ConnectionPoolImpl) || !coalescer.isCoalesced(op.op)) {
+            return executeWithFailover(op);
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            List<BaseOperation<Jedis, ?>> routing = Collections.<BaseOperation<Jedis, ?>>singletonList(op);
+            HostConnectionPool<Jedis> hostPool = getConnPool().getPoolsForOperationBatch(routing).keySet().iterator().next();
+
+            command.op = op;
+            T result = (T) coalescer.execute(hostPool, op.op, command);
+            return new OperationResultImpl<T>(op.getName(), result, null)
+                    .setNode(hostPool.getHost())
+                    .setLatency(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        } finally {
+            if (nearCache != null) {
+                nearCache.invalidate(op.op, op.key, op.binaryKey);
+            }
+        }
+    }
+
+    /**
+     * A single key command as it is sent in a batch of coalesced commands
+     *
+     * @param <T> the reply of the command
+     */
+    private abstract class CoalescedCommand<T> {
+
+        // the same command as an operation, set when the command is executed
+        private BaseKeyOperation<T> op;
+
+        /**
+         * Adds the command to the pipeline of the batch
+         */
+        abstract Response<T> send(Pipeline pipeline, CompressionOperation<Jedis, ?> op, ConnectionContext state);
+
+        /**
+         * Converts the reply once the pipeline has been synced
+         */
+        T receive(T value, CompressionOperation<Jedis, ?> op, ConnectionContext state) {
+            return value;
+        }
+    }
+
+    /**
+     * The coalesced commands for one host, routed with the key of the first of them. The result has the reply of each
+     * command, or the DynoException of a command that got an error reply.
+     *
+     * The values of a command are compressed and decompressed by its own operation, so that adaptive compression
+     * learns about them under their own key and operation rather than under those of the first command.
+     */
+    private class CoalescedBatch extends CompressionValueOperation<List<Object>> {
+
+        private final List<CoalescedCommand<?>> commands;
+
+        private CoalescedBatch(List<CoalescedCommand<?>> commands) {
+            super(commands.get(0).op.key, commands.get(0).op.op);
+            this.commands = commands;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Object> execute(Jedis client, ConnectionContext state) throws DynoException {
+            Pipeline pipeline = client.pipelined();
+            List<Response<?>> responses = new ArrayList<Response<?>>(commands.size());
+            for (CoalescedCommand<?> command : commands) {
+                responses.add(command.send(pipeline, compressionOf(command), state));
+            }
+            pipeline.sync();
+
+            List<Object> replies = new ArrayList<Object>(responses.size());
+            for (int i = 0; i < commands.size(); i++) {
+                CoalescedCommand<Object> command = (CoalescedCommand<Object>) commands.get(i);
+                try {
+                    replies.add(command.receive(responses.get(i).get(), compressionOf(command), state));
+                } catch (JedisDataException e) {
+                    replies.add(new DynoException(e));
+                }
+            }
+            return replies;
+        }
+
+        private CompressionOperation<Jedis, ?> compressionOf(CoalescedCommand<?> command) {
+            return (command.op instanceof CompressionOperation) ? (CompressionOperation<Jedis, ?>) command.op : this;
+        }
+    }
+
+    /**
+     * @return the executor that runs the groups of multi-key commands, created on first use
+     */
+    private ExecutorService multiKeyExecutor() {
+
+        if (multiKeyExecutor.get() != null) {
+            return multiKeyExecutor.get();
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, MultiKeyMaxThreads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "DynoJedisMultiKey-" + appName + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                // when every thread is busy the group runs on the calling thread instead of queueing
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        if (!multiKeyExecutor.compareAndSet(null, executor)) {
+            executor.shutdown();
+        }
+        return multiKeyExecutor.get();
+    }
+
+    @Override
+    public Set<String> sinter(String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    public Long sinterstore(final String dstkey, final String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long sort(String key, SortingParams sortingParameters, String dstkey) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long sort(String key, String dstkey) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Set<String> sunion(String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long sunionstore(String dstkey, String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public String watch(String... keys) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public String unwatch() {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long zinterstore(String dstkey, String... sets) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long zinterstore(String dstkey, ZParams params, String... sets) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+    
+    @Override
+    public  Set<String> zrevrangeByLex(String key, String max, String min) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+    
+    @Override
+    public  Set<String> zrevrangeByLex(String key, String max, String min, int offset, int count) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long zunionstore(String dstkey, String... sets) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
+
+    @Override
+    public Long zunionstore(String dstkey, ZParams params, String... sets) {
+        throw new UnsupportedOperationException("not yet implemented");
+    }
 
     @Override
     public String brpoplpush(String source, String destination, int timeout) {
@@ -2531,12 +3291,21 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     
     
     public OperationResult<String> d_set(final byte[] key, final byte[] value) {
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SET) {
-           @Override
-           public String execute(Jedis client, ConnectionContext state) throws DynoException {
-                return client.set(key, value);
-           }
-         });
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SET) {
+                @Override
+                public String execute(Jedis client, ConnectionContext state) throws DynoException {
+                    return client.set(key, value);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<String>(key, OpName.SET) {
+                @Override
+                public String execute(Jedis client, ConnectionContext state) throws DynoException {
+                    return client.set(key, compressValue(value, state));
+                }
+            });
+        }
     }
     
     @Override
@@ -2545,13 +3314,21 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     public OperationResult<byte[]> d_get(final byte[] key) {
-        return connPool.executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.GET) {
-            @Override
-            public byte[] execute(Jedis client, ConnectionContext state) throws DynoException {
-                return client.get(key);
-            }
-        });
-      
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.GET) {
+                @Override
+                public byte[] execute(Jedis client, ConnectionContext state) throws DynoException {
+                    return client.get(key);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<byte[]>(key, OpName.GET) {
+                @Override
+                public byte[] execute(Jedis client, ConnectionContext state) throws DynoException {
+                    return decompressValue(client.get(key), state);
+                }
+            });
+        }
     }
     
     @Override
@@ -2561,12 +3338,21 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
 
     public OperationResult<String> d_setex(final byte[] key, final Integer seconds, final byte[] value) {
-        return connPool.executeWithFailover(new BaseKeyOperation<String>(key, OpName.SETEX) {
-            @Override
-            public String execute(Jedis client, ConnectionContext state) throws DynoException {
-                 return client.setex(key, seconds, value);
-            }
-         });
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.SETEX) {
+                @Override
+                public String execute(Jedis client, ConnectionContext state) throws DynoException {
+                    return client.setex(key, seconds, value);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<String>(key, OpName.SETEX) {
+                @Override
+                public String execute(Jedis client, ConnectionContext state) throws DynoException {
+                    return client.setex(key, seconds, compressValue(value, state));
+                }
+            });
+        }
     }
     
     @Override
@@ -2640,8 +3426,26 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     @Override
-    public byte[] getSet(byte[] key, byte[] value) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public byte[] getSet(final byte[] key, final byte[] value) {
+        return d_getSet(key, value).getResult();
+    }
+
+    public OperationResult<byte[]> d_getSet(final byte[] key, final byte[] value) {
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.GETSET) {
+                @Override
+                public byte[] execute(Jedis client, ConnectionContext state) throws DynoException {
+                    return client.getSet(key, value);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<byte[]>(key, OpName.GETSET) {
+                @Override
+                public byte[] execute(Jedis client, ConnectionContext state) throws DynoException {
+                    return decompressValue(client.getSet(key, compressValue(value, state)), state);
+                }
+            });
+        }
     }
 
     @Override
@@ -2686,28 +3490,125 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     @Override
-    public Long hset(byte[] key, byte[] field, byte[] value) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public Long hset(final byte[] key, final byte[] field, final byte[] value) {
+        return d_hset(key, field, value).getResult();
+    }
+
+    public OperationResult<Long> d_hset(final byte[] key, final byte[] field, final byte[] value) {
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSET) {
+                @Override
+                public Long execute(Jedis client, ConnectionContext state) {
+                    return client.hset(key, field, value);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<Long>(key, OpName.HSET) {
+                @Override
+                public Long execute(Jedis client, ConnectionContext state) {
+                    return client.hset(key, field, compressValue(value, state));
+                }
+            });
+        }
     }
 
     @Override
-    public byte[] hget(byte[] key, byte[] field) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public byte[] hget(final byte[] key, final byte[] field) {
+        return d_hget(key, field).getResult();
+    }
+
+    public OperationResult<byte[]> d_hget(final byte[] key, final byte[] field) {
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<byte[]>(key, OpName.HGET) {
+                @Override
+                public byte[] execute(Jedis client, ConnectionContext state) {
+                    return client.hget(key, field);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<byte[]>(key, OpName.HGET) {
+                @Override
+                public byte[] execute(Jedis client, ConnectionContext state) {
+                    return decompressValue(client.hget(key, field), state);
+                }
+            });
+        }
     }
 
     @Override
-    public Long hsetnx(byte[] key, byte[] field, byte[] value) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public Long hsetnx(final byte[] key, final byte[] field, final byte[] value) {
+        return d_hsetnx(key, field, value).getResult();
+    }
+
+    public OperationResult<Long> d_hsetnx(final byte[] key, final byte[] field, final byte[] value) {
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<Long>(key, OpName.HSETNX) {
+                @Override
+                public Long execute(Jedis client, ConnectionContext state) {
+                    return client.hsetnx(key, field, value);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<Long>(key, OpName.HSETNX) {
+                @Override
+                public Long execute(Jedis client, ConnectionContext state) {
+                    return client.hsetnx(key, field, compressValue(value, state));
+                }
+            });
+        }
     }
 
     @Override
-    public String hmset(byte[] key, Map<byte[], byte[]> hash) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public String hmset(final byte[] key, final Map<byte[], byte[]> hash) {
+        return d_hmset(key, hash).getResult();
+    }
+
+    public OperationResult<String> d_hmset(final byte[] key, final Map<byte[], byte[]> hash) {
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<String>(key, OpName.HMSET) {
+                @Override
+                public String execute(Jedis client, ConnectionContext state) {
+                    return client.hmset(key, hash);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<String>(key, OpName.HMSET) {
+                @Override
+                public String execute(final Jedis client, final ConnectionContext state) {
+                    return client.hmset(key,
+                            CollectionUtils.transform(hash, new CollectionUtils.MapEntryTransform<byte[], byte[], byte[]>() {
+                                @Override
+                                public byte[] get(byte[] field, byte[] val) {
+                                    return compressValue(val, state);
+                                }
+                            })
+                    );
+                }
+            });
+        }
     }
 
     @Override
-    public List<byte[]> hmget(byte[] key, byte[]... fields) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public List<byte[]> hmget(final byte[] key, final byte[]... fields) {
+        return d_hmget(key, fields).getResult();
+    }
+
+    public OperationResult<List<byte[]>> d_hmget(final byte[] key, final byte[]... fields) {
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<List<byte[]>>(key, OpName.HMGET) {
+                @Override
+                public List<byte[]> execute(Jedis client, ConnectionContext state) {
+                    return client.hmget(key, fields);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<List<byte[]>>(key, OpName.HMGET) {
+                @Override
+                public List<byte[]> execute(Jedis client, ConnectionContext state) {
+                    return decompressValues(client.hmget(key, fields), state);
+                }
+            });
+        }
     }
 
     @Override
@@ -2741,13 +3642,56 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
     }
 
     @Override
-    public Collection<byte[]> hvals(byte[] key) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public Collection<byte[]> hvals(final byte[] key) {
+        return d_hvals(key).getResult();
+    }
+
+    public OperationResult<List<byte[]>> d_hvals(final byte[] key) {
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<List<byte[]>>(key, OpName.HVALS) {
+                @Override
+                public List<byte[]> execute(Jedis client, ConnectionContext state) {
+                    return client.hvals(key);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<List<byte[]>>(key, OpName.HVALS) {
+                @Override
+                public List<byte[]> execute(Jedis client, ConnectionContext state) {
+                    return decompressValues(client.hvals(key), state);
+                }
+            });
+        }
     }
 
     @Override
-    public Map<byte[], byte[]> hgetAll(byte[] key) {
-        throw new UnsupportedOperationException("not yet implemented");
+    public Map<byte[], byte[]> hgetAll(final byte[] key) {
+        return d_hgetAll(key).getResult();
+    }
+
+    public OperationResult<Map<byte[], byte[]>> d_hgetAll(final byte[] key) {
+        if (CompressionStrategy.NONE == connPool.getConfiguration().getCompressionStrategy()) {
+            return executeWithFailover(new BaseKeyOperation<Map<byte[], byte[]>>(key, OpName.HGETALL) {
+                @Override
+                public Map<byte[], byte[]> execute(Jedis client, ConnectionContext state) {
+                    return client.hgetAll(key);
+                }
+            });
+        } else {
+            return executeWithFailover(new BinaryCompressionValueOperation<Map<byte[], byte[]>>(key, OpName.HGETALL) {
+                @Override
+                public Map<byte[], byte[]> execute(Jedis client, ConnectionContext state) {
+                    // the entries of the map jedis returns do not write through, so the values go to a new map that
+                    // compares fields by content like the original
+                    Map<byte[], byte[]> hash = client.hgetAll(key);
+                    Map<byte[], byte[]> result = new JedisByteHashMap();
+                    for (Map.Entry<byte[], byte[]> entry : hash.entrySet()) {
+                        result.put(entry.getKey(), decompressValue(entry.getValue(), state));
+                    }
+                    return result;
+                }
+            });
+        }
     }
 
     @Override
@@ -3159,6 +4103,39 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
 
     }
 
+    /**
+     * Streams the keys of the whole cluster without the caller having to keep track of a cursor per host. Up to
+     * {@value #DefaultScanParallelism} hosts are scanned at the same time and at most {@value #DefaultScanMaxPages}
+     * pages of keys are held in memory.
+     *
+     * @param pattern
+     * @return an iterator over the keys, which should be closed if it is not read to the end
+     * @see DynoJedisScanIterator
+     */
+    public DynoJedisScanIterator dyno_scanIterator(String... pattern) {
+        ScanParams params = null;
+        if (pattern != null && pattern.length > 0) {
+            params = new ScanParams();
+            for (String s: pattern) {
+                params.match(s);
+            }
+        }
+        return dyno_scanIterator(params, DefaultScanParallelism, DefaultScanMaxPages);
+    }
+
+    /**
+     * Streams the keys of the whole cluster
+     *
+     * @param params the MATCH and COUNT of each SCAN, or null
+     * @param parallelism maximum number of hosts scanned at the same time
+     * @param maxPages maximum number of pages of keys held in memory
+     * @return an iterator over the keys, which should be closed if it is not read to the end
+     * @see DynoJedisScanIterator
+     */
+    public DynoJedisScanIterator dyno_scanIterator(ScanParams params, int parallelism, int maxPages) {
+        return new DynoJedisScanIterator(connPool, getConnPool().getPoolsToRing(), params, parallelism, maxPages, appName);
+    }
+
     @Override
     public String pfmerge(String destkey, String... sourcekeys) {
         throw new UnsupportedOperationException("not yet implemented");
@@ -3173,12 +4150,28 @@ public class DynoJedisClient implements JedisCommands, BinaryJedisCommands, Mult
         if (pipelineMonitor.get() != null) {
             pipelineMonitor.get().stop();
         }
+        if (multiKeyExecutor.get() != null) {
+            multiKeyExecutor.get().shutdownNow();
+        }
 
         this.connPool.shutdown();
     }
 
     public DynoJedisPipeline pipelined() {
-        return new DynoJedisPipeline(getConnPool(), checkAndInitPipelineMonitor(), getConnPool().getMonitor());
+        return new DynoJedisPipeline(getConnPool(), checkAndInitPipelineMonitor(), getConnPool().getMonitor(), nearCache,
+                null, adaptiveCompressor);
+    }
+
+    /**
+     * Creates a pipeline whose commands may have different keys. The commands for the keys of each host go to a
+     * pipeline of their own, on a connection that is borrowed when the first of them is issued. The pipelines are
+     * flushed in parallel on sync(), and syncAndReturnAll() returns the results in the order the commands were issued.
+     *
+     * @return a sharded pipeline
+     */
+    public DynoJedisPipeline shardedPipelined() {
+        return new DynoJedisPipeline(getConnPool(), checkAndInitPipelineMonitor(), getConnPool().getMonitor(), nearCache,
+                multiKeyExecutor(), adaptiveCompressor);
     }
 
     private DynoJedisPipelineMonitor checkAndInitPipelineMonitor() {
@@ -21,6 +21,9 @@ import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
 import com.netflix.dyno.connectionpool.exception.NoAvailableHostsException;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.compression.AdaptiveCompressor;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodec;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodecs;
 import com.netflix.dyno.connectionpool.impl.utils.CollectionUtils;
 import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
 import com.netflix.dyno.jedis.JedisConnectionFactory.JedisConnection;
@@ -39,10 +42,20 @@ import redis.clients.jedis.params.sortedset.ZIncrByParams;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -62,44 +75,94 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
     // the cached pipeline
     private volatile Pipeline jedisPipeline = null;
     // the cached row key for the pipeline. all subsequent requests to pipeline must be the same. this is used to check that.
-    private final AtomicReference<String> theKey = new AtomicReference<String>(null);
+    private final AtomicReference<Object> theKey = new AtomicReference<Object>(null);
     // used for tracking errors
     private final AtomicReference<DynoException> pipelineEx = new AtomicReference<DynoException>(null);
 
+    // the near cache of the client that created the pipeline, if any. the keys are invalidated once the pipeline is flushed
+    private final JedisNearCache nearCache;
+    private final Map<Object, EnumSet<OpName>> pipelinedOps = new HashMap<Object, EnumSet<OpName>>();
+
+    // runs the sync of all but one of the shards of a sharded pipeline, null if the pipeline is not sharded
+    private final ExecutorService shardSyncExecutor;
+    // the shards of a sharded pipeline by the host pool they borrowed their connection from
+    private final Map<HostConnectionPool<Jedis>, Shard> shards = new LinkedHashMap<HostConnectionPool<Jedis>, Shard>();
+    // the shard of each command, in the order the commands were issued
+    private final List<Shard> issueOrder = new ArrayList<Shard>();
+    private Shard currentShard;
+
+    private final AdaptiveCompressor adaptiveCompressor;
+
     private static final String DynoPipeline = "DynoPipeline";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     DynoJedisPipeline(ConnectionPoolImpl<Jedis> cPool, DynoJedisPipelineMonitor operationMonitor, ConnectionPoolMonitor connPoolMonitor) {
+        this(cPool, operationMonitor, connPoolMonitor, null);
+    }
+
+    DynoJedisPipeline(ConnectionPoolImpl<Jedis> cPool, DynoJedisPipelineMonitor operationMonitor, ConnectionPoolMonitor connPoolMonitor,
+                      JedisNearCache nearCache) {
+        this(cPool, operationMonitor, connPoolMonitor, nearCache, null, null);
+    }
+
+    /**
+     * @param shardSyncExecutor when not null the pipeline is sharded: commands may have different keys, and the
+     *                          commands for the keys of each host go to a pipeline of their own. The pipelines are
+     *                          synced in parallel on the executor.
+     * @param adaptiveCompressor the adaptive compressor of the client that created the pipeline, so that what it
+     *                           learned applies to pipelined commands too. A pipeline without one gets its own.
+     */
+    DynoJedisPipeline(ConnectionPoolImpl<Jedis> cPool, DynoJedisPipelineMonitor operationMonitor, ConnectionPoolMonitor connPoolMonitor,
+                      JedisNearCache nearCache, ExecutorService shardSyncExecutor, AdaptiveCompressor adaptiveCompressor) {
         this.connPool = cPool;
         this.opMonitor = operationMonitor;
         this.cpMonitor = connPoolMonitor;
+        this.nearCache = nearCache;
+        this.shardSyncExecutor = shardSyncExecutor;
+        this.adaptiveCompressor = adaptiveCompressor != null ? adaptiveCompressor
+                : new AdaptiveCompressor(cPool.getConfiguration(), null);
+    }
+
+    /**
+     * @return true if the commands of the pipeline may have different keys
+     */
+    public boolean isSharded() {
+        return shardSyncExecutor != null;
     }
 
     private void checkKey(final String key) {
+        checkKey(key, key, null);
+    }
+
+    private void checkKey(final byte[] key) {
+        checkKey(ByteBuffer.wrap(key), null, key);
+    }
+
+    /**
+     * @param pipelineKey the key that all requests to the pipeline must have, either a String or a ByteBuffer
+     * @param key the String key to route the pipeline with
+     * @param binaryKey the binary key to route the pipeline with, used instead of the String key when not null
+     */
+    private void checkKey(final Object pipelineKey, final String key, final byte[] binaryKey) {
+
+        if (isSharded()) {
+            selectShard(key, binaryKey);
+            return;
+        }
 
         if (theKey.get() != null) {
-            verifyKey(key);
+            verifyKey(pipelineKey);
 
         } else {
 
-            boolean success = theKey.compareAndSet(null, key);
+            boolean success = theKey.compareAndSet(null, pipelineKey);
             if (!success) {
                 // someone already beat us to it. that's fine, just verify that the key is the same
-                verifyKey(key);
+                verifyKey(pipelineKey);
             } else {
 
                 try {
-                    connection = connPool.getConnectionForOperation(new BaseOperation<Jedis, String>() {
-
-                        @Override
-                        public String getName() {
-                            return DynoPipeline;
-                        }
-
-                        @Override
-                        public String getKey() {
-                            return key;
-                        }
-                    });
+                    connection = connPool.getConnectionForOperation(routingOperation(key, binaryKey));
                 } catch (NoAvailableHostsException nahe) {
                     cpMonitor.incOperationFailure(connection != null ? connection.getHost() : null, nahe);
                     discardPipelineAndReleaseConnection();
@@ -113,9 +176,111 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         }
     }
 
-    private void verifyKey(final String key) {
+    private BaseOperation<Jedis, String> routingOperation(final String key, final byte[] binaryKey) {
+        return new BaseOperation<Jedis, String>() {
+
+            @Override
+            public String getName() {
+                return DynoPipeline;
+            }
+
+            @Override
+            public String getKey() {
+                return key;
+            }
+
+            @Override
+            public byte[] getBinaryKey() {
+                return binaryKey;
+            }
+        };
+    }
 
-        if (!theKey.get().equals(key)) {
+    /**
+     * Makes the shard of the host that serves the key the current one, borrowing a connection to the host if the
+     * pipeline has no shard for it yet
+     */
+    private void selectShard(final String key, final byte[] binaryKey) {
+
+        try {
+            List<BaseOperation<Jedis, ?>> ops = Collections.<BaseOperation<Jedis, ?>>singletonList(routingOperation(key, binaryKey));
+            HostConnectionPool<Jedis> hostPool = connPool.getPoolsForOperationBatch(ops).keySet().iterator().next();
+
+            Shard shard = shards.get(hostPool);
+            if (shard == null) {
+                Connection<Jedis> shardConnection = hostPool.borrowConnection(
+                        connPool.getConfiguration().getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+                shard = new Shard(shardConnection);
+                shards.put(hostPool, shard);
+                cpMonitor.incOperationSuccess(shardConnection.getHost(), 0);
+            }
+            currentShard = shard;
+
+        } catch (DynoException e) {
+            cpMonitor.incOperationFailure(null, e);
+            discardPipelineAndReleaseConnection();
+            throw e;
+        }
+    }
+
+    /**
+     * The pipeline to one host of a sharded pipeline
+     */
+    private class Shard {
+
+        private final Connection<Jedis> connection;
+        private Pipeline pipeline;
+        private DynoException error;
+        private Iterator<Object> results;
+
+        private Shard(Connection<Jedis> connection) {
+            this.connection = connection;
+            this.pipeline = ((JedisConnection) connection).getClient().pipelined();
+        }
+
+        private void sync(boolean returnAll) {
+            try {
+                if (returnAll) {
+                    results = pipeline.syncAndReturnAll().iterator();
+                } else {
+                    pipeline.sync();
+                }
+            } catch (JedisConnectionException jce) {
+                error = new FatalConnectionException("Failed sync() to host: " + connection.getHost(), jce);
+                cpMonitor.incOperationFailure(connection.getHost(), jce);
+                throw jce;
+            } finally {
+                pipeline = null;
+            }
+        }
+
+        private void discard() {
+            try {
+                if (pipeline != null) {
+                    pipeline.sync();
+                    pipeline = null;
+                }
+            } catch (Exception e) {
+                Logger.warn(String.format("Failed to discard jedis pipeline, %s", connection.getHost()), e);
+            }
+        }
+
+        private void release() {
+            try {
+                connection.getContext().reset();
+                connection.getParentConnectionPool().returnConnection(connection);
+                if (error != null) {
+                    connPool.getHealthTracker().trackConnectionError(connection.getParentConnectionPool(), error);
+                }
+            } catch (Exception e) {
+                Logger.warn(String.format("Failed to return connection in Dyno Jedis Pipeline, %s", connection.getHost()), e);
+            }
+        }
+    }
+
+    private void verifyKey(final Object pipelineKey) {
+
+        if (!isSameKey(theKey.get(), pipelineKey)) {
             try {
                 throw new RuntimeException("Must have same key for Redis Pipeline in Dynomite");
             } finally {
@@ -124,10 +289,27 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         }
     }
 
+    /**
+     * A String key and a binary key are the same key when the binary key is the UTF-8 encoding of the String,
+     * since they hash to the same token.
+     */
+    private static boolean isSameKey(Object key, Object other) {
+        if (key.equals(other)) {
+            return true;
+        }
+        if (key instanceof String && other instanceof ByteBuffer) {
+            return ByteBuffer.wrap(((String) key).getBytes(UTF_8)).equals(other);
+        }
+        if (key instanceof ByteBuffer && other instanceof String) {
+            return key.equals(ByteBuffer.wrap(((String) other).getBytes(UTF_8)));
+        }
+        return false;
+    }
+
     private String decompressValue(String value) {
         try {
-            if (ZipUtils.isCompressed(value)) {
-                return ZipUtils.decompressFromBase64String(value);
+            if (ValueCodecs.isCompressed(value)) {
+                return ValueCodecs.decompressFromBase64String(value);
             }
         } catch (IOException e) {
             Logger.warn("Unable to decompress value [" + value + "]");
@@ -137,14 +319,8 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
     }
 
     private byte[] decompressValue(byte[] value) {
-        try {
-            if (ZipUtils.isCompressed(value)) {
-                return ZipUtils.decompressBytesNonBase64(value);
-            }
-        } catch (IOException e) {
-            Logger.warn("Unable to decompress byte array value [" + value + "]");
-        }
-        return value;
+        // a value that does not decompress was stored uncompressed and merely looks compressed
+        return ValueCodecs.decompress(value, connPool.getConfiguration().isLegacyBinaryValueDecompressionEnabled());
     }
 
     /**
@@ -286,25 +462,41 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
 
     private abstract class PipelineOperation<R> {
 
+        // the key and name of the operation, set before it is executed
+        Object operationKey;
+        OpName operationName;
+
         abstract Response<R> execute(Pipeline jedisPipeline) throws DynoException;
 
         Response<R> execute(final byte[] key, final OpName opName) {
-            // For now simply convert the key into a String. Properly supporting this
-            // functionality requires significant changes to plumb this throughout for the LB
-            return execute(new String(key), opName);
+
+            checkKey(key);
+            return executeOperation(key, opName);
+
         }
 
         Response<R> execute(final String key, final OpName opName) {
 
             checkKey(key);
-            return executeOperation(opName);
+            return executeOperation(key, opName);
 
         }
 
-        Response<R> executeOperation(final OpName opName) {
+        Response<R> executeOperation(final Object key, final OpName opName) {
+            this.operationKey = key;
+            this.operationName = opName;
             try {
                 opMonitor.recordOperation(opName.name());
-                return execute(jedisPipeline);
+                if (nearCache != null) {
+                    recordPipelinedOp(key, opName);
+                }
+                if (!isSharded()) {
+                    return execute(jedisPipeline);
+                }
+
+                Response<R> response = execute(currentShard.pipeline);
+                issueOrder.add(currentShard);
+                return response;
 
             } catch (JedisConnectionException ex) {
                 handleConnectionException(ex);
@@ -314,8 +506,13 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
 
         void handleConnectionException(JedisConnectionException ex) {
             DynoException e = new FatalConnectionException(ex).setAttempt(1);
-            pipelineEx.set(e);
-            cpMonitor.incOperationFailure(connection.getHost(), e);
+            if (isSharded()) {
+                currentShard.error = e;
+                cpMonitor.incOperationFailure(currentShard.connection.getHost(), e);
+            } else {
+                pipelineEx.set(e);
+                cpMonitor.incOperationFailure(connection.getHost(), e);
+            }
         }
     }
 
@@ -336,7 +533,13 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
                 // prefer speed over accuracy here so rather than using getBytes() to get the actual size
                 // just estimate using 2 bytes per character
                 if ((2 * value.length()) > thresholdBytes) {
-                    result = ZipUtils.compressStringToBase64String(value);
+                    if (CompressionStrategy.ADAPTIVE == connPool.getConfiguration().getCompressionStrategy()) {
+                        result = adaptiveCompressor.compress(operationName.name(), stringKey(), value);
+                    } else {
+                        ValueCodec codec = ValueCodecs.forConfiguration(connPool.getConfiguration());
+                        result = (codec == null) ? ZipUtils.compressStringToBase64String(value)
+                                : ValueCodecs.compressToBase64String(codec, value);
+                    }
                 }
             } catch (IOException e) {
                 Logger.warn("UNABLE to compress [" + value + "]; sending value uncompressed");
@@ -350,7 +553,10 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
 
             if (value.length > thresholdBytes) {
                 try {
-                    return ZipUtils.compressBytesNonBase64(value);
+                    if (CompressionStrategy.ADAPTIVE == connPool.getConfiguration().getCompressionStrategy()) {
+                        return adaptiveCompressor.compress(operationName.name(), binaryKey(), value);
+                    }
+                    return ValueCodecs.compress(ValueCodecs.forBinaryValues(connPool.getConfiguration()), value);
                 } catch (IOException e) {
                     Logger.warn("UNABLE to compress byte array [" + value + "]; sending value uncompressed");
                 }
@@ -359,6 +565,14 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
             return value;
         }
 
+        private String stringKey() {
+            return operationKey instanceof byte[] ? new String((byte[]) operationKey, UTF_8) : (String) operationKey;
+        }
+
+        private byte[] binaryKey() {
+            return operationKey instanceof String ? ((String) operationKey).getBytes(UTF_8) : (byte[]) operationKey;
+        }
+
 
     }
 
@@ -2023,6 +2237,11 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
 	}
     
     public void sync() {
+        if (isSharded()) {
+            syncShards(false);
+            return;
+        }
+
         long startTime = System.nanoTime() / 1000;
         try {
             jedisPipeline.sync();
@@ -2041,6 +2260,10 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
     }
 
     public List<Object> syncAndReturnAll() {
+        if (isSharded()) {
+            return syncShards(true);
+        }
+
         long startTime = System.nanoTime() / 1000;
         try {
             List<Object> result = jedisPipeline.syncAndReturnAll();
@@ -2059,7 +2282,87 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         }
     }
 
+    /**
+     * Syncs all the shards in parallel, and then releases all their connections even if some of them failed
+     *
+     * @param returnAll
+     * @return the results of the commands in the order they were issued if returnAll is true, otherwise null
+     */
+    private List<Object> syncShards(final boolean returnAll) {
+        long startTime = System.nanoTime() / 1000;
+        try {
+            List<Shard> toSync = new ArrayList<Shard>(shards.values());
+            List<Future<?>> futures = new ArrayList<Future<?>>(toSync.size());
+            RuntimeException syncEx = null;
+
+            for (int i = 0; i < toSync.size() - 1; i++) {
+                final Shard shard = toSync.get(i);
+                futures.add(shardSyncExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        shard.sync(returnAll);
+                    }
+                }));
+            }
+
+            if (!toSync.isEmpty()) {
+                try {
+                    toSync.get(toSync.size() - 1).sync(returnAll);
+                } catch (RuntimeException e) {
+                    syncEx = e;
+                }
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (syncEx == null) {
+                        syncEx = (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : new DynoException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (syncEx == null) {
+                        syncEx = new DynoException("Interrupted while syncing the pipeline", e);
+                    }
+                }
+            }
+
+            if (syncEx != null) {
+                throw syncEx;
+            }
+            opMonitor.recordPipelineSync();
+
+            if (!returnAll) {
+                return null;
+            }
+            List<Object> results = new ArrayList<Object>(issueOrder.size());
+            for (Shard shard : issueOrder) {
+                results.add(shard.results.next());
+            }
+            return results;
+
+        } finally {
+            long duration = System.nanoTime() / 1000 - startTime;
+            opMonitor.recordLatency(duration, TimeUnit.MICROSECONDS);
+            discardPipeline(false);
+            releaseConnection();
+        }
+    }
+
     private void discardPipeline(boolean recordLatency) {
+        if (isSharded()) {
+            long startTime = System.nanoTime() / 1000;
+            for (Shard shard : shards.values()) {
+                shard.discard();
+            }
+            if (recordLatency && !shards.isEmpty()) {
+                long duration = System.nanoTime() / 1000 - startTime;
+                opMonitor.recordLatency(duration, TimeUnit.MICROSECONDS);
+            }
+            return;
+        }
+
         try {
             if (jedisPipeline != null) {
                 long startTime = System.nanoTime() / 1000;
@@ -2075,7 +2378,44 @@ public class DynoJedisPipeline implements RedisPipeline, AutoCloseable {
         }
     }
 
+    private void recordPipelinedOp(Object key, OpName opName) {
+        Object pipelineKey = (key instanceof byte[]) ? ByteBuffer.wrap((byte[]) key) : key;
+        EnumSet<OpName> ops = pipelinedOps.get(pipelineKey);
+        if (ops == null) {
+            ops = EnumSet.noneOf(OpName.class);
+            pipelinedOps.put(pipelineKey, ops);
+        }
+        ops.add(opName);
+    }
+
+    private void invalidateNearCache() {
+        if (nearCache == null || pipelinedOps.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Object, EnumSet<OpName>> entry : pipelinedOps.entrySet()) {
+            Object key = entry.getKey();
+            for (OpName opName : entry.getValue()) {
+                if (key instanceof ByteBuffer) {
+                    nearCache.invalidate(opName, null, ((ByteBuffer) key).array());
+                } else {
+                    nearCache.invalidate(opName, (String) key, null);
+                }
+            }
+        }
+        pipelinedOps.clear();
+    }
+
     private void releaseConnection() {
+        invalidateNearCache();
+        if (isSharded()) {
+            for (Shard shard : shards.values()) {
+                shard.release();
+            }
+            shards.clear();
+            issueOrder.clear();
+            currentShard = null;
+            return;
+        }
         if (connection != null) {
             try {
                 connection.getContext().reset();
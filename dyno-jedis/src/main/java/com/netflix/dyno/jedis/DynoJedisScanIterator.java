@@ -0,0 +1,288 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionPool;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+
+/**
+ * Iterates over the keys of the whole cluster by running a SCAN against the owner of every token of the ring.
+ * <p>
+ * The hosts are scanned concurrently by up to <code>parallelism</code> threads, each of which takes the next host
+ * whose cursor is not done yet, fetches one page from it and puts the host back. A page has to be given a permit
+ * before it is fetched and hands the permit back once the iterator has moved past it, so no more than
+ * <code>maxPages</code> pages are ever held in memory and the scan waits whenever the caller falls behind.
+ * <p>
+ * A failed SCAN fails the iterator, as the cursor of a host can not be resumed on another replica. As with SCAN
+ * itself, a key that is added or removed during the scan may or may not be returned.
+ * <p>
+ * The iterator is meant for a single consumer. On Java 8 it can be wrapped with
+ * <code>Spliterators.spliteratorUnknownSize</code> to feed a (parallel) stream. It stops its threads once all the keys
+ * have been returned, or when it is closed.
+ */
+public class DynoJedisScanIterator implements Iterator<String>, Closeable {
+
+    private static final Logger Logger = LoggerFactory.getLogger(DynoJedisScanIterator.class);
+
+    // marks the end of the scan in the queue of pages
+    private static final Page End = new Page(null, null);
+
+    private final ConnectionPool<Jedis> connPool;
+    private final ScanParams params;
+    private final ExecutorService executor;
+    private final Semaphore pagePermits;
+    private final BlockingQueue<Page> pages = new LinkedBlockingQueue<Page>();
+    private final Queue<HostCursor> hostCursors = new ConcurrentLinkedQueue<HostCursor>();
+    private final AtomicInteger remainingHosts;
+    private volatile boolean closed = false;
+
+    private Iterator<String> currentPage = Collections.emptyIterator();
+    private boolean holdsPagePermit = false;
+    private boolean done = false;
+
+    DynoJedisScanIterator(ConnectionPool<Jedis> connPool, List<HostConnectionPool<Jedis>> hostPools,
+                          ScanParams params, int parallelism, int maxPages, final String name) {
+
+        if (parallelism < 1 || maxPages < 1) {
+            throw new IllegalArgumentException("parallelism and maxPages must be positive");
+        }
+
+        this.connPool = connPool;
+        this.params = params;
+        this.pagePermits = new Semaphore(maxPages);
+        this.remainingHosts = new AtomicInteger(hostPools.size());
+
+        for (HostConnectionPool<Jedis> hostPool : hostPools) {
+            hostCursors.add(new HostCursor(hostPool));
+        }
+        if (hostPools.isEmpty()) {
+            pages.add(End);
+        }
+
+        int numThreads = Math.max(1, Math.min(parallelism, hostPools.size()));
+        this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "DynoJedisScan-" + name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < numThreads; i++) {
+            executor.execute(new Scanner());
+        }
+        // the threads go away once the scanners are done
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        while (!currentPage.hasNext()) {
+            if (done) {
+                return false;
+            }
+            releasePagePermit();
+
+            Page page;
+            try {
+                page = pages.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new DynoException("Interrupted while waiting for the next page of keys", e);
+            }
+
+            if (page == End) {
+                close();
+                return false;
+            }
+            holdsPagePermit = true;
+            if (page.error != null) {
+                close();
+                throw (page.error instanceof DynoException) ? (DynoException) page.error : new DynoException(page.error);
+            }
+            currentPage = page.keys.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stops the scan. The SCANs in flight complete and return their connections.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        done = true;
+        currentPage = Collections.emptyIterator();
+        executor.shutdownNow();
+    }
+
+    private void releasePagePermit() {
+        if (holdsPagePermit) {
+            holdsPagePermit = false;
+            pagePermits.release();
+        }
+    }
+
+    private class Scanner implements Runnable {
+
+        @Override
+        public void run() {
+
+            HostCursor hostCursor;
+            while (!closed && (hostCursor = hostCursors.poll()) != null) {
+
+                try {
+                    pagePermits.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                try {
+                    ScanResult<String> result = scan(hostCursor);
+                    pages.add(new Page(result.getResult(), null));
+
+                    hostCursor.cursor = result.getStringCursor();
+                    if (!ScanParams.SCAN_POINTER_START.equals(hostCursor.cursor)) {
+                        hostCursors.add(hostCursor);
+                    } else if (remainingHosts.decrementAndGet() == 0) {
+                        pages.add(End);
+                    }
+
+                } catch (RuntimeException e) {
+                    pages.add(new Page(null, e));
+                    return;
+                }
+            }
+        }
+
+        private ScanResult<String> scan(HostCursor hostCursor) {
+
+            Connection<Jedis> connection = hostCursor.hostPool.borrowConnection(
+                    connPool.getConfiguration().getMaxTimeoutWhenExhausted(), TimeUnit.MILLISECONDS);
+            try {
+                return connection.execute(new ScanOperation(hostCursor.cursor)).getResult();
+
+            } catch (DynoException e) {
+                connPool.getHealthTracker().trackConnectionError(connection.getParentConnectionPool(), e);
+                throw e;
+
+            } finally {
+                connection.getContext().reset();
+                if (connection.getLastException() instanceof FatalConnectionException) {
+                    Logger.warn("Received FatalConnectionException; closing connection to host " + connection.getHost());
+                    connection.getParentConnectionPool().closeConnection(connection);
+                } else {
+                    connection.getParentConnectionPool().returnConnection(connection);
+                }
+            }
+        }
+    }
+
+    private class ScanOperation implements Operation<Jedis, ScanResult<String>> {
+
+        private final String cursor;
+
+        private ScanOperation(String cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public ScanResult<String> execute(Jedis client, ConnectionContext state) throws DynoException {
+            return (params != null) ? client.scan(cursor, params) : client.scan(cursor);
+        }
+
+        @Override
+        public String getName() {
+            return OpName.SCAN.name();
+        }
+
+        @Override
+        public String getKey() {
+            return null;
+        }
+
+        @Override
+        public byte[] getBinaryKey() {
+            return null;
+        }
+    }
+
+    private static class HostCursor {
+
+        private final HostConnectionPool<Jedis> hostPool;
+        private String cursor = ScanParams.SCAN_POINTER_START;
+
+        private HostCursor(HostConnectionPool<Jedis> hostPool) {
+            this.hostPool = hostPool;
+        }
+    }
+
+    private static class Page {
+
+        private final List<String> keys;
+        private final RuntimeException error;
+
+        private Page(List<String> keys, RuntimeException error) {
+            this.keys = keys;
+            this.error = error;
+        }
+    }
+}
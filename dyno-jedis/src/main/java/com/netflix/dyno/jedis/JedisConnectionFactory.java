@@ -15,9 +15,15 @@
  ******************************************************************************/
 package com.netflix.dyno.jedis;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-
-import org.apache.commons.lang.NotImplementedException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,12 +47,27 @@ import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
 import com.netflix.dyno.connectionpool.exception.ThrottledException;
 import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
 import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.connectionpool.impl.SettableListenableFuture;
 
 public class JedisConnectionFactory implements ConnectionFactory<Jedis> {
 
     private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(JedisConnectionFactory.class);
 
 	private final OperationMonitor opMonitor; 
+
+	// runs the async operations of the connections. Each one holds its connection until it completes, so there are
+	// never more threads than connections, and idle threads go away on their own
+	private final ExecutorService asyncExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+			new SynchronousQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "DynoJedisAsync-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
 	
 	public JedisConnectionFactory(OperationMonitor monitor) {
 		this.opMonitor = monitor;
@@ -64,6 +85,8 @@ public class JedisConnectionFactory implements ConnectionFactory<Jedis> {
 		private final HostConnectionPool<Jedis> hostPool;
 		private final Jedis jedisClient; 
 		private final ConnectionContextImpl context = new ConnectionContextImpl();
+		// shared by all the results of this connection instead of being rebuilt for every operation
+		private final Map<String, String> resultMetadata;
 		
 		private DynoConnectException lastDynoException;
 		
@@ -71,6 +94,7 @@ public class JedisConnectionFactory implements ConnectionFactory<Jedis> {
 			this.hostPool = hostPool;
 			Host host = hostPool.getHost();
 			jedisClient = new Jedis(host.getHostAddress(), host.getPort(), hostPool.getConnectionTimeout());
+			resultMetadata = Collections.singletonMap("connectionId", String.valueOf(this.hashCode()));
 		}
 		
 		@Override
@@ -88,8 +112,7 @@ public class JedisConnectionFactory implements ConnectionFactory<Jedis> {
                 } else {
                     opMonitor.recordSuccess(opName);
                 }
-				opResult = new OperationResultImpl<R>(opName, result, opMonitor);
-				opResult.addMetadata("connectionId", String.valueOf(this.hashCode()));
+				opResult = new OperationResultImpl<R>(opName, result, opMonitor, resultMetadata);
                 return opResult;
 				
 			} catch (JedisConnectionException ex) {
@@ -112,9 +135,62 @@ public class JedisConnectionFactory implements ConnectionFactory<Jedis> {
 			}
 		}
 
+		/**
+		 * Jedis only has blocking commands, so the operation runs on a thread of the factory and the caller gets the
+		 * future right away. An operation that is also an {@link Operation} runs through {@link #execute(Operation)},
+		 * otherwise the future of {@link AsyncOperation#executeAsync(Object)} is waited for on that thread.
+		 */
 		@Override
-		public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<Jedis, R> op) throws DynoException {
-			throw new NotImplementedException();
+		public <R> ListenableFuture<OperationResult<R>> executeAsync(final AsyncOperation<Jedis, R> op) throws DynoException {
+
+			final SettableListenableFuture<OperationResult<R>> future = new SettableListenableFuture<OperationResult<R>>();
+			asyncExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						future.set(execute(asOperation(op)));
+					} catch (Throwable t) {
+						future.setException(t);
+					}
+				}
+			});
+			return future;
+		}
+
+		@SuppressWarnings("unchecked")
+		private <R> Operation<Jedis, R> asOperation(final AsyncOperation<Jedis, R> op) {
+			if (op instanceof Operation) {
+				return (Operation<Jedis, R>) op;
+			}
+			return new Operation<Jedis, R>() {
+
+				@Override
+				public R execute(Jedis client, ConnectionContext state) throws DynoException {
+					try {
+						return op.executeAsync(client).get();
+					} catch (ExecutionException e) {
+						throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : new DynoException(e.getCause());
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new DynoException(e);
+					}
+				}
+
+				@Override
+				public String getName() {
+					return op.getName();
+				}
+
+				@Override
+				public String getKey() {
+					return op.getKey();
+				}
+
+				@Override
+				public byte[] getBinaryKey() {
+					return op.getBinaryKey();
+				}
+			};
 		}
 
 		@Override
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.OperationMonitor;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.connectionpool.impl.utils.NearCache;
+
+/**
+ * The near cache of a {@link DynoJedisClient}. It keeps the results of GET, HGET and HGETALL per key, and drops
+ * a key whenever the client runs any other operation on it that may change it.
+ *
+ * A key holds either its String value, or the fields of its hash that have been read so far. HGETALL caches
+ * the complete hash, which then also serves HGET for any of its fields.
+ *
+ * Results are cached for {@link ConnectionPoolConfiguration#getNearCacheTtlMillis()} from the time they were read,
+ * writes made by other clients are not seen until then.
+ */
+class JedisNearCache {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** Metadata of the results that were served from the near cache */
+	static final Map<String, String> HitMetadata = Collections.singletonMap("nearCache", "hit");
+
+	/** Operations that never change the data, they do not invalidate their key */
+	private static final EnumSet<OpName> ReadOperations = EnumSet.of(
+			OpName.BITCOUNT, OpName.DUMP, OpName.ECHO, OpName.EXISTS,
+			OpName.GET, OpName.GETBIT, OpName.GETRANGE,
+			OpName.HEXISTS, OpName.HGET, OpName.HGETALL, OpName.HKEYS, OpName.HLEN, OpName.HMGET, OpName.HSCAN, OpName.HVALS,
+			OpName.KEYS, OpName.LINDEX, OpName.LLEN, OpName.LRANGE, OpName.MGET, OpName.PTTL,
+			OpName.SCAN, OpName.SCARD, OpName.SDIFF, OpName.SINTER, OpName.SISMEMBER, OpName.SMEMBERS, OpName.SRANDMEMBER,
+			OpName.SSCAN, OpName.STRLEN, OpName.SUBSTR, OpName.SUNION, OpName.TTL, OpName.TYPE,
+			OpName.ZCARD, OpName.ZCOUNT, OpName.ZRANGE, OpName.ZRANGEWITHSCORES, OpName.ZRANK, OpName.ZRANGEBYSCORE,
+			OpName.ZRANGEBYSCOREWITHSCORES, OpName.ZREVRANGE, OpName.ZREVRANGEBYSCORE, OpName.ZREVRANGEBYSCOREWITHSCORES,
+			OpName.ZREVRANGEWITHSCORES, OpName.ZREVRANK, OpName.ZSCAN, OpName.ZSCORE);
+
+	/** Operations that may change keys other than the key they are routed with, they invalidate the whole cache */
+	private static final EnumSet<OpName> MultiKeyWriteOperations = EnumSet.of(
+			OpName.RENAME, OpName.RENAMENX, OpName.RPOPLPUSH, OpName.SMOVE, OpName.SORT,
+			OpName.SDIFFSTORE, OpName.SINTERSTORE, OpName.SUNIONSTORE);
+
+	private final ConnectionPoolConfiguration config;
+	private final OperationMonitor opMonitor;
+	private final NearCache<String, Object> cache;
+
+	/**
+	 * @param config
+	 * @param opMonitor records hits, misses and evictions, may be null
+	 */
+	JedisNearCache(ConnectionPoolConfiguration config, final OperationMonitor opMonitor) {
+		this.config = config;
+		this.opMonitor = opMonitor;
+		this.cache = new NearCache<String, Object>(config.getNearCacheMaxEntries(), config.getNearCacheMaxWeightBytes(),
+				new NearCache.Weigher<String, Object>() {
+					@Override
+					public int weigh(String key, Object value) {
+						return weightOf(key) + (value instanceof CachedHash ? ((CachedHash) value).weight : weightOf((String) value));
+					}
+				},
+				new NearCache.EvictionListener<String>() {
+					@Override
+					public void onEviction(String key, boolean expired) {
+						if (opMonitor != null) {
+							opMonitor.recordNearCacheEviction(expired ? "expired" : "size");
+						}
+					}
+				});
+	}
+
+	/**
+	 * @return true if reads should be served from the cache. Writes invalidate the cache even when it is disabled,
+	 * so that it is consistent if it is enabled again.
+	 */
+	boolean isEnabled() {
+		return config.isNearCacheEnabled();
+	}
+
+	/**
+	 * @return the stamp to cache the result of a read with, taken before the read is sent
+	 */
+	long getInvalidationStamp() {
+		return cache.getInvalidationStamp();
+	}
+
+	String getValue(String key) {
+		Object value = cache.get(key);
+		return recordLookup(OpName.GET, value instanceof String ? (String) value : null);
+	}
+
+	String getHashField(String key, String field) {
+		Object value = cache.get(key);
+		return recordLookup(OpName.HGET, value instanceof CachedHash ? ((CachedHash) value).fields.get(field) : null);
+	}
+
+	Map<String, String> getHash(String key) {
+		Object value = cache.get(key);
+		CachedHash hash = value instanceof CachedHash ? (CachedHash) value : null;
+		// callers may modify the map, as they could with the one returned by jedis
+		return recordLookup(OpName.HGETALL, hash != null && hash.complete ? new HashMap<String, String>(hash.fields) : null);
+	}
+
+	void putValue(String key, String value, long invalidationStamp) {
+		if (value != null) {
+			cache.put(key, value, config.getNearCacheTtlMillis(), TimeUnit.MILLISECONDS, invalidationStamp);
+		}
+	}
+
+	void putHashField(String key, String field, String value, long invalidationStamp) {
+		if (value == null) {
+			return;
+		}
+
+		long ttlNanos = TimeUnit.MILLISECONDS.toNanos(config.getNearCacheTtlMillis());
+		long now = System.nanoTime();
+
+		// add the field to the fields that are already cached, without extending how long they are cached for
+		Object current = cache.get(key);
+		Map<String, String> fields = new HashMap<String, String>();
+		long cachedAt = now;
+		if (current instanceof CachedHash && ((CachedHash) current).cachedAt + ttlNanos - now > 0) {
+			CachedHash hash = (CachedHash) current;
+			if (hash.complete) {
+				return;
+			}
+			fields.putAll(hash.fields);
+			cachedAt = hash.cachedAt;
+		}
+		fields.put(field, value);
+
+		cache.put(key, new CachedHash(fields, false, cachedAt), cachedAt + ttlNanos - now, TimeUnit.NANOSECONDS,
+				invalidationStamp);
+	}
+
+	void putHash(String key, Map<String, String> hash, long invalidationStamp) {
+		if (hash != null && !hash.isEmpty()) {
+			cache.put(key, new CachedHash(new HashMap<String, String>(hash), true, System.nanoTime()),
+					config.getNearCacheTtlMillis(), TimeUnit.MILLISECONDS, invalidationStamp);
+		}
+	}
+
+	/**
+	 * Drops the entries that an operation that has been sent may have changed
+	 *
+	 * @param opName
+	 * @param key
+	 * @param binaryKey
+	 */
+	void invalidate(OpName opName, String key, byte[] binaryKey) {
+		if (ReadOperations.contains(opName)) {
+			return;
+		}
+		if (MultiKeyWriteOperations.contains(opName)) {
+			cache.invalidateAll();
+		} else if (binaryKey != null) {
+			cache.invalidate(new String(binaryKey, UTF_8));
+		} else if (key != null) {
+			cache.invalidate(key);
+		}
+	}
+
+	void invalidate(String key) {
+		cache.invalidate(key);
+	}
+
+	<R> OperationResult<R> cachedResult(OpName opName, R value) {
+		return new OperationResultImpl<R>(opName.name(), value, null, HitMetadata);
+	}
+
+	private <R> R recordLookup(OpName opName, R value) {
+		if (opMonitor == null) {
+			return value;
+		}
+		if (value != null) {
+			opMonitor.recordNearCacheHit(opName.name());
+		} else {
+			opMonitor.recordNearCacheMiss(opName.name());
+		}
+		return value;
+	}
+
+	private static int weightOf(String s) {
+		// 2 bytes per char plus the String and its array
+		return s == null ? 0 : 40 + 2 * s.length();
+	}
+
+	/**
+	 * The fields of a hash that have been read so far. Never modified once it is cached.
+	 */
+	private static final class CachedHash {
+
+		private final Map<String, String> fields;
+		private final boolean complete;
+		private final long cachedAt;
+		private final int weight;
+
+		private CachedHash(Map<String, String> fields, boolean complete, long cachedAt) {
+			this.fields = Collections.unmodifiableMap(fields);
+			this.complete = complete;
+			this.cachedAt = cachedAt;
+
+			int w = 48;
+			for (Map.Entry<String, String> entry : fields.entrySet()) {
+				w += 32 + weightOf(entry.getKey()) + weightOf(entry.getValue());
+			}
+			this.weight = w;
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.OperationMonitor;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.impl.SettableListenableFuture;
+
+/**
+ * Coalesces concurrent single key commands that go to the same host into batches that are sent in one round trip.
+ *
+ * The first command for a host opens a batch and becomes its leader. If no other batch to the host is in flight, the
+ * leader sends its batch right away, so a client that is not busy pays no extra latency. Otherwise the leader waits
+ * up to {@link ConnectionPoolConfiguration#getRequestCoalescingWindowMicros()} for other commands to join, or until
+ * the batch holds {@link ConnectionPoolConfiguration#getRequestCoalescingMaxBatchSize()} commands, and then sends the
+ * batch on its own thread. The commands that joined wait for the leader to hand them their replies.
+ *
+ * The lane of a host pool that has been shut down, e.g. because its host was removed, is dropped once it is idle.
+ *
+ * @param <C> the commands that are coalesced
+ */
+class JedisRequestCoalescer<C> {
+
+	private static final Logger Logger = LoggerFactory.getLogger(JedisRequestCoalescer.class);
+
+	/**
+	 * Sends a batch of commands in one round trip
+	 */
+	interface BatchExecutor<C> {
+
+		/**
+		 * @param commands
+		 * @return the reply of each command in order, or the DynoException of a command that got an error reply
+		 * @throws DynoException when the batch as a whole failed
+		 */
+		OperationResult<List<Object>> execute(List<C> commands) throws DynoException;
+	}
+
+	private final ConnectionPoolConfiguration config;
+	private final OperationMonitor opMonitor;
+	private final BatchExecutor<C> executor;
+
+	private final ConcurrentHashMap<HostConnectionPool<?>, Lane> lanes = new ConcurrentHashMap<HostConnectionPool<?>, Lane>();
+
+	private volatile String excludedOpsConfig;
+	private volatile EnumSet<OpName> excludedOps = EnumSet.noneOf(OpName.class);
+
+	/**
+	 * @param config
+	 * @param opMonitor records the batch sizes and the latency coalescing adds, may be null
+	 * @param executor
+	 */
+	JedisRequestCoalescer(ConnectionPoolConfiguration config, OperationMonitor opMonitor, BatchExecutor<C> executor) {
+		this.config = config;
+		this.opMonitor = opMonitor;
+		this.executor = executor;
+	}
+
+	/**
+	 * @param opName
+	 * @return true if commands of the operation should be coalesced
+	 */
+	boolean isCoalesced(OpName opName) {
+		return config.isRequestCoalescingEnabled() && !getExcludedOps().contains(opName);
+	}
+
+	/**
+	 * Sends the command in a batch with the other commands for the same host and waits for its reply
+	 *
+	 * @param hostPool the pool of the host the command goes to, commands are only coalesced with others for the same pool
+	 * @param opName the operation of the command. A batch is recorded under the operation of the command that opened it.
+	 * @param command
+	 * @return the reply of the command
+	 * @throws DynoException if the command got an error reply or the batch failed
+	 */
+	Object execute(HostConnectionPool<?> hostPool, OpName opName, C command) throws DynoException {
+
+		Lane lane = lanes.get(hostPool);
+		if (lane == null) {
+			Lane newLane = new Lane();
+			lane = lanes.putIfAbsent(hostPool, newLane);
+			if (lane == null) {
+				lane = newLane;
+				// a new pool usually replaces one that was removed
+				removeShutdownLanes();
+			}
+		}
+
+		Batch batch;
+		boolean leader = false;
+		SettableListenableFuture<Object> reply = new SettableListenableFuture<Object>();
+
+		synchronized (lane) {
+			batch = lane.open;
+			if (batch == null) {
+				batch = new Batch(opName);
+				lane.open = batch;
+				leader = true;
+			}
+			batch.commands.add(command);
+			batch.replies.add(reply);
+			if (batch.commands.size() >= Math.max(1, config.getRequestCoalescingMaxBatchSize())) {
+				lane.open = null;
+				if (!leader) {
+					LockSupport.unpark(batch.leader);
+				}
+			}
+		}
+
+		if (leader) {
+			lead(lane, batch);
+			if (hostPool.isShutdown()) {
+				removeIfIdle(hostPool, lane);
+			}
+		}
+
+		try {
+			return reply.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw (cause instanceof DynoException) ? (DynoException) cause : new DynoException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DynoException("Interrupted while waiting for " + opName, e);
+		}
+	}
+
+	/**
+	 * Waits for other commands to join the batch if another batch to the host is in flight, and then sends it
+	 */
+	private void lead(Lane lane, Batch batch) {
+
+		long start = System.nanoTime();
+		if (lane.inFlight.get() > 0) {
+			long deadline = start + TimeUnit.MICROSECONDS.toNanos(config.getRequestCoalescingWindowMicros());
+			long remaining;
+			while (lane.isOpen(batch) && (remaining = deadline - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, remaining);
+			}
+		}
+
+		List<C> commands;
+		synchronized (lane) {
+			if (lane.open == batch) {
+				lane.open = null;
+			}
+			commands = batch.commands;
+		}
+
+		if (opMonitor != null) {
+			opMonitor.recordCoalescedBatch(batch.opName.name(), commands.size(), System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+
+		lane.inFlight.incrementAndGet();
+		try {
+			List<Object> replies = executor.execute(commands).getResult();
+			for (int i = 0; i < batch.replies.size(); i++) {
+				Object value = replies.get(i);
+				if (value instanceof DynoException) {
+					batch.replies.get(i).setException((DynoException) value);
+				} else {
+					batch.replies.get(i).set(value);
+				}
+			}
+		} catch (Throwable t) {
+			for (SettableListenableFuture<Object> reply : batch.replies) {
+				reply.setException(t);
+			}
+		} finally {
+			lane.inFlight.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the number of host pools that have a lane
+	 */
+	int getLaneCount() {
+		return lanes.size();
+	}
+
+	private void removeShutdownLanes() {
+		for (Map.Entry<HostConnectionPool<?>, Lane> entry : lanes.entrySet()) {
+			if (entry.getKey().isShutdown()) {
+				removeIfIdle(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * A command that got the lane just before it is removed still completes on it, the next one opens a new lane
+	 */
+	private void removeIfIdle(HostConnectionPool<?> hostPool, Lane lane) {
+		synchronized (lane) {
+			if (lane.open == null && lane.inFlight.get() == 0) {
+				lanes.remove(hostPool, lane);
+			}
+		}
+	}
+
+	private EnumSet<OpName> getExcludedOps() {
+
+		String opsConfig = config.getRequestCoalescingExcludedOps();
+		if (opsConfig == null || opsConfig.equals(excludedOpsConfig)) {
+			return excludedOps;
+		}
+
+		EnumSet<OpName> ops = EnumSet.noneOf(OpName.class);
+		for (String op : opsConfig.split(",")) {
+			if (op.trim().isEmpty()) {
+				continue;
+			}
+			try {
+				ops.add(OpName.valueOf(op.trim().toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				Logger.warn("Ignoring unknown operation [" + op + "] in the operations excluded from coalescing");
+			}
+		}
+		excludedOps = ops;
+		excludedOpsConfig = opsConfig;
+		return ops;
+	}
+
+	/**
+	 * The commands for one host. At most one batch is open for commands to join at any time.
+	 */
+	private class Lane {
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		// guarded by this lane
+		private Batch open;
+
+		private synchronized boolean isOpen(Batch batch) {
+			return open == batch;
+		}
+	}
+
+	private class Batch {
+
+		private final OpName opName;
+		private final Thread leader = Thread.currentThread();
+		private final List<C> commands = new ArrayList<C>();
+		private final List<SettableListenableFuture<Object>> replies = new ArrayList<SettableListenableFuture<Object>>();
+
+		private Batch(OpName opName) {
+			this.opName = opName;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import com.netflix.dyno.connectionpool.exception.DynoException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a multi-key command such as MGET or MSET that was scattered over the token owners of its keys.
+ *
+ * The results are in the order of the keys the command was called with. The keys of a host group that failed,
+ * or whose command got an error reply, have a null result and an entry in {@link #getFailures()}, the results of
+ * the other keys are still available.
+ *
+ * @param <T> the result of the command for a single key
+ */
+public class MultiKeyOperationResult<T> {
+
+    private final List<String> keys;
+    private final List<T> results;
+    private final Map<String, DynoException> failures;
+
+    public MultiKeyOperationResult(List<String> keys, List<T> results, Map<String, DynoException> failures) {
+        this.keys = keys;
+        this.results = results;
+        this.failures = failures;
+    }
+
+    /**
+     * @return the keys the command was called with
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * @return the result of each key, in the order of {@link #getKeys()}
+     */
+    public List<T> getResult() {
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * @return the failure of each key that did not succeed
+     */
+    public Map<String, DynoException> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @param key
+     * @return the failure of the given key, or null if it succeeded
+     */
+    public DynoException getFailure(String key) {
+        return failures.get(key);
+    }
+
+    /**
+     * @return true if the command succeeded for every key
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * @return the result of each key, in the order of {@link #getKeys()}
+     * @throws DynoException the first failure if the command did not succeed for every key
+     */
+    public List<T> getResultOrThrow() throws DynoException {
+        if (!failures.isEmpty()) {
+            throw failures.values().iterator().next();
+        }
+        return getResult();
+    }
+
+    @Override
+    public String toString() {
+        return "MultiKeyOperationResult [keys=" + keys + ", results=" + results + ", failures=" + failures.keySet() + "]";
+    }
+}
@@ -26,7 +26,7 @@ public enum OpName {
 	 INCR, INCRBY, INCRBYFLOAT, 
 	 KEYS, LINDEX, 
 	 LINSERT, LLEN, LPOP, LPUSH, LPUSHX, LRANGE, LREM, LSET, LTRIM, 
-	 MOVE, 
+	 MGET, MOVE, MSET, MSETNX, 
 	 PERSIST, PEXPIRE, PEXPIREAT, PSETEX, PTTL, 
 	 RENAME, RENAMENX, RESTORE, RPOP, RPOPLPUSH, RPUSH, RPUSHX, 
 	 SADD, SCAN, SCARD, SDIFF, SDIFFSTORE, SET, SETBIT, SETEX, SETNX, SETRANGE, SINTER, SINTERSTORE, SISMEMBER, SMEMBERS,
@@ -17,23 +17,36 @@ package com.netflix.dyno.jedis;
 
 import com.netflix.dyno.connectionpool.ConnectionPool;
 import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
 import com.netflix.dyno.connectionpool.ConnectionPoolMonitor;
 import com.netflix.dyno.connectionpool.OperationMonitor;
 import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
 import com.netflix.dyno.connectionpool.impl.LastOperationMonitor;
+import com.netflix.dyno.connectionpool.impl.compression.DeflateCodec;
+import com.netflix.dyno.connectionpool.impl.compression.GzipCodec;
+import com.netflix.dyno.connectionpool.impl.compression.ValueCodecs;
 import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.ArgumentCaptor;
 import redis.clients.jedis.Jedis;
+import redis.clients.util.JedisByteHashMap;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -111,6 +124,57 @@ public class CompressionTest {
         Assert.assertEquals(VALUE_3KB, result);
     }
 
+    @Test
+    public void testDynoJedis_Set_AboveCompressionThreshold_WithCodec() throws IOException {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.LZ4);
+
+        String result = client.set(KEY_3KB, VALUE_3KB);
+
+        Assert.assertTrue(result.length() < 3072);
+        Assert.assertFalse(ZipUtils.isCompressed(result));
+        Assert.assertTrue(ValueCodecs.isCompressed(result));
+        Assert.assertEquals(VALUE_3KB, ValueCodecs.decompressFromBase64String(result));
+    }
+
+    @Test
+    public void testDynoJedis_Set_AboveCompressionThreshold_Adaptive() throws IOException {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.ADAPTIVE);
+
+        String result = client.set(KEY_3KB, VALUE_3KB);
+
+        Assert.assertTrue(result.length() < 3072);
+        Assert.assertTrue(ValueCodecs.isCompressed(result));
+        Assert.assertEquals(VALUE_3KB, ValueCodecs.decompressFromBase64String(result));
+    }
+
+    @Test
+    public void testDynoJedis_Get_LegacyValue_WithCodec() throws IOException {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.DEFLATE);
+
+        // the mocked client returns a value compressed by ZipUtils
+        String result = client.get(KEY_3KB);
+
+        Assert.assertEquals(VALUE_3KB, result);
+    }
+
+    @Test
+    public void testDynoJedis_Hgetall_DecompressesInPlace() throws IOException {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.DEFLATE);
+
+        Map<String, String> hash = new HashMap<String, String>();
+        hash.put(KEY_1KB, VALUE_1KB);
+        hash.put(KEY_3KB, ZipUtils.compressStringToBase64String(VALUE_3KB));
+        hash.put("deflated", ValueCodecs.compressToBase64String(new DeflateCodec(), VALUE_3KB));
+        when(((UnitTestConnectionPool) connectionPool).client.hgetAll("compressionTestKey")).thenReturn(hash);
+
+        Map<String, String> result = client.hgetAll("compressionTestKey");
+
+        Assert.assertSame(hash, result);
+        Assert.assertEquals(VALUE_1KB, result.get(KEY_1KB));
+        Assert.assertEquals(VALUE_3KB, result.get(KEY_3KB));
+        Assert.assertEquals(VALUE_3KB, result.get("deflated"));
+    }
+
     @Test
     public void testDynoJedis_Hmset_AboveCompressionThreshold() throws IOException {
         final Map<String, String> map = new HashMap<String, String>();
@@ -123,6 +187,127 @@ public class CompressionTest {
         Assert.assertTrue(1 == monitor.getSuccessCount(OpName.HMSET.name(), true));
     }
 
+    @Test
+    public void testDynoJedis_Binary_Set() throws IOException {
+        Jedis jedis = ((UnitTestConnectionPool) connectionPool).client;
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        byte[] small = VALUE_1KB.getBytes(UTF_8);
+        byte[] large = VALUE_3KB.getBytes(UTF_8);
+
+        client.set(KEY_1KB.getBytes(UTF_8), small);
+        client.set(KEY_3KB.getBytes(UTF_8), large);
+
+        verify(jedis, times(2)).set(any(byte[].class), sent.capture());
+        Assert.assertSame(small, sent.getAllValues().get(0));
+        byte[] compressed = sent.getAllValues().get(1);
+        Assert.assertTrue(compressed.length < large.length);
+        Assert.assertFalse(ZipUtils.isCompressed(compressed));
+        Assert.assertTrue(ValueCodecs.isCompressed(compressed));
+        Assert.assertArrayEquals(large, ValueCodecs.decompress(compressed));
+
+        LastOperationMonitor monitor = (LastOperationMonitor) opMonitor;
+        Assert.assertTrue(1 == monitor.getSuccessCount(OpName.SET.name(), true));
+    }
+
+    @Test
+    public void testDynoJedis_Binary_Setex_WithCodec() throws IOException {
+        when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.LZ4);
+        Jedis jedis = ((UnitTestConnectionPool) connectionPool).client;
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        byte[] large = VALUE_3KB.getBytes(UTF_8);
+
+        client.setex(KEY_3KB.getBytes(UTF_8), 60, large);
+
+        verify(jedis).setex(any(byte[].class), eq(60), sent.capture());
+        Assert.assertFalse(ZipUtils.isCompressed(sent.getValue()));
+        Assert.assertTrue(ValueCodecs.isCompressed(sent.getValue()));
+        Assert.assertArrayEquals(large, ValueCodecs.decompress(sent.getValue()));
+    }
+
+    @Test
+    public void testDynoJedis_Binary_Get() throws IOException {
+        Jedis jedis = ((UnitTestConnectionPool) connectionPool).client;
+        byte[] key = KEY_3KB.getBytes(UTF_8);
+        byte[] value = VALUE_3KB.getBytes(UTF_8);
+
+        when(jedis.get(key)).thenReturn(ValueCodecs.compress(new GzipCodec(), value));
+        Assert.assertArrayEquals(value, client.get(key));
+
+        when(jedis.get(key)).thenReturn(ValueCodecs.compress(new DeflateCodec(), value));
+        Assert.assertArrayEquals(value, client.get(key));
+
+        byte[] uncompressed = VALUE_1KB.getBytes(UTF_8);
+        when(jedis.get(key)).thenReturn(uncompressed);
+        Assert.assertSame(uncompressed, client.get(key));
+    }
+
+    @Test
+    public void testDynoJedis_Binary_Get_LegacyValue() throws IOException {
+        Jedis jedis = ((UnitTestConnectionPool) connectionPool).client;
+        byte[] key = KEY_3KB.getBytes(UTF_8);
+        byte[] value = VALUE_3KB.getBytes(UTF_8);
+        byte[] legacy = ZipUtils.compressBytesNonBase64(value);
+
+        when(jedis.get(key)).thenReturn(legacy);
+        Assert.assertSame(legacy, client.get(key));
+
+        when(config.isLegacyBinaryValueDecompressionEnabled()).thenReturn(true);
+        Assert.assertArrayEquals(value, client.get(key));
+    }
+
+    @Test
+    public void testDynoJedis_Binary_UnderCompressionThreshold_LooksLikeGzip() throws IOException {
+        Jedis jedis = ((UnitTestConnectionPool) connectionPool).client;
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        byte[] key = KEY_1KB.getBytes(UTF_8);
+        // the application stores a GZIP file of its own, which starts with 1f 8b
+        byte[] value = ZipUtils.compressBytesNonBase64(VALUE_1KB.getBytes(UTF_8));
+        Assert.assertEquals((byte) 0x1f, value[0]);
+        Assert.assertEquals((byte) 0x8b, value[1]);
+
+        client.set(key, value);
+        verify(jedis).set(any(byte[].class), sent.capture());
+        Assert.assertSame(value, sent.getValue());
+
+        when(jedis.get(key)).thenReturn(sent.getValue());
+        Assert.assertArrayEquals(value, client.get(key));
+    }
+
+    @Test
+    public void testDynoJedis_Binary_Hash() throws IOException {
+        Jedis jedis = ((UnitTestConnectionPool) connectionPool).client;
+        byte[] key = "compressionTestKey".getBytes(UTF_8);
+        byte[] small = VALUE_1KB.getBytes(UTF_8);
+        byte[] large = VALUE_3KB.getBytes(UTF_8);
+
+        Map<byte[], byte[]> hash = new HashMap<byte[], byte[]>();
+        hash.put(KEY_1KB.getBytes(UTF_8), small);
+        hash.put(KEY_3KB.getBytes(UTF_8), large);
+        client.hmset(key, hash);
+
+        ArgumentCaptor<Map> sent = ArgumentCaptor.forClass(Map.class);
+        verify(jedis).hmset(eq(key), sent.capture());
+        Map<byte[], byte[]> sentHash = (Map<byte[], byte[]>) sent.getValue();
+        Assert.assertEquals(2, sentHash.size());
+        for (Map.Entry<byte[], byte[]> entry : sentHash.entrySet()) {
+            boolean isLarge = Arrays.equals(KEY_3KB.getBytes(UTF_8), entry.getKey());
+            Assert.assertEquals(isLarge, ValueCodecs.isCompressed(entry.getValue()));
+        }
+
+        JedisByteHashMap stored = new JedisByteHashMap();
+        stored.putAll(sentHash);
+        when(jedis.hgetAll(key)).thenReturn(stored);
+        when(jedis.hvals(key)).thenReturn(new ArrayList<byte[]>(sentHash.values()));
+
+        Map<byte[], byte[]> result = client.hgetAll(key);
+        Assert.assertArrayEquals(small, result.get(KEY_1KB.getBytes(UTF_8)));
+        Assert.assertArrayEquals(large, result.get(KEY_3KB.getBytes(UTF_8)));
+
+        for (byte[] value : client.hvals(key)) {
+            Assert.assertTrue(Arrays.equals(small, value) || Arrays.equals(large, value));
+        }
+    }
+
     @Test
     public void testZipUtilsDecompressBytesNonBase64() throws Exception {
         String s = "ABCDEFG__abcdefg__1234567890'\"\\+=-::ABCDEFG__abcdefg__1234567890'\"\\+=-::ABCDEFG__abcdefg__1234567890'\"\\+=-";
@@ -150,6 +335,8 @@ public class CompressionTest {
 //
 //    }
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     public static final String KEY_1KB = "keyFor1KBValue";
     public static final String KEY_3KB = "keyFor3KBValue";
     public static final String VALUE_1KB = generateValue(1);
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanResult;
+
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionPool;
+import com.netflix.dyno.connectionpool.HealthTracker;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+
+/**
+ * Tests {@link DynoJedisScanIterator} against mocked hosts. The keys of host <i>h</i> are "h:0", "h:1" and so on,
+ * and a SCAN returns the next {@link #PageSize} of them.
+ */
+public class DynoJedisScanIteratorTest {
+
+	private static final int PageSize = 3;
+
+	private final AtomicInteger scans = new AtomicInteger();
+	private final AtomicInteger borrowed = new AtomicInteger();
+	private final AtomicInteger released = new AtomicInteger();
+
+	@SuppressWarnings("unchecked")
+	private final ConnectionPool<Jedis> connPool = mock(ConnectionPool.class);
+
+	@SuppressWarnings("unchecked")
+	public DynoJedisScanIteratorTest() {
+		when(connPool.getConfiguration()).thenReturn(new ConnectionPoolConfigurationImpl("ScanTest"));
+		when(connPool.getHealthTracker()).thenReturn(mock(HealthTracker.class));
+	}
+
+	@Test
+	public void testScansEveryHost() throws Exception {
+
+		List<HostConnectionPool<Jedis>> hostPools = new ArrayList<HostConnectionPool<Jedis>>();
+		Set<String> expected = new HashSet<String>();
+		for (int h = 0; h < 5; h++) {
+			hostPools.add(hostPool("host" + h, 10, -1));
+			for (int i = 0; i < 10; i++) {
+				expected.add("host" + h + ":" + i);
+			}
+		}
+
+		DynoJedisScanIterator keys = new DynoJedisScanIterator(connPool, hostPools, null, 2, 2, "ScanTest");
+
+		List<String> result = new ArrayList<String>();
+		while (keys.hasNext()) {
+			result.add(keys.next());
+		}
+
+		Assert.assertEquals(50, result.size());
+		Assert.assertEquals(expected, new HashSet<String>(result));
+		Assert.assertFalse(keys.hasNext());
+
+		// 4 pages of 10 keys per host
+		Assert.assertEquals(20, scans.get());
+		Assert.assertEquals(borrowed.get(), released.get());
+	}
+
+	@Test
+	public void testNoHosts() throws Exception {
+
+		DynoJedisScanIterator keys = new DynoJedisScanIterator(connPool,
+				Collections.<HostConnectionPool<Jedis>>emptyList(), null, 2, 2, "ScanTest");
+		Assert.assertFalse(keys.hasNext());
+	}
+
+	@Test
+	public void testPagesInMemoryAreBounded() throws Exception {
+
+		List<HostConnectionPool<Jedis>> hostPools = new ArrayList<HostConnectionPool<Jedis>>();
+		for (int h = 0; h < 4; h++) {
+			hostPools.add(hostPool("host" + h, 100, -1));
+		}
+
+		DynoJedisScanIterator keys = new DynoJedisScanIterator(connPool, hostPools, null, 4, 3, "ScanTest");
+
+		// nothing is read, the scan stops once it has fetched 3 pages
+		Thread.sleep(200);
+		Assert.assertEquals(3, scans.get());
+
+		// the first page is being read, the scan waits for it to be done
+		keys.next();
+		Thread.sleep(100);
+		Assert.assertEquals(3, scans.get());
+
+		for (int i = 1; i < PageSize; i++) {
+			keys.next();
+		}
+		// moving to the next page lets one more page be fetched
+		keys.next();
+		Thread.sleep(100);
+		Assert.assertEquals(4, scans.get());
+
+		keys.close();
+		Assert.assertFalse(keys.hasNext());
+		Thread.sleep(100);
+		Assert.assertEquals(borrowed.get(), released.get());
+	}
+
+	@Test
+	public void testFailedScanFailsIterator() throws Exception {
+
+		List<HostConnectionPool<Jedis>> hostPools = new ArrayList<HostConnectionPool<Jedis>>();
+		hostPools.add(hostPool("host0", 10, -1));
+		hostPools.add(hostPool("host1", 10, 1));
+
+		DynoJedisScanIterator keys = new DynoJedisScanIterator(connPool, hostPools, null, 1, 4, "ScanTest");
+
+		try {
+			while (keys.hasNext()) {
+				keys.next();
+			}
+			Assert.fail("Expected DynoException");
+		} catch (DynoException e) {
+			// expected
+		}
+		Assert.assertFalse(keys.hasNext());
+		Thread.sleep(100);
+		Assert.assertEquals(borrowed.get(), released.get());
+	}
+
+	/**
+	 * @param numKeys
+	 * @param failingPage the page whose SCAN fails, or -1
+	 */
+	@SuppressWarnings("unchecked")
+	private HostConnectionPool<Jedis> hostPool(final String name, final int numKeys, final int failingPage) {
+
+		final HostConnectionPool<Jedis> hostPool = mock(HostConnectionPool.class);
+		final Host host = new Host(name, 8102, Status.Up);
+		when(hostPool.getHost()).thenReturn(host);
+
+		final Jedis client = mock(Jedis.class);
+		when(client.scan(any(String.class))).thenAnswer(new Answer<ScanResult<String>>() {
+			@Override
+			public ScanResult<String> answer(InvocationOnMock invocation) throws Throwable {
+				scans.incrementAndGet();
+				int page = Integer.parseInt((String) invocation.getArguments()[0]);
+				if (page == failingPage) {
+					throw new FatalConnectionException("Failed SCAN on " + name);
+				}
+
+				List<String> keys = new ArrayList<String>();
+				for (int i = page * PageSize; i < Math.min(numKeys, (page + 1) * PageSize); i++) {
+					keys.add(name + ":" + i);
+				}
+				String cursor = ((page + 1) * PageSize < numKeys) ? String.valueOf(page + 1) : "0";
+				return new ScanResult<String>(cursor, keys);
+			}
+		});
+
+		when(hostPool.borrowConnection(anyInt(), any(TimeUnit.class))).thenAnswer(new Answer<Connection<Jedis>>() {
+			@Override
+			public Connection<Jedis> answer(InvocationOnMock invocation) throws Throwable {
+				borrowed.incrementAndGet();
+
+				Connection<Jedis> connection = mock(Connection.class);
+				when(connection.getHost()).thenReturn(host);
+				when(connection.getParentConnectionPool()).thenReturn(hostPool);
+				when(connection.getContext()).thenReturn(new ConnectionContextImpl());
+				when(connection.execute(any(Operation.class))).thenAnswer(new Answer<OperationResult<?>>() {
+					@Override
+					public OperationResult<?> answer(InvocationOnMock invocation) throws Throwable {
+						Operation<Jedis, ?> op = (Operation<Jedis, ?>) invocation.getArguments()[0];
+						return new OperationResultImpl<Object>(op.getName(), op.execute(client, null), null);
+					}
+				});
+				return connection;
+			}
+		});
+
+		Answer<Boolean> release = new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				released.incrementAndGet();
+				return true;
+			}
+		};
+		when(hostPool.returnConnection(any(Connection.class))).thenAnswer(release);
+		when(hostPool.closeConnection(any(Connection.class))).thenAnswer(release);
+
+		return hostPool;
+	}
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.CompressionStrategy;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.impl.LastOperationMonitor;
+
+/**
+ * Tests the near cache of {@link DynoJedisClient} against a mocked jedis client.
+ */
+public class JedisNearCacheTest {
+
+	private static final String Key = "nearCacheKey";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Mock
+	ConnectionPoolConfiguration config;
+
+	private UnitTestConnectionPool connectionPool;
+	private DynoJedisClient client;
+
+	@Before
+	public void before() {
+		MockitoAnnotations.initMocks(this);
+
+		when(config.getCompressionStrategy()).thenReturn(CompressionStrategy.NONE);
+		when(config.isNearCacheEnabled()).thenReturn(true);
+		when(config.getNearCacheMaxEntries()).thenReturn(1000);
+		when(config.getNearCacheMaxWeightBytes()).thenReturn(1024 * 1024);
+		when(config.getNearCacheTtlMillis()).thenReturn(60000);
+
+		connectionPool = new UnitTestConnectionPool(config, new LastOperationMonitor());
+		client = new DynoJedisClient.TestBuilder()
+				.withAppname("JedisNearCacheTest")
+				.withConnectionPool(connectionPool)
+				.build();
+
+		when(connectionPool.client.get(Key)).thenReturn("v1");
+		when(connectionPool.client.hget(Key, "f1")).thenReturn("v1");
+		when(connectionPool.client.hget(Key, "f2")).thenReturn("v2");
+
+		Map<String, String> hash = new HashMap<String, String>();
+		hash.put("f1", "v1");
+		hash.put("f2", "v2");
+		when(connectionPool.client.hgetAll(Key)).thenReturn(hash);
+	}
+
+	@Test
+	public void testGetIsCached() {
+
+		Assert.assertEquals("v1", client.get(Key));
+		OperationResult<String> result = client.d_get(Key);
+		Assert.assertEquals("v1", result.getResult());
+		Assert.assertEquals("hit", result.getMetadata().get("nearCache"));
+
+		verify(connectionPool.client, times(1)).get(Key);
+	}
+
+	@Test
+	public void testMissingKeyIsNotCached() {
+
+		Assert.assertNull(client.get("missing"));
+		Assert.assertNull(client.get("missing"));
+
+		verify(connectionPool.client, times(2)).get("missing");
+	}
+
+	@Test
+	public void testWriteInvalidates() {
+
+		client.get(Key);
+		client.set(Key, "v2");
+		client.get(Key);
+		client.del(Key);
+		client.get(Key);
+		client.expire(Key, 10);
+		client.get(Key);
+
+		verify(connectionPool.client, times(4)).get(Key);
+	}
+
+	@Test
+	public void testBinaryWriteInvalidates() {
+
+		client.get(Key);
+		client.set(Key.getBytes(UTF_8), "v2".getBytes(UTF_8));
+		client.get(Key);
+
+		verify(connectionPool.client, times(2)).get(Key);
+	}
+
+	@Test
+	public void testAsyncCommands() throws Exception {
+
+		Assert.assertEquals("v1", client.d_getAsync(Key).get().getResult());
+		Assert.assertEquals("hit", client.d_getAsync(Key).get().getMetadata().get("nearCache"));
+
+		client.d_setAsync(Key, "v2").get();
+		client.d_getAsync(Key).get();
+		client.d_delAsync(Key).get();
+		client.get(Key);
+
+		verify(connectionPool.client, times(3)).get(Key);
+	}
+
+	@Test
+	public void testReadDoesNotInvalidate() {
+
+		client.get(Key);
+		client.exists(Key);
+		client.ttl(Key);
+		client.get(Key);
+
+		verify(connectionPool.client, times(1)).get(Key);
+	}
+
+	@Test
+	public void testHashFields() {
+
+		Assert.assertEquals("v1", client.hget(Key, "f1"));
+		Assert.assertEquals("v2", client.hget(Key, "f2"));
+		Assert.assertEquals("v1", client.hget(Key, "f1"));
+		Assert.assertEquals("v2", client.hget(Key, "f2"));
+		verify(connectionPool.client, times(1)).hget(Key, "f1");
+		verify(connectionPool.client, times(1)).hget(Key, "f2");
+
+		// the fields read so far are not the whole hash
+		Assert.assertEquals(2, client.hgetAll(Key).size());
+		Assert.assertEquals(2, client.hgetAll(Key).size());
+		verify(connectionPool.client, times(1)).hgetAll(Key);
+
+		client.hset(Key, "f1", "v3");
+		client.hget(Key, "f1");
+		client.hgetAll(Key);
+		verify(connectionPool.client, times(2)).hget(Key, "f1");
+		verify(connectionPool.client, times(2)).hgetAll(Key);
+	}
+
+	@Test
+	public void testHashIsCachedWhole() {
+
+		client.hgetAll(Key);
+		Assert.assertEquals("v1", client.hget(Key, "f1"));
+		Assert.assertEquals("v2", client.hget(Key, "f2"));
+
+		verify(connectionPool.client, times(0)).hget(any(String.class), any(String.class));
+	}
+
+	@Test
+	public void testMetrics() {
+
+		LastOperationMonitor monitor = new LastOperationMonitor();
+		JedisNearCache nearCache = new JedisNearCache(config, monitor);
+
+		Assert.assertNull(nearCache.getValue(Key));
+		nearCache.putValue(Key, "v1", nearCache.getInvalidationStamp());
+		Assert.assertEquals("v1", nearCache.getValue(Key));
+		Assert.assertEquals("v1", nearCache.getValue(Key));
+		Assert.assertNull(nearCache.getHash(Key));
+
+		Assert.assertEquals(1, monitor.getNearCacheMissCount(OpName.GET.name()));
+		Assert.assertEquals(2, monitor.getNearCacheHitCount(OpName.GET.name()));
+		Assert.assertEquals(1, monitor.getNearCacheMissCount(OpName.HGETALL.name()));
+	}
+
+	@Test
+	public void testDisabled() {
+
+		when(config.isNearCacheEnabled()).thenReturn(false);
+		DynoJedisClient uncached = new DynoJedisClient.TestBuilder()
+				.withAppname("JedisNearCacheTest")
+				.withConnectionPool(connectionPool)
+				.build();
+
+		uncached.get(Key);
+		uncached.get(Key);
+		verify(connectionPool.client, times(2)).get(Key);
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.LastOperationMonitor;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+
+/**
+ * Tests {@link JedisRequestCoalescer} with commands that are Strings, and a batch executor that replies to each
+ * command with "reply:" and the command, or an error for a command that starts with "bad".
+ */
+public class JedisRequestCoalescerTest {
+
+	private final HostConnectionPool<?> hostPool = mockPool();
+
+	private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+	private final ExecutorService threads = Executors.newCachedThreadPool();
+
+	private ConnectionPoolConfigurationImpl config;
+	private LastOperationMonitor monitor;
+	private JedisRequestCoalescer<String> coalescer;
+
+	// the batch that starts with "block" waits for this latch
+	private CountDownLatch unblock;
+	private CountDownLatch blocked;
+
+	@Before
+	public void before() {
+
+		config = new ConnectionPoolConfigurationImpl("JedisRequestCoalescerTest")
+				.setRequestCoalescingEnabled(true)
+				.setRequestCoalescingWindowMicros((int) TimeUnit.SECONDS.toMicros(10));
+		monitor = new LastOperationMonitor();
+		unblock = new CountDownLatch(1);
+		blocked = new CountDownLatch(1);
+
+		coalescer = new JedisRequestCoalescer<String>(config, monitor, new JedisRequestCoalescer.BatchExecutor<String>() {
+			@Override
+			public OperationResult<List<Object>> execute(List<String> commands) throws DynoException {
+				batches.add(new ArrayList<String>(commands));
+				if (commands.get(0).startsWith("block")) {
+					blocked.countDown();
+					await(unblock);
+				}
+				if (commands.get(0).equals("fail")) {
+					throw new DynoException("batch failed");
+				}
+
+				List<Object> replies = new ArrayList<Object>();
+				for (String command : commands) {
+					replies.add(command.startsWith("bad") ? new DynoException("ERR " + command) : "reply:" + command);
+				}
+				return new OperationResultImpl<List<Object>>("GET", replies, null);
+			}
+		});
+	}
+
+	@After
+	public void after() {
+		threads.shutdownNow();
+	}
+
+	@Test
+	public void testSentRightAwayWhenNothingInFlight() {
+
+		long start = System.nanoTime();
+		Assert.assertEquals("reply:a", coalescer.execute(hostPool, OpName.GET, "a"));
+		Assert.assertEquals("reply:b", coalescer.execute(hostPool, OpName.GET, "b"));
+
+		// the window is 10 seconds, neither command waited for it
+		Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		Assert.assertEquals(2, batches.size());
+		Assert.assertEquals(2, monitor.getCoalescedBatchCount("GET"));
+	}
+
+	@Test
+	public void testConcurrentCommandsCoalescedWhileBatchInFlight() throws Exception {
+
+		config.setRequestCoalescingMaxBatchSize(4);
+
+		Future<Object> first = submit("block");
+		blocked.await();
+
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for (String command : new String[] { "a", "bad", "c", "d" }) {
+			futures.add(submit(command));
+		}
+
+		// the second batch is full and is sent without waiting for the window
+		unblock.countDown();
+		Assert.assertEquals("reply:block", first.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("reply:a", futures.get(0).get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("reply:c", futures.get(2).get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("reply:d", futures.get(3).get(5, TimeUnit.SECONDS));
+		try {
+			futures.get(1).get(5, TimeUnit.SECONDS);
+			Assert.fail("Expected the error reply of the command");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof DynoException);
+		}
+
+		Assert.assertEquals(2, batches.size());
+		Assert.assertEquals(4, batches.get(1).size());
+		Assert.assertEquals(5, monitor.getCoalescedCommandCount("GET"));
+	}
+
+	@Test
+	public void testBatchSentWhenWindowExpires() throws Exception {
+
+		config.setRequestCoalescingWindowMicros((int) TimeUnit.MILLISECONDS.toMicros(50));
+
+		Future<Object> first = submit("block");
+		blocked.await();
+
+		Future<Object> second = submit("a");
+		Assert.assertEquals("reply:a", second.get(5, TimeUnit.SECONDS));
+
+		unblock.countDown();
+		Assert.assertEquals("reply:block", first.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testBatchFailureFailsAllCommands() {
+		try {
+			coalescer.execute(hostPool, OpName.GET, "fail");
+			Assert.fail("Expected the failure of the batch");
+		} catch (DynoException e) {
+			Assert.assertTrue(e.getMessage().contains("batch failed"));
+		}
+	}
+
+	@Test
+	public void testLaneOfShutdownPoolIsRemoved() {
+
+		HostConnectionPool<?> other = mockPool();
+
+		Assert.assertEquals("reply:a", coalescer.execute(hostPool, OpName.GET, "a"));
+		Assert.assertEquals("reply:b", coalescer.execute(other, OpName.GET, "b"));
+		Assert.assertEquals(2, coalescer.getLaneCount());
+
+		// the host is removed and its pool shut down, the next pool to get a lane drops its lane
+		when(hostPool.isShutdown()).thenReturn(true);
+		Assert.assertEquals("reply:c", coalescer.execute(mockPool(), OpName.GET, "c"));
+		Assert.assertEquals(2, coalescer.getLaneCount());
+
+		// as does a command that still went to the pool
+		when(other.isShutdown()).thenReturn(true);
+		Assert.assertEquals("reply:d", coalescer.execute(other, OpName.GET, "d"));
+		Assert.assertEquals(1, coalescer.getLaneCount());
+	}
+
+	@Test
+	public void testExcludedOps() {
+
+		config.setRequestCoalescingExcludedOps("set, bogus");
+		Assert.assertTrue(coalescer.isCoalesced(OpName.GET));
+		Assert.assertFalse(coalescer.isCoalesced(OpName.SET));
+
+		config.setRequestCoalescingExcludedOps("");
+		Assert.assertTrue(coalescer.isCoalesced(OpName.SET));
+
+		config.setRequestCoalescingEnabled(false);
+		Assert.assertFalse(coalescer.isCoalesced(OpName.GET));
+	}
+
+	private Future<Object> submit(final String command) {
+		return threads.submit(new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				return coalescer.execute(hostPool, OpName.GET, command);
+			}
+		});
+	}
+
+	private static HostConnectionPool<?> mockPool() {
+		return mock(HostConnectionPool.class);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,387 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.LoadBalancingStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.HostSupplier;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+
+/**
+ * Tests the scatter/gather of MGET, MSET and MSETNX in {@link DynoJedisClient} with a token aware connection pool
+ * over two racks of two hosts. The redis of each host is a mocked pipeline that records the keys it was sent.
+ */
+public class MultiKeyCommandsTest {
+
+	private static final long Token1 = 1383429731L;
+	private static final long Token2 = 3530913377L;
+
+	private final Host local1 = new Host("local1", 8102, Status.Up).setRack("localRack");
+	private final Host local2 = new Host("local2", 8102, Status.Up).setRack("localRack");
+	private final Host remote1 = new Host("remote1", 8102, Status.Up).setRack("remoteRack");
+	private final Host remote2 = new Host("remote2", 8102, Status.Up).setRack("remoteRack");
+
+	private final Map<Host, Long> tokens = new HashMap<Host, Long>();
+	private final Map<Host, Pipeline> pipelines = new HashMap<Host, Pipeline>();
+	private final Map<Host, List<String>> sentKeys = new HashMap<Host, List<String>>();
+
+	private ConnectionPoolImpl<Jedis> connectionPool;
+	private DynoJedisClient client;
+
+	@Before
+	public void before() throws Exception {
+
+		tokens.put(local1, Token1);
+		tokens.put(local2, Token2);
+		tokens.put(remote1, Token1);
+		tokens.put(remote2, Token2);
+		for (Host host : tokens.keySet()) {
+			pipelines.put(host, mockPipeline(host));
+		}
+
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("MultiKeyCommandsTest")
+				.setLoadBalancingStrategy(LoadBalancingStrategy.TokenAware)
+				.setLocalRack("localRack")
+				.setMaxConnsPerHost(2)
+				.withHostSupplier(new HostSupplier() {
+					@Override
+					public Collection<Host> getHosts() {
+						return tokens.keySet();
+					}
+				})
+				.withTokenSupplier(new TokenMapSupplier() {
+					@Override
+					public List<HostToken> getTokens(Set<Host> activeHosts) {
+						List<HostToken> hostTokens = new ArrayList<HostToken>();
+						for (Host host : activeHosts) {
+							hostTokens.add(new HostToken(tokens.get(host), host));
+						}
+						return hostTokens;
+					}
+
+					@Override
+					public HostToken getTokenForHost(Host host, Set<Host> activeHosts) {
+						return new HostToken(tokens.get(host), host);
+					}
+				});
+
+		connectionPool = new ConnectionPoolImpl<Jedis>(new PipelineConnectionFactory(), config, new CountingConnectionPoolMonitor());
+		connectionPool.start().get();
+
+		client = new DynoJedisClient.TestBuilder()
+				.withAppname("MultiKeyCommandsTest")
+				.withConnectionPool(connectionPool)
+				.build();
+	}
+
+	@After
+	public void after() {
+		client.stopClient();
+	}
+
+	@Test
+	public void testMgetSendsOneBatchPerHostAndKeepsKeyOrder() {
+
+		String[] keys = keys(20);
+
+		List<String> values = client.mget(keys);
+
+		Assert.assertEquals(keys.length, values.size());
+		for (int i = 0; i < keys.length; i++) {
+			Assert.assertEquals("value:" + keys[i], values.get(i));
+		}
+
+		// each local host got exactly the keys it owns, in one pipeline
+		Assert.assertEquals(keysOwnedBy(Token1, keys), sentKeys.get(local1));
+		Assert.assertEquals(keysOwnedBy(Token2, keys), sentKeys.get(local2));
+		Assert.assertTrue(sentKeys.get(remote1).isEmpty());
+		Assert.assertTrue(sentKeys.get(remote2).isEmpty());
+	}
+
+	@Test
+	public void testFailedHostIsReportedPerKey() {
+
+		doThrow(new JedisConnectionException("connection reset")).when(pipelines.get(local2)).sync();
+		String[] keys = keys(20);
+
+		MultiKeyOperationResult<String> result = client.d_mget(keys);
+
+		Assert.assertFalse(result.isComplete());
+		List<String> failedKeys = keysOwnedBy(Token2, keys);
+		Assert.assertEquals(failedKeys.size(), result.getFailures().size());
+		for (int i = 0; i < keys.length; i++) {
+			if (failedKeys.contains(keys[i])) {
+				Assert.assertNull(result.getResult().get(i));
+				Assert.assertNotNull(result.getFailure(keys[i]));
+			} else {
+				Assert.assertEquals("value:" + keys[i], result.getResult().get(i));
+				Assert.assertNull(result.getFailure(keys[i]));
+			}
+		}
+
+		try {
+			client.mget(keys);
+			Assert.fail("Expected the failure of the keys of local2");
+		} catch (DynoException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFallbackToRemoteRackPerHostGroup() {
+
+		local1.setStatus(Status.Down);
+		String[] keys = keys(20);
+
+		List<String> values = client.mget(keys);
+
+		for (int i = 0; i < keys.length; i++) {
+			Assert.assertEquals("value:" + keys[i], values.get(i));
+		}
+
+		// only the keys of the host that is down go to the remote rack
+		Assert.assertTrue(sentKeys.get(local1).isEmpty());
+		Assert.assertEquals(keysOwnedBy(Token1, keys), sentKeys.get(remote1));
+		Assert.assertEquals(keysOwnedBy(Token2, keys), sentKeys.get(local2));
+		Assert.assertTrue(sentKeys.get(remote2).isEmpty());
+	}
+
+	@Test
+	public void testErrorReplyFailsOnlyItsKey() {
+
+		String[] keys = keys(20);
+		String wrongType = keys[3];
+		Response<String> error = mockResponse(null);
+		when(error.get()).thenThrow(new JedisDataException("WRONGTYPE"));
+		for (Pipeline pipeline : pipelines.values()) {
+			doReturn(error).when(pipeline).get(wrongType);
+		}
+
+		MultiKeyOperationResult<String> result = client.d_mget(keys);
+
+		Assert.assertEquals(Collections.singleton(wrongType), result.getFailures().keySet());
+		Assert.assertTrue(result.getFailure(wrongType).getCause() instanceof JedisDataException);
+		Assert.assertNull(result.getResult().get(3));
+		Assert.assertEquals("value:" + keys[4], result.getResult().get(4));
+	}
+
+	@Test
+	public void testMset() {
+
+		String[] keys = keys(10);
+		String[] keysvalues = new String[2 * keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			keysvalues[2 * i] = keys[i];
+			keysvalues[2 * i + 1] = "value:" + keys[i];
+		}
+
+		Assert.assertEquals("OK", client.mset(keysvalues));
+
+		Assert.assertEquals(keysOwnedBy(Token1, keys), sentKeys.get(local1));
+		Assert.assertEquals(keysOwnedBy(Token2, keys), sentKeys.get(local2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMsetNeedsKeyValuePairs() {
+		client.mset("key1", "value1", "key2");
+	}
+
+	@Test
+	public void testMsetnx() {
+
+		// keys that start with "existing" are already set
+		Assert.assertEquals(Long.valueOf(1L), client.msetnx("key1", "value1", "key2", "value2"));
+		Assert.assertEquals(Long.valueOf(0L), client.msetnx("key1", "value1", "existing2", "value2"));
+		Assert.assertEquals(Arrays.asList(1L, 0L), client.d_msetnx("key1", "value1", "existing2", "value2").getResult());
+	}
+
+	private static String[] keys(int count) {
+		String[] keys = new String[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = "key" + i;
+		}
+		return keys;
+	}
+
+	private List<String> keysOwnedBy(long token, String[] keys) {
+		List<String> owned = new ArrayList<String>();
+		for (String key : keys) {
+			if (connectionPool.getTokenForKey(key) == token) {
+				owned.add(key);
+			}
+		}
+		return owned;
+	}
+
+	private Pipeline mockPipeline(Host host) {
+
+		final List<String> keys = Collections.synchronizedList(new ArrayList<String>());
+		sentKeys.put(host, keys);
+
+		Pipeline pipeline = mock(Pipeline.class);
+		when(pipeline.get(anyString())).thenAnswer(new Answer<Response<String>>() {
+			@Override
+			public Response<String> answer(InvocationOnMock invocation) throws Throwable {
+				String key = (String) invocation.getArguments()[0];
+				keys.add(key);
+				return mockResponse("value:" + key);
+			}
+		});
+		when(pipeline.set(anyString(), anyString())).thenAnswer(new Answer<Response<String>>() {
+			@Override
+			public Response<String> answer(InvocationOnMock invocation) throws Throwable {
+				keys.add((String) invocation.getArguments()[0]);
+				return mockResponse("OK");
+			}
+		});
+		when(pipeline.setnx(anyString(), anyString())).thenAnswer(new Answer<Response<Long>>() {
+			@Override
+			public Response<Long> answer(InvocationOnMock invocation) throws Throwable {
+				String key = (String) invocation.getArguments()[0];
+				keys.add(key);
+				return mockResponse(key.startsWith("existing") ? 0L : 1L);
+			}
+		});
+		return pipeline;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Response<T> mockResponse(T value) {
+		Response<T> response = mock(Response.class);
+		when(response.get()).thenReturn(value);
+		return response;
+	}
+
+	/**
+	 * Creates connections that run operations against a jedis whose pipeline is the mocked pipeline of the host
+	 */
+	private class PipelineConnectionFactory implements ConnectionFactory<Jedis> {
+
+		@Override
+		public Connection<Jedis> createConnection(HostConnectionPool<Jedis> pool, ConnectionObservor observor) {
+			Jedis jedis = mock(Jedis.class);
+			when(jedis.pipelined()).thenReturn(pipelines.get(pool.getHost()));
+			return new PipelineConnection(pool, jedis);
+		}
+	}
+
+	private static class PipelineConnection implements Connection<Jedis> {
+
+		private final HostConnectionPool<Jedis> hostPool;
+		private final Jedis jedis;
+		private final ConnectionContextImpl context = new ConnectionContextImpl();
+		private DynoConnectException lastException;
+
+		private PipelineConnection(HostConnectionPool<Jedis> hostPool, Jedis jedis) {
+			this.hostPool = hostPool;
+			this.jedis = jedis;
+		}
+
+		@Override
+		public <R> OperationResult<R> execute(Operation<Jedis, R> op) throws DynoException {
+			try {
+				return new OperationResultImpl<R>(op.getName(), op.execute(jedis, context), null);
+			} catch (JedisConnectionException e) {
+				lastException = new FatalConnectionException(e).setHost(getHost());
+				throw lastException;
+			}
+		}
+
+		@Override
+		public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<Jedis, R> op) throws DynoException {
+			throw new UnsupportedOperationException("Not Implemented");
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Host getHost() {
+			return hostPool.getHost();
+		}
+
+		@Override
+		public void open() throws DynoException {
+		}
+
+		@Override
+		public DynoConnectException getLastException() {
+			return lastException;
+		}
+
+		@Override
+		public HostConnectionPool<Jedis> getParentConnectionPool() {
+			return hostPool;
+		}
+
+		@Override
+		public void execPing() {
+		}
+
+		@Override
+		public ConnectionContext getContext() {
+			return context;
+		}
+	}
+}
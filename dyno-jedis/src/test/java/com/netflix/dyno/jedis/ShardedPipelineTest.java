@@ -0,0 +1,267 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.dyno.jedis;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.ConnectionPoolConfiguration.LoadBalancingStrategy;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.Host.Status;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.HostSupplier;
+import com.netflix.dyno.connectionpool.TokenMapSupplier;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolConfigurationImpl;
+import com.netflix.dyno.connectionpool.impl.ConnectionPoolImpl;
+import com.netflix.dyno.connectionpool.impl.CountingConnectionPoolMonitor;
+import com.netflix.dyno.connectionpool.impl.lb.HostToken;
+import com.netflix.dyno.jedis.JedisConnectionFactory.JedisConnection;
+
+/**
+ * Tests the sharded mode of {@link DynoJedisPipeline} with a token aware connection pool over two hosts. The redis of
+ * each host is a mocked pipeline that replies to a GET of a key with "value:" and the key.
+ */
+public class ShardedPipelineTest {
+
+	private static final long Token1 = 1383429731L;
+	private static final long Token2 = 3530913377L;
+
+	private final Host host1 = new Host("host1", 8102, Status.Up).setRack("localRack");
+	private final Host host2 = new Host("host2", 8102, Status.Up).setRack("localRack");
+
+	private final Map<Host, Long> tokens = new HashMap<Host, Long>();
+	private final Map<Host, Pipeline> pipelines = new HashMap<Host, Pipeline>();
+	private final Map<Host, Jedis> clients = new HashMap<Host, Jedis>();
+
+	private CountingConnectionPoolMonitor monitor;
+	private ConnectionPoolImpl<Jedis> connectionPool;
+	private DynoJedisClient client;
+
+	@Before
+	public void before() throws Exception {
+
+		tokens.put(host1, Token1);
+		tokens.put(host2, Token2);
+		for (Host host : tokens.keySet()) {
+			pipelines.put(host, mockPipeline());
+		}
+
+		ConnectionPoolConfigurationImpl config = new ConnectionPoolConfigurationImpl("ShardedPipelineTest")
+				.setLoadBalancingStrategy(LoadBalancingStrategy.TokenAware)
+				.setLocalRack("localRack")
+				.setMaxConnsPerHost(2)
+				.withHostSupplier(new HostSupplier() {
+					@Override
+					public Collection<Host> getHosts() {
+						return tokens.keySet();
+					}
+				})
+				.withTokenSupplier(new TokenMapSupplier() {
+					@Override
+					public List<HostToken> getTokens(Set<Host> activeHosts) {
+						List<HostToken> hostTokens = new ArrayList<HostToken>();
+						for (Host host : activeHosts) {
+							hostTokens.add(new HostToken(tokens.get(host), host));
+						}
+						return hostTokens;
+					}
+
+					@Override
+					public HostToken getTokenForHost(Host host, Set<Host> activeHosts) {
+						return new HostToken(tokens.get(host), host);
+					}
+				});
+
+		monitor = new CountingConnectionPoolMonitor();
+		connectionPool = new ConnectionPoolImpl<Jedis>(new PipelineConnectionFactory(), config, monitor);
+		connectionPool.start().get();
+
+		client = new DynoJedisClient.TestBuilder()
+				.withAppname("ShardedPipelineTest")
+				.withConnectionPool(connectionPool)
+				.build();
+	}
+
+	@After
+	public void after() {
+		client.stopClient();
+	}
+
+	@Test
+	public void testResultsInIssueOrder() {
+
+		List<String> keys = keys(20);
+		long borrowed = monitor.getConnectionBorrowedCount();
+
+		DynoJedisPipeline pipeline = client.shardedPipelined();
+		Assert.assertTrue(pipeline.isSharded());
+		for (String key : keys) {
+			pipeline.get(key);
+		}
+		List<Object> results = pipeline.syncAndReturnAll();
+
+		Assert.assertEquals(keys.size(), results.size());
+		for (int i = 0; i < keys.size(); i++) {
+			Assert.assertEquals("value:" + keys.get(i), results.get(i));
+		}
+
+		// one connection and pipeline per host, both given back once synced
+		Assert.assertEquals(borrowed + 2, monitor.getConnectionBorrowedCount());
+		Assert.assertEquals(monitor.getConnectionBorrowedCount(), monitor.getConnectionReturnedCount());
+		for (Host host : tokens.keySet()) {
+			verify(clients.get(host), times(1)).pipelined();
+		}
+	}
+
+	@Test
+	public void testSyncFlushesAllHosts() {
+
+		DynoJedisPipeline pipeline = client.shardedPipelined();
+		for (String key : keys(20)) {
+			pipeline.get(key);
+		}
+		pipeline.sync();
+
+		for (Pipeline hostPipeline : pipelines.values()) {
+			verify(hostPipeline, times(1)).sync();
+		}
+		Assert.assertEquals(monitor.getConnectionBorrowedCount(), monitor.getConnectionReturnedCount());
+	}
+
+	@Test
+	public void testConnectionsReleasedWhenOneHostFails() {
+
+		doThrow(new JedisConnectionException("connection reset")).when(pipelines.get(host2)).syncAndReturnAll();
+
+		DynoJedisPipeline pipeline = client.shardedPipelined();
+		for (String key : keys(20)) {
+			pipeline.get(key);
+		}
+		try {
+			pipeline.syncAndReturnAll();
+			Assert.fail("Expected the failure of host2");
+		} catch (JedisConnectionException e) {
+			// expected
+		}
+
+		verify(pipelines.get(host1), times(1)).syncAndReturnAll();
+		Assert.assertEquals(monitor.getConnectionBorrowedCount(), monitor.getConnectionReturnedCount());
+	}
+
+	@Test
+	public void testConnectionsReleasedOnDiscard() {
+
+		long borrowed = monitor.getConnectionBorrowedCount();
+
+		DynoJedisPipeline pipeline = client.shardedPipelined();
+		for (String key : keys(20)) {
+			pipeline.get(key);
+		}
+		pipeline.discardPipelineAndReleaseConnection();
+
+		Assert.assertEquals(borrowed + 2, monitor.getConnectionBorrowedCount());
+		Assert.assertEquals(monitor.getConnectionBorrowedCount(), monitor.getConnectionReturnedCount());
+	}
+
+	@Test
+	public void testEmptyPipeline() {
+		Assert.assertEquals(Collections.emptyList(), client.shardedPipelined().syncAndReturnAll());
+	}
+
+	private static List<String> keys(int count) {
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			keys.add("key" + i);
+		}
+		return keys;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Pipeline mockPipeline() {
+
+		final List<Object> replies = Collections.synchronizedList(new ArrayList<Object>());
+
+		Pipeline pipeline = mock(Pipeline.class);
+		when(pipeline.get(anyString())).thenAnswer(new Answer<Response<String>>() {
+			@Override
+			public Response<String> answer(InvocationOnMock invocation) throws Throwable {
+				replies.add("value:" + invocation.getArguments()[0]);
+				return mock(Response.class);
+			}
+		});
+		when(pipeline.syncAndReturnAll()).thenAnswer(new Answer<List<Object>>() {
+			@Override
+			public List<Object> answer(InvocationOnMock invocation) throws Throwable {
+				List<Object> result = new ArrayList<Object>(replies);
+				replies.clear();
+				return result;
+			}
+		});
+		return pipeline;
+	}
+
+	/**
+	 * Creates jedis connections whose client is a mocked jedis that hands out the mocked pipeline of the host
+	 */
+	private class PipelineConnectionFactory implements ConnectionFactory<Jedis> {
+
+		@Override
+		public Connection<Jedis> createConnection(HostConnectionPool<Jedis> pool, ConnectionObservor observor) {
+			Host host = pool.getHost();
+			Jedis jedis = clients.get(host);
+			if (jedis == null) {
+				jedis = mock(Jedis.class);
+				when(jedis.pipelined()).thenReturn(pipelines.get(host));
+				clients.put(host, jedis);
+			}
+
+			JedisConnection connection = mock(JedisConnection.class);
+			when(connection.getClient()).thenReturn(jedis);
+			when(connection.getHost()).thenReturn(host);
+			when(connection.getParentConnectionPool()).thenReturn(pool);
+			when(connection.getContext()).thenReturn(new ConnectionContextImpl());
+			return connection;
+		}
+	}
+}
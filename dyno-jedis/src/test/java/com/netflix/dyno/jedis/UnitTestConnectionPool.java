@@ -19,6 +19,7 @@ import com.netflix.dyno.connectionpool.*;
 import com.netflix.dyno.connectionpool.exception.DynoException;
 import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
 import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.connectionpool.impl.SettableListenableFuture;
 import com.netflix.dyno.connectionpool.impl.utils.ZipUtils;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -140,7 +141,13 @@ public class UnitTestConnectionPool implements ConnectionPool<Jedis> {
 
     @Override
     public <R> ListenableFuture<OperationResult<R>> executeAsync(AsyncOperation<Jedis, R> op) throws DynoException {
-        return null;
+        SettableListenableFuture<OperationResult<R>> future = new SettableListenableFuture<OperationResult<R>>();
+        try {
+            future.set(executeWithFailover((Operation<Jedis, R>) op));
+        } catch (RuntimeException e) {
+            future.setException(e);
+        }
+        return future;
     }
 
     @Override
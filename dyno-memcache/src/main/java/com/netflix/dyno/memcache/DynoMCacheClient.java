@@ -57,6 +57,11 @@ public class DynoMCacheClient { /**implements MemcachedClientIF {
 		public String getKey() {
 			return key;
 		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
 	}
 	
 	private abstract class BaseAsyncKeyOperation<T> implements AsyncOperation<MemcachedClient, T> {
@@ -76,6 +81,11 @@ public class DynoMCacheClient { /**implements MemcachedClientIF {
 		public String getKey() {
 			return key;
 		}
+
+		@Override
+		public byte[] getBinaryKey() {
+			return null;
+		}
 	}
 	
 	public String toString() {
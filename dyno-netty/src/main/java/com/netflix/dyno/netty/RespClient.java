@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.netty;
+
+import java.nio.charset.Charset;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import com.netflix.dyno.connectionpool.impl.SettableListenableFuture;
+import com.netflix.dyno.netty.RespClientHandler.RespRequest;
+
+/**
+ * Sends RESP commands over one channel. Any number of threads can send commands at the same time, the commands are
+ * pipelined on the channel and each future is completed by the reply to its own command.
+ *
+ * This is the client handed to the operations of a {@link RespConnectionFactory.RespConnection}.
+ */
+public class RespClient {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final Channel channel;
+
+	RespClient(Channel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * @param args the command and its arguments, e.g. "SET", key, value
+	 * @return the future reply, failed with a FatalConnectionException if the connection is lost first
+	 */
+	public ListenableFuture<RespReply> execute(String... args) {
+		byte[][] binaryArgs = new byte[args.length][];
+		for (int i = 0; i < args.length; i++) {
+			binaryArgs[i] = args[i].getBytes(UTF_8);
+		}
+		return execute(binaryArgs);
+	}
+
+	/**
+	 * @param args the command and its arguments. Large arguments are written to the socket from these arrays, they
+	 *             must not be changed until the reply has arrived.
+	 * @return the future reply, failed with a FatalConnectionException if the connection is lost first
+	 */
+	public ListenableFuture<RespReply> execute(byte[]... args) {
+
+		final SettableListenableFuture<RespReply> reply = new SettableListenableFuture<RespReply>();
+		ByteBuf command = RespEncoder.encode(channel.alloc(), args);
+
+		channel.writeAndFlush(new RespRequest(command, reply)).addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) throws Exception {
+				if (!future.isSuccess()) {
+					reply.setException(new FatalConnectionException(future.cause()));
+					future.channel().close();
+				}
+			}
+		});
+		return reply;
+	}
+
+	public boolean isConnected() {
+		return channel.isActive();
+	}
+}
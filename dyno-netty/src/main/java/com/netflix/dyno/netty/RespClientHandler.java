@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.netty;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import com.netflix.dyno.connectionpool.impl.SettableListenableFuture;
+
+/**
+ * Matches the replies of a channel to its requests.
+ *
+ * Redis replies to the commands of a connection in the order it received them, so the futures of the requests are
+ * queued in the order their commands are written, and each reply completes the future at the head of the queue.
+ * Both happen on the event loop of the channel, so the queue needs no locking.
+ */
+class RespClientHandler extends ChannelDuplexHandler {
+
+	/**
+	 * A command and the future of its reply
+	 */
+	static class RespRequest {
+
+		private final ByteBuf command;
+		private final SettableListenableFuture<RespReply> reply;
+
+		RespRequest(ByteBuf command, SettableListenableFuture<RespReply> reply) {
+			this.command = command;
+			this.reply = reply;
+		}
+	}
+
+	private final Queue<SettableListenableFuture<RespReply>> pending = new ArrayDeque<SettableListenableFuture<RespReply>>();
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+
+		if (!(msg instanceof RespRequest)) {
+			ctx.write(msg, promise);
+			return;
+		}
+
+		RespRequest request = (RespRequest) msg;
+		if (!ctx.channel().isActive()) {
+			request.command.release();
+			request.reply.setException(new FatalConnectionException("Connection closed to " + ctx.channel().remoteAddress()));
+			promise.setFailure(new FatalConnectionException("Connection closed"));
+			return;
+		}
+
+		pending.add(request.reply);
+		ctx.write(request.command, promise);
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+
+		if (!(msg instanceof RespReply)) {
+			ctx.fireChannelRead(msg);
+			return;
+		}
+
+		SettableListenableFuture<RespReply> reply = pending.poll();
+		if (reply == null) {
+			failAll(new FatalConnectionException("Received a reply without a request from " + ctx.channel().remoteAddress()));
+			ctx.close();
+			return;
+		}
+		reply.set((RespReply) msg);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		failAll(new FatalConnectionException("Connection closed to " + ctx.channel().remoteAddress()));
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+		failAll(new FatalConnectionException(cause));
+		ctx.close();
+	}
+
+	int getPendingCount() {
+		return pending.size();
+	}
+
+	private void failAll(FatalConnectionException e) {
+		SettableListenableFuture<RespReply> reply;
+		while ((reply = pending.poll()) != null) {
+			reply.setException(e);
+		}
+	}
+}
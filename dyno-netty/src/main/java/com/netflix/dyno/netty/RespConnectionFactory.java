@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.netty;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.dyno.connectionpool.AsyncOperation;
+import com.netflix.dyno.connectionpool.Connection;
+import com.netflix.dyno.connectionpool.ConnectionContext;
+import com.netflix.dyno.connectionpool.ConnectionFactory;
+import com.netflix.dyno.connectionpool.ConnectionObservor;
+import com.netflix.dyno.connectionpool.Host;
+import com.netflix.dyno.connectionpool.HostConnectionPool;
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.Operation;
+import com.netflix.dyno.connectionpool.OperationMonitor;
+import com.netflix.dyno.connectionpool.OperationResult;
+import com.netflix.dyno.connectionpool.exception.DynoConnectException;
+import com.netflix.dyno.connectionpool.exception.DynoException;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+import com.netflix.dyno.connectionpool.exception.ThrottledException;
+import com.netflix.dyno.connectionpool.impl.ConnectionContextImpl;
+import com.netflix.dyno.connectionpool.impl.OperationResultImpl;
+import com.netflix.dyno.connectionpool.impl.SettableListenableFuture;
+
+/**
+ * {@link ConnectionFactory} whose connections speak RESP over Netty channels that all share one event loop group.
+ *
+ * Unlike a jedis connection, a connection here is not held for the round trip of one operation: any number of
+ * operations can be in flight on it at the same time, pipelined and matched to their replies by order. It is meant
+ * for the {@link com.netflix.dyno.connectionpool.impl.SimpleAsyncConnectionPoolImpl}, which hands out its few
+ * connections round robin without reserving them, e.g.
+ *
+ * <pre>
+ * RespConnectionFactory connFactory = new RespConnectionFactory(opMonitor);
+ * ConnectionPoolImpl&lt;RespClient&gt; pool = new ConnectionPoolImpl&lt;RespClient&gt;(connFactory, cpConfig, cpMonitor, Type.Async);
+ * </pre>
+ *
+ * The operations run with {@link com.netflix.dyno.connectionpool.ConnectionPool#executeAsync(AsyncOperation)}, which
+ * bounds the operations in flight per host and times them out.
+ */
+public class RespConnectionFactory implements ConnectionFactory<RespClient> {
+
+	private static final Logger Logger = LoggerFactory.getLogger(RespConnectionFactory.class);
+
+	private static final Executor SameThread = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	private final OperationMonitor opMonitor;
+	private final EventLoopGroup eventLoops;
+
+	/**
+	 * Uses Netty's default number of event loop threads, twice the number of cores
+	 */
+	public RespConnectionFactory(OperationMonitor monitor) {
+		this(monitor, 0);
+	}
+
+	public RespConnectionFactory(OperationMonitor monitor, int eventLoopThreads) {
+		this.opMonitor = monitor;
+		this.eventLoops = new NioEventLoopGroup(eventLoopThreads, new DefaultThreadFactory("DynoResp", true));
+	}
+
+	@Override
+	public Connection<RespClient> createConnection(HostConnectionPool<RespClient> pool, ConnectionObservor connectionObservor)
+			throws DynoConnectException, ThrottledException {
+		return new RespConnection(pool);
+	}
+
+	/**
+	 * Closes the event loops once the connection pool has been shut down
+	 */
+	public void shutdown() {
+		eventLoops.shutdownGracefully();
+	}
+
+	public class RespConnection implements Connection<RespClient> {
+
+		private final HostConnectionPool<RespClient> hostPool;
+		private final ConnectionContextImpl context = new ConnectionContextImpl();
+		private final Map<String, String> resultMetadata;
+
+		private volatile Channel channel;
+		private volatile RespClient client;
+		private volatile boolean closing = false;
+		private volatile DynoConnectException lastDynoException;
+
+		public RespConnection(HostConnectionPool<RespClient> hostPool) {
+			this.hostPool = hostPool;
+			this.resultMetadata = Collections.singletonMap("connectionId", String.valueOf(this.hashCode()));
+		}
+
+		@Override
+		public void open() throws DynoException {
+
+			Host host = hostPool.getHost();
+			Bootstrap bootstrap = new Bootstrap()
+					.group(eventLoops)
+					.channel(NioSocketChannel.class)
+					.option(ChannelOption.TCP_NODELAY, true)
+					.option(ChannelOption.SO_KEEPALIVE, true)
+					.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, hostPool.getConnectionTimeout())
+					.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+					.handler(new ChannelInitializer<SocketChannel>() {
+						@Override
+						protected void initChannel(SocketChannel ch) throws Exception {
+							ch.pipeline().addLast(new RespDecoder(), new RespClientHandler());
+						}
+					});
+
+			ChannelFuture connect = bootstrap.connect(host.getHostAddress(), host.getPort()).awaitUninterruptibly();
+			if (!connect.isSuccess()) {
+				lastDynoException = new FatalConnectionException("Failed to connect to " + host,
+						connect.cause()).setHost(host);
+				throw lastDynoException;
+			}
+
+			channel = connect.channel();
+			client = new RespClient(channel);
+			channel.closeFuture().addListener(new ChannelFutureListener() {
+				@Override
+				public void operationComplete(ChannelFuture future) throws Exception {
+					if (!closing) {
+						Logger.warn("Lost connection to " + getHost());
+						lastDynoException = new FatalConnectionException("Connection closed").setHost(getHost());
+					}
+				}
+			});
+		}
+
+		/**
+		 * Runs the operation on the calling thread, which waits for any reply the operation waits for
+		 */
+		@Override
+		public <R> OperationResult<R> execute(Operation<RespClient, R> op) throws DynoException {
+
+			long startTime = System.nanoTime() / 1000;
+			String opName = op.getName();
+			try {
+				R result = op.execute(client, context);
+				opMonitor.recordSuccess(opName);
+				return new OperationResultImpl<R>(opName, result, opMonitor, resultMetadata)
+						.setLatency(System.nanoTime() / 1000 - startTime, TimeUnit.MICROSECONDS);
+
+			} catch (DynoException ex) {
+				opMonitor.recordFailure(opName, ex.getMessage());
+				throw ex;
+			} catch (RuntimeException ex) {
+				opMonitor.recordFailure(opName, ex.getMessage());
+				throw new DynoException(ex);
+			}
+		}
+
+		@Override
+		public <R> ListenableFuture<OperationResult<R>> executeAsync(final AsyncOperation<RespClient, R> op) throws DynoException {
+
+			final long startTime = System.nanoTime() / 1000;
+			final String opName = op.getName();
+			final SettableListenableFuture<OperationResult<R>> result = new SettableListenableFuture<OperationResult<R>>();
+			final ListenableFuture<R> future = op.executeAsync(client);
+
+			future.addListener(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						R r = future.get();
+						opMonitor.recordSuccess(opName);
+						result.set(new OperationResultImpl<R>(opName, r, opMonitor, resultMetadata)
+								.setLatency(System.nanoTime() / 1000 - startTime, TimeUnit.MICROSECONDS));
+					} catch (ExecutionException e) {
+						opMonitor.recordFailure(opName, e.getCause().getMessage());
+						result.setException(e.getCause());
+					} catch (Exception e) {
+						opMonitor.recordFailure(opName, e.getMessage());
+						result.setException(e);
+					}
+				}
+			}, SameThread);
+			return result;
+		}
+
+		@Override
+		public void close() {
+			closing = true;
+			if (channel != null) {
+				channel.close();
+			}
+		}
+
+		@Override
+		public Host getHost() {
+			return hostPool.getHost();
+		}
+
+		@Override
+		public DynoConnectException getLastException() {
+			return lastDynoException;
+		}
+
+		@Override
+		public HostConnectionPool<RespClient> getParentConnectionPool() {
+			return hostPool;
+		}
+
+		@Override
+		public void execPing() {
+			try {
+				RespReply reply = client.execute("PING").get(hostPool.getConnectionTimeout(), TimeUnit.MILLISECONDS);
+				if (reply.isError()) {
+					throw new DynoConnectException("Unexpected reply to PING: " + reply.asString());
+				}
+			} catch (DynoConnectException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new FatalConnectionException("Failed to PING " + getHost(), e).setHost(getHost());
+			}
+		}
+
+		@Override
+		public ConnectionContext getContext() {
+			return context;
+		}
+	}
+}
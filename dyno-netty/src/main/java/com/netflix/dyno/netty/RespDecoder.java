@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.netty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.ByteProcessor;
+
+/**
+ * Decodes the RESP replies in the inbound bytes into {@link RespReply}s.
+ *
+ * A reply is parsed straight out of the cumulated ByteBuf, lengths and integers included, without going through
+ * intermediate strings or buffers. When the bytes of a reply have not all arrived yet the reader index is put back
+ * and the reply is parsed again once more bytes are in.
+ */
+public class RespDecoder extends ByteToMessageDecoder {
+
+	// parse() result for a reply whose bytes have not all arrived yet
+	private static final RespReply Incomplete = RespReply.integer(0L);
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+		int start = in.readerIndex();
+		RespReply reply = parse(in);
+		if (reply == Incomplete) {
+			in.readerIndex(start);
+		} else {
+			out.add(reply);
+		}
+	}
+
+	private static RespReply parse(ByteBuf in) {
+
+		if (!in.isReadable()) {
+			return Incomplete;
+		}
+
+		byte type = in.readByte();
+		switch (type) {
+			case '+': {
+				byte[] line = readLine(in);
+				return (line == null) ? Incomplete : RespReply.simpleString(line);
+			}
+			case '-': {
+				byte[] line = readLine(in);
+				return (line == null) ? Incomplete : RespReply.error(line);
+			}
+			case ':': {
+				int eol = findEndOfLine(in);
+				return (eol < 0) ? Incomplete : RespReply.integer(readLong(in, eol));
+			}
+			case '$': {
+				int eol = findEndOfLine(in);
+				if (eol < 0) {
+					return Incomplete;
+				}
+				int length = (int) readLong(in, eol);
+				if (length < 0) {
+					return RespReply.NullBulk;
+				}
+				if (in.readableBytes() < length + 2) {
+					return Incomplete;
+				}
+				byte[] bytes = new byte[length];
+				in.readBytes(bytes);
+				in.skipBytes(2);
+				return RespReply.bulk(bytes);
+			}
+			case '*': {
+				int eol = findEndOfLine(in);
+				if (eol < 0) {
+					return Incomplete;
+				}
+				int count = (int) readLong(in, eol);
+				if (count < 0) {
+					return RespReply.NullArray;
+				}
+				List<RespReply> elements = new ArrayList<RespReply>(count);
+				for (int i = 0; i < count; i++) {
+					RespReply element = parse(in);
+					if (element == Incomplete) {
+						return Incomplete;
+					}
+					elements.add(element);
+				}
+				return RespReply.array(elements);
+			}
+			default:
+				throw new CorruptedFrameException("Unknown RESP reply type: " + (char) type);
+		}
+	}
+
+	/**
+	 * @return the index of the CR of the CRLF that ends the line at the reader index, or -1 if it has not arrived
+	 */
+	private static int findEndOfLine(ByteBuf in) {
+		int lf = in.forEachByte(ByteProcessor.FIND_LF);
+		return (lf < 0) ? -1 : lf - 1;
+	}
+
+	private static byte[] readLine(ByteBuf in) {
+		int eol = findEndOfLine(in);
+		if (eol < 0) {
+			return null;
+		}
+		byte[] line = new byte[eol - in.readerIndex()];
+		in.readBytes(line);
+		in.skipBytes(2);
+		return line;
+	}
+
+	private static long readLong(ByteBuf in, int eol) {
+
+		boolean negative = in.getByte(in.readerIndex()) == '-';
+		if (negative) {
+			in.skipBytes(1);
+		}
+
+		long value = 0;
+		while (in.readerIndex() < eol) {
+			byte digit = in.readByte();
+			if (digit < '0' || digit > '9') {
+				throw new CorruptedFrameException("Invalid RESP integer digit: " + (char) digit);
+			}
+			value = value * 10 + (digit - '0');
+		}
+		in.skipBytes(2);
+		return negative ? -value : value;
+	}
+}
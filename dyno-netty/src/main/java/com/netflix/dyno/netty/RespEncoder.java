@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Encodes a command as a RESP array of bulk strings.
+ *
+ * Small arguments are copied into the buffer that holds the headers. Arguments of {@link #WrapThreshold} bytes and
+ * more are not copied, the buffer of the command is a composite one that wraps them, so a large value goes from the
+ * caller's array to the socket without being copied by the client.
+ */
+final class RespEncoder {
+
+	static final int WrapThreshold = 1024;
+
+	private static final byte[] CRLF = { '\r', '\n' };
+
+	private RespEncoder() {
+	}
+
+	static ByteBuf encode(ByteBufAllocator alloc, byte[]... args) {
+
+		int copiedBytes = 16;
+		boolean wrap = false;
+		for (byte[] arg : args) {
+			if (arg.length >= WrapThreshold) {
+				wrap = true;
+			} else {
+				copiedBytes += 16 + arg.length;
+			}
+		}
+
+		ByteBuf buf = alloc.buffer(wrap ? 16 + 16 * args.length : copiedBytes);
+		writeHeader(buf, '*', args.length);
+
+		if (!wrap) {
+			for (byte[] arg : args) {
+				writeHeader(buf, '$', arg.length);
+				buf.writeBytes(arg);
+				buf.writeBytes(CRLF);
+			}
+			return buf;
+		}
+
+		CompositeByteBuf command = alloc.compositeBuffer(2 * args.length + 1);
+		for (byte[] arg : args) {
+			writeHeader(buf, '$', arg.length);
+			if (arg.length >= WrapThreshold) {
+				command.addComponent(true, buf);
+				command.addComponent(true, Unpooled.wrappedBuffer(arg));
+				buf = alloc.buffer(16 + 16 * args.length);
+				buf.writeBytes(CRLF);
+			} else {
+				buf.writeBytes(arg);
+				buf.writeBytes(CRLF);
+			}
+		}
+		command.addComponent(true, buf);
+		return command;
+	}
+
+	private static void writeHeader(ByteBuf buf, char type, int length) {
+		buf.writeByte(type);
+		writeDecimal(buf, length);
+		buf.writeBytes(CRLF);
+	}
+
+	private static void writeDecimal(ByteBuf buf, int value) {
+		if (value >= 10) {
+			writeDecimal(buf, value / 10);
+		}
+		buf.writeByte('0' + value % 10);
+	}
+}
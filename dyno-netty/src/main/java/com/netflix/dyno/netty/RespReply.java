@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.netty;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A reply of the RESP protocol, which is one of
+ *
+ * <pre>
+ * +simple string
+ * -error
+ * :integer
+ * $bulk string, or $-1 for a null bulk string
+ * *array of replies, or *-1 for a null array
+ * </pre>
+ *
+ * An error reply is an ordinary reply, it is up to the caller to check {@link #isError()}.
+ */
+public class RespReply {
+
+	public enum Type {
+		SimpleString, Error, Integer, Bulk, Array
+	}
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	static final RespReply NullBulk = new RespReply(Type.Bulk, null, 0L, null);
+	static final RespReply NullArray = new RespReply(Type.Array, null, 0L, null);
+
+	private final Type type;
+	private final byte[] bytes;
+	private final long integer;
+	private final List<RespReply> elements;
+
+	private RespReply(Type type, byte[] bytes, long integer, List<RespReply> elements) {
+		this.type = type;
+		this.bytes = bytes;
+		this.integer = integer;
+		this.elements = elements;
+	}
+
+	static RespReply simpleString(byte[] bytes) {
+		return new RespReply(Type.SimpleString, bytes, 0L, null);
+	}
+
+	static RespReply error(byte[] bytes) {
+		return new RespReply(Type.Error, bytes, 0L, null);
+	}
+
+	static RespReply integer(long value) {
+		return new RespReply(Type.Integer, null, value, null);
+	}
+
+	static RespReply bulk(byte[] bytes) {
+		return new RespReply(Type.Bulk, bytes, 0L, null);
+	}
+
+	static RespReply array(List<RespReply> elements) {
+		return new RespReply(Type.Array, null, 0L, Collections.unmodifiableList(elements));
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public boolean isError() {
+		return type == Type.Error;
+	}
+
+	/**
+	 * @return true for a null bulk string or a null array
+	 */
+	public boolean isNull() {
+		return this == NullBulk || this == NullArray;
+	}
+
+	/**
+	 * @return the bytes of a simple string, error or bulk string, null otherwise
+	 */
+	public byte[] asBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return a simple string, error or bulk string as UTF-8, or the integer as a string
+	 */
+	public String asString() {
+		if (type == Type.Integer) {
+			return String.valueOf(integer);
+		}
+		return (bytes == null) ? null : new String(bytes, UTF_8);
+	}
+
+	/**
+	 * @return the integer, or a simple string or bulk string parsed as one
+	 * @throws NumberFormatException if the reply is not a number
+	 */
+	public long asLong() {
+		if (type == Type.Integer) {
+			return integer;
+		}
+		return Long.parseLong(asString());
+	}
+
+	/**
+	 * @return the elements of an array, null otherwise
+	 */
+	public List<RespReply> getElements() {
+		return elements;
+	}
+
+	@Override
+	public String toString() {
+		if (isNull()) {
+			return "RespReply [" + type + " null]";
+		}
+		return "RespReply [" + type + " " + (type == Type.Array ? elements : asString()) + "]";
+	}
+}
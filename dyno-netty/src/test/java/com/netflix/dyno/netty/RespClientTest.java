@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.netty;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.dyno.connectionpool.ListenableFuture;
+import com.netflix.dyno.connectionpool.exception.FatalConnectionException;
+
+public class RespClientTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private EmbeddedChannel channel;
+	private RespClientHandler handler;
+	private RespClient client;
+
+	@Before
+	public void before() {
+		handler = new RespClientHandler();
+		channel = new EmbeddedChannel(new RespDecoder(), handler);
+		client = new RespClient(channel);
+	}
+
+	@Test
+	public void testCommandEncoding() throws Exception {
+
+		client.execute("SET", "key", "value");
+
+		Assert.assertEquals("*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$5\r\nvalue\r\n", readOutbound());
+	}
+
+	@Test
+	public void testLargeArgumentsAreWrapped() throws Exception {
+
+		byte[] value = new byte[RespEncoder.WrapThreshold * 4];
+		Arrays.fill(value, (byte) 'v');
+		client.execute("SET".getBytes(UTF_8), "key".getBytes(UTF_8), value);
+
+		ByteBuf command = channel.readOutbound();
+		Assert.assertTrue(command instanceof CompositeByteBuf);
+
+		// the value is written from the caller's array, not from a copy of it
+		value[0] = 'x';
+		String encoded = command.toString(UTF_8);
+		command.release();
+		Assert.assertTrue(encoded.startsWith("*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$4096\r\nxvvv"));
+		Assert.assertTrue(encoded.endsWith("vvv\r\n"));
+		Assert.assertEquals(encoded.length(), 4096 + "*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$4096\r\n\r\n".length());
+	}
+
+	@Test
+	public void testRepliesCompleteCommandsInOrder() throws Exception {
+
+		ListenableFuture<RespReply> get1 = client.execute("GET", "key1");
+		ListenableFuture<RespReply> get2 = client.execute("GET", "key2");
+		ListenableFuture<RespReply> incr = client.execute("INCR", "counter");
+		Assert.assertEquals(3, handler.getPendingCount());
+
+		readOutbound();
+		readOutbound();
+		readOutbound();
+
+		reply("$6\r\nvalue1\r\n$-1\r\n");
+		Assert.assertEquals("value1", get1.get().asString());
+		Assert.assertTrue(get2.get().isNull());
+		Assert.assertFalse(incr.isDone());
+
+		reply(":1\r\n");
+		Assert.assertEquals(1L, incr.get().asLong());
+		Assert.assertEquals(0, handler.getPendingCount());
+	}
+
+	@Test
+	public void testErrorReplyDoesNotFailTheFuture() throws Exception {
+
+		ListenableFuture<RespReply> future = client.execute("INCR", "key");
+		reply("-ERR value is not an integer\r\n");
+
+		Assert.assertTrue(future.get().isError());
+	}
+
+	@Test
+	public void testPendingCommandsFailWhenChannelCloses() throws Exception {
+
+		ListenableFuture<RespReply> get1 = client.execute("GET", "key1");
+		ListenableFuture<RespReply> get2 = client.execute("GET", "key2");
+		channel.close();
+
+		assertFailedWith(get1, FatalConnectionException.class);
+		assertFailedWith(get2, FatalConnectionException.class);
+		Assert.assertFalse(client.isConnected());
+
+		// commands sent after the close fail right away
+		assertFailedWith(client.execute("GET", "key3"), FatalConnectionException.class);
+	}
+
+	@Test
+	public void testUnexpectedReplyClosesChannel() throws Exception {
+
+		reply("+OK\r\n");
+
+		Assert.assertFalse(channel.isActive());
+	}
+
+	private String readOutbound() {
+		ByteBuf buf = channel.readOutbound();
+		try {
+			return buf.toString(UTF_8);
+		} finally {
+			buf.release();
+		}
+	}
+
+	private void reply(String s) {
+		channel.writeInbound(Unpooled.copiedBuffer(s, UTF_8));
+	}
+
+	private static void assertFailedWith(ListenableFuture<RespReply> future, Class<?> exceptionClass) throws Exception {
+		try {
+			future.get();
+			Assert.fail("Expected " + exceptionClass.getSimpleName());
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause().toString(), exceptionClass.isInstance(e.getCause()));
+		}
+	}
+}
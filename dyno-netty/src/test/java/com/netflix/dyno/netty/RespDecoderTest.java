@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2011 Netflix
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.netflix.dyno.netty;
+
+import java.nio.charset.Charset;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RespDecoderTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private EmbeddedChannel channel;
+
+	@Before
+	public void before() {
+		channel = new EmbeddedChannel(new RespDecoder());
+	}
+
+	@Test
+	public void testSimpleReplies() throws Exception {
+
+		write("+OK\r\n-ERR unknown command\r\n:-42\r\n$5\r\nhello\r\n$0\r\n\r\n");
+
+		RespReply ok = channel.readInbound();
+		Assert.assertEquals(RespReply.Type.SimpleString, ok.getType());
+		Assert.assertEquals("OK", ok.asString());
+
+		RespReply error = channel.readInbound();
+		Assert.assertTrue(error.isError());
+		Assert.assertEquals("ERR unknown command", error.asString());
+
+		RespReply integer = channel.readInbound();
+		Assert.assertEquals(-42L, integer.asLong());
+
+		RespReply bulk = channel.readInbound();
+		Assert.assertEquals("hello", bulk.asString());
+
+		RespReply empty = channel.readInbound();
+		Assert.assertEquals("", empty.asString());
+		Assert.assertFalse(empty.isNull());
+
+		Assert.assertNull(channel.readInbound());
+	}
+
+	@Test
+	public void testNullReplies() throws Exception {
+
+		write("$-1\r\n*-1\r\n");
+
+		RespReply bulk = channel.readInbound();
+		Assert.assertTrue(bulk.isNull());
+		Assert.assertNull(bulk.asString());
+
+		RespReply array = channel.readInbound();
+		Assert.assertTrue(array.isNull());
+		Assert.assertNull(array.getElements());
+	}
+
+	@Test
+	public void testNestedArrays() throws Exception {
+
+		write("*3\r\n$1\r\n0\r\n*2\r\n$3\r\nkey\r\n$-1\r\n:7\r\n");
+
+		RespReply reply = channel.readInbound();
+		Assert.assertEquals(RespReply.Type.Array, reply.getType());
+		Assert.assertEquals(3, reply.getElements().size());
+		Assert.assertEquals("0", reply.getElements().get(0).asString());
+
+		RespReply nested = reply.getElements().get(1);
+		Assert.assertEquals("key", nested.getElements().get(0).asString());
+		Assert.assertTrue(nested.getElements().get(1).isNull());
+		Assert.assertEquals(7L, reply.getElements().get(2).asLong());
+	}
+
+	@Test
+	public void testRepliesSplitAcrossReads() throws Exception {
+
+		String replies = "*2\r\n$5\r\nhello\r\n:12345\r\n+OK\r\n";
+		for (int i = 0; i < replies.length(); i++) {
+			write(replies.substring(i, i + 1));
+		}
+
+		RespReply array = channel.readInbound();
+		Assert.assertEquals("hello", array.getElements().get(0).asString());
+		Assert.assertEquals(12345L, array.getElements().get(1).asLong());
+
+		RespReply ok = channel.readInbound();
+		Assert.assertEquals("OK", ok.asString());
+		Assert.assertNull(channel.readInbound());
+	}
+
+	@Test
+	public void testBinaryBulkReply() throws Exception {
+
+		byte[] value = { 0, '\r', '\n', (byte) 0xFF, '$' };
+		channel.writeInbound(Unpooled.wrappedBuffer("$5\r\n".getBytes(UTF_8), value, "\r\n".getBytes(UTF_8)));
+
+		RespReply reply = channel.readInbound();
+		Assert.assertArrayEquals(value, reply.asBytes());
+	}
+
+	@Test(expected = DecoderException.class)
+	public void testUnknownReplyType() throws Exception {
+		write("?what\r\n");
+	}
+
+	private void write(String s) {
+		channel.writeInbound(Unpooled.copiedBuffer(s, UTF_8));
+	}
+}
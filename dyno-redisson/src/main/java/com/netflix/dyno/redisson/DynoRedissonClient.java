@@ -64,6 +64,11 @@ public class DynoRedissonClient {
 				return key;
 			}
 
+			@Override
+			public byte[] getBinaryKey() {
+				return null;
+			}
+
 			@Override
 			public ListenableFuture<String> executeAsync(RedisAsyncConnection<String, String> client) throws DynoException {
 				return new DecoratingListenableFuture<String>((client.get(key)));
@@ -85,6 +90,11 @@ public class DynoRedissonClient {
 				return key;
 			}
 
+			@Override
+			public byte[] getBinaryKey() {
+				return null;
+			}
+
 			@Override
 			public ListenableFuture<String> executeAsync(RedisAsyncConnection<String, String> client) throws DynoException {
 				return new DecoratingListenableFuture<String>((client.set(key, value)));